@@ -13,11 +13,12 @@
 package net.sf.oval;
 
 import net.sf.oval.context.OValContext;
+import net.sf.oval.expression.CompiledExpression;
 import net.sf.oval.expression.ExpressionLanguage;
+import net.sf.oval.expression.ExpressionTimeBudget;
 
 import java.io.Serializable;
 import java.util.Collections;
-import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -29,6 +30,11 @@ public abstract class AbstractCheck implements Check
 {
 	private static final long serialVersionUID = 1L;
 
+	/**
+	 * the variables available to the when formula in the order of the values passed to the compiled expression
+	 */
+	private static final String[] WHEN_VARIABLE_NAMES = {"_value", "_this"};
+
 	private OValContext context;
 	private String errorCode;
 	private String message;
@@ -40,8 +46,9 @@ public abstract class AbstractCheck implements Check
 	private ConstraintTarget[] appliesTo;
 	private String target;
 	private String when;
-	private transient String whenFormula;
-	private transient String whenLang;
+	private transient volatile String whenFormula;
+	private transient volatile String whenLang;
+	private transient volatile CompiledExpression whenExpression;
 
 	protected Map<String, ? extends Serializable> createMessageVariables()
 	{
@@ -173,19 +180,27 @@ public abstract class AbstractCheck implements Check
 	/**
 	 * {@inheritDoc}
 	 */
-	public synchronized boolean isActive(final Object validatedObject, final Object valueToValidate, final Validator validator)
+	public boolean isActive(final Object validatedObject, final Object valueToValidate, final Validator validator)
 	{
+		final String when = this.when;
 		if (when == null) return true;
 
 		// this triggers parsing of when, happens when this check instance was deserialized
 		if (whenLang == null) setWhen(when);
 
-		final Map<String, Object> values = new LinkedHashMap<>();
-		values.put("_value", valueToValidate);
-		values.put("_this", validatedObject);
+		// whenFormula is always assigned before whenLang, see setWhen()
+		final String whenLang = this.whenLang;
+		final String whenFormula = this.whenFormula;
 
 		final ExpressionLanguage el = validator.getExpressionLanguageRegistry().getExpressionLanguage(whenLang);
-		return el.evaluateAsBoolean(whenFormula, values);
+
+		CompiledExpression whenExpression = this.whenExpression;
+		if (whenExpression == null || !whenExpression.isCompiledFrom(el, whenFormula, WHEN_VARIABLE_NAMES))
+		{
+			whenExpression = CompiledExpression.compile(el, whenFormula, WHEN_VARIABLE_NAMES);
+			this.whenExpression = whenExpression;
+		}
+		return ExpressionTimeBudget.evaluateAsBoolean(whenExpression, new Object[]{valueToValidate, validatedObject});
 	}
 
 	/**
@@ -263,17 +278,18 @@ public abstract class AbstractCheck implements Check
 			if (when == null || when.length() == 0)
 			{
 				this.when = null;
-				whenFormula = null;
 				whenLang = null;
+				whenFormula = null;
 			}
 			else
 			{
 				final String[] parts = when.split(":", 2);
 				if (parts.length == 0) throw new IllegalArgumentException("[when] is missing the scripting language declaration");
 				this.when = when;
-				whenLang = parts[0];
 				whenFormula = parts[1];
+				whenLang = parts[0];
 			}
+			whenExpression = null;
 		}
 	}
 }
@@ -12,9 +12,10 @@
  *******************************************************************************/
 package net.sf.oval;
 
+import net.sf.oval.expression.CompiledExpression;
 import net.sf.oval.expression.ExpressionLanguage;
+import net.sf.oval.expression.ExpressionTimeBudget;
 
-import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -26,11 +27,17 @@ public abstract class AbstractCheckExclusion implements CheckExclusion
 {
 	private static final long serialVersionUID = 1L;
 
+	/**
+	 * the variables available to the when formula in the order of the values passed to the compiled expression
+	 */
+	private static final String[] WHEN_VARIABLE_NAMES = {"_value", "_this"};
+
 	private String[] profiles;
 
 	private String when;
 	private String whenFormula;
 	private String whenLang;
+	private transient volatile CompiledExpression whenExpression;
 
 	public Map<String, String> getMessageVariables()
 	{
@@ -60,12 +67,15 @@ public abstract class AbstractCheckExclusion implements CheckExclusion
 	{
 		if (when == null) return true;
 
-		final Map<String, Object> values = new LinkedHashMap<>();
-		values.put("_value", valueToValidate);
-		values.put("_this", validatedObject);
-
 		final ExpressionLanguage el = validator.getExpressionLanguageRegistry().getExpressionLanguage(whenLang);
-		return el.evaluateAsBoolean(whenFormula, values);
+
+		CompiledExpression whenExpression = this.whenExpression;
+		if (whenExpression == null || !whenExpression.isCompiledFrom(el, whenFormula, WHEN_VARIABLE_NAMES))
+		{
+			whenExpression = CompiledExpression.compile(el, whenFormula, WHEN_VARIABLE_NAMES);
+			this.whenExpression = whenExpression;
+		}
+		return ExpressionTimeBudget.evaluateAsBoolean(whenExpression, new Object[]{valueToValidate, validatedObject});
 	}
 
 	/**
@@ -96,5 +106,6 @@ public abstract class AbstractCheckExclusion implements CheckExclusion
 			whenLang = parts[0];
 			whenFormula = parts[1];
 		}
+		whenExpression = null;
 	}
 }
@@ -13,12 +13,14 @@
 package net.sf.oval;
 
 import net.sf.oval.context.OValContext;
+import net.sf.oval.internal.MessageRenderer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 /**
@@ -39,7 +41,22 @@ public class ConstraintViolation implements Serializable
 	private final OValContext context;
 	private final String errorCode;
 	private transient Object invalidValue;
-	private final String message;
+
+	/**
+	 * the rendered message, <code>null</code> until first requested if the violation was created with a message renderer
+	 */
+	private String message;
+
+	/**
+	 * renders the message on first access, see {@link #getMessage()}
+	 */
+	private transient Validator messageRenderer;
+
+	/**
+	 * the locale that was current when the violation was created, the lazily rendered message is localized with it
+	 */
+	private transient Locale messageLocale;
+
 	private final String messageTemplate;
 	private final Map<String, ? extends Serializable> messageVariables;
 
@@ -84,6 +101,19 @@ public class ConstraintViolation implements Serializable
 		this.causes = causes == null || causes.size() == 0 ? null : causes.toArray(new ConstraintViolation[causes.size()]);
 	}
 
+	/**
+	 * Creates a violation whose message is rendered lazily by the given validator on the first call of
+	 * {@link #getMessage()}, so no string processing takes place if the message is never requested. The message is
+	 * localized with the locale of {@link Validator#getLocaleProvider()} at the time of creation.
+	 */
+	ConstraintViolation(final Validator messageRenderer, final Check check, final Object validatedObject, final Object invalidValue,
+			final OValContext context, final List<ConstraintViolation> causes)
+	{
+		this(check, (String) null, validatedObject, invalidValue, context, causes);
+		this.messageRenderer = messageRenderer;
+		messageLocale = Validator.getLocaleProvider().getLocale();
+	}
+
 	/**
 	 * @return the causes or null of no causes exists
 	 */
@@ -147,11 +177,31 @@ public class ConstraintViolation implements Serializable
 	}
 
 	/**
+	 * The message of a violation reported by a {@link Validator} is rendered on the first call of this method,
+	 * possibly on another thread, using the locale that was current when the violation was created. The
+	 * <code>{invalidValue}</code> and <code>{context}</code> place holders are formatted on that first call too, i.e.
+	 * they reflect the state of the invalid value at that time.
+	 *
 	 * @return the localized and rendered message
 	 */
 	public String getMessage()
 	{
-		return message;
+		// racy but idempotent memoization, concurrent first calls at worst render the message twice
+		String msg = message;
+		if (msg == null && messageRenderer != null)
+		{
+			final Locale previousLocale = MessageRenderer.setLocale(messageLocale);
+			try
+			{
+				msg = messageRenderer.renderMessage(context, invalidValue, messageTemplate, messageVariables);
+			}
+			finally
+			{
+				MessageRenderer.setLocale(previousLocale);
+			}
+			message = msg;
+		}
+		return msg;
 	}
 
 	/**
@@ -207,7 +257,7 @@ public class ConstraintViolation implements Serializable
 	@Override
 	public String toString()
 	{
-		return getClass().getName() + ": " + message;
+		return getClass().getName() + ": " + getMessage();
 	}
 
 	/**
@@ -218,6 +268,9 @@ public class ConstraintViolation implements Serializable
 	 */
 	private void writeObject(final java.io.ObjectOutputStream out) throws IOException
 	{
+		// the message renderer is not serialized, hence the message must be rendered beforehand
+		getMessage();
+
 		out.defaultWriteObject();
 		if (validatedObject instanceof Serializable)
 		{
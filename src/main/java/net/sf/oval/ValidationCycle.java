@@ -0,0 +1,276 @@
+/*******************************************************************************
+ * Portions created by Sebastian Thomschke are copyright (c) 2005-2013 Sebastian
+ * Thomschke.
+ *
+ * All Rights Reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Sebastian Thomschke - initial implementation.
+ *******************************************************************************/
+package net.sf.oval;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import net.sf.oval.expression.ExpressionTimeBudget;
+import net.sf.oval.internal.util.IdentitySet;
+
+/**
+ * Holds the state of a single validation cycle, i.e. the collected constraint violations, the profiles to validate,
+ * the objects already validated (to detect circular references) and the abort conditions.
+ *
+ * Instances are confined to the thread running the validation cycle and are recycled via a small per-thread pool,
+ * see {@link #acquire(List, String[])} and {@link #release(ValidationCycle)}.
+ *
+ * @author Sebastian Thomschke
+ */
+public final class ValidationCycle
+{
+	private static final int MAX_POOLED_CYCLES_PER_THREAD = 8;
+
+	private static final ThreadLocal<ValidationCycle[]> POOL = new ThreadLocal<ValidationCycle[]>()
+	{
+		@Override
+		protected ValidationCycle[] initialValue()
+		{
+			return new ValidationCycle[MAX_POOLED_CYCLES_PER_THREAD];
+		}
+	};
+
+	/**
+	 * Returns a validation cycle from the pool of the current thread or creates a new one if the pool is empty.
+	 *
+	 * @param violations the list to add the constraint violations to, if <code>null</code> a new list is created
+	 * @param profiles the profiles to validate, <code>null</code> means the globally enabled profiles
+	 */
+	static ValidationCycle acquire(final List<ConstraintViolation> violations, final String[] profiles)
+	{
+		final ValidationCycle[] pool = POOL.get();
+		ValidationCycle cycle = null;
+		for (int i = pool.length - 1; i >= 0; i--)
+			if (pool[i] != null)
+			{
+				cycle = pool[i];
+				pool[i] = null;
+				break;
+			}
+		if (cycle == null) cycle = new ValidationCycle();
+
+		if (violations == null)
+			cycle.violations = new ArrayList<ConstraintViolation>();
+		else
+		{
+			cycle.violations = violations;
+			cycle.violationCount = violations.size();
+		}
+		cycle.profiles = profiles;
+		return cycle;
+	}
+
+	/**
+	 * Resets the given validation cycle and returns it to the pool of the current thread.
+	 */
+	static void release(final ValidationCycle cycle)
+	{
+		if (cycle.hasTimeBudget)
+		{
+			ExpressionTimeBudget.restore(cycle.previousTimeBudget);
+			cycle.previousTimeBudget = null;
+			cycle.hasTimeBudget = false;
+		}
+		cycle.violations = null;
+		cycle.violationCount = 0;
+		cycle.collectingViolations = true;
+		cycle.profiles = null;
+		cycle.failFast = false;
+		cycle.maxViolations = Integer.MAX_VALUE;
+		cycle.validatedObjects.clear();
+
+		final ValidationCycle[] pool = POOL.get();
+		for (int i = 0; i < pool.length; i++)
+			if (pool[i] == null)
+			{
+				pool[i] = cycle;
+				return;
+			}
+	}
+
+	private boolean collectingViolations = true;
+	private boolean failFast = false;
+	private boolean hasTimeBudget;
+	private ExpressionTimeBudget previousTimeBudget;
+	private int maxViolations = Integer.MAX_VALUE;
+	private String[] profiles;
+	private final IdentitySet<Object> validatedObjects = new IdentitySet<Object>(4);
+	/**
+	 * the number of violations detected in this cycle, including the ones of nested objects collected in separate
+	 * lists, see {@link #setViolations(List)}
+	 */
+	private int violationCount;
+	private List<ConstraintViolation> violations;
+
+	private ValidationCycle()
+	{
+		super();
+	}
+
+	/**
+	 * Adds the given violation to the violations of this cycle.
+	 *
+	 * @return <code>true</code> if the validation cycle can proceed, <code>false</code> if it shall be aborted
+	 */
+	public boolean addViolation(final ConstraintViolation violation)
+	{
+		violations.add(violation);
+		violationCount++;
+		return !isAborted();
+	}
+
+	/**
+	 * Adds a violation wrapping violations that have already been counted by this cycle, e.g. the violations of a
+	 * nested object. The wrapping violation itself is not counted.
+	 */
+	void addWrappingViolation(final ConstraintViolation violation)
+	{
+		violations.add(violation);
+	}
+
+	/**
+	 * Counts a violation without materializing it, used if violations are not collected.
+	 *
+	 * @return <code>true</code> if the validation cycle can proceed, <code>false</code> if it shall be aborted
+	 */
+	public boolean countViolation()
+	{
+		violationCount++;
+		return !isAborted();
+	}
+
+	/**
+	 * @return the maximum number of violations to detect before the validation cycle is aborted, violations of nested
+	 *         objects count as well
+	 */
+	public int getMaxViolations()
+	{
+		return maxViolations;
+	}
+
+	/**
+	 * @return the profiles to validate or <code>null</code> if the globally enabled profiles shall be used
+	 */
+	public String[] getProfiles()
+	{
+		return profiles;
+	}
+
+	/**
+	 * @return the violations collected so far
+	 */
+	public List<ConstraintViolation> getViolations()
+	{
+		return violations;
+	}
+
+	/**
+	 * @return <code>true</code> if no further constraints shall be validated in this cycle
+	 */
+	public boolean isAborted()
+	{
+		return violationCount >= maxViolations || failFast && violationCount > 0;
+	}
+
+	/**
+	 * @return <code>false</code> if violations are only counted, i.e. neither messages are rendered nor
+	 *         {@link ConstraintViolation} objects are created
+	 */
+	public boolean isCollectingViolations()
+	{
+		return collectingViolations;
+	}
+
+	/**
+	 * @return <code>true</code> if the validation cycle is aborted after the first violation
+	 */
+	public boolean isFailFast()
+	{
+		return failFast;
+	}
+
+	/**
+	 * Determines if the given object has already been validated in this cycle.
+	 */
+	public boolean isValidated(final Object object)
+	{
+		return validatedObjects.contains(object);
+	}
+
+	/**
+	 * Marks the given object as validated in this cycle.
+	 *
+	 * @return <code>false</code> if the object was already marked as validated
+	 */
+	public boolean markValidated(final Object object)
+	{
+		return validatedObjects.add(object);
+	}
+
+	/**
+	 * Limits the time spent evaluating expressions until this cycle is released, see {@link ExpressionTimeBudget}.
+	 *
+	 * @param expressionTimeBudget the maximum duration of a single expression evaluation, values less than 1 mean
+	 *            unlimited
+	 * @param timeBudget the maximum duration from now on after which no further expressions are evaluated, values
+	 *            less than 1 mean unlimited
+	 */
+	public void setTimeBudget(final long expressionTimeBudget, final long timeBudget, final TimeUnit unit)
+	{
+		if (hasTimeBudget)
+			ExpressionTimeBudget.restore(previousTimeBudget);
+		else if (expressionTimeBudget < 1 && timeBudget < 1) return;
+
+		previousTimeBudget = ExpressionTimeBudget.apply(expressionTimeBudget, timeBudget, unit);
+		hasTimeBudget = true;
+	}
+
+	/**
+	 * @param collectingViolations if <code>false</code> violations are only counted via {@link #countViolation()}
+	 */
+	public void setCollectingViolations(final boolean collectingViolations)
+	{
+		this.collectingViolations = collectingViolations;
+	}
+
+	/**
+	 * @param failFast if <code>true</code> the validation cycle is aborted after the first violation
+	 */
+	public void setFailFast(final boolean failFast)
+	{
+		this.failFast = failFast;
+	}
+
+	/**
+	 * @param maxViolations the maximum number of violations to detect before the validation cycle is aborted,
+	 *            violations of nested objects count as well
+	 */
+	public void setMaxViolations(final int maxViolations)
+	{
+		this.maxViolations = maxViolations < 1 ? Integer.MAX_VALUE : maxViolations;
+	}
+
+	/**
+	 * Replaces the list the violations are added to, e.g. to collect the violations of a nested object separately.
+	 * The violations added to the new list still count towards {@link #getMaxViolations()}.
+	 *
+	 * @return the previously used list
+	 */
+	public List<ConstraintViolation> setViolations(final List<ConstraintViolation> violations)
+	{
+		final List<ConstraintViolation> old = this.violations;
+		this.violations = violations;
+		return old;
+	}
+}
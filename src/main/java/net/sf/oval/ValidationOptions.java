@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Portions created by Sebastian Thomschke are copyright (c) 2005-2013 Sebastian
+ * Thomschke.
+ *
+ * All Rights Reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Sebastian Thomschke - initial implementation.
+ *******************************************************************************/
+package net.sf.oval;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Immutable settings controlling a single validation run, see {@link Validator#validate(Object, ValidationOptions)}.
+ *
+ * <pre>
+ * ValidationOptions options = new ValidationOptions.Builder().failFast(true).build();
+ * </pre>
+ *
+ * @author Sebastian Thomschke
+ */
+public final class ValidationOptions
+{
+	public static final class Builder
+	{
+		private long expressionTimeBudget;
+		private boolean failFast = false;
+		private int maxViolations = Integer.MAX_VALUE;
+		private String[] profiles;
+		private long timeBudget;
+
+		public ValidationOptions build()
+		{
+			return new ValidationOptions(this);
+		}
+
+		/**
+		 * @param expressionTimeBudget the maximum duration of a single expression evaluation, e.g. of an
+		 *            {@link net.sf.oval.constraint.Assert} constraint, values less than 1 mean the validator's default
+		 */
+		public Builder expressionTimeBudget(final long expressionTimeBudget, final TimeUnit unit)
+		{
+			this.expressionTimeBudget = expressionTimeBudget < 1 ? 0 : unit.toNanos(expressionTimeBudget);
+			return this;
+		}
+
+		/**
+		 * @param failFast if <code>true</code> the validation is aborted after the first violation
+		 */
+		public Builder failFast(final boolean failFast)
+		{
+			this.failFast = failFast;
+			return this;
+		}
+
+		/**
+		 * @param maxViolations the maximum number of violations to detect before the validation is aborted, violations
+		 *            of nested objects count as well, values less than 1 mean unlimited
+		 */
+		public Builder maxViolations(final int maxViolations)
+		{
+			this.maxViolations = maxViolations < 1 ? Integer.MAX_VALUE : maxViolations;
+			return this;
+		}
+
+		/**
+		 * @param profiles constraint profiles to validate against, <code>null</code> means the globally enabled profiles
+		 */
+		public Builder profiles(final String... profiles)
+		{
+			this.profiles = profiles;
+			return this;
+		}
+
+		/**
+		 * @param timeBudget the maximum duration of the validation after which no further expressions are evaluated,
+		 *            measured as wall-clock time from the start of the validation, values less than 1 mean the
+		 *            validator's default, see {@link Validator#setTimeBudget(long, TimeUnit)}
+		 */
+		public Builder timeBudget(final long timeBudget, final TimeUnit unit)
+		{
+			this.timeBudget = timeBudget < 1 ? 0 : unit.toNanos(timeBudget);
+			return this;
+		}
+	}
+
+	/**
+	 * collects all violations using the globally enabled profiles
+	 */
+	public static final ValidationOptions DEFAULT = new Builder().build();
+
+	private final long expressionTimeBudget;
+	private final boolean failFast;
+	private final int maxViolations;
+	private final String[] profiles;
+	private final long timeBudget;
+
+	private ValidationOptions(final Builder builder)
+	{
+		expressionTimeBudget = builder.expressionTimeBudget;
+		failFast = builder.failFast;
+		maxViolations = builder.maxViolations;
+		// the options are immutable, neither the builder nor the caller's array may change them
+		profiles = builder.profiles == null ? null : builder.profiles.clone();
+		timeBudget = builder.timeBudget;
+	}
+
+	/**
+	 * @return the maximum duration of a single expression evaluation in nanoseconds, 0 if the validator's default
+	 *         applies
+	 */
+	public long getExpressionTimeBudget()
+	{
+		return expressionTimeBudget;
+	}
+
+	/**
+	 * @return the maximum number of violations to detect before the validation is aborted, violations of nested
+	 *         objects count as well
+	 */
+	public int getMaxViolations()
+	{
+		return maxViolations;
+	}
+
+	/**
+	 * @return a copy of the profiles to validate or <code>null</code> if the globally enabled profiles shall be used
+	 */
+	public String[] getProfiles()
+	{
+		return profiles == null ? null : profiles.clone();
+	}
+
+	/**
+	 * @return the maximum duration of the validation after which no further expressions are evaluated in
+	 *         nanoseconds, 0 if the validator's default applies
+	 */
+	public long getTimeBudget()
+	{
+		return timeBudget;
+	}
+
+	/**
+	 * @return <code>true</code> if the validation is aborted after the first violation
+	 */
+	public boolean isFailFast()
+	{
+		return failFast;
+	}
+}
@@ -12,6 +12,10 @@
  *******************************************************************************/
 package net.sf.oval;
 
+import net.sf.oval.accessor.ValueAccessor;
+import net.sf.oval.accessor.ValueAccessorFactory;
+import net.sf.oval.accessor.ValueAccessorFactoryMethodHandleImpl;
+import net.sf.oval.accessor.ValueAccessorFactoryReflectionImpl;
 import net.sf.oval.configuration.Configurer;
 import net.sf.oval.configuration.annotation.AnnotationsConfigurer;
 import net.sf.oval.configuration.annotation.JPAAnnotationsConfigurer;
@@ -39,21 +43,23 @@ import net.sf.oval.exception.ExceptionTranslator;
 import net.sf.oval.exception.FieldNotFoundException;
 import net.sf.oval.exception.InvalidConfigurationException;
 import net.sf.oval.exception.MethodNotFoundException;
+import net.sf.oval.exception.ObjectGraphNavigatorNotAvailableException;
 import net.sf.oval.exception.OValException;
 import net.sf.oval.exception.ReflectionException;
 import net.sf.oval.exception.UndefinedConstraintSetException;
 import net.sf.oval.exception.ValidationFailedException;
 import net.sf.oval.expression.ExpressionLanguageRegistry;
+import net.sf.oval.expression.ExpressionTimeBudget;
 import net.sf.oval.guard.ParameterNameResolver;
 import net.sf.oval.guard.ParameterNameResolverEnumerationImpl;
 import net.sf.oval.internal.ClassChecks;
+import net.sf.oval.internal.CompiledTarget;
 import net.sf.oval.internal.ContextCache;
 import net.sf.oval.internal.MessageRenderer;
+import net.sf.oval.internal.ValidationPlan;
 import net.sf.oval.internal.util.ArrayUtils;
 import net.sf.oval.internal.util.Assert;
-import net.sf.oval.internal.util.IdentitySet;
 import net.sf.oval.internal.util.ReflectionUtils;
-import net.sf.oval.internal.util.StringUtils;
 import net.sf.oval.localization.context.OValContextRenderer;
 import net.sf.oval.localization.context.ToStringValidationContextRenderer;
 import net.sf.oval.localization.locale.LocaleProvider;
@@ -62,22 +68,25 @@ import net.sf.oval.localization.message.MessageResolver;
 import net.sf.oval.localization.message.ResourceBundleMessageResolver;
 import net.sf.oval.localization.value.MessageValueFormatter;
 import net.sf.oval.localization.value.ToStringMessageValueFormatter;
-import net.sf.oval.ogn.ObjectGraphNavigationResult;
 import net.sf.oval.ogn.ObjectGraphNavigatorRegistry;
 
+import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
+import java.lang.reflect.Member;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static java.lang.Boolean.TRUE;
 
@@ -97,6 +106,42 @@ import static java.lang.Boolean.TRUE;
  */
 public class Validator implements IValidator
 {
+	/**
+	 * lazily initialized holder of the checks of a single class
+	 */
+	private static final class ClassChecksHolder
+	{
+		private volatile ClassChecks classChecks;
+	}
+
+	private static final class ClassChecksHolderValue extends ClassValue<ClassChecksHolder>
+	{
+		@Override
+		protected ClassChecksHolder computeValue(final Class< ? > clazz)
+		{
+			return new ClassChecksHolder();
+		}
+	}
+
+	/**
+	 * the value accessors created by a factory, bound to the declaring class of the field or getter
+	 */
+	private static final class ValueAccessorCache extends ClassValue<ConcurrentMap<AccessibleObject, ValueAccessor>>
+	{
+		private final ValueAccessorFactory factory;
+
+		ValueAccessorCache(final ValueAccessorFactory factory)
+		{
+			this.factory = factory;
+		}
+
+		@Override
+		protected ConcurrentMap<AccessibleObject, ValueAccessor> computeValue(final Class< ? > declaringClass)
+		{
+			return new ConcurrentHashMap<AccessibleObject, ValueAccessor>(4);
+		}
+	}
+
 	protected static final class DelegatingParameterNameResolver implements ParameterNameResolver
 	{
 		private ParameterNameResolver delegate;
@@ -133,6 +178,19 @@ public class Validator implements IValidator
 		}
 	}
 
+	private static boolean _isResolveValueOverridden(final Class< ? > validatorClass)
+	{
+		for (Class< ? > c = validatorClass; c != Validator.class; c = c.getSuperclass())
+			for (final Method method : c.getDeclaredMethods())
+			{
+				if (!"resolveValue".equals(method.getName())) continue;
+				final Class< ? >[] paramTypes = method.getParameterTypes();
+				if (paramTypes.length == 2 && paramTypes[1] == Object.class
+						&& (paramTypes[0] == FieldContext.class || paramTypes[0] == MethodReturnValueContext.class)) return true;
+			}
+		return false;
+	}
+
 	public static OValContextRenderer getContextRenderer()
 	{
 		return contextRenderer;
@@ -198,6 +256,7 @@ public class Validator implements IValidator
 	{
 		Assert.argumentNotNull("messageResolver", messageResolver);
 		Validator.messageResolver = messageResolver;
+		MessageRenderer.clearTemplateCache();
 	}
 
 	/**
@@ -221,14 +280,19 @@ public class Validator implements IValidator
 
 	private static LocaleProvider localeProvider = new ThreadLocalLocaleProvider();
 
-	private final Map<Class< ? >, ClassChecks> checksByClass = new WeakHashMap<Class< ? >, ClassChecks>();
+	/**
+	 * the checks per class, the class value is replaced by {@link #reconfigureChecks()}
+	 */
+	private volatile ClassValue<ClassChecksHolder> checksByClass = new ClassChecksHolderValue();
+
+	private final AtomicLong checksByClassHits = new AtomicLong();
+
+	private final AtomicLong checksByClassMisses = new AtomicLong();
 
 	private final Set<Configurer> configurers = new LinkedHashSet<>(4);
 
 	private final Map<String, ConstraintSet> constraintSetsById = new LinkedHashMap<>(4);
 
-	protected final LinkedList<Set<Object>> currentlyValidatedObjects = new LinkedList<Set<Object>>();
-
 	private final Set<String> disabledProfiles = new LinkedHashSet<>();
 
 	private final Set<String> enabledProfiles = new LinkedHashSet<>();
@@ -237,6 +301,11 @@ public class Validator implements IValidator
 
 	protected final ExpressionLanguageRegistry expressionLanguageRegistry = new ExpressionLanguageRegistry();
 
+	/**
+	 * the default maximum duration of a single expression evaluation in nanoseconds, 0 if unlimited
+	 */
+	private volatile long expressionTimeBudget;
+
 	private boolean isAllProfilesEnabledByDefault = true;
 
 	/**
@@ -245,11 +314,37 @@ public class Validator implements IValidator
 	 */
 	private boolean isProfilesFeatureUsed = false;
 
+	/**
+	 * the constraint targets parsed so far by their trimmed target string
+	 */
+	private final ConcurrentMap<String, CompiledTarget> compiledTargets = new ConcurrentHashMap<String, CompiledTarget>();
+
 	private final ObjectGraphNavigatorRegistry ognRegistry = new ObjectGraphNavigatorRegistry();
 
+	/**
+	 * set if a subclass overrides {@link #resolveValue(FieldContext, Object)} or
+	 * {@link #resolveValue(MethodReturnValueContext, Object)}, in which case values of the validation plans are read
+	 * via these methods instead of the plans' value accessors
+	 */
+	private final boolean isResolveValueOverridden = _isResolveValueOverridden(getClass());
+
+	/**
+	 * the default maximum duration of a validation cycle after which no further expressions are evaluated in
+	 * nanoseconds, 0 if unlimited
+	 */
+	private volatile long timeBudget;
+
 	protected final DelegatingParameterNameResolver parameterNameResolver = new DelegatingParameterNameResolver(
 			new ParameterNameResolverEnumerationImpl());
 
+	private volatile ValueAccessorFactory valueAccessorFactory = new ValueAccessorFactoryMethodHandleImpl();
+
+	/**
+	 * value accessors used by {@link #resolveValue(FieldContext, Object)} and
+	 * {@link #resolveValue(MethodReturnValueContext, Object)}, replaced together with the factory
+	 */
+	private volatile ValueAccessorCache valueAccessors = new ValueAccessorCache(valueAccessorFactory);
+
 	/**
 	 * Constructs a new validator instance and uses a new instance of AnnotationsConfigurer
 	 */
@@ -372,7 +467,7 @@ public class Validator implements IValidator
 
 					if (ctorCfg.postCheckInvariants)
 					{
-						cc.methodsWithCheckInvariantsPost.add(ctor);
+						cc.addCheckInvariantsPost(ctor);
 					}
 
 					final String[] paramNames = parameterNameResolver.getParameterNames(ctor);
@@ -518,7 +613,7 @@ public class Validator implements IValidator
 
 					if (methodCfg.preCheckInvariants)
 					{
-						cc.methodsWithCheckInvariantsPre.add(method);
+						cc.addCheckInvariantsPre(method);
 					}
 
 					/*
@@ -539,7 +634,7 @@ public class Validator implements IValidator
 
 					if (methodCfg.postCheckInvariants)
 					{
-						cc.methodsWithCheckInvariantsPost.add(method);
+						cc.addCheckInvariantsPost(method);
 					}
 
 					/*
@@ -570,15 +665,15 @@ public class Validator implements IValidator
 		}
 	}
 
-	private void _checkConstraint(final List<ConstraintViolation> violations, final Check check, final Object validatedObject,
-			final Object valueToValidate, final OValContext context, final String[] profiles)
+	private void _checkConstraint(final ValidationCycle cycle, final Check check, final Object validatedObject,
+			final Object valueToValidate, final OValContext context)
 	{
 		/*
 		 * special handling of the AssertValid constraint
 		 */
 		if (check instanceof AssertValidCheck)
 		{
-			checkConstraintAssertValid(violations, (AssertValidCheck) check, validatedObject, valueToValidate, context, profiles);
+			checkConstraintAssertValid(cycle, (AssertValidCheck) check, validatedObject, valueToValidate, context);
 			return;
 		}
 
@@ -587,8 +682,7 @@ public class Validator implements IValidator
 		 */
 		if (check instanceof AssertConstraintSetCheck)
 		{
-			checkConstraintAssertConstraintSet(violations, (AssertConstraintSetCheck) check, validatedObject, valueToValidate, context,
-					profiles);
+			checkConstraintAssertConstraintSet(cycle, (AssertConstraintSetCheck) check, validatedObject, valueToValidate, context);
 			return;
 		}
 
@@ -597,8 +691,7 @@ public class Validator implements IValidator
 		 */
 		if (check instanceof AssertFieldConstraintsCheck)
 		{
-			checkConstraintAssertFieldConstraints(violations, (AssertFieldConstraintsCheck) check, validatedObject, valueToValidate,
-					context, profiles);
+			checkConstraintAssertFieldConstraints(cycle, (AssertFieldConstraintsCheck) check, validatedObject, valueToValidate, context);
 			return;
 		}
 
@@ -607,74 +700,46 @@ public class Validator implements IValidator
 		 */
 		if (!check.isSatisfied(validatedObject, valueToValidate, context, this))
 		{
-			final String errorMessage = renderMessage(context, valueToValidate, check.getMessage(), check.getMessageVariables());
-			violations.add(new ConstraintViolation(check, errorMessage, validatedObject, valueToValidate, context));
+			if (!cycle.isCollectingViolations())
+			{
+				cycle.countViolation();
+				return;
+			}
+			cycle.addViolation(new ConstraintViolation(this, check, validatedObject, valueToValidate, context, null));
 		}
 	}
 
 	/**
-	 * validate validatedObject based on the constraints of the given class
+	 * validate validatedObject based on the constraints of its class and super classes
 	 */
-	private void _validateObjectInvariants(final Object validatedObject, final Class< ? > clazz,
-			final List<ConstraintViolation> violations, final String[] profiles) throws ValidationFailedException
+	private void _validateObjectInvariants(final ValidationCycle cycle, final Object validatedObject) throws ValidationFailedException
 	{
+		assert cycle != null;
 		assert validatedObject != null;
-		assert clazz != null;
-		assert violations != null;
 
-		// abort if the root class has been reached
-		if (clazz == Object.class) return;
+		if (cycle.isAborted()) return;
 
+		final Class< ? > clazz = validatedObject.getClass();
 		try
 		{
-			final ClassChecks cc = getClassChecks(clazz);
-
-			// validate field constraints
-			for (final Field field : cc.constrainedFields)
-			{
-				final Collection<Check> checks = cc.checksForFields.get(field);
-
-				if (checks != null && checks.size() > 0)
-				{
-					final FieldContext ctx = ContextCache.getFieldContext(field);
-					final Object valueToValidate = resolveValue(ctx, validatedObject);
-
-					for (final Check check : checks)
-					{
-						checkConstraint(violations, check, validatedObject, valueToValidate, ctx, profiles, false);
-					}
-				}
-			}
-
-			// validate constraints on getter methods
-			for (final Method getter : cc.constrainedMethods)
+			for (final ValidationPlan.Entry entry : getValidationPlan(clazz).entries)
 			{
-				final Collection<Check> checks = cc.checksForMethodReturnValues.get(getter);
-
-				if (checks != null && checks.size() > 0)
+				final Object valueToValidate;
+				if (entry.accessor == null)
+					valueToValidate = validatedObject;
+				else if (!isResolveValueOverridden)
+					valueToValidate = entry.accessor.getValue(validatedObject);
+				else if (entry.context instanceof FieldContext)
+					valueToValidate = resolveValue((FieldContext) entry.context, validatedObject);
+				else
+					valueToValidate = resolveValue((MethodReturnValueContext) entry.context, validatedObject);
+
+				for (final Check check : entry.checks)
 				{
-					final MethodReturnValueContext ctx = ContextCache.getMethodReturnValueContext(getter);
-					final Object valueToValidate = resolveValue(ctx, validatedObject);
-
-					for (final Check check : checks)
-					{
-						checkConstraint(violations, check, validatedObject, valueToValidate, ctx, profiles, false);
-					}
+					checkConstraint(cycle, check, validatedObject, valueToValidate, entry.context, false);
+					if (cycle.isAborted()) return;
 				}
 			}
-
-			// validate object constraints
-			if (cc.checksForObject.size() > 0)
-			{
-				final OValContext ctx = ContextCache.getClassContext(clazz);
-				for (final Check check : cc.checksForObject)
-				{
-					checkConstraint(violations, check, validatedObject, validatedObject, ctx, profiles, false);
-				}
-			}
-
-			// if the super class is annotated to be validatable also validate it against the object
-			_validateObjectInvariants(validatedObject, clazz.getSuperclass(), violations, profiles);
 		}
 		catch (final OValException ex)
 		{
@@ -686,11 +751,10 @@ public class Validator implements IValidator
 	 * Validates the static field and static getter constrains of the given class.
 	 * Constraints specified for super classes are not taken in account.
 	 */
-	private void _validateStaticInvariants(final Class< ? > validatedClass, final List<ConstraintViolation> violations,
-			final String[] profiles) throws ValidationFailedException
+	private void _validateStaticInvariants(final ValidationCycle cycle, final Class< ? > validatedClass) throws ValidationFailedException
 	{
+		assert cycle != null;
 		assert validatedClass != null;
-		assert violations != null;
 
 		final ClassChecks cc = getClassChecks(validatedClass);
 
@@ -706,7 +770,8 @@ public class Validator implements IValidator
 
 				for (final Check check : checks)
 				{
-					checkConstraint(violations, check, validatedClass, valueToValidate, ctx, profiles, false);
+					checkConstraint(cycle, check, validatedClass, valueToValidate, ctx, false);
+					if (cycle.isAborted()) return;
 				}
 			}
 		}
@@ -723,12 +788,27 @@ public class Validator implements IValidator
 
 				for (final Check check : checks)
 				{
-					checkConstraint(violations, check, validatedClass, valueToValidate, ctx, profiles, false);
+					checkConstraint(cycle, check, validatedClass, valueToValidate, ctx, false);
+					if (cycle.isAborted()) return;
 				}
 			}
 		}
 	}
 
+	/**
+	 * Returns a validation cycle from the pool of the current thread. Each acquired cycle must be passed to
+	 * {@link #releaseValidationCycle(ValidationCycle)} once the validation is finished.
+	 *
+	 * @param violations the list to add the constraint violations to, if <code>null</code> a new list is created
+	 * @param profiles the profiles to validate, <code>null</code> means the globally enabled profiles
+	 */
+	protected ValidationCycle acquireValidationCycle(final List<ConstraintViolation> violations, final String[] profiles)
+	{
+		final ValidationCycle cycle = ValidationCycle.acquire(violations, profiles);
+		cycle.setTimeBudget(expressionTimeBudget, timeBudget, TimeUnit.NANOSECONDS);
+		return cycle;
+	}
+
 	/**
 	 * Registers object-level constraint checks
 	 *
@@ -825,10 +905,10 @@ public class Validator implements IValidator
 		if (violations.size() > 0) throw translateException(new ConstraintsViolatedException(violations));
 	}
 
-	protected void checkConstraint(final List<ConstraintViolation> violations, final Check check, Object validatedObject,
-			Object valueToValidate, OValContext context, final String[] profiles, final boolean isContainerValue) throws OValException
+	protected void checkConstraint(final ValidationCycle cycle, final Check check, Object validatedObject, Object valueToValidate,
+			OValContext context, final boolean isContainerValue) throws OValException
 	{
-		if (!isAnyProfileEnabled(check.getProfiles(), profiles)) return;
+		if (!isAnyProfileEnabled(check.getProfiles(), cycle.getProfiles())) return;
 
 		if (!check.isActive(validatedObject, valueToValidate, this)) return;
 
@@ -844,31 +924,11 @@ public class Validator implements IValidator
 				if (target.length() > 0)
 				{
 					if (valueToValidate == null) return;
-					final String[] chunks = target.split(":", 2);
-					final String ognId, path;
-					if (chunks.length == 1)
-					{
-						ognId = "";
-						path = chunks[0];
-					}
-					else
-					{
-						ognId = chunks[0];
-						path = chunks[1];
-					}
-					final ObjectGraphNavigationResult result = ognRegistry.getObjectGraphNavigator(ognId) //
-							.navigateTo(valueToValidate, path);
+					final CompiledTarget.Result result = getCompiledTarget(target).navigateTo(valueToValidate);
 					if (result == null) return;
-					validatedObject = result.targetParent;
-					valueToValidate = result.target;
-					if (result.targetAccessor instanceof Field)
-					{
-						context = ContextCache.getFieldContext((Field) result.targetAccessor);
-					}
-					else
-					{
-						context = ContextCache.getMethodReturnValueContext((Method) result.targetAccessor);
-					}
+					validatedObject = result.parent;
+					valueToValidate = result.value;
+					context = result.context;
 				}
 			}
 		}
@@ -894,7 +954,8 @@ public class Validator implements IValidator
 			{
 				for (final Object item : (Collection< ? >) valueToValidate)
 				{
-					checkConstraint(violations, check, validatedObject, item, context, profiles, true);
+					checkConstraint(cycle, check, validatedObject, item, context, true);
+					if (cycle.isAborted()) return;
 				}
 			}
 		}
@@ -904,7 +965,8 @@ public class Validator implements IValidator
 			{
 				for (final Object item : ((Map< ? , ? >) valueToValidate).keySet())
 				{
-					checkConstraint(violations, check, validatedObject, item, context, profiles, true);
+					checkConstraint(cycle, check, validatedObject, item, context, true);
+					if (cycle.isAborted()) return;
 				}
 			}
 
@@ -912,7 +974,8 @@ public class Validator implements IValidator
 			{
 				for (final Object item : ((Map< ? , ? >) valueToValidate).values())
 				{
-					checkConstraint(violations, check, validatedObject, item, context, profiles, true);
+					checkConstraint(cycle, check, validatedObject, item, context, true);
+					if (cycle.isAborted()) return;
 				}
 			}
 		}
@@ -920,18 +983,18 @@ public class Validator implements IValidator
 		{
 			for (final Object item : ArrayUtils.asList(valueToValidate))
 			{
-				checkConstraint(violations, check, validatedObject, item, context, profiles, true);
+				checkConstraint(cycle, check, validatedObject, item, context, true);
+				if (cycle.isAborted()) return;
 			}
 		}
 		if (isContainerValue || !isContainer || isContainer && ArrayUtils.containsSame(targets, ConstraintTarget.CONTAINER))
 		{
-			_checkConstraint(violations, check, validatedObject, valueToValidate, context, profiles);
+			_checkConstraint(cycle, check, validatedObject, valueToValidate, context);
 		}
 	}
 
-	protected void checkConstraintAssertConstraintSet(final List<ConstraintViolation> violations, final AssertConstraintSetCheck check,
-			final Object validatedObject, final Object valueToValidate, final OValContext context, final String[] profiles)
-					throws OValException
+	protected void checkConstraintAssertConstraintSet(final ValidationCycle cycle, final AssertConstraintSetCheck check,
+			final Object validatedObject, final Object valueToValidate, final OValContext context) throws OValException
 	{
 		final ConstraintSet cs = getConstraintSet(check.getId());
 
@@ -943,14 +1006,14 @@ public class Validator implements IValidator
 		{
 			for (final Check referencedCheck : referencedChecks)
 			{
-				checkConstraint(violations, referencedCheck, validatedObject, valueToValidate, context, profiles, false);
+				checkConstraint(cycle, referencedCheck, validatedObject, valueToValidate, context, false);
+				if (cycle.isAborted()) return;
 			}
 		}
 	}
 
-	protected void checkConstraintAssertFieldConstraints(final List<ConstraintViolation> violations,
-			final AssertFieldConstraintsCheck check, final Object validatedObject, final Object valueToValidate, final OValContext context,
-			final String[] profiles) throws OValException
+	protected void checkConstraintAssertFieldConstraints(final ValidationCycle cycle, final AssertFieldConstraintsCheck check,
+			final Object validatedObject, final Object valueToValidate, final OValContext context) throws OValException
 	{
 		final Class< ? > targetClass;
 
@@ -1016,28 +1079,44 @@ public class Validator implements IValidator
 		{
 			for (final Check referencedCheck : referencedChecks)
 			{
-				checkConstraint(violations, referencedCheck, validatedObject, valueToValidate, context, profiles, false);
+				checkConstraint(cycle, referencedCheck, validatedObject, valueToValidate, context, false);
+				if (cycle.isAborted()) return;
 			}
 		}
 	}
 
-	protected void checkConstraintAssertValid(final List<ConstraintViolation> violations, final AssertValidCheck check,
-			final Object validatedObject, final Object valueToValidate, final OValContext context, final String[] profiles)
-					throws OValException
+	protected void checkConstraintAssertValid(final ValidationCycle cycle, final AssertValidCheck check, final Object validatedObject,
+			final Object valueToValidate, final OValContext context) throws OValException
 	{
 		if (valueToValidate == null) return;
 
 		// ignore circular dependencies
-		if (isCurrentlyValidated(valueToValidate)) return;
+		if (cycle.isValidated(valueToValidate)) return;
+
+		// violations of the referenced object are only counted, no need to wrap them
+		if (!cycle.isCollectingViolations())
+		{
+			validateInvariants(valueToValidate, cycle);
+			return;
+		}
 
-		final List<ConstraintViolation> additionalViolations = new ArrayList<>();
-		validateInvariants(valueToValidate, additionalViolations, profiles);
+		// collect the violations of the referenced object separately
+		final List<ConstraintViolation> violations = cycle.setViolations(new ArrayList<ConstraintViolation>());
+		final List<ConstraintViolation> additionalViolations;
+		try
+		{
+			validateInvariants(valueToValidate, cycle);
+		}
+		finally
+		{
+			additionalViolations = cycle.setViolations(violations);
+		}
 
+		// the violations of the referenced object have already been counted, the wrapping violation is not counted
 		if (additionalViolations.size() != 0)
 		{
-			final String errorMessage = renderMessage(context, valueToValidate, check.getMessage(), check.getMessageVariables());
-
-			violations.add(new ConstraintViolation(check, errorMessage, validatedObject, valueToValidate, context, additionalViolations));
+			cycle.addWrappingViolation(new ConstraintViolation(this, check, validatedObject, valueToValidate, context,
+					additionalViolations));
 		}
 	}
 
@@ -1162,30 +1241,58 @@ public class Validator implements IValidator
 	{
 		Assert.argumentNotNull("clazz", clazz);
 
-		synchronized (checksByClass)
+		final ClassChecksHolder holder = checksByClass.get(clazz);
+
+		ClassChecks cc = holder.classChecks;
+		if (cc != null)
 		{
-			ClassChecks cc = checksByClass.get(clazz);
+			checksByClassHits.incrementAndGet();
+			return cc;
+		}
 
-			if (cc == null)
+		// ensure the class is configured only once even if multiple threads request it concurrently
+		synchronized (holder)
+		{
+			cc = holder.classChecks;
+			if (cc != null)
 			{
-				cc = new ClassChecks(clazz, parameterNameResolver);
+				checksByClassHits.incrementAndGet();
+				return cc;
+			}
+			checksByClassMisses.incrementAndGet();
 
-				for (final Configurer configurer : configurers)
+			cc = new ClassChecks(clazz, parameterNameResolver);
+
+			for (final Configurer configurer : configurers)
+			{
+				final ClassConfiguration classConfig = configurer.getClassConfiguration(clazz);
+				if (classConfig != null)
 				{
-					final ClassConfiguration classConfig = configurer.getClassConfiguration(clazz);
-					if (classConfig != null)
-					{
-						_addChecks(cc, classConfig);
-					}
+					_addChecks(cc, classConfig);
 				}
-
-				checksByClass.put(clazz, cc);
 			}
 
+			holder.classChecks = cc;
 			return cc;
 		}
 	}
 
+	/**
+	 * @return the number of {@link #getClassChecks(Class)} requests served from the cache
+	 */
+	public long getClassChecksCacheHits()
+	{
+		return checksByClassHits.get();
+	}
+
+	/**
+	 * @return the number of {@link #getClassChecks(Class)} requests that required the configuration of a class
+	 */
+	public long getClassChecksCacheMisses()
+	{
+		return checksByClassMisses.get();
+	}
+
 	/**
 	 * @return the internal linked set with the registered configurers
 	 */
@@ -1243,6 +1350,33 @@ public class Validator implements IValidator
 		return expressionLanguageRegistry;
 	}
 
+	/**
+	 * Returns the parsed form of the given constraint target. Targets are parsed on first use and reparsed if the value
+	 * accessor factory changed.
+	 *
+	 * @param target the trimmed target, optionally prefixed by the id of the object graph navigator
+	 */
+	protected CompiledTarget getCompiledTarget(final String target) throws ObjectGraphNavigatorNotAvailableException
+	{
+		final ValueAccessorFactory valueAccessorFactory = this.valueAccessorFactory;
+
+		CompiledTarget compiledTarget = compiledTargets.get(target);
+		if (compiledTarget == null || compiledTarget.valueAccessorFactory != valueAccessorFactory)
+		{
+			compiledTarget = new CompiledTarget(target, ognRegistry, valueAccessorFactory);
+			compiledTargets.put(target, compiledTarget);
+		}
+		return compiledTarget;
+	}
+
+	/**
+	 * @return the default maximum duration of a single expression evaluation in nanoseconds, 0 if unlimited
+	 */
+	public long getExpressionTimeBudget()
+	{
+		return expressionTimeBudget;
+	}
+
 	/**
 	 * @return the objectGraphNavigatorRegistry
 	 */
@@ -1251,6 +1385,68 @@ public class Validator implements IValidator
 		return ognRegistry;
 	}
 
+	/**
+	 * @return the default maximum duration of a validation cycle after which no further expressions are evaluated in
+	 *         nanoseconds, 0 if unlimited
+	 */
+	public long getTimeBudget()
+	{
+		return timeBudget;
+	}
+
+	/**
+	 * Returns the compiled validation plan for instances of the given class, covering the field, getter and object level
+	 * constraints of the class and all its super classes. The plan is cached and rebuilt when the checks of any class of
+	 * the hierarchy are modified.
+	 */
+	protected ValidationPlan getValidationPlan(final Class< ? > clazz) throws IllegalArgumentException, InvalidConfigurationException,
+	ReflectionException
+	{
+		final ClassChecks cc = getClassChecks(clazz);
+
+		final ValueAccessorFactory valueAccessorFactory = this.valueAccessorFactory;
+
+		ValidationPlan plan = cc.getValidationPlan();
+		if (plan == null || plan.valueAccessorFactory != valueAccessorFactory)
+		{
+			final List<ClassChecks> hierarchy = new ArrayList<>(4);
+			hierarchy.add(cc);
+			Class< ? > superClass = clazz.getSuperclass();
+			while (superClass != null && superClass != Object.class)
+			{
+				hierarchy.add(getClassChecks(superClass));
+				superClass = superClass.getSuperclass();
+			}
+			plan = new ValidationPlan(hierarchy, valueAccessorFactory);
+			cc.setValidationPlan(plan);
+		}
+		return plan;
+	}
+
+	/**
+	 * @return the factory used to create the accessors reading field values and getter return values
+	 */
+	public ValueAccessorFactory getValueAccessorFactory()
+	{
+		return valueAccessorFactory;
+	}
+
+	private ValueAccessor _getValueAccessor(final AccessibleObject member)
+	{
+		final ValueAccessorCache cache = valueAccessors;
+		final ConcurrentMap<AccessibleObject, ValueAccessor> accessors = cache.get(((Member) member).getDeclaringClass());
+		ValueAccessor accessor = accessors.get(member);
+		if (accessor == null)
+		{
+			accessor = member instanceof Field ? //
+					cache.factory.createFieldAccessor((Field) member) : //
+					cache.factory.createGetterAccessor((Method) member);
+			final ValueAccessor existing = accessors.putIfAbsent(member, accessor);
+			if (existing != null) accessor = existing;
+		}
+		return accessor;
+	}
+
 	/**
 	 * Determines if at least one of the given profiles is enabled
 	 *
@@ -1279,18 +1475,6 @@ public class Validator implements IValidator
 		return false;
 	}
 
-	/**
-	 * Determines if the given object is currently validated in the current thread
-	 *
-	 * @param object
-	 * @return Returns true if the given object is currently validated in the current thread.
-	 */
-	protected boolean isCurrentlyValidated(final Object object)
-	{
-		Assert.argumentNotNull("object", object);
-		return currentlyValidatedObjects.getLast().contains(object);
-	}
-
 	/**
 	 * Determines if the given profile is enabled.
 	 *
@@ -1309,16 +1493,41 @@ public class Validator implements IValidator
 		return true;
 	}
 
+	/**
+	 * Determines if the field and getter constraints of the given object are satisfied. The validation stops at the
+	 * first violation and neither renders messages nor creates {@link ConstraintViolation} objects.
+	 *
+	 * @param validatedObject the object to validate, cannot be null
+	 * @return <code>true</code> if no constraint violations are detected
+	 * @throws ValidationFailedException
+	 * @throws IllegalArgumentException if <code>validatedObject == null</code>
+	 */
+	public boolean isValid(final Object validatedObject) throws IllegalArgumentException, ValidationFailedException
+	{
+		Assert.argumentNotNull("validatedObject", validatedObject);
+
+		final ValidationCycle cycle = acquireValidationCycle(null, null);
+		try
+		{
+			cycle.setCollectingViolations(false);
+			cycle.setFailFast(true);
+			validateInvariants(validatedObject, cycle);
+			return !cycle.isAborted();
+		}
+		finally
+		{
+			releaseValidationCycle(cycle);
+		}
+	}
+
 	/**
 	 * clears the checks and constraint sets => a reconfiguration using the
 	 * currently registered configurers will automatically happen
 	 */
 	public void reconfigureChecks()
 	{
-		synchronized (checksByClass)
-		{
-			checksByClass.clear();
-		}
+		checksByClass = new ClassChecksHolderValue();
+		compiledTargets.clear();
 		synchronized (constraintSetsById)
 		{
 			constraintSetsById.clear();
@@ -1386,18 +1595,18 @@ public class Validator implements IValidator
 		}
 	}
 
+	/**
+	 * Resets the given validation cycle and returns it to the pool of the current thread.
+	 */
+	protected void releaseValidationCycle(final ValidationCycle cycle)
+	{
+		ValidationCycle.release(cycle);
+	}
+
 	protected String renderMessage(final OValContext context, final Object value, final String messageKey,
 			final Map<String, ? > messageValues)
 	{
-		String message = MessageRenderer.renderMessage(messageKey, messageValues);
-
-		// if there are no place holders in the message simply return it
-		if (message.indexOf('{') == -1) return message;
-
-		message = StringUtils.replaceAll(message, "{context}", contextRenderer.render(context));
-		message = StringUtils.replaceAll(message, "{invalidValue}", messageValueFormatter.format(value));
-
-		return message;
+		return MessageRenderer.renderMessage(messageKey, messageValues, context, value);
 	}
 
 	/**
@@ -1405,7 +1614,7 @@ public class Validator implements IValidator
 	 */
 	protected Object resolveValue(final FieldContext ctx, final Object validatedObject)
 	{
-		return ReflectionUtils.getFieldValue(ctx.getField(), validatedObject);
+		return _getValueAccessor(ctx.getField()).getValue(validatedObject);
 	}
 
 	/**
@@ -1413,7 +1622,7 @@ public class Validator implements IValidator
 	 */
 	protected Object resolveValue(final MethodReturnValueContext ctx, final Object validatedObject)
 	{
-		return ReflectionUtils.invokeMethod(ctx.getMethod(), validatedObject);
+		return _getValueAccessor(ctx.getMethod()).getValue(validatedObject);
 	}
 
 	/**
@@ -1424,6 +1633,46 @@ public class Validator implements IValidator
 		this.exceptionTranslator = exceptionTranslator;
 	}
 
+	/**
+	 * Limits the duration of each expression evaluation, e.g. of {@link net.sf.oval.constraint.Assert} constraints or
+	 * <code>when</code> conditions. An evaluation exceeding the budget fails with an
+	 * {@link net.sf.oval.exception.ExpressionEvaluationTimeoutException}, see {@link ExpressionTimeBudget} for which
+	 * expression languages abort a running evaluation.
+	 *
+	 * @param expressionTimeBudget the maximum duration, values less than 1 mean unlimited
+	 */
+	public void setExpressionTimeBudget(final long expressionTimeBudget, final TimeUnit unit)
+	{
+		this.expressionTimeBudget = expressionTimeBudget < 1 ? 0 : unit.toNanos(expressionTimeBudget);
+	}
+
+	/**
+	 * Sets a deadline for the expression evaluations of a validation cycle. The budget is wall-clock time measured from
+	 * the start of the cycle, i.e. it includes the time spent on validating constraints other than expressions. Once it
+	 * is exhausted, running evaluations are aborted where the expression language supports it and further evaluations
+	 * fail with an {@link net.sf.oval.exception.ExpressionEvaluationTimeoutException}.
+	 *
+	 * @param timeBudget the maximum duration from the start of the cycle, values less than 1 mean unlimited
+	 */
+	public void setTimeBudget(final long timeBudget, final TimeUnit unit)
+	{
+		this.timeBudget = timeBudget < 1 ? 0 : unit.toNanos(timeBudget);
+	}
+
+	/**
+	 * Sets the factory used to create the accessors reading field values and getter return values.
+	 * By default accessors based on method handles are used.
+	 *
+	 * @param valueAccessorFactory the factory to use, e.g. {@link ValueAccessorFactoryReflectionImpl}
+	 */
+	public void setValueAccessorFactory(final ValueAccessorFactory valueAccessorFactory) throws IllegalArgumentException
+	{
+		Assert.argumentNotNull("valueAccessorFactory", valueAccessorFactory);
+
+		valueAccessors = new ValueAccessorCache(valueAccessorFactory);
+		this.valueAccessorFactory = valueAccessorFactory;
+	}
+
 	protected RuntimeException translateException(final OValException ex)
 	{
 		if (exceptionTranslator != null)
@@ -1436,26 +1685,20 @@ public class Validator implements IValidator
 
 	/**
 	 * {@inheritDoc}
-     * MASE!
-     * @TODO: Check why this method must be synchronized. Problems when removeLast() -> Use vector
 	 */
-	public synchronized  List<ConstraintViolation> validate(final Object validatedObject) throws IllegalArgumentException, ValidationFailedException
+	public List<ConstraintViolation> validate(final Object validatedObject) throws IllegalArgumentException, ValidationFailedException
 	{
 		Assert.argumentNotNull("validatedObject", validatedObject);
 
-		// create required objects for this validation cycle
-		final List<ConstraintViolation> violations = new ArrayList<>();
-		currentlyValidatedObjects.add(new IdentitySet<Object>(4));
-
+		final ValidationCycle cycle = acquireValidationCycle(null, (String[]) null);
 		try
 		{
-			validateInvariants(validatedObject, violations, (String[]) null);
-			return violations;
+			validateInvariants(validatedObject, cycle);
+			return cycle.getViolations();
 		}
 		finally
 		{
-			// remove the validation cycle related objects
-			currentlyValidatedObjects.removeLast();
+			releaseValidationCycle(cycle);
 		}
 	}
 
@@ -1467,19 +1710,48 @@ public class Validator implements IValidator
 	{
 		Assert.argumentNotNull("validatedObject", validatedObject);
 
-		// create required objects for this validation cycle
-		final List<ConstraintViolation> violations = new ArrayList<>();
-		currentlyValidatedObjects.add(new IdentitySet<Object>(4));
+		final ValidationCycle cycle = acquireValidationCycle(null, profiles);
+		try
+		{
+			validateInvariants(validatedObject, cycle);
+			return cycle.getViolations();
+		}
+		finally
+		{
+			releaseValidationCycle(cycle);
+		}
+	}
+
+	/**
+	 * validates the field and getter constrains of the given object using the given options
+	 *
+	 * @param validatedObject the object to validate, cannot be null
+	 * @param options controls profiles, fail fast behavior and the maximum number of violations of the whole
+	 *            validation cycle including nested objects, cannot be null
+	 * @return a list with the detected constraint violations. if no violations are detected an empty list is returned
+	 * @throws ValidationFailedException
+	 * @throws IllegalArgumentException if <code>validatedObject == null</code> or <code>options == null</code>
+	 */
+	public List<ConstraintViolation> validate(final Object validatedObject, final ValidationOptions options)
+			throws IllegalArgumentException, ValidationFailedException
+	{
+		Assert.argumentNotNull("validatedObject", validatedObject);
+		Assert.argumentNotNull("options", options);
 
+		final ValidationCycle cycle = acquireValidationCycle(null, options.getProfiles());
 		try
 		{
-			validateInvariants(validatedObject, violations, profiles);
-			return violations;
+			cycle.setFailFast(options.isFailFast());
+			cycle.setMaxViolations(options.getMaxViolations());
+			if (options.getExpressionTimeBudget() > 0 || options.getTimeBudget() > 0)
+				cycle.setTimeBudget(options.getExpressionTimeBudget() > 0 ? options.getExpressionTimeBudget() : expressionTimeBudget,
+						options.getTimeBudget() > 0 ? options.getTimeBudget() : timeBudget, TimeUnit.NANOSECONDS);
+			validateInvariants(validatedObject, cycle);
+			return cycle.getViolations();
 		}
 		finally
 		{
-			// remove the validation cycle related objects
-			currentlyValidatedObjects.removeLast();
+			releaseValidationCycle(cycle);
 		}
 	}
 
@@ -1492,24 +1764,22 @@ public class Validator implements IValidator
 		Assert.argumentNotNull("validatedObject", validatedObject);
 		Assert.argumentNotNull("validatedField", validatedField);
 
-		// create required objects for this validation cycle
-		final List<ConstraintViolation> violations = new ArrayList<>();
-		currentlyValidatedObjects.add(new IdentitySet<Object>(4));
-
+		final ValidationCycle cycle = acquireValidationCycle(null, null);
 		try
 		{
 			final ClassChecks cc = getClassChecks(validatedField.getDeclaringClass());
 			final Collection<Check> checks = cc.checksForFields.get(validatedField);
 
-			if (checks == null || checks.size() == 0) return violations;
+			if (checks == null || checks.size() == 0) return cycle.getViolations();
 
 			final FieldContext context = ContextCache.getFieldContext(validatedField);
 
 			for (final Check check : checks)
 			{
-				checkConstraint(violations, check, validatedObject, fieldValueToValidate, context, null, false);
+				checkConstraint(cycle, check, validatedObject, fieldValueToValidate, context, false);
+				if (cycle.isAborted()) break;
 			}
-			return violations;
+			return cycle.getViolations();
 		}
 		catch (final OValException ex)
 		{
@@ -1518,8 +1788,7 @@ public class Validator implements IValidator
 		}
 		finally
 		{
-			// remove the validation cycle related objects
-			currentlyValidatedObjects.removeLast();
+			releaseValidationCycle(cycle);
 		}
 			}
 
@@ -1529,22 +1798,23 @@ public class Validator implements IValidator
 	 * are validated.
 	 *
 	 * @param validatedObject the object to validate, cannot be null
+	 * @param cycle the validation cycle, cannot be null
 	 * @throws ValidationFailedException
 	 * @throws IllegalArgumentException if <code>validatedObject == null</code>
 	 */
-	protected void validateInvariants(final Object validatedObject, final List<ConstraintViolation> violations, final String[] profiles)
-			throws IllegalArgumentException, ValidationFailedException
+	protected void validateInvariants(final Object validatedObject, final ValidationCycle cycle) throws IllegalArgumentException,
+	ValidationFailedException
 	{
 		Assert.argumentNotNull("validatedObject", validatedObject);
 
-		currentlyValidatedObjects.getLast().add(validatedObject);
+		cycle.markValidated(validatedObject);
 		if (validatedObject instanceof Class< ? >)
 		{
-			_validateStaticInvariants((Class< ? >) validatedObject, violations, profiles);
+			_validateStaticInvariants(cycle, (Class< ? >) validatedObject);
 		}
 		else
 		{
-			_validateObjectInvariants(validatedObject, validatedObject.getClass(), violations, profiles);
+			_validateObjectInvariants(cycle, validatedObject);
 		}
 	}
 }
@@ -0,0 +1,30 @@
+/*******************************************************************************
+ * Portions created by Sebastian Thomschke are copyright (c) 2005-2013 Sebastian
+ * Thomschke.
+ *
+ * All Rights Reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Sebastian Thomschke - initial implementation.
+ *******************************************************************************/
+package net.sf.oval.accessor;
+
+import net.sf.oval.exception.ReflectionException;
+
+/**
+ * Reads the value of a single field or getter method.
+ *
+ * @author Sebastian Thomschke
+ */
+public interface ValueAccessor
+{
+	/**
+	 * @param target the object to read the value from, <code>null</code> for static members
+	 * @return the value of the member
+	 * @throws ReflectionException if reading the value fails
+	 */
+	Object getValue(final Object target) throws ReflectionException;
+}
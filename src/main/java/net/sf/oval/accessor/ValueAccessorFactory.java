@@ -0,0 +1,38 @@
+/*******************************************************************************
+ * Portions created by Sebastian Thomschke are copyright (c) 2005-2013 Sebastian
+ * Thomschke.
+ *
+ * All Rights Reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Sebastian Thomschke - initial implementation.
+ *******************************************************************************/
+package net.sf.oval.accessor;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+/**
+ * Creates the {@link ValueAccessor} instances used by the validator to read field values and getter return values.
+ * Accessors are created once per member and are then reused by concurrently running validation cycles, i.e. they must
+ * be thread-safe.
+ *
+ * @author Sebastian Thomschke
+ */
+public interface ValueAccessorFactory
+{
+	/**
+	 * @param field the field to read, can be static
+	 * @return an accessor reading the value of the given field
+	 */
+	ValueAccessor createFieldAccessor(final Field field);
+
+	/**
+	 * @param getter the parameterless method to invoke, can be static
+	 * @return an accessor returning the return value of the given method
+	 */
+	ValueAccessor createGetterAccessor(final Method getter);
+}
@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Portions created by Sebastian Thomschke are copyright (c) 2005-2013 Sebastian
+ * Thomschke.
+ *
+ * All Rights Reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Sebastian Thomschke - initial implementation.
+ *******************************************************************************/
+package net.sf.oval.accessor;
+
+import net.sf.oval.exception.AccessingFieldValueFailedException;
+import net.sf.oval.exception.ConstraintsViolatedException;
+import net.sf.oval.exception.InvokingMethodFailedException;
+import net.sf.oval.exception.ReflectionException;
+import net.sf.oval.internal.ContextCache;
+import net.sf.oval.internal.util.ReflectionUtils;
+import net.sf.oval.internal.util.SetAccessibleAction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.security.AccessController;
+
+/**
+ * Value accessors based on {@link MethodHandle}s that are resolved once per member. Compared to reflective access this
+ * avoids the accessibility check on each invocation and allows the JIT to inline the member access.
+ *
+ * If no method handle can be created for a member, e.g. because of a security manager, the reflective accessors of
+ * {@link ValueAccessorFactoryReflectionImpl} are used instead.
+ *
+ * @author Sebastian Thomschke
+ */
+public class ValueAccessorFactoryMethodHandleImpl implements ValueAccessorFactory
+{
+	private static final class FieldAccessor implements ValueAccessor
+	{
+		private final Field field;
+		private final MethodHandle handle;
+
+		FieldAccessor(final Field field, final MethodHandle handle)
+		{
+			this.field = field;
+			this.handle = handle;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public Object getValue(final Object target) throws ReflectionException
+		{
+			try
+			{
+				return (Object) handle.invokeExact(target);
+			}
+			catch (final Throwable ex)
+			{
+				throw new AccessingFieldValueFailedException(field.getName(), target, ContextCache.getFieldContext(field), ex);
+			}
+		}
+	}
+
+	private static final class GetterAccessor implements ValueAccessor
+	{
+		private final Method getter;
+		private final MethodHandle handle;
+
+		GetterAccessor(final Method getter, final MethodHandle handle)
+		{
+			this.getter = getter;
+			this.handle = handle;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public Object getValue(final Object target) throws ReflectionException
+		{
+			try
+			{
+				return (Object) handle.invokeExact(target);
+			}
+			catch (final ConstraintsViolatedException ex)
+			{
+				throw ex;
+			}
+			catch (final Throwable ex)
+			{
+				throw new InvokingMethodFailedException("Executing method " + getter.getName() + " failed.", target,
+						ContextCache.getMethodReturnValueContext(getter), ex);
+			}
+		}
+	}
+
+	private static final Logger LOG = LoggerFactory.getLogger(ValueAccessorFactoryMethodHandleImpl.class);
+
+	private static final MethodType GENERIC_ACCESSOR_TYPE = MethodType.methodType(Object.class, Object.class);
+
+	/**
+	 * adapts the given handle to the signature <code>(Object)Object</code>, static members ignore the argument
+	 */
+	private static MethodHandle toGenericAccessor(final MethodHandle handle, final boolean isStatic)
+	{
+		final MethodHandle h = isStatic ? MethodHandles.dropArguments(handle, 0, Object.class) : handle;
+		return h.asType(GENERIC_ACCESSOR_TYPE);
+	}
+
+	private final ValueAccessorFactory fallback = new ValueAccessorFactoryReflectionImpl();
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public ValueAccessor createFieldAccessor(final Field field)
+	{
+		try
+		{
+			if (!field.isAccessible()) AccessController.doPrivileged(new SetAccessibleAction(field));
+			final MethodHandle handle = MethodHandles.lookup().unreflectGetter(field);
+			return new FieldAccessor(field, toGenericAccessor(handle, ReflectionUtils.isStatic(field)));
+		}
+		catch (final Exception ex)
+		{
+			LOG.debug("Cannot create method handle for field {}, falling back to reflection.", field, ex);
+			return fallback.createFieldAccessor(field);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public ValueAccessor createGetterAccessor(final Method getter)
+	{
+		try
+		{
+			if (!getter.isAccessible()) AccessController.doPrivileged(new SetAccessibleAction(getter));
+			final MethodHandle handle = MethodHandles.lookup().unreflect(getter);
+			return new GetterAccessor(getter, toGenericAccessor(handle, ReflectionUtils.isStatic(getter)));
+		}
+		catch (final Exception ex)
+		{
+			LOG.debug("Cannot create method handle for method {}, falling back to reflection.", getter, ex);
+			return fallback.createGetterAccessor(getter);
+		}
+	}
+}
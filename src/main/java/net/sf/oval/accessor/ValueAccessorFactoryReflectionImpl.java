@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Portions created by Sebastian Thomschke are copyright (c) 2005-2013 Sebastian
+ * Thomschke.
+ *
+ * All Rights Reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Sebastian Thomschke - initial implementation.
+ *******************************************************************************/
+package net.sf.oval.accessor;
+
+import net.sf.oval.exception.ReflectionException;
+import net.sf.oval.internal.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+/**
+ * Value accessors using {@link Field#get(Object)} and {@link Method#invoke(Object, Object...)}.
+ *
+ * @author Sebastian Thomschke
+ */
+public class ValueAccessorFactoryReflectionImpl implements ValueAccessorFactory
+{
+	private static final class FieldAccessor implements ValueAccessor
+	{
+		private final Field field;
+
+		FieldAccessor(final Field field)
+		{
+			this.field = field;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public Object getValue(final Object target) throws ReflectionException
+		{
+			return ReflectionUtils.getFieldValue(field, target);
+		}
+	}
+
+	private static final class GetterAccessor implements ValueAccessor
+	{
+		private final Method getter;
+
+		GetterAccessor(final Method getter)
+		{
+			this.getter = getter;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public Object getValue(final Object target) throws ReflectionException
+		{
+			return ReflectionUtils.invokeMethod(getter, target);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public ValueAccessor createFieldAccessor(final Field field)
+	{
+		return new FieldAccessor(field);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public ValueAccessor createGetterAccessor(final Method getter)
+	{
+		return new GetterAccessor(getter);
+	}
+}
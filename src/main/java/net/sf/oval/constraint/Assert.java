@@ -86,7 +86,7 @@ public @interface Assert
 	String expr();
 
 	/**
-	 * the expression language that is used, e.g. "bsh" / "beanshell", "groovy", or "js" / "javascript".
+	 * the expression language that is used, e.g. "bsh" / "beanshell", "groovy", "js" / "javascript", or the built-in "oval".
 	 */
 	String lang();
 
@@ -18,7 +18,9 @@ import net.sf.oval.configuration.annotation.ConstraintAnnotationSettings;
 import net.sf.oval.context.OValContext;
 import net.sf.oval.exception.ExpressionEvaluationException;
 import net.sf.oval.exception.ExpressionLanguageNotAvailableException;
+import net.sf.oval.expression.CompiledExpression;
 import net.sf.oval.expression.ExpressionLanguage;
+import net.sf.oval.expression.ExpressionTimeBudget;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -30,8 +32,14 @@ public final class AssertCheck extends AbstractAnnotationCheck<Assert>
 {
 	private static final long serialVersionUID = 1L;
 
+	/**
+	 * the variables available to the expression in the order of the values passed to the compiled expression
+	 */
+	private static final String[] VARIABLE_NAMES = {"_value", "_this"};
+
 	private String expr;
 	private String lang;
+	private transient volatile CompiledExpression compiledExpr;
 
 	/**
 	 * {@inheritDoc}
@@ -100,12 +108,16 @@ public final class AssertCheck extends AbstractAnnotationCheck<Assert>
 	public boolean isSatisfied(final Object validatedObject, final Object valueToValidate, final OValContext context,
 			final Validator validator) throws ExpressionEvaluationException, ExpressionLanguageNotAvailableException
 	{
-		final Map<String, Object> values = new LinkedHashMap<>();
-		values.put("_value", valueToValidate);
-		values.put("_this", validatedObject);
-
 		final ExpressionLanguage el = validator.getExpressionLanguageRegistry().getExpressionLanguage(lang);
-		return el.evaluateAsBoolean(expr, values);
+
+		// the expression is compiled on first use since the language depends on the validator's registry
+		CompiledExpression compiledExpr = this.compiledExpr;
+		if (compiledExpr == null || !compiledExpr.isCompiledFrom(el, expr, VARIABLE_NAMES))
+		{
+			compiledExpr = CompiledExpression.compile(el, expr, VARIABLE_NAMES);
+			this.compiledExpr = compiledExpr;
+		}
+		return ExpressionTimeBudget.evaluateAsBoolean(compiledExpr, new Object[]{valueToValidate, validatedObject});
 	}
 
 	/**
@@ -114,6 +126,7 @@ public final class AssertCheck extends AbstractAnnotationCheck<Assert>
 	public void setExpr(final String expression)
 	{
 		expr = expression;
+		compiledExpr = null;
 		requireMessageVariablesRecreation();
 	}
 
@@ -123,6 +136,7 @@ public final class AssertCheck extends AbstractAnnotationCheck<Assert>
 	public void setLang(final String language)
 	{
 		lang = language;
+		compiledExpr = null;
 		requireMessageVariablesRecreation();
 	}
 }
@@ -0,0 +1,29 @@
+/*******************************************************************************
+ * Portions created by Sebastian Thomschke are copyright (c) 2005-2013 Sebastian
+ * Thomschke.
+ *
+ * All Rights Reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Sebastian Thomschke - initial implementation.
+ *******************************************************************************/
+package net.sf.oval.exception;
+
+/**
+ * Thrown if the evaluation of an expression exceeded its time budget or the time budget of the validation was exhausted.
+ *
+ * @see net.sf.oval.expression.ExpressionTimeBudget
+ * @author Sebastian Thomschke
+ */
+public class ExpressionEvaluationTimeoutException extends ExpressionEvaluationException
+{
+	private static final long serialVersionUID = 1L;
+
+	public ExpressionEvaluationTimeoutException(final String message)
+	{
+		super(message);
+	}
+}
@@ -0,0 +1,44 @@
+/*******************************************************************************
+ * Portions created by Sebastian Thomschke are copyright (c) 2005-2013 Sebastian
+ * Thomschke.
+ *
+ * All Rights Reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Sebastian Thomschke - initial implementation.
+ *******************************************************************************/
+package net.sf.oval.expression;
+
+import net.sf.oval.exception.ExpressionEvaluationException;
+
+import java.util.Map;
+
+/**
+ * Partial implementation of expression languages. Languages without native support for compiled expressions inherit
+ * a {@link #compile(String, String...)} implementation that evaluates the expression with a map of the values.
+ *
+ * @author Sebastian Thomschke
+ */
+public abstract class AbstractExpressionLanguage implements CompilingExpressionLanguage
+{
+	/**
+	 * {@inheritDoc}
+	 */
+	public CompiledExpression compile(final String expression, final String... variableNames) throws ExpressionEvaluationException
+	{
+		return new MapBasedCompiledExpression(this, expression, variableNames);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public boolean evaluateAsBoolean(final String expression, final Map<String, ? > values) throws ExpressionEvaluationException
+	{
+		final Object result = evaluate(expression, values);
+		if (!(result instanceof Boolean)) throw new ExpressionEvaluationException("The script must return a boolean value.");
+		return (Boolean) result;
+	}
+}
@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Portions created by Sebastian Thomschke are copyright (c) 2005-2013 Sebastian
+ * Thomschke.
+ *
+ * All Rights Reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Sebastian Thomschke - initial implementation.
+ *******************************************************************************/
+package net.sf.oval.expression;
+
+import net.sf.oval.exception.ExpressionEvaluationException;
+
+import java.util.Arrays;
+
+/**
+ * An expression compiled once by an {@link ExpressionLanguage} for a fixed list of variable names. The values of the
+ * variables are passed by index, i.e. <code>values[i]</code> is the value of <code>variableNames[i]</code>.
+ *
+ * Instances are thread-safe.
+ *
+ * @author Sebastian Thomschke
+ */
+public abstract class CompiledExpression
+{
+	/**
+	 * Compiles the given expression with the given language. Languages not implementing
+	 * {@link CompilingExpressionLanguage} are adapted by evaluating the expression with a map of the variable values.
+	 *
+	 * @throws ExpressionEvaluationException in case of an invalid expression
+	 */
+	public static CompiledExpression compile(final ExpressionLanguage language, final String expression,
+			final String... variableNames) throws ExpressionEvaluationException
+	{
+		if (language instanceof CompilingExpressionLanguage)
+			return ((CompilingExpressionLanguage) language).compile(expression, variableNames);
+		return new MapBasedCompiledExpression(language, expression, variableNames);
+	}
+
+	protected final String expression;
+	protected final ExpressionLanguage language;
+	protected final String[] variableNames;
+
+	protected CompiledExpression(final ExpressionLanguage language, final String expression, final String[] variableNames)
+	{
+		this.language = language;
+		this.expression = expression;
+		this.variableNames = variableNames;
+	}
+
+	/**
+	 * Evaluates the expression.
+	 * @param values the values of the variables in the order of the variable names the expression was compiled with
+	 * @return the result of the expression evaluation
+	 * @throws ExpressionEvaluationException If an error during evaluation occurs
+	 */
+	public abstract Object evaluate(Object[] values) throws ExpressionEvaluationException;
+
+	/**
+	 * Evaluates the expression and expects it to return a boolean.
+	 * @param values the values of the variables in the order of the variable names the expression was compiled with
+	 * @return the result of the expression evaluation
+	 * @throws ExpressionEvaluationException If an error during evaluation occurs or if the return value is not a boolean value.
+	 */
+	public boolean evaluateAsBoolean(final Object[] values) throws ExpressionEvaluationException
+	{
+		final Object result = evaluate(values);
+		if (!(result instanceof Boolean)) throw new ExpressionEvaluationException("The script must return a boolean value.");
+		return (Boolean) result;
+	}
+
+	/**
+	 * @return the source of the compiled expression
+	 */
+	public String getExpression()
+	{
+		return expression;
+	}
+
+	/**
+	 * @return the expression language that compiled this expression
+	 */
+	public ExpressionLanguage getLanguage()
+	{
+		return language;
+	}
+
+	/**
+	 * @return the number of variable slots
+	 */
+	public int getVariableCount()
+	{
+		return variableNames.length;
+	}
+
+	/**
+	 * Determines if this expression was compiled from the given source by the given language for the given variables.
+	 */
+	public boolean isCompiledFrom(final ExpressionLanguage language, final String expression, final String[] variableNames)
+	{
+		return this.language == language && this.expression.equals(expression)
+				&& (this.variableNames == variableNames || Arrays.equals(this.variableNames, variableNames));
+	}
+}
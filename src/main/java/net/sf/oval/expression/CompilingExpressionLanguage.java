@@ -0,0 +1,36 @@
+/*******************************************************************************
+ * Portions created by Sebastian Thomschke are copyright (c) 2005-2013 Sebastian
+ * Thomschke.
+ *
+ * All Rights Reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Sebastian Thomschke - initial implementation.
+ *******************************************************************************/
+package net.sf.oval.expression;
+
+import net.sf.oval.exception.ExpressionEvaluationException;
+
+/**
+ * An expression language that supports compiling expressions for repeated evaluation.
+ *
+ * Languages not implementing this interface are evaluated via {@link ExpressionLanguage#evaluate(String, java.util.Map)}
+ * with a map of the variable values, see {@link CompiledExpression#compile(ExpressionLanguage, String, String...)}.
+ *
+ * @author Sebastian Thomschke
+ */
+public interface CompilingExpressionLanguage extends ExpressionLanguage
+{
+	/**
+	 * Compiles the given expression for repeated evaluation with the given variables.
+	 * @param expression the expression to compile
+	 * @param variableNames the names of the variables passed by index to {@link CompiledExpression#evaluate(Object[])}
+	 * @return the compiled expression
+	 * @throws ExpressionEvaluationException in case of an invalid expression
+	 * @see AbstractExpressionLanguage
+	 */
+	CompiledExpression compile(String expression, String... variableNames) throws ExpressionEvaluationException;
+}
@@ -14,49 +14,135 @@ package net.sf.oval.expression;
 
 import bsh.EvalError;
 import bsh.Interpreter;
+import bsh.Primitive;
 import net.sf.oval.exception.ExpressionEvaluationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 
 /**
+ * Evaluates expressions using one BeanShell interpreter per thread. Each expression is parsed only once per
+ * interpreter by declaring it as the body of a scripted method taking the values as parameters. Invoking the method
+ * evaluates the expression in a fresh method namespace, so no state is carried over from one evaluation to the next.
+ * An expression evaluated with different sets of variable names is prepared once per set of names.
+ *
  * @author Sebastian Thomschke
  */
-public class ExpressionLanguageBeanShellImpl implements ExpressionLanguage
+public class ExpressionLanguageBeanShellImpl extends AbstractExpressionLanguage
 {
-	private static final Logger LOG = LoggerFactory.getLogger(ExpressionLanguageBeanShellImpl.class);
+	/**
+	 * An expression declared as scripted method for a given set of parameter names.
+	 */
+	private static final class PreparedScript
+	{
+		final String methodName;
+		final String[] names;
+
+		PreparedScript(final String methodName, final String[] names)
+		{
+			this.methodName = methodName;
+			this.names = names;
+		}
+
+		boolean isApplicable(final Map<String, ? > values)
+		{
+			if (names.length != values.size()) return false;
+			for (final String name : names)
+				if (!values.containsKey(name)) return false;
+			return true;
+		}
+	}
 
 	/**
-	 * {@inheritDoc}
+	 * A BeanShell interpreter confined to a single thread together with the expressions prepared by it.
 	 */
-	public Object evaluate(final String expression, final Map<String, ? > values) throws ExpressionEvaluationException
+	private static final class ThreadInterpreter
 	{
-		LOG.debug("Evaluating BeanShell expression: {}", expression);
-		try
+		final Interpreter interpreter = new Interpreter();
+		/**
+		 * the scripts prepared per expression, one per set of variable names the expression was evaluated with
+		 */
+		final Map<String, List<PreparedScript>> scripts = new HashMap<String, List<PreparedScript>>();
+		int preparedCount;
+
+		ThreadInterpreter() throws EvalError
 		{
-			final Interpreter interpreter = new Interpreter();
 			interpreter.eval("setAccessibility(true)"); // turn off access restrictions
-			for (final Entry<String, ? > entry : values.entrySet())
-				interpreter.set(entry.getKey(), entry.getValue());
-			return interpreter.eval(expression);
 		}
-		catch (final EvalError ex)
+
+		Object evaluate(final String expression, final Map<String, ? > values) throws EvalError
 		{
-			throw new ExpressionEvaluationException("Evaluating BeanShell expression failed: " + expression, ex);
+			List<PreparedScript> candidates = scripts.get(expression);
+			if (candidates == null)
+			{
+				candidates = new ArrayList<PreparedScript>(1);
+				scripts.put(expression, candidates);
+			}
+
+			PreparedScript script = null;
+			for (int i = 0, l = candidates.size(); i < l; i++)
+				if (candidates.get(i).isApplicable(values))
+				{
+					script = candidates.get(i);
+					break;
+				}
+			if (script == null)
+			{
+				script = prepare(expression, values);
+				candidates.add(script);
+			}
+
+			final Object[] args = new Object[script.names.length];
+			for (int i = 0; i < args.length; i++)
+				args[i] = values.get(script.names[i]);
+			return Primitive.unwrap(interpreter.getNameSpace().invokeMethod(script.methodName, args, interpreter));
+		}
+
+		PreparedScript prepare(final String expression, final Map<String, ? > values) throws EvalError
+		{
+			final String methodName = "__oval_expression" + preparedCount++;
+			final String[] names = values.keySet().toArray(new String[values.size()]);
+
+			// the method returns the value of its last statement just like an evaluated script
+			final StringBuilder method = new StringBuilder(methodName).append('(');
+			for (int i = 0; i < names.length; i++)
+			{
+				if (i > 0) method.append(',');
+				method.append(names[i]);
+			}
+			method.append("){\n").append(expression).append("\n;}");
+			interpreter.eval(method.toString());
+			return new PreparedScript(methodName, names);
 		}
 	}
 
+	private static final Logger LOG = LoggerFactory.getLogger(ExpressionLanguageBeanShellImpl.class);
+
+	private final ThreadLocal<ThreadInterpreter> threadInterpreter = new ThreadLocal<ThreadInterpreter>();
+
 	/**
 	 * {@inheritDoc}
 	 */
-	public boolean evaluateAsBoolean(final String expression, final Map<String, ? > values)
-			throws ExpressionEvaluationException
+	public Object evaluate(final String expression, final Map<String, ? > values) throws ExpressionEvaluationException
 	{
-		final Object result = evaluate(expression, values);
-		if (!(result instanceof Boolean))
-			throw new ExpressionEvaluationException("The script must return a boolean value.");
-		return (Boolean) result;
+		LOG.debug("Evaluating BeanShell expression: {}", expression);
+		try
+		{
+			ThreadInterpreter interpreter = threadInterpreter.get();
+			if (interpreter == null)
+			{
+				interpreter = new ThreadInterpreter();
+				threadInterpreter.set(interpreter);
+			}
+			return interpreter.evaluate(expression, values);
+		}
+		catch (final EvalError ex)
+		{
+			throw new ExpressionEvaluationException("Evaluating BeanShell expression failed: " + expression, ex);
+		}
 	}
-}
\ No newline at end of file
+}
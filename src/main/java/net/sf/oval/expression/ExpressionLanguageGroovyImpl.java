@@ -17,60 +17,149 @@ import groovy.lang.GroovyShell;
 import groovy.lang.Script;
 import net.sf.oval.exception.ExpressionEvaluationException;
 import net.sf.oval.internal.util.ObjectCache;
+import org.codehaus.groovy.runtime.InvokerHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 
 /**
+ * Evaluates expressions using Groovy. Each expression is compiled only once into a script class shared by all threads.
+ * Script instances are not thread-safe since they hold their binding, hence each thread evaluates the expression using
+ * its own script instance with its own binding.
+ *
  * @author Sebastian Thomschke
  */
-public class ExpressionLanguageGroovyImpl implements ExpressionLanguage
+public class ExpressionLanguageGroovyImpl extends AbstractExpressionLanguage
 {
+	/**
+	 * A script instance confined to a single thread.
+	 */
+	private static final class ThreadScript
+	{
+		final Script script;
+		final Map<String, Object> variables = new HashMap<String, Object>();
+
+		/**
+		 * set while the script is running to detect reentrant evaluations of the same expression
+		 */
+		boolean running;
+
+		ThreadScript(final Class< ? extends Script> scriptClass)
+		{
+			script = InvokerHelper.createScript(scriptClass, new Binding(variables));
+		}
+	}
+
+	private static final class GroovyCompiledExpression extends CompiledExpression
+	{
+		private final Class< ? extends Script> scriptClass;
+
+		private final ThreadLocal<ThreadScript> threadScript = new ThreadLocal<ThreadScript>();
+
+		GroovyCompiledExpression(final ExpressionLanguageGroovyImpl language, final String expression, final String[] variableNames)
+		{
+			super(language, expression, variableNames);
+			scriptClass = language.getScriptClass(expression);
+		}
+
+		@Override
+		public Object evaluate(final Object[] values) throws ExpressionEvaluationException
+		{
+			LOG.debug("Evaluating Groovy expression: {}", expression);
+			try
+			{
+				ThreadScript script = threadScript.get();
+				if (script == null)
+				{
+					script = new ThreadScript(scriptClass);
+					threadScript.set(script);
+				}
+				else if (script.running)
+					// the expression is evaluated recursively, do not overwrite the binding of the running script
+					script = new ThreadScript(scriptClass);
+
+				for (int i = 0; i < variableNames.length; i++)
+					script.variables.put(variableNames[i], values[i]);
+				script.running = true;
+				try
+				{
+					return script.script.run();
+				}
+				finally
+				{
+					script.running = false;
+					script.variables.clear();
+				}
+			}
+			catch (final Exception ex)
+			{
+				throw new ExpressionEvaluationException("Evaluating script with Groovy failed.", ex);
+			}
+		}
+	}
+
 	private static final Logger LOG = LoggerFactory.getLogger(ExpressionLanguageGroovyImpl.class);
 
 	private static final GroovyShell GROOVY_SHELL = new GroovyShell();
 
-	private final ObjectCache<String, Script> scriptCache = new ObjectCache<String, Script>();
+	private final ObjectCache<String, Class< ? extends Script>> scriptClasses = new ObjectCache<String, Class< ? extends Script>>();
+
+	private final ObjectCache<String, CompiledExpression> expressionCache = new ObjectCache<String, CompiledExpression>();
 
 	/**
 	 * {@inheritDoc}
 	 */
-	public Object evaluate(final String expression, final Map<String, ? > values) throws ExpressionEvaluationException
+	@Override
+	public CompiledExpression compile(final String expression, final String... variableNames) throws ExpressionEvaluationException
 	{
-		LOG.debug("Evaluating Groovy expression: {}", expression);
+		LOG.debug("Compiling Groovy expression: {}", expression);
 		try
 		{
-			//final ObjectCache<String, Script> scriptCache = threadScriptCache.get();
-			Script script = scriptCache.get(expression);
-			if (script == null)
-			{
-				script = GROOVY_SHELL.parse(expression);
-				scriptCache.put(expression, script);
-			}
-
-			final Binding binding = new Binding();
-			for (final Entry<String, ? > entry : values.entrySet())
-				binding.setVariable(entry.getKey(), entry.getValue());
-			script.setBinding(binding);
-			return script.run();
+			return new GroovyCompiledExpression(this, expression, variableNames);
 		}
 		catch (final Exception ex)
 		{
-			throw new ExpressionEvaluationException("Evaluating script with Groovy failed.", ex);
+			throw new ExpressionEvaluationException("Compiling script with Groovy failed.", ex);
 		}
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
-	public boolean evaluateAsBoolean(final String expression, final Map<String, ? > values)
-			throws ExpressionEvaluationException
+	public Object evaluate(final String expression, final Map<String, ? > values) throws ExpressionEvaluationException
 	{
-		final Object result = evaluate(expression, values);
-		if (!(result instanceof Boolean))
-			throw new ExpressionEvaluationException("The script must return a boolean value.");
-		return (Boolean) result;
+		final String[] variableNames = new String[values.size()];
+		final Object[] variableValues = new Object[variableNames.length];
+		int i = 0;
+		for (final Entry<String, ? > entry : values.entrySet())
+		{
+			variableNames[i] = entry.getKey();
+			variableValues[i++] = entry.getValue();
+		}
+
+		// the expression is recompiled if it is evaluated with different variables, the script class is reused
+		CompiledExpression compiled = expressionCache.get(expression);
+		if (compiled == null || !compiled.isCompiledFrom(this, expression, variableNames))
+		{
+			compiled = compile(expression, variableNames);
+			expressionCache.put(expression, compiled);
+		}
+		return compiled.evaluate(variableValues);
+	}
+
+	@SuppressWarnings("unchecked")
+	private Class< ? extends Script> getScriptClass(final String expression)
+	{
+		Class< ? extends Script> scriptClass = scriptClasses.get(expression);
+		if (scriptClass == null)
+		{
+			scriptClass = GROOVY_SHELL.getClassLoader().parseClass(expression);
+			final Class< ? extends Script> existing = scriptClasses.putIfAbsent(expression, scriptClass);
+			if (existing != null) scriptClass = existing;
+		}
+		return scriptClass;
 	}
-}
\ No newline at end of file
+}
@@ -15,24 +15,127 @@ package net.sf.oval.expression;
 import net.sf.oval.exception.ExpressionEvaluationException;
 import net.sf.oval.internal.util.ObjectCache;
 import org.apache.commons.jexl2.Expression;
+import org.apache.commons.jexl2.JexlContext;
 import org.apache.commons.jexl2.JexlEngine;
 import org.apache.commons.jexl2.MapContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.HashMap;
 import java.util.Map;
 
 /**
  * @author Sebastian Thomschke
  */
-public class ExpressionLanguageJEXLImpl implements ExpressionLanguage
+public class ExpressionLanguageJEXLImpl extends AbstractExpressionLanguage
 {
+	private static final class JEXLCompiledExpression extends CompiledExpression
+	{
+		private final Expression expr;
+
+		JEXLCompiledExpression(final ExpressionLanguage language, final String expression, final String[] variableNames)
+		{
+			super(language, expression, variableNames);
+			expr = jexl.createExpression(expression);
+		}
+
+		@Override
+		public Object evaluate(final Object[] values) throws ExpressionEvaluationException
+		{
+			LOG.debug("Evaluating JEXL expression: {}", expression);
+			try
+			{
+				return expr.evaluate(new SlotContext(variableNames, values));
+			}
+			catch (final Exception ex)
+			{
+				throw new ExpressionEvaluationException("Evaluating JEXL expression failed: " + expression, ex);
+			}
+		}
+	}
+
+	/**
+	 * JEXL context backed by the variable names and values of a compiled expression. Variables declared by the
+	 * expression itself are kept in a lazily created map.
+	 *
+	 * The values array is owned by the caller and possibly shared by multiple evaluations, hence it is copied before an
+	 * assignment to a variable is applied.
+	 */
+	private static final class SlotContext implements JexlContext
+	{
+		private final String[] names;
+		private Object[] values;
+		private boolean isCopied;
+		private Map<String, Object> localVariables;
+
+		SlotContext(final String[] names, final Object[] values)
+		{
+			this.names = names;
+			this.values = values;
+		}
+
+		public Object get(final String name)
+		{
+			final int index = indexOf(name);
+			if (index > -1) return values[index];
+			return localVariables == null ? null : localVariables.get(name);
+		}
+
+		public boolean has(final String name)
+		{
+			return indexOf(name) > -1 || localVariables != null && localVariables.containsKey(name);
+		}
+
+		private int indexOf(final String name)
+		{
+			for (int i = 0; i < names.length; i++)
+				if (names[i].equals(name)) return i;
+			return -1;
+		}
+
+		public void set(final String name, final Object value)
+		{
+			final int index = indexOf(name);
+			if (index > -1)
+			{
+				if (!isCopied)
+				{
+					values = values.clone();
+					isCopied = true;
+				}
+				values[index] = value;
+			}
+			else
+			{
+				if (localVariables == null) localVariables = new HashMap<String, Object>(4);
+				localVariables.put(name, value);
+			}
+		}
+	}
+
 	private static final Logger LOG = LoggerFactory.getLogger(ExpressionLanguageJEXLImpl.class);
 
 	private static final JexlEngine jexl = new JexlEngine();
 
 	private final ObjectCache<String, Expression> expressionCache = new ObjectCache<String, Expression>();
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public CompiledExpression compile(final String expression, final String... variableNames) throws ExpressionEvaluationException
+	{
+		LOG.debug("Compiling JEXL expression: {}", expression);
+		try
+		{
+			return new JEXLCompiledExpression(this, expression, variableNames);
+		}
+		catch (final RuntimeException ex)
+		{
+			throw new ExpressionEvaluationException("Compiling JEXL expression failed: " + expression, ex);
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -55,14 +158,4 @@ public class ExpressionLanguageJEXLImpl implements ExpressionLanguage
 			throw new ExpressionEvaluationException("Evaluating JEXL expression failed: " + expression, ex);
 		}
 	}
-
-	/**
-	 * {@inheritDoc}
-	 */
-	public boolean evaluateAsBoolean(final String expression, final Map<String, ? > values) throws ExpressionEvaluationException
-	{
-		final Object result = evaluate(expression, values);
-		if (!(result instanceof Boolean)) throw new ExpressionEvaluationException("The script must return a boolean value.");
-		return (Boolean) result;
-	}
-}
\ No newline at end of file
+}
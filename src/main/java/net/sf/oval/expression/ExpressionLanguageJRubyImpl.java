@@ -16,60 +16,225 @@ import net.sf.oval.exception.ExpressionEvaluationException;
 import org.jruby.CompatVersion;
 import org.jruby.Ruby;
 import org.jruby.RubyInstanceConfig;
+import org.jruby.ast.Node;
+import org.jruby.ast.RootNode;
+import org.jruby.evaluator.ASTInterpreter;
+import org.jruby.internal.runtime.GlobalVariables;
 import org.jruby.javasupport.JavaEmbedUtils;
+import org.jruby.parser.LocalStaticScope;
+import org.jruby.parser.StaticScope;
+import org.jruby.runtime.Block;
+import org.jruby.runtime.DynamicScope;
+import org.jruby.runtime.ThreadContext;
 import org.jruby.runtime.builtin.IRubyObject;
+import org.jruby.runtime.scope.ManyVarsDynamicScope;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 
 /**
+ * Evaluates expressions using one JRuby runtime per thread. Booting a runtime is expensive, hence it is created once
+ * per thread and reused for all subsequent evaluations of that thread. Each expression is parsed once per runtime,
+ * the values are passed in through global variables that are copied into local variables by the parsed script. Each
+ * evaluation runs in a fresh local scope, so the local variables do not keep the evaluated objects reachable.
+ *
+ * The runtime of a thread is terminated once the thread has died and another thread creates its runtime, or when
+ * {@link #releaseThreadRuntime()} is called by the thread, e.g. before a pooled thread is returned to its pool.
+ *
  * @author Sebastian Thomschke
  *
  */
-public class ExpressionLanguageJRubyImpl implements ExpressionLanguage
+public class ExpressionLanguageJRubyImpl extends AbstractExpressionLanguage
 {
-	private static final Logger LOG = LoggerFactory.getLogger(ExpressionLanguageJRubyImpl.class);
+	/**
+	 * An expression parsed for a given set of variable names.
+	 */
+	private static final class CompiledScript
+	{
+		final String[] names;
+		final String[] globalNames;
+		final StaticScope staticScope;
+		final Node body;
+
+		CompiledScript(final String[] names, final String[] globalNames, final StaticScope staticScope, final Node body)
+		{
+			this.names = names;
+			this.globalNames = globalNames;
+			this.staticScope = staticScope;
+			this.body = body;
+		}
+
+		boolean isApplicable(final Map<String, ? > values)
+		{
+			if (names.length != values.size()) return false;
+			for (final String name : names)
+				if (!values.containsKey(name)) return false;
+			return true;
+		}
+	}
 
 	/**
-	 * {@inheritDoc}
+	 * A JRuby runtime confined to a single thread together with the expressions parsed by it.
 	 */
-	public Object evaluate(final String expression, final Map<String, ? > values) throws ExpressionEvaluationException
+	private static final class ThreadRuntime
 	{
-		LOG.debug("Evaluating JRuby expression: {}", expression);
-		try
+		final WeakReference<Thread> owner = new WeakReference<Thread>(Thread.currentThread());
+		final Ruby runtime;
+		final DynamicScope scope;
+		final Map<String, CompiledScript> scripts = new HashMap<String, CompiledScript>();
+
+		ThreadRuntime()
 		{
 			final RubyInstanceConfig config = new RubyInstanceConfig();
 			config.setCompatVersion(CompatVersion.RUBY1_9);
-			final Ruby runtime = JavaEmbedUtils.initialize(new ArrayList<String>(), config);
+			runtime = JavaEmbedUtils.initialize(new ArrayList<String>(), config);
+			scope = runtime.getCurrentContext().getCurrentScope();
+		}
 
+		CompiledScript compile(final String expression, final Map<String, ? > values)
+		{
+			final String[] names = values.keySet().toArray(new String[values.size()]);
+			final String[] globalNames = new String[names.length];
 			final StringBuilder localVars = new StringBuilder();
-			for (final Entry<String, ? > entry : values.entrySet())
+			for (int i = 0; i < names.length; i++)
 			{
-				runtime.getGlobalVariables().set("$" + entry.getKey(), JavaEmbedUtils.javaToRuby(runtime, entry.getValue()));
-				localVars.append(entry.getKey()) //
-						.append("=$") //
-						.append(entry.getKey()) //
-						.append("\n");
+				globalNames[i] = "$" + names[i];
+				localVars.append(names[i]) //
+						.append('=') //
+						.append(globalNames[i]) //
+						.append('\n');
 			}
-			final IRubyObject result = runtime.evalScriptlet(localVars + expression);
-			return JavaEmbedUtils.rubyToJava(runtime, result, Object.class);
+			// parse in a scope of its own so the variables of different scripts do not accumulate in the top-level scope
+			final DynamicScope parseScope = new ManyVarsDynamicScope(new LocalStaticScope(scope.getStaticScope()), scope);
+
+			// the root node reuses the scope it was parsed in for each evaluation, hence only its body is kept
+			final RootNode root = (RootNode) runtime.parseEval(localVars + expression, "<script>", parseScope, 0);
+			final StaticScope staticScope = root.getStaticScope();
+			if (staticScope.getModule() == null) staticScope.setModule(runtime.getObject());
+			return new CompiledScript(names, globalNames, staticScope, root.getBodyNode());
+		}
+
+		Object evaluate(final String expression, final Map<String, ? > values)
+		{
+			CompiledScript script = scripts.get(expression);
+			if (script == null || !script.isApplicable(values))
+			{
+				script = compile(expression, values);
+				scripts.put(expression, script);
+			}
+
+			final GlobalVariables globals = runtime.getGlobalVariables();
+			for (int i = 0; i < script.names.length; i++)
+				globals.set(script.globalNames[i], JavaEmbedUtils.javaToRuby(runtime, values.get(script.names[i])));
+
+			final ThreadContext context = runtime.getCurrentContext();
+			context.preScopedBody(DynamicScope.newDynamicScope(script.staticScope, scope));
+			try
+			{
+				if (script.body == null) return null;
+				final IRubyObject result = ASTInterpreter.INTERPRET_ROOT(runtime, context, script.body, context.getFrameSelf(),
+						Block.NULL_BLOCK);
+				return JavaEmbedUtils.rubyToJava(runtime, result, Object.class);
+			}
+			finally
+			{
+				context.postScopedBody();
+
+				// do not keep the evaluated objects reachable via the runtime
+				for (final String globalName : script.globalNames)
+					globals.set(globalName, runtime.getNil());
+			}
+		}
+	}
+
+	private static final Logger LOG = LoggerFactory.getLogger(ExpressionLanguageJRubyImpl.class);
+
+	/**
+	 * the runtimes of all threads, used to terminate the runtimes of threads that died
+	 */
+	private final List<ThreadRuntime> threadRuntimes = new ArrayList<ThreadRuntime>();
+
+	/**
+	 * the runtime of the current thread, created on the first evaluation, see {@link #getThreadRuntime()}
+	 */
+	private final ThreadLocal<ThreadRuntime> threadRuntime = new ThreadLocal<ThreadRuntime>();
+
+	private static void terminate(final ThreadRuntime rt)
+	{
+		try
+		{
+			JavaEmbedUtils.terminate(rt.runtime);
 		}
 		catch (final RuntimeException ex)
 		{
-			throw new ExpressionEvaluationException("Evaluating JRuby expression failed: " + expression, ex);
+			LOG.warn("Terminating JRuby runtime failed.", ex);
 		}
 	}
 
+	/**
+	 * @return the runtime of the current thread, a new runtime is created and registered on first access and the
+	 *         runtimes of threads that died are terminated
+	 */
+	private ThreadRuntime getThreadRuntime()
+	{
+		ThreadRuntime rt = threadRuntime.get();
+		if (rt != null) return rt;
+
+		rt = new ThreadRuntime();
+		synchronized (threadRuntimes)
+		{
+			for (final Iterator<ThreadRuntime> it = threadRuntimes.iterator(); it.hasNext();)
+			{
+				final ThreadRuntime other = it.next();
+				final Thread owner = other.owner.get();
+				if (owner == null || !owner.isAlive())
+				{
+					it.remove();
+					terminate(other);
+				}
+			}
+			threadRuntimes.add(rt);
+		}
+		threadRuntime.set(rt);
+		return rt;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
-	public boolean evaluateAsBoolean(final String expression, final Map<String, ? > values) throws ExpressionEvaluationException
+	public Object evaluate(final String expression, final Map<String, ? > values) throws ExpressionEvaluationException
+	{
+		LOG.debug("Evaluating JRuby expression: {}", expression);
+		try
+		{
+			return getThreadRuntime().evaluate(expression, values);
+		}
+		catch (final RuntimeException ex)
+		{
+			throw new ExpressionEvaluationException("Evaluating JRuby expression failed: " + expression, ex);
+		}
+	}
+
+	/**
+	 * Terminates the JRuby runtime of the current thread, if any. A new runtime is created if the thread evaluates
+	 * another expression.
+	 */
+	public void releaseThreadRuntime()
 	{
-		final Object result = evaluate(expression, values);
-		if (!(result instanceof Boolean)) throw new ExpressionEvaluationException("The script must return a boolean value.");
-		return (Boolean) result;
+		final ThreadRuntime rt = threadRuntime.get();
+		if (rt == null) return;
+
+		threadRuntime.remove();
+		synchronized (threadRuntimes)
+		{
+			threadRuntimes.remove(rt);
+		}
+		terminate(rt);
 	}
-}
\ No newline at end of file
+}
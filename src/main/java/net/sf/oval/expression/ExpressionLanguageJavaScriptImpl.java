@@ -13,88 +13,382 @@
 package net.sf.oval.expression;
 
 import net.sf.oval.exception.ExpressionEvaluationException;
+import net.sf.oval.exception.ExpressionEvaluationTimeoutException;
 import net.sf.oval.internal.util.ObjectCache;
 import org.mozilla.javascript.Context;
 import org.mozilla.javascript.ContextFactory;
 import org.mozilla.javascript.EvaluatorException;
+import org.mozilla.javascript.RhinoException;
 import org.mozilla.javascript.Script;
 import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Map.Entry;
 
 /**
+ * JavaScript support based on Mozilla Rhino.
+ *
+ * The standard objects are created once per language instance and sealed, so they can be shared by all threads. Each
+ * thread reuses one Rhino context that is entered for the outermost evaluation of the thread and exited once it
+ * returned. Each compiled expression keeps one variable scope per thread whose slots are overwritten on every
+ * evaluation.
+ *
+ * Running evaluations are aborted via Rhino's instruction observer once they exceed their {@link ExpressionTimeBudget}.
+ * If other code already entered a Rhino context on the current thread, e.g. when the validation is triggered by a
+ * script, the expressions are evaluated in that context. It does not observe the time budget, hence an overrun is only
+ * detected once the evaluation returned.
+ *
  * @author Sebastian Thomschke
  *
  */
-public class ExpressionLanguageJavaScriptImpl implements ExpressionLanguage
+public class ExpressionLanguageJavaScriptImpl extends AbstractExpressionLanguage
 {
+	private static final class JavaScriptCompiledExpression extends CompiledExpression
+	{
+		private final Scriptable sharedScope;
+		private final Script script;
+
+		private final ThreadLocal<VariableScope> threadScope = new ThreadLocal<VariableScope>();
+
+		JavaScriptCompiledExpression(final ExpressionLanguageJavaScriptImpl language, final String expression,
+				final String[] variableNames)
+		{
+			super(language, expression, variableNames);
+			sharedScope = language.sharedScope;
+			enterContext();
+			try
+			{
+				// always compiled by the own context, so the script counts its instructions for the instruction observer
+				script = THREAD_CONTEXT.get().context.compileString(expression, "<cmd>", 1, null);
+			}
+			finally
+			{
+				exitContext();
+			}
+		}
+
+		@Override
+		public Object evaluate(final Object[] values) throws ExpressionEvaluationException
+		{
+			LOG.debug("Evaluating JavaScript expression: {}", expression);
+
+			VariableScope scope = threadScope.get();
+			if (scope == null)
+			{
+				scope = new VariableScope(variableNames, sharedScope);
+				threadScope.set(scope);
+			}
+			else if (scope.inUse)
+				// the expression is evaluated recursively, do not overwrite the variables of the running evaluation
+				scope = new VariableScope(variableNames, sharedScope);
+
+			final Context ctx = enterContext();
+			scope.bind(values);
+			try
+			{
+				final Object result = script.exec(ctx, scope);
+
+				// the instruction observer of a foreign context does not abort the evaluation
+				if (ExpressionTimeBudget.isExceeded()) throw new TimeBudgetExceededError();
+				return result;
+			}
+			catch (final RhinoException ex)
+			{
+				throw new ExpressionEvaluationException("Evaluating JavaScript expression failed: " + expression, ex);
+			}
+			catch (final TimeBudgetExceededError ex)
+			{
+				throw new ExpressionEvaluationTimeoutException("Evaluating JavaScript expression exceeded its time budget: "
+						+ expression);
+			}
+			finally
+			{
+				scope.release();
+
+				// variables declared by the script would be visible to the next evaluation
+				if (scope.isPolluted && threadScope.get() == scope) threadScope.remove();
+
+				exitContext();
+			}
+		}
+	}
+
+	/**
+	 * Creates contexts that observe the {@link ExpressionTimeBudget} of the current thread.
+	 */
+	private static final class BudgetContextFactory extends ContextFactory
+	{
+		Context newContext()
+		{
+			return makeContext();
+		}
+
+		@Override
+		protected Context makeContext()
+		{
+			final Context ctx = super.makeContext();
+			ctx.setOptimizationLevel(9);
+			ctx.setGenerateObserverCount(true);
+			ctx.setInstructionObserverThreshold(INSTRUCTION_OBSERVER_THRESHOLD);
+			return ctx;
+		}
+
+		@Override
+		protected void observeInstructionCount(final Context ctx, final int instructionCount)
+		{
+			if (ExpressionTimeBudget.isExceeded()) throw new TimeBudgetExceededError();
+		}
+	}
+
+	/**
+	 * The context of a thread together with the nesting depth of the evaluations running on the thread.
+	 */
+	private static final class ThreadContext
+	{
+		final Context context = CONTEXT_FACTORY.newContext();
+
+		/**
+		 * the context the running evaluations use, either the own context or a foreign one entered by other code
+		 */
+		Context current;
+
+		int depth;
+	}
+
+	/**
+	 * Thrown by the instruction observer to abort an evaluation. An {@link Error} cannot be caught by the script.
+	 */
+	private static final class TimeBudgetExceededError extends Error
+	{
+		private static final long serialVersionUID = 1L;
+
+		TimeBudgetExceededError()
+		{
+			super(null, null, false, false);
+		}
+	}
+
+	/**
+	 * Top level scope of an evaluation holding the variables in slots. Unknown names are resolved via the shared scope
+	 * of the standard objects.
+	 */
+	private static final class VariableScope extends ScriptableObject
+	{
+		private static final long serialVersionUID = 1L;
+
+		private static final Object UNWRAPPED = new Object();
+
+		private final String[] names;
+		private final Object[] values;
+
+		/**
+		 * the JavaScript representations of the values, created on first access
+		 */
+		private final Object[] wrappedValues;
+
+		boolean inUse;
+
+		/**
+		 * set if the script defined variables other than the slots
+		 */
+		boolean isPolluted;
+
+		VariableScope(final String[] names, final Scriptable sharedScope)
+		{
+			this.names = names;
+			values = new Object[names.length];
+			wrappedValues = new Object[names.length];
+			setPrototype(sharedScope);
+			setParentScope(null);
+		}
+
+		void bind(final Object[] values)
+		{
+			System.arraycopy(values, 0, this.values, 0, this.values.length);
+			Arrays.fill(wrappedValues, UNWRAPPED);
+			inUse = true;
+		}
+
+		@Override
+		public Object get(final String name, final Scriptable start)
+		{
+			final int index = indexOf(name);
+			if (index == -1) return super.get(name, start);
+
+			Object wrapped = wrappedValues[index];
+			if (wrapped == UNWRAPPED)
+			{
+				wrapped = Context.javaToJS(values[index], this);
+				wrappedValues[index] = wrapped;
+			}
+			return wrapped;
+		}
+
+		@Override
+		public String getClassName()
+		{
+			return "global";
+		}
+
+		@Override
+		public boolean has(final String name, final Scriptable start)
+		{
+			return indexOf(name) > -1 || super.has(name, start);
+		}
+
+		private int indexOf(final String name)
+		{
+			for (int i = 0; i < names.length; i++)
+				if (names[i].equals(name)) return i;
+			return -1;
+		}
+
+		@Override
+		public void put(final String name, final Scriptable start, final Object value)
+		{
+			final int index = indexOf(name);
+			if (index == -1)
+			{
+				isPolluted = true;
+				super.put(name, start, value);
+			}
+			else
+			{
+				values[index] = value;
+				wrappedValues[index] = value;
+			}
+		}
+
+		/**
+		 * clears the slots so the scope does not keep the evaluated objects reachable
+		 */
+		void release()
+		{
+			Arrays.fill(values, null);
+			Arrays.fill(wrappedValues, null);
+			inUse = false;
+		}
+	}
+
 	private static final Logger LOG = LoggerFactory.getLogger(ExpressionLanguageJavaScriptImpl.class);
 
-	private final Scriptable parentScope;
+	/**
+	 * the number of executed instructions after which the time budget of a running evaluation is checked
+	 */
+	private static final int INSTRUCTION_OBSERVER_THRESHOLD = 10000;
 
-	private final ObjectCache<String, Script> scriptCache = new ObjectCache<String, Script>();
+	private static final BudgetContextFactory CONTEXT_FACTORY = new BudgetContextFactory();
+
+	private static final ThreadLocal<ThreadContext> THREAD_CONTEXT = new ThreadLocal<ThreadContext>()
+	{
+		@Override
+		protected ThreadContext initialValue()
+		{
+			return new ThreadContext();
+		}
+	};
+
+	/**
+	 * Enters the context of the current thread unless an enclosing evaluation of the thread already entered it or
+	 * other code entered a foreign context on the current thread, which is used as is then. Each call must be followed
+	 * by a call to {@link #exitContext()}, usually in a <code>finally</code> block.
+	 */
+	private static Context enterContext()
+	{
+		final ThreadContext tc = THREAD_CONTEXT.get();
+		if (tc.depth == 0)
+		{
+			final Context foreign = Context.getCurrentContext();
+			if (foreign == null)
+			{
+				CONTEXT_FACTORY.enterContext(tc.context);
+				tc.current = tc.context;
+			}
+			else
+			{
+				LOG.debug("A foreign Rhino context is entered on the current thread, running evaluations are not aborted on timeout.");
+				tc.current = foreign;
+			}
+		}
+		tc.depth++;
+		return tc.current;
+	}
+
+	/**
+	 * Exits the context of the current thread once the outermost evaluation of the thread returned.
+	 */
+	private static void exitContext()
+	{
+		final ThreadContext tc = THREAD_CONTEXT.get();
+		if (--tc.depth == 0)
+		{
+			if (tc.current == tc.context) Context.exit();
+			tc.current = null;
+		}
+	}
+
+	private final Scriptable sharedScope;
+
+	private final ObjectCache<String, CompiledExpression> expressionCache = new ObjectCache<String, CompiledExpression>();
 
 	/**
 	 * Default constructor.
 	 */
 	public ExpressionLanguageJavaScriptImpl()
 	{
-		final Context ctx = ContextFactory.getGlobal().enterContext();
+		final Context ctx = enterContext();
 		try
 		{
-			parentScope = ctx.initStandardObjects();
+			sharedScope = ctx.initStandardObjects(null, true);
 		}
 		finally
 		{
-			Context.exit();
+			exitContext();
 		}
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
-	public Object evaluate(final String expression, final Map<String, ? > values) throws ExpressionEvaluationException
+	@Override
+	public CompiledExpression compile(final String expression, final String... variableNames) throws ExpressionEvaluationException
 	{
-		LOG.debug("Evaluating JavaScript expression: {}", expression);
+		LOG.debug("Compiling JavaScript expression: {}", expression);
 		try
 		{
-			final Context ctx = ContextFactory.getGlobal().enterContext();
-			Script script = scriptCache.get(expression);
-			if (script == null)
-			{
-				ctx.setOptimizationLevel(9);
-				script = ctx.compileString(expression, "<cmd>", 1, null);
-				scriptCache.put(expression, script);
-			}
-			final Scriptable scope = ctx.newObject(parentScope);
-			scope.setPrototype(parentScope);
-			scope.setParentScope(null);
-			for (final Entry<String, ? > entry : values.entrySet())
-				scope.put(entry.getKey(), scope, Context.javaToJS(entry.getValue(), scope));
-			return script.exec(ctx, scope);
+			return new JavaScriptCompiledExpression(this, expression, variableNames);
 		}
 		catch (final EvaluatorException ex)
 		{
-			throw new ExpressionEvaluationException("Evaluating JavaScript expression failed: " + expression, ex);
-		}
-		finally
-		{
-			Context.exit();
+			throw new ExpressionEvaluationException("Compiling JavaScript expression failed: " + expression, ex);
 		}
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
-	public boolean evaluateAsBoolean(final String expression, final Map<String, ? > values)
-			throws ExpressionEvaluationException
+	public Object evaluate(final String expression, final Map<String, ? > values) throws ExpressionEvaluationException
 	{
-		final Object result = evaluate(expression, values);
-		if (!(result instanceof Boolean))
-			throw new ExpressionEvaluationException("The script must return a boolean value.");
-		return (Boolean) result;
+		final String[] variableNames = new String[values.size()];
+		final Object[] variableValues = new Object[variableNames.length];
+		int i = 0;
+		for (final Entry<String, ? > entry : values.entrySet())
+		{
+			variableNames[i] = entry.getKey();
+			variableValues[i++] = entry.getValue();
+		}
+
+		// the expression is recompiled if it is evaluated with different variables
+		CompiledExpression compiled = expressionCache.get(expression);
+		if (compiled == null || !compiled.isCompiledFrom(this, expression, variableNames))
+		{
+			compiled = compile(expression, variableNames);
+			expressionCache.put(expression, compiled);
+		}
+		return compiled.evaluate(variableValues);
 	}
-}
\ No newline at end of file
+}
@@ -15,18 +15,240 @@ package net.sf.oval.expression;
 import net.sf.oval.exception.ExpressionEvaluationException;
 import net.sf.oval.internal.util.ObjectCache;
 import org.mvel2.MVEL;
+import org.mvel2.UnresolveablePropertyException;
+import org.mvel2.integration.VariableResolver;
+import org.mvel2.integration.VariableResolverFactory;
+import org.mvel2.integration.impl.MapVariableResolverFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * @author Sebastian Thomschke
  */
-public class ExpressionLanguageMVELImpl implements ExpressionLanguage
+public class ExpressionLanguageMVELImpl extends AbstractExpressionLanguage
 {
+	private static final class MVELCompiledExpression extends CompiledExpression
+	{
+		private final Serializable compiled;
+
+		MVELCompiledExpression(final ExpressionLanguage language, final String expression, final String[] variableNames)
+		{
+			super(language, expression, variableNames);
+			compiled = MVEL.compileExpression(expression);
+		}
+
+		@Override
+		public Object evaluate(final Object[] values) throws ExpressionEvaluationException
+		{
+			LOG.debug("Evaluating MVEL expression: {}", expression);
+			try
+			{
+				return MVEL.executeExpression(compiled, new SlotVariableResolverFactory(variableNames, values));
+			}
+			catch (final Exception ex)
+			{
+				throw new ExpressionEvaluationException("Evaluating MVEL expression failed: " + expression, ex);
+			}
+		}
+	}
+
+	/**
+	 * Resolves a variable directly from its slot in the values of the factory.
+	 */
+	private static final class SlotVariableResolver implements VariableResolver
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final String name;
+		private final SlotVariableResolverFactory factory;
+		private final int index;
+
+		SlotVariableResolver(final String name, final SlotVariableResolverFactory factory, final int index)
+		{
+			this.name = name;
+			this.factory = factory;
+			this.index = index;
+		}
+
+		public int getFlags()
+		{
+			return 0;
+		}
+
+		public String getName()
+		{
+			return name;
+		}
+
+		public Class< ? > getType()
+		{
+			return Object.class;
+		}
+
+		public Object getValue()
+		{
+			return factory.values[index];
+		}
+
+		public void setStaticType(@SuppressWarnings("rawtypes") final Class type)
+		{
+			// variables are untyped
+		}
+
+		public void setValue(final Object value)
+		{
+			factory.setValue(index, value);
+		}
+	}
+
+	/**
+	 * Variable resolver factory backed by the variable names and values of a compiled expression. Variables declared by
+	 * the expression itself are kept in a lazily created map based factory.
+	 *
+	 * The values array is owned by the caller and possibly shared by multiple evaluations, hence it is copied before an
+	 * assignment to a variable is applied.
+	 */
+	private static final class SlotVariableResolverFactory implements VariableResolverFactory
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final String[] names;
+		private Object[] values;
+		private boolean isCopied;
+		private VariableResolverFactory nextFactory;
+
+		SlotVariableResolverFactory(final String[] names, final Object[] values)
+		{
+			this.names = names;
+			this.values = values;
+		}
+
+		void setValue(final int index, final Object value)
+		{
+			if (!isCopied)
+			{
+				values = values.clone();
+				isCopied = true;
+			}
+			values[index] = value;
+		}
+
+		public VariableResolver createIndexedVariable(final int index, final String name, final Object value)
+		{
+			return createVariable(name, value);
+		}
+
+		public VariableResolver createIndexedVariable(final int index, final String name, final Object value, final Class< ? > type)
+		{
+			return createVariable(name, value);
+		}
+
+		public VariableResolver createVariable(final String name, final Object value)
+		{
+			final int index = indexOf(name);
+			if (index == -1)
+			{
+				if (nextFactory == null) nextFactory = new MapVariableResolverFactory(new HashMap<String, Object>());
+				return nextFactory.createVariable(name, value);
+			}
+			setValue(index, value);
+			return new SlotVariableResolver(name, this, index);
+		}
+
+		public VariableResolver createVariable(final String name, final Object value, final Class< ? > type)
+		{
+			return createVariable(name, value);
+		}
+
+		public VariableResolver getIndexedVariableResolver(final int index)
+		{
+			return null;
+		}
+
+		public Set<String> getKnownVariables()
+		{
+			final Set<String> knownVariables = new HashSet<String>(Arrays.asList(names));
+			if (nextFactory != null) knownVariables.addAll(nextFactory.getKnownVariables());
+			return knownVariables;
+		}
+
+		public VariableResolverFactory getNextFactory()
+		{
+			return nextFactory;
+		}
+
+		public VariableResolver getVariableResolver(final String name)
+		{
+			final int index = indexOf(name);
+			if (index > -1) return new SlotVariableResolver(name, this, index);
+			if (nextFactory != null && nextFactory.isResolveable(name)) return nextFactory.getVariableResolver(name);
+			throw new UnresolveablePropertyException("unable to resolve variable '" + name + "'");
+		}
+
+		private int indexOf(final String name)
+		{
+			for (int i = 0; i < names.length; i++)
+				if (names[i].equals(name)) return i;
+			return -1;
+		}
+
+		public boolean isIndexedFactory()
+		{
+			return false;
+		}
+
+		public boolean isResolveable(final String name)
+		{
+			return indexOf(name) > -1 || nextFactory != null && nextFactory.isResolveable(name);
+		}
+
+		public boolean isTarget(final String name)
+		{
+			return indexOf(name) > -1 || nextFactory != null && nextFactory.isTarget(name);
+		}
+
+		public VariableResolver setIndexedVariableResolver(final int index, final VariableResolver resolver)
+		{
+			return null;
+		}
+
+		public VariableResolverFactory setNextFactory(final VariableResolverFactory nextFactory)
+		{
+			return this.nextFactory = nextFactory;
+		}
+
+		public int variableIndexOf(final String name)
+		{
+			return -1;
+		}
+	}
+
 	private static final Logger LOG = LoggerFactory.getLogger(ExpressionLanguageMVELImpl.class);
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public CompiledExpression compile(final String expression, final String... variableNames) throws ExpressionEvaluationException
+	{
+		LOG.debug("Compiling MVEL expression: {}", expression);
+		try
+		{
+			return new MVELCompiledExpression(this, expression, variableNames);
+		}
+		catch (final RuntimeException ex)
+		{
+			throw new ExpressionEvaluationException("Compiling MVEL expression failed: " + expression, ex);
+		}
+	}
+
 	private final ObjectCache<String, Object> expressionCache = new ObjectCache<String, Object>();
 
 	/**
@@ -50,16 +272,4 @@ public class ExpressionLanguageMVELImpl implements ExpressionLanguage
 			throw new ExpressionEvaluationException("Evaluating MVEL expression failed: " + expression, ex);
 		}
 	}
-
-	/**
-	 * {@inheritDoc}
-	 */
-	public boolean evaluateAsBoolean(final String expression, final Map<String, ? > values)
-			throws ExpressionEvaluationException
-	{
-		final Object result = evaluate(expression, values);
-		if (!(result instanceof Boolean))
-			throw new ExpressionEvaluationException("The script must return a boolean value.");
-		return (Boolean) result;
-	}
-}
\ No newline at end of file
+}
@@ -27,12 +27,80 @@ import java.util.Map.Entry;
  * @author Sebastian Thomschke
  *
  */
-public class ExpressionLanguageOGNLImpl implements ExpressionLanguage
+public class ExpressionLanguageOGNLImpl extends AbstractExpressionLanguage
 {
+	private static final class OGNLCompiledExpression extends CompiledExpression
+	{
+		private final Object tree;
+
+		OGNLCompiledExpression(final ExpressionLanguage language, final String expression, final String[] variableNames)
+				throws OgnlException
+		{
+			super(language, expression, variableNames);
+			tree = Ognl.parseExpression(expression);
+		}
+
+		@Override
+		public Object evaluate(final Object[] values) throws ExpressionEvaluationException
+		{
+			LOG.debug("Evaluating OGNL expression: {}", expression);
+
+			// reuse the context of the current thread unless it is used by an enclosing evaluation
+			OgnlContext ctx = THREAD_CONTEXT.get();
+			if (ctx == null)
+				ctx = (OgnlContext) Ognl.createDefaultContext(null);
+			else
+				THREAD_CONTEXT.set(null);
+			try
+			{
+				for (int i = 0; i < variableNames.length; i++)
+					ctx.put(variableNames[i], values[i]);
+				// the variables are resolved as properties of the root object, i.e. the context itself
+				return Ognl.getValue(tree, ctx, ctx);
+			}
+			catch (final OgnlException ex)
+			{
+				throw new ExpressionEvaluationException("Evaluating OGNL expression failed: " + expression, ex);
+			}
+			finally
+			{
+				// resets the variables and the evaluation state
+				ctx.clear();
+				THREAD_CONTEXT.set(ctx);
+			}
+		}
+	}
+
 	private static final Logger LOG = LoggerFactory.getLogger(ExpressionLanguageOGNLImpl.class);
 
+	private static final ThreadLocal<OgnlContext> THREAD_CONTEXT = new ThreadLocal<OgnlContext>()
+	{
+		@Override
+		protected OgnlContext initialValue()
+		{
+			return (OgnlContext) Ognl.createDefaultContext(null);
+		}
+	};
+
 	private final ObjectCache<String, Object> expressionCache = new ObjectCache<String, Object>();
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public CompiledExpression compile(final String expression, final String... variableNames) throws ExpressionEvaluationException
+	{
+		LOG.debug("Compiling OGNL expression: {}", expression);
+		try
+		{
+			return new OGNLCompiledExpression(this, expression, variableNames);
+		}
+		catch (final OgnlException ex)
+		{
+			throw new ExpressionEvaluationException("Compiling OGNL expression failed: " + expression, ex);
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -59,16 +127,4 @@ public class ExpressionLanguageOGNLImpl implements ExpressionLanguage
 			throw new ExpressionEvaluationException("Evaluating MVEL expression failed: " + expression, ex);
 		}
 	}
-
-	/**
-	 * {@inheritDoc}
-	 */
-	public boolean evaluateAsBoolean(final String expression, final Map<String, ? > values)
-			throws ExpressionEvaluationException
-	{
-		final Object result = evaluate(expression, values);
-		if (!(result instanceof Boolean))
-			throw new ExpressionEvaluationException("The script must return a boolean value.");
-		return (Boolean) result;
-	}
-}
\ No newline at end of file
+}
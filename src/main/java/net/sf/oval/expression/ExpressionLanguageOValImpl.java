@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Portions created by Sebastian Thomschke are copyright (c) 2005-2013 Sebastian
+ * Thomschke.
+ *
+ * All Rights Reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Sebastian Thomschke - initial implementation.
+ *******************************************************************************/
+package net.sf.oval.expression;
+
+import net.sf.oval.exception.ExpressionEvaluationException;
+import net.sf.oval.internal.util.ObjectCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Built-in expression language without any third party dependencies, registered as <code>oval</code>. It supports a
+ * subset of the Java expression syntax, i.e. literals, comparisons, boolean and arithmetic operators, null checks,
+ * property paths, method calls and indexes, see {@link OValExpressionParser}.
+ *
+ * Expressions are parsed once into a tree of nodes specialized for the respective operation. Variables are resolved
+ * to their slot index at compile time and members are resolved on first evaluation.
+ *
+ * @author Sebastian Thomschke
+ */
+public class ExpressionLanguageOValImpl extends AbstractExpressionLanguage
+{
+	private static final class OValCompiledExpression extends CompiledExpression
+	{
+		private final OValExpressionNode root;
+
+		OValCompiledExpression(final ExpressionLanguage language, final String expression, final String[] variableNames)
+		{
+			super(language, expression, variableNames);
+			root = OValExpressionParser.parse(expression, variableNames);
+		}
+
+		@Override
+		public Object evaluate(final Object[] values) throws ExpressionEvaluationException
+		{
+			LOG.debug("Evaluating OVal expression: {}", expression);
+			try
+			{
+				return root.evaluate(values);
+			}
+			catch (final ExpressionEvaluationException ex)
+			{
+				throw ex;
+			}
+			catch (final RuntimeException ex)
+			{
+				throw new ExpressionEvaluationException("Evaluating OVal expression failed: " + expression, ex);
+			}
+		}
+
+		@Override
+		public boolean evaluateAsBoolean(final Object[] values) throws ExpressionEvaluationException
+		{
+			LOG.debug("Evaluating OVal expression: {}", expression);
+			try
+			{
+				return root.evaluateAsBoolean(values);
+			}
+			catch (final ExpressionEvaluationException ex)
+			{
+				throw ex;
+			}
+			catch (final RuntimeException ex)
+			{
+				throw new ExpressionEvaluationException("Evaluating OVal expression failed: " + expression, ex);
+			}
+		}
+	}
+
+	private static final Logger LOG = LoggerFactory.getLogger(ExpressionLanguageOValImpl.class);
+
+	private final ObjectCache<String, CompiledExpression> expressionCache = new ObjectCache<String, CompiledExpression>();
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public CompiledExpression compile(final String expression, final String... variableNames) throws ExpressionEvaluationException
+	{
+		LOG.debug("Compiling OVal expression: {}", expression);
+		return new OValCompiledExpression(this, expression, variableNames);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public Object evaluate(final String expression, final Map<String, ? > values) throws ExpressionEvaluationException
+	{
+		final String[] variableNames = new String[values.size()];
+		final Object[] variableValues = new Object[variableNames.length];
+		int i = 0;
+		for (final Entry<String, ? > entry : values.entrySet())
+		{
+			variableNames[i] = entry.getKey();
+			variableValues[i++] = entry.getValue();
+		}
+
+		// the expression is recompiled if it is evaluated with different variables
+		CompiledExpression compiled = expressionCache.get(expression);
+		if (compiled == null || !compiled.isCompiledFrom(this, expression, variableNames))
+		{
+			compiled = compile(expression, variableNames);
+			expressionCache.put(expression, compiled);
+		}
+		return compiled.evaluate(variableValues);
+	}
+}
@@ -18,23 +18,49 @@ import net.sf.oval.internal.util.ReflectionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 /**
+ * Thread-safe registry of expression languages. The built-in languages are initialized lazily on first request. If
+ * multiple threads request the same language concurrently it is initialized only once, and languages found to be
+ * unavailable are remembered so the class path is not probed again.
+ *
  * @author Sebastian Thomschke
  */
 public class ExpressionLanguageRegistry
 {
 	private static final Logger LOG = LoggerFactory.getLogger(ExpressionLanguageRegistry.class);
 
-	private final Map<String, ExpressionLanguage> elcache = new LinkedHashMap<>(4);
+	/**
+	 * @return the id the initialization of the given language and all of its aliases is keyed by
+	 */
+	private static String getCanonicalLanguageId(final String languageId)
+	{
+		if ("javascript".equals(languageId)) return "js";
+		if ("beanshell".equals(languageId)) return "bsh";
+		if ("jruby".equals(languageId)) return "ruby";
+		return languageId;
+	}
+
+	private final ConcurrentMap<String, ExpressionLanguage> elcache = new ConcurrentHashMap<String, ExpressionLanguage>(4);
+
+	/**
+	 * the pending or completed initializations of the default expression languages by canonical language id, a
+	 * completed initialization with a <code>null</code> result marks the language as not available
+	 */
+	private final ConcurrentMap<String, FutureTask<ExpressionLanguage>> initializations = new ConcurrentHashMap<String, FutureTask<ExpressionLanguage>>(4);
 
 	private ExpressionLanguage _initializeDefaultEL(final String languageId)
 	{
+		// built-in expression language
+		if ("oval".equals(languageId)) return registerExpressionLanguage("oval", new ExpressionLanguageOValImpl());
+
 		// JavaScript support
-		if (("javascript".equals(languageId) || "js".equals(languageId))
-				&& ReflectionUtils.isClassPresent("org.mozilla.javascript.Context"))
+		if ("js".equals(languageId) && ReflectionUtils.isClassPresent("org.mozilla.javascript.Context"))
 			return registerExpressionLanguage("js", registerExpressionLanguage("javascript", new ExpressionLanguageJavaScriptImpl()));
 
 		// Groovy support
@@ -42,7 +68,7 @@ public class ExpressionLanguageRegistry
 			return registerExpressionLanguage("groovy", new ExpressionLanguageGroovyImpl());
 
 		// BeanShell support
-		if (("beanshell".equals(languageId) || "bsh".equals(languageId)) && ReflectionUtils.isClassPresent("bsh.Interpreter"))
+		if ("bsh".equals(languageId) && ReflectionUtils.isClassPresent("bsh.Interpreter"))
 			return registerExpressionLanguage("beanshell", registerExpressionLanguage("bsh", new ExpressionLanguageBeanShellImpl()));
 
 		// OGNL support
@@ -54,7 +80,7 @@ public class ExpressionLanguageRegistry
 			return registerExpressionLanguage("mvel", new ExpressionLanguageMVELImpl());
 
 		// JRuby support
-		else if (("jruby".equals(languageId) || "ruby".equals(languageId)) && ReflectionUtils.isClassPresent("org.jruby.Ruby"))
+		if ("ruby".equals(languageId) && ReflectionUtils.isClassPresent("org.jruby.Ruby"))
 			return registerExpressionLanguage("jruby", registerExpressionLanguage("ruby", new ExpressionLanguageJRubyImpl()));
 
 		// JEXL2 support
@@ -85,13 +111,92 @@ public class ExpressionLanguageRegistry
 
 		ExpressionLanguage el = elcache.get(languageId);
 
-		if (el == null) el = _initializeDefaultEL(languageId);
+		if (el == null) el = initializeDefaultEL(languageId);
 
 		if (el == null) throw new ExpressionLanguageNotAvailableException(languageId);
 
 		return el;
 	}
 
+	/**
+	 * Initializes the given expression languages eagerly, e.g. at application startup, so the first validation using
+	 * them does not have to wait for the initialization of the respective scripting engine.
+	 *
+	 * @param languageIds the ids of the languages to initialize
+	 * @throws IllegalArgumentException if <code>languageIds == null</code>
+	 * @throws ExpressionLanguageNotAvailableException if one of the languages is not available
+	 */
+	public void initializeExpressionLanguages(final String... languageIds) throws IllegalArgumentException,
+			ExpressionLanguageNotAvailableException
+	{
+		Assert.argumentNotNull("languageIds", languageIds);
+
+		for (final String languageId : languageIds)
+			getExpressionLanguage(languageId);
+	}
+
+	/**
+	 * Initializes the default implementation of the given language. Concurrent requests for the same language or one
+	 * of its aliases wait for the initialization started first.
+	 */
+	private ExpressionLanguage initializeDefaultEL(final String languageId)
+	{
+		final String canonicalLanguageId = getCanonicalLanguageId(languageId);
+		FutureTask<ExpressionLanguage> initialization = initializations.get(canonicalLanguageId);
+		if (initialization == null)
+		{
+			final FutureTask<ExpressionLanguage> newInitialization = new FutureTask<ExpressionLanguage>(
+					new Callable<ExpressionLanguage>()
+						{
+							public ExpressionLanguage call()
+							{
+								final ExpressionLanguage el = _initializeDefaultEL(canonicalLanguageId);
+								if (el == null) LOG.debug("Expression language '{}' is not available.", canonicalLanguageId);
+								return el;
+							}
+						});
+			initialization = initializations.putIfAbsent(canonicalLanguageId, newInitialization);
+			if (initialization == null)
+			{
+				initialization = newInitialization;
+				initialization.run();
+			}
+		}
+
+		boolean interrupted = false;
+		try
+		{
+			while (true)
+				try
+				{
+					final ExpressionLanguage el = initialization.get();
+					if (el == null) return null;
+
+					// the default implementation may have been replaced by a registered one in the meantime
+					final ExpressionLanguage registered = elcache.get(languageId);
+					return registered == null ? el : registered;
+				}
+				catch (final InterruptedException ex)
+				{
+					interrupted = true;
+				}
+		}
+		catch (final ExecutionException ex)
+		{
+			// allow a later request to retry the initialization
+			initializations.remove(canonicalLanguageId, initialization);
+
+			final Throwable cause = ex.getCause();
+			if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+			if (cause instanceof Error) throw (Error) cause;
+			throw new IllegalStateException(cause);
+		}
+		finally
+		{
+			if (interrupted) Thread.currentThread().interrupt();
+		}
+	}
+
 	/**
 	 *
 	 * @param languageId the expression language identifier
@@ -30,16 +30,161 @@ import java.util.Map;
 import java.util.Map.Entry;
 
 /**
- * JSR223 Support
+ * Support for JSR-223 scripting engines.
+ *
+ * Engines declaring the <code>THREADING</code> parameter <code>THREAD-ISOLATED</code> or <code>STATELESS</code> are
+ * shared by all threads. For all other engines, including <code>MULTITHREADED</code> ones whose script state may leak
+ * between concurrent evaluations, each thread uses its own engine instance. In both cases every thread evaluates a
+ * compiled expression with its own {@link Bindings} that are reused across evaluations.
  *
  * @author Sebastian Thomschke
  */
-public class ExpressionLanguageScriptEngineImpl implements ExpressionLanguage
+public class ExpressionLanguageScriptEngineImpl extends AbstractExpressionLanguage
 {
+	private static final class ScriptEngineCompiledExpression extends CompiledExpression
+	{
+		private final ExpressionLanguageScriptEngineImpl language;
+
+		/**
+		 * the compiled script of the shared engine, <code>null</code> if the engine is not shared or not compilable
+		 */
+		private final CompiledScript sharedScript;
+
+		private final ThreadLocal<ThreadScript> threadScript = new ThreadLocal<ThreadScript>();
+
+		ScriptEngineCompiledExpression(final ExpressionLanguageScriptEngineImpl language, final String expression,
+				final String[] variableNames) throws ScriptException
+		{
+			super(language, expression, variableNames);
+			this.language = language;
+			if (language.sharedEngine == null)
+			{
+				sharedScript = null;
+				// compiles the expression with the engine of the current thread to report syntax errors early
+				threadScript.set(createThreadScript());
+			}
+			else
+				sharedScript = compile(language.sharedEngine);
+		}
+
+		private CompiledScript compile(final ScriptEngine engine) throws ScriptException
+		{
+			if (!language.isCompilable) return null;
+			try
+			{
+				return ((Compilable) engine).compile(expression);
+			}
+			catch (final UnsupportedOperationException ex)
+			{
+				language.disableCompilation(ex);
+			}
+			catch (final Error ex)
+			{
+				// e.g. the BeanShell engine implements Compilable but throws an Error("unimplemented")
+				if (ex instanceof VirtualMachineError) throw ex;
+				language.disableCompilation(ex);
+			}
+			return null;
+		}
+
+		private ThreadScript createThreadScript() throws ScriptException
+		{
+			if (language.sharedEngine != null) return new ThreadScript(language.sharedEngine, sharedScript);
+			final ScriptEngine engine = language.threadEngine.get();
+			return new ThreadScript(engine, compile(engine));
+		}
+
+		@Override
+		public Object evaluate(final Object[] values) throws ExpressionEvaluationException
+		{
+			LOG.debug("Evaluating JSR-223 expression: {}", expression);
+			try
+			{
+				ThreadScript script = threadScript.get();
+				if (script == null)
+				{
+					script = createThreadScript();
+					threadScript.set(script);
+				}
+				else if (script.inUse)
+					// the expression is evaluated recursively, do not overwrite the bindings of the running evaluation
+					script = createThreadScript();
+
+				final Bindings bindings = script.bindings;
+				for (int i = 0; i < variableNames.length; i++)
+					bindings.put(variableNames[i], values[i]);
+				script.inUse = true;
+				try
+				{
+					return script.compiled == null ? script.engine.eval(expression, bindings) : script.compiled.eval(bindings);
+				}
+				finally
+				{
+					script.inUse = false;
+					if (bindings.size() <= script.engineEntryCount + variableNames.length)
+					{
+						// keep the entries but do not keep the evaluated objects reachable
+						for (final String name : variableNames)
+							bindings.put(name, null);
+					}
+					else
+						// variables declared by the script would be visible to the next evaluation
+						script.resetBindings();
+				}
+			}
+			catch (final ScriptException ex)
+			{
+				throw new ExpressionEvaluationException("Evaluating JSR-223 expression failed: " + expression, ex);
+			}
+		}
+	}
+
+	/**
+	 * The state of a compiled expression confined to a single thread.
+	 */
+	private static final class ThreadScript
+	{
+		final ScriptEngine engine;
+		final CompiledScript compiled;
+		Bindings bindings;
+
+		/**
+		 * the number of entries the engine itself stores in the bindings, e.g. the namespace of BeanShell
+		 */
+		int engineEntryCount;
+		boolean inUse;
+
+		ThreadScript(final ScriptEngine engine, final CompiledScript compiled)
+		{
+			this.engine = engine;
+			this.compiled = compiled;
+			resetBindings();
+		}
+
+		void resetBindings()
+		{
+			bindings = engine.createBindings();
+			try
+			{
+				engine.eval("", bindings);
+			}
+			catch (final ScriptException ex)
+			{
+				// the engine does not accept empty scripts
+			}
+			engineEntryCount = bindings.size();
+		}
+	}
+
 	private static final Logger LOG = LoggerFactory.getLogger(ExpressionLanguageScriptEngineImpl.class);
 
 	private static final ScriptEngineManager FACTORY = new ScriptEngineManager();
 
+	/**
+	 * the name of the engine factory parameter describing the thread-safety of the engine
+	 */
+	private static final String THREADING = "THREADING";
+
 	static
 	{
 		final List<Object> languages = new ArrayList<>();
@@ -51,65 +196,100 @@ public class ExpressionLanguageScriptEngineImpl implements ExpressionLanguage
 	public static ExpressionLanguageScriptEngineImpl get(final String languageId)
 	{
 		final ScriptEngine engine = FACTORY.getEngineByName(languageId);
-		return engine == null ? null : new ExpressionLanguageScriptEngineImpl(engine);
+		return engine == null ? null : new ExpressionLanguageScriptEngineImpl(languageId, engine);
 	}
 
-	private final Compilable compilable;
-	private final ScriptEngine engine;
-	private final ObjectCache<String, CompiledScript> compiledCache;
+	/**
+	 * the engine used by all threads, <code>null</code> if the engine does not isolate concurrent evaluations
+	 */
+	private final ScriptEngine sharedEngine;
+
+	private final ThreadLocal<ScriptEngine> threadEngine;
+
+	/**
+	 * <code>false</code> if the engine does not support the compilation of scripts
+	 */
+	private volatile boolean isCompilable;
+
+	private final ObjectCache<String, CompiledExpression> expressionCache = new ObjectCache<String, CompiledExpression>();
 
-	private ExpressionLanguageScriptEngineImpl(final ScriptEngine engine)
+	private ExpressionLanguageScriptEngineImpl(final String languageId, final ScriptEngine engine)
 	{
-		this.engine = engine;
-		if (engine instanceof Compilable)
+		final Object threading = engine.getFactory().getParameter(THREADING);
+		LOG.debug("ScriptEngine {} threading: {}", languageId, threading);
+		isCompilable = engine instanceof Compilable;
+		if (!"THREAD-ISOLATED".equals(threading) && !"STATELESS".equals(threading))
 		{
-			compilable = (Compilable) engine;
-			compiledCache = new ObjectCache<String, CompiledScript>();
+			sharedEngine = null;
+			threadEngine = new ThreadLocal<ScriptEngine>()
+				{
+					@Override
+					protected ScriptEngine initialValue()
+					{
+						return FACTORY.getEngineByName(languageId);
+					}
+				};
+			threadEngine.set(engine);
 		}
 		else
 		{
-			compilable = null;
-			compiledCache = null;
+			sharedEngine = engine;
+			threadEngine = null;
 		}
 	}
 
+	private void disableCompilation(final Throwable ex)
+	{
+		LOG.debug("ScriptEngine does not support compilation, scripts will be interpreted", ex);
+		isCompilable = false;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
-	public Object evaluate(final String expression, final Map<String, ? > values) throws ExpressionEvaluationException
+	@Override
+	public CompiledExpression compile(final String expression, final String... variableNames) throws ExpressionEvaluationException
 	{
-		LOG.debug("Evaluating JavaScript expression: {}", expression);
+		LOG.debug("Compiling JSR-223 expression: {}", expression);
 		try
 		{
-			final Bindings scope = engine.createBindings();
-			for (final Entry<String, ? > entry : values.entrySet())
-				scope.put(entry.getKey(), entry.getValue());
-
-			if (compilable != null)
-			{
-				CompiledScript compiled = compiledCache.get(expression);
-				if (compiled == null)
-				{
-					compiled = compilable.compile(expression);
-					compiledCache.put(expression, compiled);
-				}
-				return compiled.eval(scope);
-			}
-			return engine.eval(expression, scope);
+			return new ScriptEngineCompiledExpression(this, expression, variableNames);
 		}
 		catch (final ScriptException ex)
 		{
-			throw new ExpressionEvaluationException("Evaluating JavaScript expression failed: " + expression, ex);
+			throw new ExpressionEvaluationException("Compiling JSR-223 expression failed: " + expression, ex);
 		}
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
-	public boolean evaluateAsBoolean(final String expression, final Map<String, ? > values) throws ExpressionEvaluationException
+	public Object evaluate(final String expression, final Map<String, ? > values) throws ExpressionEvaluationException
+	{
+		final String[] variableNames = new String[values.size()];
+		final Object[] variableValues = new Object[variableNames.length];
+		int i = 0;
+		for (final Entry<String, ? > entry : values.entrySet())
+		{
+			variableNames[i] = entry.getKey();
+			variableValues[i++] = entry.getValue();
+		}
+
+		// the expression is recompiled if it is evaluated with different variables
+		CompiledExpression compiled = expressionCache.get(expression);
+		if (compiled == null || !compiled.isCompiledFrom(this, expression, variableNames))
+		{
+			compiled = compile(expression, variableNames);
+			expressionCache.put(expression, compiled);
+		}
+		return compiled.evaluate(variableValues);
+	}
+
+	/**
+	 * @return <code>true</code> if all threads share one engine instance
+	 */
+	public boolean isEngineShared()
 	{
-		final Object result = evaluate(expression, values);
-		if (!(result instanceof Boolean)) throw new ExpressionEvaluationException("The script must return a boolean value.");
-		return (Boolean) result;
+		return sharedEngine != null;
 	}
-}
\ No newline at end of file
+}
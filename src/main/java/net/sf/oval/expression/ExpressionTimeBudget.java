@@ -0,0 +1,234 @@
+/*******************************************************************************
+ * Portions created by Sebastian Thomschke are copyright (c) 2005-2013 Sebastian
+ * Thomschke.
+ *
+ * All Rights Reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Sebastian Thomschke - initial implementation.
+ *******************************************************************************/
+package net.sf.oval.expression;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import net.sf.oval.exception.ExpressionEvaluationException;
+import net.sf.oval.exception.ExpressionEvaluationTimeoutException;
+
+/**
+ * Limits the time the current thread spends evaluating expressions.
+ *
+ * A budget consists of a maximum duration of each expression evaluation and a deadline for all evaluations, e.g. of
+ * a validation cycle. Budgets are applied per thread and nested budgets can only narrow the enclosing budget.
+ *
+ * Expression languages able to interrupt a running evaluation poll {@link #isExceeded()} and abort the evaluation,
+ * e.g. JavaScript via Rhino's instruction observer. For all other languages an overrun is detected once the evaluation
+ * returned. In both cases an {@link ExpressionEvaluationTimeoutException} is thrown.
+ *
+ * @author Sebastian Thomschke
+ */
+public final class ExpressionTimeBudget
+{
+	private static final long NO_DEADLINE = Long.MAX_VALUE;
+
+	private static final ThreadLocal<ExpressionTimeBudget> CURRENT = new ThreadLocal<ExpressionTimeBudget>();
+
+	/**
+	 * set once a budget was applied, until then evaluations do not look up the budget of the current thread
+	 */
+	private static volatile boolean isUsed;
+
+	/**
+	 * Applies a time budget to the current thread.
+	 *
+	 * @param expressionTimeBudget the maximum duration of a single expression evaluation, values less than 1 keep the
+	 *            enclosing setting
+	 * @param timeBudget the maximum duration from now on after which no further expressions are evaluated, i.e. a
+	 *            wall-clock deadline, values less than 1 keep the enclosing setting
+	 * @return the previous budget that must be passed to {@link #restore(ExpressionTimeBudget)}
+	 */
+	public static ExpressionTimeBudget apply(final long expressionTimeBudget, final long timeBudget, final TimeUnit unit)
+	{
+		final ExpressionTimeBudget previous = CURRENT.get();
+
+		long maxEvaluationTime = previous == null ? 0 : previous.maxEvaluationTime;
+		if (expressionTimeBudget > 0 && (maxEvaluationTime == 0 || unit.toNanos(expressionTimeBudget) < maxEvaluationTime))
+			maxEvaluationTime = unit.toNanos(expressionTimeBudget);
+
+		long deadline = previous == null ? NO_DEADLINE : previous.deadline;
+		if (timeBudget > 0)
+		{
+			final long newDeadline = System.nanoTime() + unit.toNanos(timeBudget);
+			if (deadline == NO_DEADLINE || newDeadline - deadline < 0) deadline = newDeadline;
+		}
+
+		if (maxEvaluationTime > 0 || deadline != NO_DEADLINE)
+		{
+			isUsed = true;
+			CURRENT.set(new ExpressionTimeBudget(maxEvaluationTime, deadline));
+		}
+		return previous;
+	}
+
+	/**
+	 * Evaluates the expression within the time budget of the current thread.
+	 *
+	 * @throws ExpressionEvaluationTimeoutException if the evaluation exceeded the time budget
+	 */
+	public static Object evaluate(final ExpressionLanguage language, final String expression, final Map<String, ? > values)
+			throws ExpressionEvaluationException
+	{
+		final ExpressionTimeBudget budget = isUsed ? CURRENT.get() : null;
+		if (budget == null) return language.evaluate(expression, values);
+
+		final long enclosingDeadline = budget.evaluationDeadline;
+		final long start = budget.startEvaluation(expression);
+		try
+		{
+			final Object result = language.evaluate(expression, values);
+			budget.assertNotExceeded(start, expression);
+			return result;
+		}
+		finally
+		{
+			budget.evaluationDeadline = enclosingDeadline;
+		}
+	}
+
+	/**
+	 * Evaluates the expression within the time budget of the current thread.
+	 *
+	 * @throws ExpressionEvaluationTimeoutException if the evaluation exceeded the time budget
+	 */
+	public static Object evaluate(final CompiledExpression expression, final Object[] values) throws ExpressionEvaluationException
+	{
+		final ExpressionTimeBudget budget = isUsed ? CURRENT.get() : null;
+		if (budget == null) return expression.evaluate(values);
+
+		final long enclosingDeadline = budget.evaluationDeadline;
+		final long start = budget.startEvaluation(expression.getExpression());
+		try
+		{
+			final Object result = expression.evaluate(values);
+			budget.assertNotExceeded(start, expression.getExpression());
+			return result;
+		}
+		finally
+		{
+			budget.evaluationDeadline = enclosingDeadline;
+		}
+	}
+
+	/**
+	 * Evaluates the expression within the time budget of the current thread and expects it to return a boolean.
+	 *
+	 * @throws ExpressionEvaluationTimeoutException if the evaluation exceeded the time budget
+	 */
+	public static boolean evaluateAsBoolean(final CompiledExpression expression, final Object[] values)
+			throws ExpressionEvaluationException
+	{
+		final ExpressionTimeBudget budget = isUsed ? CURRENT.get() : null;
+		if (budget == null) return expression.evaluateAsBoolean(values);
+
+		final long enclosingDeadline = budget.evaluationDeadline;
+		final long start = budget.startEvaluation(expression.getExpression());
+		try
+		{
+			final boolean result = expression.evaluateAsBoolean(values);
+			budget.assertNotExceeded(start, expression.getExpression());
+			return result;
+		}
+		finally
+		{
+			budget.evaluationDeadline = enclosingDeadline;
+		}
+	}
+
+	/**
+	 * Evaluates the expression within the time budget of the current thread and expects it to return a boolean.
+	 *
+	 * @throws ExpressionEvaluationTimeoutException if the evaluation exceeded the time budget
+	 */
+	public static boolean evaluateAsBoolean(final ExpressionLanguage language, final String expression,
+			final Map<String, ? > values) throws ExpressionEvaluationException
+	{
+		final Object result = evaluate(language, expression, values);
+		if (!(result instanceof Boolean)) throw new ExpressionEvaluationException("The script must return a boolean value.");
+		return (Boolean) result;
+	}
+
+	/**
+	 * Determines if the expression evaluation running on the current thread exceeded its time budget. Expression
+	 * languages that can interrupt an evaluation poll this method.
+	 */
+	public static boolean isExceeded()
+	{
+		if (!isUsed) return false;
+
+		final ExpressionTimeBudget budget = CURRENT.get();
+		return budget != null && budget.evaluationDeadline != NO_DEADLINE
+				&& System.nanoTime() - budget.evaluationDeadline >= 0;
+	}
+
+	/**
+	 * Restores the budget that was active before {@link #apply(long, long, TimeUnit)} was called.
+	 */
+	public static void restore(final ExpressionTimeBudget previous)
+	{
+		if (previous == null)
+			CURRENT.remove();
+		else
+			CURRENT.set(previous);
+	}
+
+	/**
+	 * the maximum duration of a single evaluation in nanoseconds, 0 if unlimited
+	 */
+	private final long maxEvaluationTime;
+
+	/**
+	 * the {@link System#nanoTime()} after which no further expressions are evaluated
+	 */
+	private final long deadline;
+
+	/**
+	 * the {@link System#nanoTime()} at which the running evaluation exceeds its budget
+	 */
+	private long evaluationDeadline = NO_DEADLINE;
+
+	private ExpressionTimeBudget(final long maxEvaluationTime, final long deadline)
+	{
+		this.maxEvaluationTime = maxEvaluationTime;
+		this.deadline = deadline;
+	}
+
+	private void assertNotExceeded(final long start, final String expression) throws ExpressionEvaluationTimeoutException
+	{
+		final long now = System.nanoTime();
+		if (evaluationDeadline != NO_DEADLINE && now - evaluationDeadline > 0)
+			throw new ExpressionEvaluationTimeoutException("Evaluating expression exceeded its time budget after "
+					+ TimeUnit.NANOSECONDS.toMillis(now - start) + "ms: " + expression);
+	}
+
+	/**
+	 * @return the start time of the evaluation
+	 */
+	private long startEvaluation(final String expression) throws ExpressionEvaluationTimeoutException
+	{
+		final long now = System.nanoTime();
+		if (deadline != NO_DEADLINE && now - deadline >= 0)
+			throw new ExpressionEvaluationTimeoutException("The time budget was exhausted before evaluating expression: "
+					+ expression);
+
+		// a nested evaluation cannot extend the budget of the enclosing one
+		long newDeadline = maxEvaluationTime > 0 ? now + maxEvaluationTime : NO_DEADLINE;
+		if (deadline != NO_DEADLINE && (newDeadline == NO_DEADLINE || deadline - newDeadline < 0)) newDeadline = deadline;
+		if (evaluationDeadline != NO_DEADLINE && (newDeadline == NO_DEADLINE || evaluationDeadline - newDeadline < 0))
+			newDeadline = evaluationDeadline;
+		evaluationDeadline = newDeadline;
+		return now;
+	}
+}
@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Portions created by Sebastian Thomschke are copyright (c) 2005-2013 Sebastian
+ * Thomschke.
+ *
+ * All Rights Reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Sebastian Thomschke - initial implementation.
+ *******************************************************************************/
+package net.sf.oval.expression;
+
+import net.sf.oval.exception.ExpressionEvaluationException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compiled expression delegating to {@link ExpressionLanguage#evaluate(String, Map)}.
+ *
+ * @author Sebastian Thomschke
+ */
+final class MapBasedCompiledExpression extends CompiledExpression
+{
+	MapBasedCompiledExpression(final ExpressionLanguage language, final String expression, final String[] variableNames)
+	{
+		super(language, expression, variableNames);
+	}
+
+	@Override
+	public Object evaluate(final Object[] values) throws ExpressionEvaluationException
+	{
+		final Map<String, Object> map = new LinkedHashMap<String, Object>(variableNames.length * 2);
+		for (int i = 0; i < variableNames.length; i++)
+			map.put(variableNames[i], values[i]);
+		return language.evaluate(expression, map);
+	}
+}
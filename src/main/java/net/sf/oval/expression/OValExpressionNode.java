@@ -0,0 +1,963 @@
+/*******************************************************************************
+ * Portions created by Sebastian Thomschke are copyright (c) 2005-2013 Sebastian
+ * Thomschke.
+ *
+ * All Rights Reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Sebastian Thomschke - initial implementation.
+ *******************************************************************************/
+package net.sf.oval.expression;
+
+import net.sf.oval.accessor.ValueAccessor;
+import net.sf.oval.accessor.ValueAccessorFactory;
+import net.sf.oval.accessor.ValueAccessorFactoryMethodHandleImpl;
+import net.sf.oval.exception.ExpressionEvaluationException;
+import net.sf.oval.internal.util.ReflectionUtils;
+import net.sf.oval.internal.util.SetAccessibleAction;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.security.AccessController;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A node of an expression of the built-in expression language. Expressions are parsed once by
+ * {@link OValExpressionParser} into a tree of nodes specialized for the respective operation, members are resolved
+ * on first evaluation and cached per receiver class.
+ *
+ * @author Sebastian Thomschke
+ */
+abstract class OValExpressionNode
+{
+	static final class And extends OValExpressionNode
+	{
+		private final OValExpressionNode left;
+		private final OValExpressionNode right;
+
+		And(final OValExpressionNode left, final OValExpressionNode right)
+		{
+			this.left = left;
+			this.right = right;
+		}
+
+		@Override
+		Object evaluate(final Object[] values)
+		{
+			return Boolean.valueOf(evaluateAsBoolean(values));
+		}
+
+		@Override
+		boolean evaluateAsBoolean(final Object[] values)
+		{
+			return left.evaluateAsBoolean(values) && right.evaluateAsBoolean(values);
+		}
+
+		@Override
+		boolean isConstant()
+		{
+			return left.isConstant() && right.isConstant();
+		}
+	}
+
+	static final class Arithmetic extends OValExpressionNode
+	{
+		private final char operator;
+		private final OValExpressionNode left;
+		private final OValExpressionNode right;
+
+		Arithmetic(final char operator, final OValExpressionNode left, final OValExpressionNode right)
+		{
+			this.operator = operator;
+			this.left = left;
+			this.right = right;
+		}
+
+		@Override
+		Object evaluate(final Object[] values)
+		{
+			final Object l = left.evaluate(values);
+			final Object r = right.evaluate(values);
+
+			if (operator == '+' && (l instanceof String || r instanceof String)) return String.valueOf(l) + r;
+			if (!(l instanceof Number) || !(r instanceof Number))
+				throw new ExpressionEvaluationException("Operator " + operator + " cannot be applied to " + l + " and " + r);
+
+			final Number a = (Number) l;
+			final Number b = (Number) r;
+			switch (getNumericType(a, b))
+			{
+				case INT :
+					switch (operator)
+					{
+						case '+' :
+							return a.intValue() + b.intValue();
+						case '-' :
+							return a.intValue() - b.intValue();
+						case '*' :
+							return a.intValue() * b.intValue();
+						case '/' :
+							return a.intValue() / b.intValue();
+						default :
+							return a.intValue() % b.intValue();
+					}
+				case LONG :
+					switch (operator)
+					{
+						case '+' :
+							return a.longValue() + b.longValue();
+						case '-' :
+							return a.longValue() - b.longValue();
+						case '*' :
+							return a.longValue() * b.longValue();
+						case '/' :
+							return a.longValue() / b.longValue();
+						default :
+							return a.longValue() % b.longValue();
+					}
+				case DOUBLE :
+					switch (operator)
+					{
+						case '+' :
+							return a.doubleValue() + b.doubleValue();
+						case '-' :
+							return a.doubleValue() - b.doubleValue();
+						case '*' :
+							return a.doubleValue() * b.doubleValue();
+						case '/' :
+							return a.doubleValue() / b.doubleValue();
+						default :
+							return a.doubleValue() % b.doubleValue();
+					}
+				default :
+					final BigDecimal x = toBigDecimal(a);
+					final BigDecimal y = toBigDecimal(b);
+					switch (operator)
+					{
+						case '+' :
+							return x.add(y);
+						case '-' :
+							return x.subtract(y);
+						case '*' :
+							return x.multiply(y);
+						case '/' :
+							return x.divide(y, MathContext.DECIMAL128);
+						default :
+							return x.remainder(y);
+					}
+			}
+		}
+
+		@Override
+		boolean isConstant()
+		{
+			return left.isConstant() && right.isConstant();
+		}
+	}
+
+	static final class Compare extends OValExpressionNode
+	{
+		static final int LESS = 0;
+		static final int LESS_OR_EQUAL = 1;
+		static final int GREATER = 2;
+		static final int GREATER_OR_EQUAL = 3;
+
+		private final int operator;
+		private final OValExpressionNode left;
+		private final OValExpressionNode right;
+
+		Compare(final int operator, final OValExpressionNode left, final OValExpressionNode right)
+		{
+			this.operator = operator;
+			this.left = left;
+			this.right = right;
+		}
+
+		@Override
+		Object evaluate(final Object[] values)
+		{
+			return Boolean.valueOf(evaluateAsBoolean(values));
+		}
+
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		@Override
+		boolean evaluateAsBoolean(final Object[] values)
+		{
+			final Object l = left.evaluate(values);
+			final Object r = right.evaluate(values);
+
+			final int result;
+			if (l instanceof Number && r instanceof Number)
+				result = compareNumbers((Number) l, (Number) r);
+			else if (l instanceof Comparable && r != null)
+				result = ((Comparable) l).compareTo(r);
+			else
+				throw new ExpressionEvaluationException("Cannot compare " + l + " with " + r);
+
+			switch (operator)
+			{
+				case LESS :
+					return result < 0;
+				case LESS_OR_EQUAL :
+					return result <= 0;
+				case GREATER :
+					return result > 0;
+				default :
+					return result >= 0;
+			}
+		}
+
+		@Override
+		boolean isConstant()
+		{
+			return left.isConstant() && right.isConstant();
+		}
+	}
+
+	static final class Conditional extends OValExpressionNode
+	{
+		private final OValExpressionNode condition;
+		private final OValExpressionNode ifTrue;
+		private final OValExpressionNode ifFalse;
+
+		Conditional(final OValExpressionNode condition, final OValExpressionNode ifTrue, final OValExpressionNode ifFalse)
+		{
+			this.condition = condition;
+			this.ifTrue = ifTrue;
+			this.ifFalse = ifFalse;
+		}
+
+		@Override
+		Object evaluate(final Object[] values)
+		{
+			return condition.evaluateAsBoolean(values) ? ifTrue.evaluate(values) : ifFalse.evaluate(values);
+		}
+
+		@Override
+		boolean isConstant()
+		{
+			return condition.isConstant() && ifTrue.isConstant() && ifFalse.isConstant();
+		}
+	}
+
+	static final class Equals extends OValExpressionNode
+	{
+		private final boolean negate;
+		private final OValExpressionNode left;
+		private final OValExpressionNode right;
+
+		Equals(final boolean negate, final OValExpressionNode left, final OValExpressionNode right)
+		{
+			this.negate = negate;
+			this.left = left;
+			this.right = right;
+		}
+
+		@Override
+		Object evaluate(final Object[] values)
+		{
+			return Boolean.valueOf(evaluateAsBoolean(values));
+		}
+
+		@Override
+		boolean evaluateAsBoolean(final Object[] values)
+		{
+			final Object l = left.evaluate(values);
+			final Object r = right.evaluate(values);
+
+			final boolean equal;
+			if (l == r)
+				equal = true;
+			else if (l == null || r == null)
+				equal = false;
+			else if (l instanceof Number && r instanceof Number)
+				equal = compareNumbers((Number) l, (Number) r) == 0;
+			else
+				equal = l.equals(r);
+			return equal != negate;
+		}
+
+		@Override
+		boolean isConstant()
+		{
+			return left.isConstant() && right.isConstant();
+		}
+	}
+
+	static final class Index extends OValExpressionNode
+	{
+		private final OValExpressionNode target;
+		private final OValExpressionNode index;
+
+		Index(final OValExpressionNode target, final OValExpressionNode index)
+		{
+			this.target = target;
+			this.index = index;
+		}
+
+		@Override
+		Object evaluate(final Object[] values)
+		{
+			final Object t = target.evaluate(values);
+			final Object i = index.evaluate(values);
+			if (t == null) throw new ExpressionEvaluationException("Cannot access index " + i + " of null");
+			if (t instanceof Map) return ((Map< ? , ? >) t).get(i);
+			if (!(i instanceof Number)) throw new ExpressionEvaluationException("Index " + i + " is not a number");
+			if (t instanceof List) return ((List< ? >) t).get(((Number) i).intValue());
+			if (t.getClass().isArray()) return Array.get(t, ((Number) i).intValue());
+			throw new ExpressionEvaluationException("Cannot access index " + i + " of " + t.getClass().getName());
+		}
+	}
+
+	static final class Literal extends OValExpressionNode
+	{
+		private final Object value;
+
+		Literal(final Object value)
+		{
+			this.value = value;
+		}
+
+		@Override
+		Object evaluate(final Object[] values)
+		{
+			return value;
+		}
+
+		@Override
+		boolean isConstant()
+		{
+			return true;
+		}
+	}
+
+	/**
+	 * Invokes a method with arguments, the method is resolved by name, number of arguments and argument types.
+	 */
+	static final class MethodCall extends OValExpressionNode
+	{
+		private static final class ResolvedMethod
+		{
+			final Class< ? > receiverType;
+
+			/**
+			 * the classes of the arguments the method was chosen for, <code>null</code> for <code>null</code> arguments
+			 */
+			final Class< ? >[] argumentTypes;
+			final Method method;
+			final Class< ? >[] parameterTypes;
+			final MethodHandle handle;
+
+			ResolvedMethod(final Class< ? > receiverType, final Object[] args, final Method method)
+			{
+				this.receiverType = receiverType;
+				argumentTypes = new Class< ? >[args.length];
+				for (int i = 0; i < args.length; i++)
+					argumentTypes[i] = args[i] == null ? null : args[i].getClass();
+				this.method = method;
+				parameterTypes = method.getParameterTypes();
+				handle = createSpreadingHandle(method);
+			}
+
+			boolean isResolvedFor(final Class< ? > receiverType, final Object[] args)
+			{
+				if (this.receiverType != receiverType) return false;
+				for (int i = 0; i < args.length; i++)
+					if (argumentTypes[i] != (args[i] == null ? null : args[i].getClass())) return false;
+				return true;
+			}
+		}
+
+		private final OValExpressionNode target;
+		private final String name;
+		private final OValExpressionNode[] arguments;
+
+		private volatile ResolvedMethod resolved;
+
+		MethodCall(final OValExpressionNode target, final String name, final OValExpressionNode[] arguments)
+		{
+			this.target = target;
+			this.name = name;
+			this.arguments = arguments;
+		}
+
+		@Override
+		Object evaluate(final Object[] values)
+		{
+			final Object t = target.evaluate(values);
+			if (t == null) throw new ExpressionEvaluationException("Cannot invoke method " + name + "() on null");
+
+			final Object[] args = new Object[arguments.length];
+			for (int i = 0; i < args.length; i++)
+				args[i] = arguments[i].evaluate(values);
+
+			ResolvedMethod resolved = this.resolved;
+			// the overload depends on the classes of the arguments
+			if (resolved == null || !resolved.isResolvedFor(t.getClass(), args))
+			{
+				resolved = new ResolvedMethod(t.getClass(), args, findMethod(t.getClass(), name, args));
+				this.resolved = resolved;
+			}
+
+			final Class< ? >[] parameterTypes = resolved.parameterTypes;
+			for (int i = 0; i < args.length; i++)
+				args[i] = coerce(args[i], parameterTypes[i]);
+
+			try
+			{
+				if (resolved.handle == null) return ReflectionUtils.invokeMethod(resolved.method, t, args);
+				return (Object) resolved.handle.invokeExact(t, args);
+			}
+			catch (final RuntimeException ex)
+			{
+				throw ex;
+			}
+			catch (final Throwable ex)
+			{
+				throw new ExpressionEvaluationException("Executing method " + name + "() failed.", ex);
+			}
+		}
+	}
+
+	static final class Negate extends OValExpressionNode
+	{
+		private final OValExpressionNode operand;
+
+		Negate(final OValExpressionNode operand)
+		{
+			this.operand = operand;
+		}
+
+		@Override
+		Object evaluate(final Object[] values)
+		{
+			final Object value = operand.evaluate(values);
+			if (!(value instanceof Number)) throw new ExpressionEvaluationException("Cannot negate " + value);
+			final Number n = (Number) value;
+			switch (getNumericType(n, n))
+			{
+				case INT :
+					return -n.intValue();
+				case LONG :
+					return -n.longValue();
+				case DOUBLE :
+					return -n.doubleValue();
+				default :
+					return toBigDecimal(n).negate();
+			}
+		}
+
+		@Override
+		boolean isConstant()
+		{
+			return operand.isConstant();
+		}
+	}
+
+	static final class Not extends OValExpressionNode
+	{
+		private final OValExpressionNode operand;
+
+		Not(final OValExpressionNode operand)
+		{
+			this.operand = operand;
+		}
+
+		@Override
+		Object evaluate(final Object[] values)
+		{
+			return Boolean.valueOf(evaluateAsBoolean(values));
+		}
+
+		@Override
+		boolean evaluateAsBoolean(final Object[] values)
+		{
+			return !operand.evaluateAsBoolean(values);
+		}
+
+		@Override
+		boolean isConstant()
+		{
+			return operand.isConstant();
+		}
+	}
+
+	/**
+	 * Specialized comparison of an operand with <code>null</code>.
+	 */
+	static final class NullCheck extends OValExpressionNode
+	{
+		private final boolean negate;
+		private final OValExpressionNode operand;
+
+		NullCheck(final boolean negate, final OValExpressionNode operand)
+		{
+			this.negate = negate;
+			this.operand = operand;
+		}
+
+		@Override
+		Object evaluate(final Object[] values)
+		{
+			return Boolean.valueOf(evaluateAsBoolean(values));
+		}
+
+		@Override
+		boolean evaluateAsBoolean(final Object[] values)
+		{
+			return operand.evaluate(values) == null != negate;
+		}
+
+		@Override
+		boolean isConstant()
+		{
+			return operand.isConstant();
+		}
+	}
+
+	static final class Or extends OValExpressionNode
+	{
+		private final OValExpressionNode left;
+		private final OValExpressionNode right;
+
+		Or(final OValExpressionNode left, final OValExpressionNode right)
+		{
+			this.left = left;
+			this.right = right;
+		}
+
+		@Override
+		Object evaluate(final Object[] values)
+		{
+			return Boolean.valueOf(evaluateAsBoolean(values));
+		}
+
+		@Override
+		boolean evaluateAsBoolean(final Object[] values)
+		{
+			return left.evaluateAsBoolean(values) || right.evaluateAsBoolean(values);
+		}
+
+		@Override
+		boolean isConstant()
+		{
+			return left.isConstant() && right.isConstant();
+		}
+	}
+
+	/**
+	 * Reads a property via its getter or field, or a parameterless method. Entries of maps are read by key and arrays
+	 * provide the <code>length</code> property.
+	 */
+	static final class Property extends OValExpressionNode
+	{
+		private static final class ResolvedAccessor
+		{
+			final Class< ? > receiverType;
+			final ValueAccessor accessor;
+
+			ResolvedAccessor(final Class< ? > receiverType, final ValueAccessor accessor)
+			{
+				this.receiverType = receiverType;
+				this.accessor = accessor;
+			}
+		}
+
+		private static final ValueAccessor ARRAY_LENGTH = new ValueAccessor()
+		{
+			public Object getValue(final Object target)
+			{
+				return Array.getLength(target);
+			}
+		};
+
+		private final OValExpressionNode target;
+		private final String name;
+
+		/**
+		 * <code>true</code> if the node represents a method call without arguments, e.g. <code>size()</code>
+		 */
+		private final boolean isMethod;
+
+		private volatile ResolvedAccessor resolved;
+
+		Property(final OValExpressionNode target, final String name, final boolean isMethod)
+		{
+			this.target = target;
+			this.name = name;
+			this.isMethod = isMethod;
+		}
+
+		@Override
+		Object evaluate(final Object[] values)
+		{
+			final Object t = target.evaluate(values);
+			if (t == null)
+				throw new ExpressionEvaluationException(isMethod ? "Cannot invoke method " + name + "() on null"
+						: "Cannot read property " + name + " of null");
+
+			if (!isMethod && t instanceof Map) return ((Map< ? , ? >) t).get(name);
+
+			ResolvedAccessor resolved = this.resolved;
+			if (resolved == null || resolved.receiverType != t.getClass())
+			{
+				resolved = new ResolvedAccessor(t.getClass(), isMethod ? createMethodAccessor(t.getClass())
+						: createPropertyAccessor(t.getClass()));
+				this.resolved = resolved;
+			}
+			return resolved.accessor.getValue(t);
+		}
+
+		private ValueAccessor createMethodAccessor(final Class< ? > type)
+		{
+			return ACCESSOR_FACTORY.createGetterAccessor(findMethod(type, name, EMPTY_ARGS));
+		}
+
+		private ValueAccessor createPropertyAccessor(final Class< ? > type)
+		{
+			if (type.isArray() && "length".equals(name)) return ARRAY_LENGTH;
+
+			final String suffix = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+			for (final Method method : type.getMethods())
+			{
+				if (method.getParameterTypes().length > 0 || ReflectionUtils.isStatic(method)) continue;
+				final String methodName = method.getName();
+				if (methodName.equals("get" + suffix) || methodName.equals("is" + suffix))
+					return ACCESSOR_FACTORY.createGetterAccessor(toAccessibleMethod(type, method));
+			}
+
+			final Method getter = ReflectionUtils.getGetterRecursive(type, name);
+			if (getter != null) return ACCESSOR_FACTORY.createGetterAccessor(getter);
+
+			final Field field = ReflectionUtils.getFieldRecursive(type, name);
+			if (field != null) return ACCESSOR_FACTORY.createFieldAccessor(field);
+
+			throw new ExpressionEvaluationException("Property " + name + " not found in class " + type.getName());
+		}
+	}
+
+	static final class Variable extends OValExpressionNode
+	{
+		private final int index;
+
+		Variable(final int index)
+		{
+			this.index = index;
+		}
+
+		@Override
+		Object evaluate(final Object[] values)
+		{
+			return values[index];
+		}
+	}
+
+	/**
+	 * conversion of an argument to a parameter type: the class of the argument or the primitive type it boxes
+	 */
+	private static final int EXACT = 0;
+
+	/**
+	 * conversion of an argument to a parameter type: a super class or interface of the argument
+	 */
+	private static final int SUPERTYPE = 1;
+
+	/**
+	 * conversion of an argument to a parameter type: a lossless widening of the number
+	 */
+	private static final int WIDENING = 2;
+
+	private static final int NOT_APPLICABLE = -1;
+
+	private static final int INT = 0;
+	private static final int LONG = 1;
+	private static final int DOUBLE = 2;
+	private static final int BIG_DECIMAL = 3;
+
+	private static final Object[] EMPTY_ARGS = {};
+
+	private static final ValueAccessorFactory ACCESSOR_FACTORY = new ValueAccessorFactoryMethodHandleImpl();
+
+	/**
+	 * converts an argument to the parameter type it was found applicable to, see {@link #getConversion(Class, Object)}
+	 */
+	private static Object coerce(final Object value, final Class< ? > type)
+	{
+		if (type.isInstance(value)) return value;
+		if (value instanceof Character && type != char.class) return coerce((int) (Character) value, type);
+		if (!(value instanceof Number)) return value;
+
+		final Number n = (Number) value;
+		if (type == int.class || type == Integer.class) return n.intValue();
+		if (type == long.class || type == Long.class) return n.longValue();
+		if (type == double.class || type == Double.class) return n.doubleValue();
+		if (type == float.class || type == Float.class) return n.floatValue();
+		if (type == short.class || type == Short.class) return n.shortValue();
+		if (type == byte.class || type == Byte.class) return n.byteValue();
+		if (type == BigDecimal.class) return toBigDecimal(n);
+		if (type == BigInteger.class) return toBigDecimal(n).toBigInteger();
+		return value;
+	}
+
+	private static int compareNumbers(final Number a, final Number b)
+	{
+		switch (getNumericType(a, b))
+		{
+			case INT :
+			case LONG :
+				final long x = a.longValue();
+				final long y = b.longValue();
+				return x < y ? -1 : x == y ? 0 : 1;
+			case DOUBLE :
+				return Double.compare(a.doubleValue(), b.doubleValue());
+			default :
+				return toBigDecimal(a).compareTo(toBigDecimal(b));
+		}
+	}
+
+	/**
+	 * @return a method handle of the type <code>(Object, Object[])Object</code> or <code>null</code> if no handle can be
+	 *         created for the given method
+	 */
+	private static MethodHandle createSpreadingHandle(final Method method)
+	{
+		try
+		{
+			if (!method.isAccessible()) AccessController.doPrivileged(new SetAccessibleAction(method));
+			final int parameterCount = method.getParameterTypes().length;
+			return MethodHandles.lookup().unreflect(method) //
+					.asType(MethodType.genericMethodType(parameterCount + 1)) //
+					.asSpreader(Object[].class, parameterCount);
+		}
+		catch (final Exception ex)
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * finds the most specific public instance method with the given name that is applicable to the given arguments,
+	 * similar to the overload resolution of the Java compiler, see {@link #isAsSpecific(Class[], int[], Class[], int[])}
+	 */
+	private static Method findMethod(final Class< ? > type, final String name, final Object[] args)
+	{
+		Method best = null;
+		int[] bestConversions = null;
+		for (final Method method : type.getMethods())
+		{
+			if (!method.getName().equals(name) || method.isBridge() || ReflectionUtils.isStatic(method)) continue;
+
+			final int[] conversions = getConversions(method.getParameterTypes(), args);
+			if (conversions != null
+					&& (best == null || isAsSpecific(method.getParameterTypes(), conversions, best.getParameterTypes(), bestConversions)))
+			{
+				best = method;
+				bestConversions = conversions;
+			}
+		}
+		if (best == null)
+			throw new ExpressionEvaluationException("Method " + name + " with " + args.length
+					+ " applicable parameter(s) not found in class " + type.getName());
+
+		// the chosen method must be at least as specific as any other applicable method
+		for (final Method method : type.getMethods())
+		{
+			if (!method.getName().equals(name) || method.isBridge() || ReflectionUtils.isStatic(method)) continue;
+
+			final int[] conversions = getConversions(method.getParameterTypes(), args);
+			if (conversions != null && !isAsSpecific(best.getParameterTypes(), bestConversions, method.getParameterTypes(), conversions))
+				throw new ExpressionEvaluationException("Method " + name + " with " + args.length
+						+ " parameter(s) is ambiguous for the given arguments in class " + type.getName());
+		}
+		return toAccessibleMethod(type, best);
+	}
+
+	/**
+	 * @return the conversion of the argument to the given parameter type, one of {@link #EXACT}, {@link #SUPERTYPE},
+	 *         {@link #WIDENING} or {@link #NOT_APPLICABLE}
+	 */
+	private static int getConversion(final Class< ? > type, final Object arg)
+	{
+		if (arg == null) return type.isPrimitive() ? NOT_APPLICABLE : EXACT;
+
+		final Class< ? > argType = arg.getClass();
+		if (type == argType) return EXACT;
+
+		final Class< ? > argPrimitiveType = getPrimitiveType(argType);
+		if (type.isPrimitive())
+		{
+			if (type == argPrimitiveType) return EXACT;
+			return argPrimitiveType != null && isWidening(argPrimitiveType, type) ? WIDENING : NOT_APPLICABLE;
+		}
+		if (type.isInstance(arg)) return SUPERTYPE;
+
+		if (type == BigDecimal.class) return argType == BigInteger.class || argPrimitiveType != null
+				&& argPrimitiveType != boolean.class && argPrimitiveType != char.class ? WIDENING : NOT_APPLICABLE;
+		if (type == BigInteger.class) return argPrimitiveType == byte.class || argPrimitiveType == short.class
+				|| argPrimitiveType == int.class || argPrimitiveType == long.class ? WIDENING : NOT_APPLICABLE;
+		final Class< ? > primitiveType = getPrimitiveType(type);
+		return primitiveType != null && isWidening(argPrimitiveType, primitiveType) ? WIDENING : NOT_APPLICABLE;
+	}
+
+	/**
+	 * @return the conversions of the arguments to the given parameter types or <code>null</code> if the arguments are
+	 *         not applicable
+	 */
+	private static int[] getConversions(final Class< ? >[] parameterTypes, final Object[] args)
+	{
+		if (parameterTypes.length != args.length) return null;
+		final int[] conversions = new int[args.length];
+		for (int i = 0; i < args.length; i++)
+		{
+			conversions[i] = getConversion(parameterTypes[i], args[i]);
+			if (conversions[i] == NOT_APPLICABLE) return null;
+		}
+		return conversions;
+	}
+
+	private static int getNumericType(final Number a, final Number b)
+	{
+		if (a instanceof BigDecimal || b instanceof BigDecimal || a instanceof BigInteger || b instanceof BigInteger)
+			return BIG_DECIMAL;
+		if (a instanceof Double || b instanceof Double || a instanceof Float || b instanceof Float) return DOUBLE;
+		if (a instanceof Long || b instanceof Long) return LONG;
+		if (isInteger(a) && isInteger(b)) return INT;
+		// e.g. AtomicLong or other custom number types
+		return BIG_DECIMAL;
+	}
+
+	/**
+	 * @return the primitive type boxed by the given class or <code>null</code>
+	 */
+	private static Class< ? > getPrimitiveType(final Class< ? > type)
+	{
+		if (type == Integer.class) return int.class;
+		if (type == Long.class) return long.class;
+		if (type == Double.class) return double.class;
+		if (type == Float.class) return float.class;
+		if (type == Short.class) return short.class;
+		if (type == Byte.class) return byte.class;
+		if (type == Character.class) return char.class;
+		if (type == Boolean.class) return boolean.class;
+		return null;
+	}
+
+	/**
+	 * Determines if the parameter types of a method are at least as specific as the ones of another method for the
+	 * given conversions of the arguments. Each parameter must require the same or a cheaper conversion of its
+	 * argument and in case of the same conversion its type must be assignable to the other type. A primitive type is
+	 * more specific than a reference type.
+	 */
+	private static boolean isAsSpecific(final Class< ? >[] types, final int[] conversions, final Class< ? >[] otherTypes,
+			final int[] otherConversions)
+	{
+		for (int i = 0; i < types.length; i++)
+		{
+			if (conversions[i] != otherConversions[i])
+			{
+				if (conversions[i] > otherConversions[i]) return false;
+				continue;
+			}
+
+			final Class< ? > type = types[i];
+			final Class< ? > otherType = otherTypes[i];
+			if (type == otherType) continue;
+			if (type.isPrimitive())
+			{
+				if (otherType.isPrimitive() && !isWidening(type, otherType)) return false;
+			}
+			else if (otherType.isPrimitive() || !otherType.isAssignableFrom(type)) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Determines if a value of the given primitive type can be converted to the other primitive type without loosing
+	 * information, i.e. the widening primitive conversions of Java except for the ones to <code>float</code> and
+	 * <code>double</code> that may round the value.
+	 */
+	private static boolean isWidening(final Class< ? > from, final Class< ? > to)
+	{
+		if (from == byte.class) return to == short.class || to == int.class || to == long.class || to == float.class
+				|| to == double.class;
+		if (from == short.class || from == char.class) return to == int.class || to == long.class || to == float.class
+				|| to == double.class;
+		if (from == int.class) return to == long.class || to == double.class;
+		if (from == float.class) return to == double.class;
+		return false;
+	}
+
+	private static boolean isInteger(final Number n)
+	{
+		return n instanceof Integer || n instanceof Short || n instanceof Byte;
+	}
+
+	private static BigDecimal toBigDecimal(final Number n)
+	{
+		if (n instanceof BigDecimal) return (BigDecimal) n;
+		if (n instanceof BigInteger) return new BigDecimal((BigInteger) n);
+		if (n instanceof Double || n instanceof Float) return new BigDecimal(n.toString());
+		return BigDecimal.valueOf(n.longValue());
+	}
+
+	/**
+	 * Methods declared by non-public classes, e.g. implementations of the collection interfaces, cannot be invoked
+	 * directly. In this case the method is looked up in the public super classes and interfaces of the given type.
+	 */
+	private static Method toAccessibleMethod(final Class< ? > type, final Method method)
+	{
+		if (Modifier.isPublic(method.getDeclaringClass().getModifiers())) return method;
+
+		final Class< ? >[] parameterTypes = method.getParameterTypes();
+		for (final Class< ? > iface : ReflectionUtils.getInterfacesRecursive(type))
+		{
+			if (!Modifier.isPublic(iface.getModifiers())) continue;
+			final Method m = ReflectionUtils.getMethod(iface, method.getName(), parameterTypes);
+			if (m != null) return m;
+		}
+		for (Class< ? > c = type.getSuperclass(); c != null; c = c.getSuperclass())
+		{
+			if (!Modifier.isPublic(c.getModifiers())) continue;
+			final Method m = ReflectionUtils.getMethod(c, method.getName(), parameterTypes);
+			if (m != null) return m;
+		}
+		return method;
+	}
+
+	/**
+	 * Evaluates the node.
+	 *
+	 * @param values the values of the variables in the order of the variable names the expression was compiled with
+	 */
+	abstract Object evaluate(Object[] values);
+
+	/**
+	 * Evaluates the node and expects it to return a boolean. Boolean operators override this method to avoid boxing.
+	 */
+	boolean evaluateAsBoolean(final Object[] values)
+	{
+		final Object result = evaluate(values);
+		if (!(result instanceof Boolean)) throw new ExpressionEvaluationException("Expected a boolean value but got: " + result);
+		return (Boolean) result;
+	}
+
+	/**
+	 * @return <code>true</code> if the node only depends on literals and can be evaluated at parse time
+	 */
+	boolean isConstant()
+	{
+		return false;
+	}
+}
@@ -0,0 +1,365 @@
+/*******************************************************************************
+ * Portions created by Sebastian Thomschke are copyright (c) 2005-2013 Sebastian
+ * Thomschke.
+ *
+ * All Rights Reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Sebastian Thomschke - initial implementation.
+ *******************************************************************************/
+package net.sf.oval.expression;
+
+import net.sf.oval.exception.ExpressionEvaluationException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recursive descent parser of the built-in expression language. The syntax is a subset of Java expressions:
+ * <ul>
+ * <li>literals: <code>null</code>, <code>true</code>, <code>false</code>, numbers, e.g. <code>1</code>, <code>1L</code>
+ * or <code>1.5</code>, and strings in single or double quotes
+ * <li>variables, e.g. <code>_value</code> or <code>_this</code>
+ * <li>property paths, method calls and indexes, e.g. <code>_this.address.city</code>, <code>_value.size()</code> or
+ * <code>_args[0]</code>
+ * <li>the operators <code>! * / % + - &lt; &lt;= &gt; &gt;= == != &amp;&amp; || ?:</code> with Java precedence
+ * </ul>
+ *
+ * @author Sebastian Thomschke
+ */
+final class OValExpressionParser
+{
+	private static final Object[] NO_VALUES = {};
+
+	/**
+	 * @param variableNames the names of the variables the expression may reference, a variable is evaluated to the value
+	 *            at the same index of the values the expression is evaluated with
+	 */
+	static OValExpressionNode parse(final String expression, final String[] variableNames) throws ExpressionEvaluationException
+	{
+		final OValExpressionParser parser = new OValExpressionParser(expression, variableNames);
+		final OValExpressionNode node = parser.parseConditional();
+		parser.skipWhitespace();
+		if (parser.pos < expression.length()) throw parser.error("Unexpected character '" + expression.charAt(parser.pos) + "'");
+		return node;
+	}
+
+	private final String expression;
+	private final String[] variableNames;
+	private int pos;
+
+	private OValExpressionParser(final String expression, final String[] variableNames)
+	{
+		this.expression = expression;
+		this.variableNames = variableNames;
+	}
+
+	/**
+	 * replaces nodes only depending on literals by their result
+	 */
+	private OValExpressionNode constant(final OValExpressionNode node)
+	{
+		if (!node.isConstant()) return node;
+		try
+		{
+			return new OValExpressionNode.Literal(node.evaluate(NO_VALUES));
+		}
+		catch (final RuntimeException ex)
+		{
+			// e.g. a division by zero, is reported when the expression is evaluated
+			return node;
+		}
+	}
+
+	private ExpressionEvaluationException error(final String message)
+	{
+		return new ExpressionEvaluationException(message + " at position " + pos + " of expression: " + expression);
+	}
+
+	private void expect(final char ch)
+	{
+		if (!match(ch)) throw error("Expected '" + ch + "'");
+	}
+
+	private boolean match(final char ch)
+	{
+		skipWhitespace();
+		if (pos < expression.length() && expression.charAt(pos) == ch)
+		{
+			pos++;
+			return true;
+		}
+		return false;
+	}
+
+	private boolean match(final String operator)
+	{
+		skipWhitespace();
+		if (expression.startsWith(operator, pos))
+		{
+			// do not match the prefix of a longer operator, e.g. "<" of "<=" or "!" of "!="
+			final int end = pos + operator.length();
+			if (operator.length() == 1 && end < expression.length() && expression.charAt(end) == '=') return false;
+			pos = end;
+			return true;
+		}
+		return false;
+	}
+
+	private OValExpressionNode parseAdditive()
+	{
+		OValExpressionNode node = parseMultiplicative();
+		while (true)
+			if (match("+"))
+				node = constant(new OValExpressionNode.Arithmetic('+', node, parseMultiplicative()));
+			else if (match("-"))
+				node = constant(new OValExpressionNode.Arithmetic('-', node, parseMultiplicative()));
+			else
+				return node;
+	}
+
+	private OValExpressionNode parseAnd()
+	{
+		OValExpressionNode node = parseEquality();
+		while (match("&&"))
+			node = constant(new OValExpressionNode.And(node, parseEquality()));
+		return node;
+	}
+
+	private OValExpressionNode[] parseArguments()
+	{
+		final List<OValExpressionNode> args = new ArrayList<OValExpressionNode>(2);
+		if (!match(')'))
+		{
+			do
+				args.add(parseConditional());
+			while (match(','));
+			expect(')');
+		}
+		return args.toArray(new OValExpressionNode[args.size()]);
+	}
+
+	private OValExpressionNode parseConditional()
+	{
+		final OValExpressionNode condition = parseOr();
+		if (!match('?')) return condition;
+		final OValExpressionNode ifTrue = parseConditional();
+		expect(':');
+		return constant(new OValExpressionNode.Conditional(condition, ifTrue, parseConditional()));
+	}
+
+	private OValExpressionNode parseEquality()
+	{
+		OValExpressionNode node = parseRelational();
+		while (true)
+		{
+			final boolean negate;
+			if (match("=="))
+				negate = false;
+			else if (match("!="))
+				negate = true;
+			else
+				return node;
+
+			final OValExpressionNode right = parseRelational();
+			if (isNullLiteral(right))
+				node = new OValExpressionNode.NullCheck(negate, node);
+			else if (isNullLiteral(node))
+				node = new OValExpressionNode.NullCheck(negate, right);
+			else
+				node = new OValExpressionNode.Equals(negate, node, right);
+			node = constant(node);
+		}
+	}
+
+	private String parseIdentifier()
+	{
+		skipWhitespace();
+		final int start = pos;
+		if (pos < expression.length() && Character.isJavaIdentifierStart(expression.charAt(pos)))
+		{
+			pos++;
+			while (pos < expression.length() && Character.isJavaIdentifierPart(expression.charAt(pos)))
+				pos++;
+		}
+		if (start == pos) throw error("Expected an identifier");
+		return expression.substring(start, pos);
+	}
+
+	private OValExpressionNode parseMultiplicative()
+	{
+		OValExpressionNode node = parseUnary();
+		while (true)
+			if (match("*"))
+				node = constant(new OValExpressionNode.Arithmetic('*', node, parseUnary()));
+			else if (match("/"))
+				node = constant(new OValExpressionNode.Arithmetic('/', node, parseUnary()));
+			else if (match("%"))
+				node = constant(new OValExpressionNode.Arithmetic('%', node, parseUnary()));
+			else
+				return node;
+	}
+
+	private OValExpressionNode parseNumber()
+	{
+		final int start = pos;
+		while (pos < expression.length() && Character.isDigit(expression.charAt(pos)))
+			pos++;
+		boolean isDecimal = false;
+		if (pos + 1 < expression.length() && expression.charAt(pos) == '.' && Character.isDigit(expression.charAt(pos + 1)))
+		{
+			isDecimal = true;
+			pos++;
+			while (pos < expression.length() && Character.isDigit(expression.charAt(pos)))
+				pos++;
+		}
+		final String number = expression.substring(start, pos);
+
+		if (pos < expression.length())
+		{
+			final char suffix = Character.toUpperCase(expression.charAt(pos));
+			if (suffix == 'L' && !isDecimal)
+			{
+				pos++;
+				return new OValExpressionNode.Literal(Long.valueOf(number));
+			}
+			if (suffix == 'D' || suffix == 'F')
+			{
+				pos++;
+				return new OValExpressionNode.Literal(Double.valueOf(number));
+			}
+		}
+		if (isDecimal) return new OValExpressionNode.Literal(Double.valueOf(number));
+
+		final long value = Long.parseLong(number);
+		return new OValExpressionNode.Literal(value > Integer.MAX_VALUE ? (Object) value : (Object) (int) value);
+	}
+
+	private OValExpressionNode parseOr()
+	{
+		OValExpressionNode node = parseAnd();
+		while (match("||"))
+			node = constant(new OValExpressionNode.Or(node, parseAnd()));
+		return node;
+	}
+
+	private OValExpressionNode parsePostfix(OValExpressionNode node)
+	{
+		while (true)
+			if (match('.'))
+			{
+				final String name = parseIdentifier();
+				if (!match('('))
+					node = new OValExpressionNode.Property(node, name, false);
+				else
+				{
+					final OValExpressionNode[] args = parseArguments();
+					node = args.length == 0 ? new OValExpressionNode.Property(node, name, true) : new OValExpressionNode.MethodCall(
+							node, name, args);
+				}
+			}
+			else if (match('['))
+			{
+				final OValExpressionNode index = parseConditional();
+				expect(']');
+				node = new OValExpressionNode.Index(node, index);
+			}
+			else
+				return node;
+	}
+
+	private OValExpressionNode parsePrimary()
+	{
+		skipWhitespace();
+		if (pos == expression.length()) throw error("Unexpected end of expression");
+
+		final char ch = expression.charAt(pos);
+		if (ch == '(')
+		{
+			pos++;
+			final OValExpressionNode node = parseConditional();
+			expect(')');
+			return node;
+		}
+		if (ch == '\'' || ch == '"') return parseString(ch);
+		if (Character.isDigit(ch)) return parseNumber();
+
+		final String identifier = parseIdentifier();
+		if ("null".equals(identifier)) return new OValExpressionNode.Literal(null);
+		if ("true".equals(identifier)) return new OValExpressionNode.Literal(Boolean.TRUE);
+		if ("false".equals(identifier)) return new OValExpressionNode.Literal(Boolean.FALSE);
+		for (int i = 0; i < variableNames.length; i++)
+			if (variableNames[i].equals(identifier)) return new OValExpressionNode.Variable(i);
+		pos -= identifier.length();
+		throw error("Unknown variable '" + identifier + "'");
+	}
+
+	private OValExpressionNode parseRelational()
+	{
+		OValExpressionNode node = parseAdditive();
+		while (true)
+			if (match("<="))
+				node = constant(new OValExpressionNode.Compare(OValExpressionNode.Compare.LESS_OR_EQUAL, node, parseAdditive()));
+			else if (match(">="))
+				node = constant(new OValExpressionNode.Compare(OValExpressionNode.Compare.GREATER_OR_EQUAL, node, parseAdditive()));
+			else if (match("<"))
+				node = constant(new OValExpressionNode.Compare(OValExpressionNode.Compare.LESS, node, parseAdditive()));
+			else if (match(">"))
+				node = constant(new OValExpressionNode.Compare(OValExpressionNode.Compare.GREATER, node, parseAdditive()));
+			else
+				return node;
+	}
+
+	private OValExpressionNode parseString(final char quote)
+	{
+		final StringBuilder sb = new StringBuilder();
+		pos++;
+		while (pos < expression.length())
+		{
+			final char ch = expression.charAt(pos++);
+			if (ch == quote) return new OValExpressionNode.Literal(sb.toString());
+			if (ch == '\\' && pos < expression.length())
+			{
+				final char escaped = expression.charAt(pos++);
+				switch (escaped)
+				{
+					case 'n' :
+						sb.append('\n');
+						break;
+					case 'r' :
+						sb.append('\r');
+						break;
+					case 't' :
+						sb.append('\t');
+						break;
+					default :
+						sb.append(escaped);
+				}
+			}
+			else
+				sb.append(ch);
+		}
+		throw error("Unterminated string literal");
+	}
+
+	private OValExpressionNode parseUnary()
+	{
+		if (match("!")) return constant(new OValExpressionNode.Not(parseUnary()));
+		if (match("-")) return constant(new OValExpressionNode.Negate(parseUnary()));
+		return parsePostfix(parsePrimary());
+	}
+
+	private boolean isNullLiteral(final OValExpressionNode node)
+	{
+		return node instanceof OValExpressionNode.Literal && node.evaluate(NO_VALUES) == null;
+	}
+
+	private void skipWhitespace()
+	{
+		while (pos < expression.length() && Character.isWhitespace(expression.charAt(pos)))
+			pos++;
+	}
+}
@@ -15,6 +15,7 @@ package net.sf.oval.guard;
 import net.sf.oval.Check;
 import net.sf.oval.CheckExclusion;
 import net.sf.oval.ConstraintViolation;
+import net.sf.oval.ValidationCycle;
 import net.sf.oval.Validator;
 import net.sf.oval.configuration.Configurer;
 import net.sf.oval.context.ConstructorParameterContext;
@@ -28,17 +29,21 @@ import net.sf.oval.exception.InvalidConfigurationException;
 import net.sf.oval.exception.OValException;
 import net.sf.oval.exception.ValidationFailedException;
 import net.sf.oval.expression.ExpressionLanguage;
+import net.sf.oval.expression.ExpressionTimeBudget;
 import net.sf.oval.internal.ClassChecks;
 import net.sf.oval.internal.ContextCache;
+import net.sf.oval.internal.GuardPlan;
+import net.sf.oval.internal.MethodBindings;
 import net.sf.oval.internal.ParameterChecks;
-import net.sf.oval.internal.util.ArrayUtils;
 import net.sf.oval.internal.util.Assert;
 import net.sf.oval.internal.util.IdentitySet;
 import net.sf.oval.internal.util.Invocable;
+import net.sf.oval.internal.util.ReentrancyTracker;
 import net.sf.oval.internal.util.ReflectionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
@@ -69,17 +74,20 @@ public class Guard extends Validator
 		protected final Method method;
 		protected final Object[] args;
 		protected final ClassChecks cc;
+		protected final GuardPlan plan;
 		protected final List<ConstraintViolation> violations;
 		protected final Map<PostCheck, Object> postCheckOldValues;
 		protected final Object guardedObject;
 
 		public GuardMethodPreResult(final Object guardedObject, final Method method, final Object[] args, final ClassChecks cc,
-				final boolean checkInvariants, final Map<PostCheck, Object> postCheckOldValues, final List<ConstraintViolation> violations)
+				final GuardPlan plan, final boolean checkInvariants, final Map<PostCheck, Object> postCheckOldValues,
+				final List<ConstraintViolation> violations)
 		{
 			this.guardedObject = guardedObject;
 			this.method = method;
 			this.args = args;
 			this.cc = cc;
+			this.plan = plan;
 			this.checkInvariants = checkInvariants;
 			this.postCheckOldValues = postCheckOldValues;
 			this.violations = violations;
@@ -89,24 +97,24 @@ public class Guard extends Validator
 	/**
 	 * <b>Note:</b> Only required until AspectJ allows throwing of checked exceptions
 	 */
-	protected static final GuardMethodPreResult DO_NOT_PROCEED = new GuardMethodPreResult(null, null, null, null, false, null, null);
+	protected static final GuardMethodPreResult DO_NOT_PROCEED = new GuardMethodPreResult(null, null, null, null, null, false, null, null);
 
 	private static final Logger LOG = LoggerFactory.getLogger(Guard.class);
 
 	/**
-	 * string based on validated object hashcode + method hashcode for currently validated method return values
+	 * validated object + method of the method return values currently validated by the current thread
 	 */
-	private static final List<String> currentlyCheckingMethodReturnValues = new ArrayList<>();
+	private static final ReentrancyTracker currentlyCheckingMethodReturnValues = new ReentrancyTracker();
 
 	/**
-	 * string based on validated object hashcode + method hashcode for currently validated method pre-conditions
+	 * validated object + method of the method pre-conditions currently validated by the current thread
 	 */
-	private static final List<String> currentlyCheckingPreConditions = new ArrayList<>();
+	private static final ReentrancyTracker currentlyCheckingPreConditions = new ReentrancyTracker();
 
 	/**
-	 * string based on validated object hashcode + method hashcode for currently validated method post-conditions
+	 * validated object + method of the method post-conditions currently validated by the current thread
 	 */
-	private static final List<String> currentlyCheckingPostConditions = new ArrayList<>();
+	private static final ReentrancyTracker currentlyCheckingPostConditions = new ReentrancyTracker();
 
 	private boolean isActivated = true;
 	private boolean isInvariantsEnabled = true;
@@ -166,8 +174,44 @@ public class Guard extends Validator
 		return activeExclusions.size() == 0 ? null : activeExclusions;
 	}
 
-	private void _validateParameterChecks(final ParameterChecks checks, final Object validatedObject, final Object valueToValidate,
-			final OValContext context, final List<ConstraintViolation> violations)
+	/**
+	 * the bindings are held by the checks of the declaring class, so they do not outlive the class
+	 */
+	private MethodBindings _getMethodBindings(final ClassChecks cc, final Method method)
+	{
+		return cc.getMethodBindings(method, parameterNameResolver.getDelegate());
+	}
+
+	private GuardPlan _getGuardPlan(final ClassChecks cc, final AccessibleObject ctorOrMethod)
+	{
+		GuardPlan plan = cc.getGuardPlan(ctorOrMethod);
+		if (plan == null)
+		{
+			plan = new GuardPlan(cc, ctorOrMethod);
+			cc.setGuardPlan(plan);
+		}
+		return plan;
+	}
+
+	/**
+	 * validates the invariants of the given object in a new validation cycle
+	 */
+	private void _validateInvariants(final Object guardedObject, final List<ConstraintViolation> violations)
+			throws ValidationFailedException
+	{
+		final ValidationCycle cycle = acquireValidationCycle(violations, null);
+		try
+		{
+			validateInvariants(guardedObject, cycle);
+		}
+		finally
+		{
+			releaseValidationCycle(cycle);
+		}
+	}
+
+	private void _validateParameterChecks(final ValidationCycle cycle, final ParameterChecks checks, final Object validatedObject,
+			final Object valueToValidate, final OValContext context)
 	{
 		// determine the active exclusions based on the active profiles
 		final List<CheckExclusion> activeExclusions = checks.hasExclusions() ? _getActiveExclusions(checks.checkExclusions) : null;
@@ -186,7 +230,7 @@ public class Guard extends Validator
 						skip = true;
 						continue;
 					}
-			if (!skip) checkConstraint(violations, check, validatedObject, valueToValidate, context, null, false);
+			if (!skip) checkConstraint(cycle, check, validatedObject, valueToValidate, context, false);
 		}
 	}
 
@@ -396,6 +440,8 @@ public class Guard extends Validator
 	protected Map<PostCheck, Object> calculateMethodPostOldValues(final Object validatedObject, final Method method, final Object[] args)
 			throws ValidationFailedException
 	{
+		ValidationCycle cycle = null;
+		Object[] frame = null;
 		try
 		{
 			final ClassChecks cc = getClassChecks(method.getDeclaringClass());
@@ -404,27 +450,21 @@ public class Guard extends Validator
 			// shortcut: check if any post checks for this method exist
 			if (postChecks == null) return null;
 
-			final String[] parameterNames = parameterNameResolver.getParameterNames(method);
-			final boolean hasParameters = parameterNames.length > 0;
-
-			final Map<PostCheck, Object> oldValues = new LinkedHashMap<>(postChecks.size());
+			Map<PostCheck, Object> oldValues = null;
+			final MethodBindings bindings = _getMethodBindings(cc, method);
 
 			for (final PostCheck check : postChecks)
-				if (isAnyProfileEnabled(check.getProfiles(), null) && check.getOld() != null && check.getOld().length() > 0)
+				if (check.getOld() != null && check.getOld().length() > 0 && isAnyProfileEnabled(check.getProfiles(), null))
 				{
-					final ExpressionLanguage eng = expressionLanguageRegistry.getExpressionLanguage(check.getLanguage());
-					final Map<String, Object> values = new LinkedHashMap<>();
-					values.put("_this", validatedObject);
-					if (hasParameters)
+					if (oldValues == null)
 					{
-						values.put("_args", args);
-						for (int i = 0; i < args.length; i++)
-							values.put(parameterNames[i], args[i]);
+						// the cycle scopes the time budget of the expression evaluations
+						cycle = acquireValidationCycle(null, null);
+						frame = bindings.acquirePreFrame(validatedObject, args);
+						oldValues = new LinkedHashMap<>(postChecks.size());
 					}
-					else
-						values.put("_args", ArrayUtils.EMPTY_OBJECT_ARRAY);
-
-					oldValues.put(check, eng.evaluate(check.getOld(), values));
+					final ExpressionLanguage eng = expressionLanguageRegistry.getExpressionLanguage(check.getLanguage());
+					oldValues.put(check, ExpressionTimeBudget.evaluate(check.getCompiledOld(eng, bindings.preVariableNames), frame));
 				}
 
 			return oldValues;
@@ -434,6 +474,11 @@ public class Guard extends Validator
 			throw new ValidationFailedException("Method post conditions validation failed. Method: " + method + " Validated object: "
 					+ validatedObject, ex);
 		}
+		finally
+		{
+			if (frame != null) MethodBindings.releaseFrame(frame);
+			if (cycle != null) releaseValidationCycle(cycle);
+		}
 	}
 
 	/**
@@ -547,12 +592,12 @@ public class Guard extends Validator
 		final ClassChecks cc = getClassChecks(ctor.getDeclaringClass());
 
 		// check invariants
-		if (isInvariantsEnabled && cc.isCheckInvariants || cc.methodsWithCheckInvariantsPost.contains(ctor))
+		if (isInvariantsEnabled && cc.isCheckInvariants || _getGuardPlan(cc, ctor).isCheckInvariantsPost)
 		{
 			final List<ConstraintViolation> violations = new ArrayList<>();
 			try
 			{
-				validateInvariants(guardedObject, violations, null);
+				_validateInvariants(guardedObject, violations);
 			}
 			catch (final ValidationFailedException ex)
 			{
@@ -581,7 +626,8 @@ public class Guard extends Validator
 		if (!isActivated) return;
 
 		// constructor parameter validation
-		if (isPreConditionsEnabled && args.length > 0)
+		if (isPreConditionsEnabled && args.length > 0
+				&& _getGuardPlan(getClassChecks(ctor.getDeclaringClass()), ctor).hasParameterChecks)
 		{
 			final List<ConstraintViolation> violations;
 			try
@@ -620,9 +666,12 @@ public class Guard extends Validator
 		if (!isActivated) return invocable.invoke();
 
 		final ClassChecks cc = getClassChecks(method.getDeclaringClass());
+		final GuardPlan plan = _getGuardPlan(cc, method);
+
+		final boolean checkInvariants = isInvariantsEnabled && cc.isCheckInvariants && plan.isInvariantsApplicable;
 
-		final boolean checkInvariants = isInvariantsEnabled && cc.isCheckInvariants && !ReflectionUtils.isPrivate(method)
-				&& !ReflectionUtils.isProtected(method);
+		// shortcut: the method is not constrained and the guarded object cannot be in probe mode
+		if (!checkInvariants && plan.isEmpty && !isProbeModeFeatureUsed) return invocable.invoke();
 
 		// if static method use the declaring class as guardedObject
 		if (guardedObject == null && ReflectionUtils.isStatic(method)) guardedObject = method.getDeclaringClass();
@@ -632,15 +681,16 @@ public class Guard extends Validator
 		try
 		{
 			// check invariants
-			if (checkInvariants || cc.methodsWithCheckInvariantsPre.contains(method)) validateInvariants(guardedObject, violations, null);
+			if (checkInvariants || plan.isCheckInvariantsPre) _validateInvariants(guardedObject, violations);
 
 			if (isPreConditionsEnabled)
 			{
 				// method parameter validation
-				if (violations.size() == 0 && args.length > 0) validateMethodParameters(guardedObject, method, args, violations);
+				if (violations.size() == 0 && args.length > 0 && plan.hasParameterChecks)
+					validateMethodParameters(guardedObject, method, args, violations);
 
 				// @Pre validation
-				if (violations.size() == 0) validateMethodPre(guardedObject, method, args, violations);
+				if (violations.size() == 0 && plan.hasPreChecks) validateMethodPre(guardedObject, method, args, violations);
 			}
 		}
 		catch (final ValidationFailedException ex)
@@ -669,23 +719,26 @@ public class Guard extends Validator
 		// abort method execution if in probe mode
 		if (pml != null) return null;
 
-		final Map<PostCheck, Object> postCheckOldValues = calculateMethodPostOldValues(guardedObject, method, args);
+		final Map<PostCheck, Object> postCheckOldValues = plan.hasPostChecks ? calculateMethodPostOldValues(guardedObject, method, args)
+				: null;
 
 		final Object returnValue = invocable.invoke();
 
 		try
 		{
 			// check invariants if executed method is not private
-			if (checkInvariants || cc.methodsWithCheckInvariantsPost.contains(method)) validateInvariants(guardedObject, violations, null);
+			if (checkInvariants || plan.isCheckInvariantsPost) _validateInvariants(guardedObject, violations);
 
 			if (isPostConditionsEnabled)
 			{
 
 				// method return value
-				if (violations.size() == 0) validateMethodReturnValue(guardedObject, method, returnValue, violations);
+				if (violations.size() == 0 && plan.hasReturnValueChecks)
+					validateMethodReturnValue(guardedObject, method, returnValue, violations);
 
 				// @Post
-				if (violations.size() == 0) validateMethodPost(guardedObject, method, args, returnValue, postCheckOldValues, violations);
+				if (violations.size() == 0 && plan.hasPostChecks)
+					validateMethodPost(guardedObject, method, args, returnValue, postCheckOldValues, violations);
 			}
 		}
 		catch (final ValidationFailedException ex)
@@ -718,23 +771,24 @@ public class Guard extends Validator
 	protected void guardMethodPost(final Object returnValue, final GuardMethodPreResult preResult) throws ConstraintsViolatedException,
 			ValidationFailedException
 	{
-		if (!isActivated) return;
+		// guarding was deactivated or the method is not constrained
+		if (!isActivated || preResult == null) return;
 
 		try
 		{
 			// check invariants if executed method is not private
-			if (preResult.checkInvariants || preResult.cc.methodsWithCheckInvariantsPost.contains(preResult.method))
-				validateInvariants(preResult.guardedObject, preResult.violations, null);
+			if (preResult.checkInvariants || preResult.plan.isCheckInvariantsPost)
+				_validateInvariants(preResult.guardedObject, preResult.violations);
 
 			if (isPostConditionsEnabled)
 			{
 
 				// method return value
-				if (preResult.violations.size() == 0)
+				if (preResult.violations.size() == 0 && preResult.plan.hasReturnValueChecks)
 					validateMethodReturnValue(preResult.guardedObject, preResult.method, returnValue, preResult.violations);
 
 				// @Post
-				if (preResult.violations.size() == 0)
+				if (preResult.violations.size() == 0 && preResult.plan.hasPostChecks)
 					validateMethodPost(preResult.guardedObject, preResult.method, preResult.args, returnValue,
 							preResult.postCheckOldValues, preResult.violations);
 			}
@@ -761,7 +815,7 @@ public class Guard extends Validator
 	 * @param guardedObject
 	 * @param method
 	 * @param args
-	 * @return Null if method guarding is deactivated or a result object that needs to be passed to {@link #guardMethodPost(Object, GuardMethodPreResult)}
+	 * @return Null if method guarding is deactivated or the method is not constrained or a result object that needs to be passed to {@link #guardMethodPost(Object, GuardMethodPreResult)}
 	 * @throws ConstraintsViolatedException if an constraint violation occurs and the validated object is not in probe
 	 *             mode.
 	 */
@@ -771,9 +825,12 @@ public class Guard extends Validator
 		if (!isActivated) return null;
 
 		final ClassChecks cc = getClassChecks(method.getDeclaringClass());
+		final GuardPlan plan = _getGuardPlan(cc, method);
+
+		final boolean checkInvariants = isInvariantsEnabled && cc.isCheckInvariants && plan.isInvariantsApplicable;
 
-		final boolean checkInvariants = isInvariantsEnabled && cc.isCheckInvariants && !ReflectionUtils.isPrivate(method)
-				&& !ReflectionUtils.isProtected(method);
+		// shortcut: the method is not constrained and the guarded object cannot be in probe mode
+		if (!checkInvariants && plan.isEmpty && !isProbeModeFeatureUsed) return null;
 
 		// if static method use the declaring class as guardedObject
 		if (guardedObject == null && ReflectionUtils.isStatic(method)) guardedObject = method.getDeclaringClass();
@@ -783,15 +840,16 @@ public class Guard extends Validator
 		try
 		{
 			// check invariants
-			if (checkInvariants || cc.methodsWithCheckInvariantsPre.contains(method)) validateInvariants(guardedObject, violations, null);
+			if (checkInvariants || plan.isCheckInvariantsPre) _validateInvariants(guardedObject, violations);
 
 			if (isPreConditionsEnabled)
 			{
 				// method parameter validation
-				if (violations.size() == 0 && args.length > 0) validateMethodParameters(guardedObject, method, args, violations);
+				if (violations.size() == 0 && args.length > 0 && plan.hasParameterChecks)
+					validateMethodParameters(guardedObject, method, args, violations);
 
 				// @Pre validation
-				if (violations.size() == 0) validateMethodPre(guardedObject, method, args, violations);
+				if (violations.size() == 0 && plan.hasPreChecks) validateMethodPre(guardedObject, method, args, violations);
 			}
 		}
 		catch (final ValidationFailedException ex)
@@ -820,9 +878,10 @@ public class Guard extends Validator
 		// abort method execution if in probe mode
 		if (pml != null) return DO_NOT_PROCEED;
 
-		final Map<PostCheck, Object> postCheckOldValues = calculateMethodPostOldValues(guardedObject, method, args);
+		final Map<PostCheck, Object> postCheckOldValues = plan.hasPostChecks ? calculateMethodPostOldValues(guardedObject, method, args)
+				: null;
 
-		return new GuardMethodPreResult(guardedObject, method, args, cc, checkInvariants, postCheckOldValues, violations);
+		return new GuardMethodPreResult(guardedObject, method, args, cc, plan, checkInvariants, postCheckOldValues, violations);
 	}
 
 	/**
@@ -1201,10 +1260,7 @@ public class Guard extends Validator
 	protected List<ConstraintViolation> validateConstructorParameters(final Object validatedObject, final Constructor< ? > constructor,
 			final Object[] argsToValidate) throws ValidationFailedException
 	{
-		// create required objects for this validation cycle
-		final List<ConstraintViolation> violations = new ArrayList<>();
-		currentlyValidatedObjects.add(new IdentitySet<Object>(4));
-
+		final ValidationCycle cycle = acquireValidationCycle(null, null);
 		try
 		{
 			final ClassChecks cc = getClassChecks(constructor.getDeclaringClass());
@@ -1224,10 +1280,10 @@ public class Guard extends Validator
 					final Object valueToValidate = argsToValidate[i];
 					final ConstructorParameterContext context = new ConstructorParameterContext(constructor, i, parameterNames[i]);
 
-					_validateParameterChecks(checks, validatedObject, valueToValidate, context, violations);
+					_validateParameterChecks(cycle, checks, validatedObject, valueToValidate, context);
 				}
 			}
-			return violations.size() == 0 ? null : violations;
+			return cycle.getViolations().size() == 0 ? null : cycle.getViolations();
 		}
 		catch (final OValException ex)
 		{
@@ -1237,28 +1293,7 @@ public class Guard extends Validator
 		}
 		finally
 		{
-			// remove the validation cycle related objects
-			currentlyValidatedObjects.removeLast();
-		}
-	}
-
-	/**
-	 * {@inheritDoc}
-	 */
-	@Override
-	protected void validateInvariants(final Object guardedObject, final List<ConstraintViolation> violations, final String[] profiles)
-			throws IllegalArgumentException, ValidationFailedException
-	{
-		// create a new set for this validation cycle
-		currentlyValidatedObjects.add(new IdentitySet<Object>(4));
-		try
-		{
-			super.validateInvariants(guardedObject, violations, profiles);
-		}
-		finally
-		{
-			// remove the set
-			currentlyValidatedObjects.removeLast();
+			releaseValidationCycle(cycle);
 		}
 	}
 
@@ -1270,8 +1305,7 @@ public class Guard extends Validator
 	protected void validateMethodParameters(final Object validatedObject, final Method method, final Object[] args,
 			final List<ConstraintViolation> violations) throws ValidationFailedException
 	{
-		// create a new set for this validation cycle
-		currentlyValidatedObjects.add(new IdentitySet<Object>(4));
+		final ValidationCycle cycle = acquireValidationCycle(violations, null);
 		try
 		{
 			final ClassChecks cc = getClassChecks(method.getDeclaringClass());
@@ -1293,7 +1327,7 @@ public class Guard extends Validator
 					final Object valueToValidate = args[i];
 					final MethodParameterContext context = new MethodParameterContext(method, i, parameterNames[i]);
 
-					_validateParameterChecks(checks, validatedObject, valueToValidate, context, violations);
+					_validateParameterChecks(cycle, checks, validatedObject, valueToValidate, context);
 				}
 			}
 		}
@@ -1304,8 +1338,7 @@ public class Guard extends Validator
 		}
 		finally
 		{
-			// remove the set
-			currentlyValidatedObjects.removeLast();
+			releaseValidationCycle(cycle);
 		}
 	}
 
@@ -1317,14 +1350,13 @@ public class Guard extends Validator
 	protected void validateMethodPost(final Object validatedObject, final Method method, final Object[] args, final Object returnValue,
 			final Map<PostCheck, Object> oldValues, final List<ConstraintViolation> violations) throws ValidationFailedException
 	{
-		final String key = System.identityHashCode(validatedObject) + " " + System.identityHashCode(method);
-
 		/*
 		 *  avoid circular references
 		 */
-		if (currentlyCheckingPostConditions.contains(key)) return;
+		if (!currentlyCheckingPostConditions.enter(validatedObject, method)) return;
 
-		currentlyCheckingPostConditions.add(key);
+		ValidationCycle cycle = null;
+		Object[] frame = null;
 		try
 		{
 			final ClassChecks cc = getClassChecks(method.getDeclaringClass());
@@ -1332,8 +1364,11 @@ public class Guard extends Validator
 
 			if (postChecks == null) return;
 
-			final String[] parameterNames = parameterNameResolver.getParameterNames(method);
-			final boolean hasParameters = parameterNames.length > 0;
+			// the cycle scopes the time budget of the expression evaluations
+			cycle = acquireValidationCycle(violations, null);
+
+			final MethodBindings bindings = _getMethodBindings(cc, method);
+			frame = bindings.acquirePostFrame(validatedObject, args, returnValue);
 
 			final MethodExitContext context = ContextCache.getMethodExitContext(method);
 
@@ -1342,20 +1377,9 @@ public class Guard extends Validator
 				if (!isAnyProfileEnabled(check.getProfiles(), null)) continue;
 
 				final ExpressionLanguage eng = expressionLanguageRegistry.getExpressionLanguage(check.getLanguage());
-				final Map<String, Object> values = new LinkedHashMap<>();
-				values.put("_this", validatedObject);
-				values.put("_returns", returnValue);
-				values.put("_old", oldValues.get(check));
-				if (hasParameters)
-				{
-					values.put("_args", args);
-					for (int i = 0; i < args.length; i++)
-						values.put(parameterNames[i], args[i]);
-				}
-				else
-					values.put("_args", ArrayUtils.EMPTY_OBJECT_ARRAY);
+				bindings.setOld(frame, oldValues == null ? null : oldValues.get(check));
 
-				if (!eng.evaluateAsBoolean(check.getExpression(), values))
+				if (!ExpressionTimeBudget.evaluateAsBoolean(check.getCompiledExpression(eng, bindings.postVariableNames), frame))
 				{
 					final Map<String, String> messageVariables = new LinkedHashMap<>(2);
 					messageVariables.put("expression", check.getExpression());
@@ -1372,7 +1396,9 @@ public class Guard extends Validator
 		}
 		finally
 		{
-			currentlyCheckingPostConditions.remove(key);
+			if (frame != null) MethodBindings.releaseFrame(frame);
+			if (cycle != null) releaseValidationCycle(cycle);
+			currentlyCheckingPostConditions.exit();
 		}
 	}
 
@@ -1384,14 +1410,13 @@ public class Guard extends Validator
 	protected void validateMethodPre(final Object validatedObject, final Method method, final Object[] args,
 			final List<ConstraintViolation> violations) throws ValidationFailedException
 	{
-		final String key = System.identityHashCode(validatedObject) + " " + System.identityHashCode(method);
-
 		/*
 		 *  avoid circular references
 		 */
-		if (currentlyCheckingPreConditions.contains(key)) return;
+		if (!currentlyCheckingPreConditions.enter(validatedObject, method)) return;
 
-		currentlyCheckingPreConditions.add(key);
+		ValidationCycle cycle = null;
+		Object[] frame = null;
 		try
 		{
 			final ClassChecks cc = getClassChecks(method.getDeclaringClass());
@@ -1399,8 +1424,11 @@ public class Guard extends Validator
 
 			if (preChecks == null) return;
 
-			final String[] parameterNames = parameterNameResolver.getParameterNames(method);
-			final boolean hasParameters = parameterNames.length > 0;
+			// the cycle scopes the time budget of the expression evaluations
+			cycle = acquireValidationCycle(violations, null);
+
+			final MethodBindings bindings = _getMethodBindings(cc, method);
+			frame = bindings.acquirePreFrame(validatedObject, args);
 
 			final MethodEntryContext context = ContextCache.getMethodEntryContext(method);
 
@@ -1409,18 +1437,8 @@ public class Guard extends Validator
 				if (!isAnyProfileEnabled(check.getProfiles(), null)) continue;
 
 				final ExpressionLanguage eng = expressionLanguageRegistry.getExpressionLanguage(check.getLanguage());
-				final Map<String, Object> values = new LinkedHashMap<>();
-				values.put("_this", validatedObject);
-				if (hasParameters)
-				{
-					values.put("_args", args);
-					for (int i = 0; i < args.length; i++)
-						values.put(parameterNames[i], args[i]);
-				}
-				else
-					values.put("_args", ArrayUtils.EMPTY_OBJECT_ARRAY);
 
-				if (!eng.evaluateAsBoolean(check.getExpression(), values))
+				if (!ExpressionTimeBudget.evaluateAsBoolean(check.getCompiledExpression(eng, bindings.preVariableNames), frame))
 				{
 					final Map<String, String> messageVariables = new LinkedHashMap<>(2);
 					messageVariables.put("expression", check.getExpression());
@@ -1437,7 +1455,9 @@ public class Guard extends Validator
 		}
 		finally
 		{
-			currentlyCheckingPreConditions.remove(key);
+			if (frame != null) MethodBindings.releaseFrame(frame);
+			if (cycle != null) releaseValidationCycle(cycle);
+			currentlyCheckingPreConditions.exit();
 		}
 	}
 
@@ -1449,8 +1469,6 @@ public class Guard extends Validator
 	protected void validateMethodReturnValue(final Object validatedObject, final Method method, final Object returnValue,
 			final List<ConstraintViolation> violations) throws ValidationFailedException
 	{
-		final String key = System.identityHashCode(validatedObject) + " " + System.identityHashCode(method);
-
 		/*
 		 *  avoid circular references, e.g.
 		 *
@@ -1461,11 +1479,9 @@ public class Guard extends Validator
 		 *
 		 *  => Groovy will invoke the getter to return the value, invocations of the getter will trigger the validation of the method return values again, including the @Assert constraint
 		 */
-		if (currentlyCheckingMethodReturnValues.contains(key)) return;
+		if (!currentlyCheckingMethodReturnValues.enter(validatedObject, method)) return;
 
-		currentlyCheckingMethodReturnValues.add(key);
-		// create a new set for this validation cycle
-		currentlyValidatedObjects.add(new IdentitySet<Object>(4));
+		final ValidationCycle cycle = acquireValidationCycle(violations, null);
 		try
 		{
 			final ClassChecks cc = getClassChecks(method.getDeclaringClass());
@@ -1476,7 +1492,7 @@ public class Guard extends Validator
 			final MethodReturnValueContext context = ContextCache.getMethodReturnValueContext(method);
 
 			for (final Check check : returnValueChecks)
-				checkConstraint(violations, check, validatedObject, returnValue, context, null, false);
+				checkConstraint(cycle, check, validatedObject, returnValue, context, false);
 		}
 		catch (final OValException ex)
 		{
@@ -1485,10 +1501,9 @@ public class Guard extends Validator
 		}
 		finally
 		{
-			currentlyCheckingMethodReturnValues.remove(key);
+			currentlyCheckingMethodReturnValues.exit();
 
-			// remove the set
-			currentlyValidatedObjects.removeLast();
+			releaseValidationCycle(cycle);
 		}
 	}
 }
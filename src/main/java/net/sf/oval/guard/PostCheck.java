@@ -16,6 +16,8 @@ import net.sf.oval.AbstractCheck;
 import net.sf.oval.Validator;
 import net.sf.oval.context.OValContext;
 import net.sf.oval.exception.OValException;
+import net.sf.oval.expression.CompiledExpression;
+import net.sf.oval.expression.ExpressionLanguage;
 
 /**
  * @author Sebastian Thomschke
@@ -27,6 +29,8 @@ public class PostCheck extends AbstractCheck
 	private String expression;
 	private String language;
 	private String old;
+	private transient volatile CompiledExpression compiledExpression;
+	private transient volatile CompiledExpression compiledOld;
 
 	public void configure(final Post constraintAnnotation)
 	{
@@ -39,6 +43,35 @@ public class PostCheck extends AbstractCheck
 		setProfiles(constraintAnnotation.profiles());
 	}
 
+	/**
+	 * @return the expression compiled by the given language for the given variables, compiled on first use since the
+	 *         language depends on the guard's registry and the variables on the guarded method
+	 */
+	CompiledExpression getCompiledExpression(final ExpressionLanguage el, final String[] variableNames)
+	{
+		CompiledExpression compiledExpression = this.compiledExpression;
+		if (compiledExpression == null || !compiledExpression.isCompiledFrom(el, expression, variableNames))
+		{
+			compiledExpression = CompiledExpression.compile(el, expression, variableNames);
+			this.compiledExpression = compiledExpression;
+		}
+		return compiledExpression;
+	}
+
+	/**
+	 * @return the old value expression compiled by the given language for the given variables
+	 */
+	CompiledExpression getCompiledOld(final ExpressionLanguage el, final String[] variableNames)
+	{
+		CompiledExpression compiledOld = this.compiledOld;
+		if (compiledOld == null || !compiledOld.isCompiledFrom(el, old, variableNames))
+		{
+			compiledOld = CompiledExpression.compile(el, old, variableNames);
+			this.compiledOld = compiledOld;
+		}
+		return compiledOld;
+	}
+
 	/**
 	 * @return the condition
 	 */
@@ -78,6 +111,7 @@ public class PostCheck extends AbstractCheck
 	public void setExpression(final String condition)
 	{
 		expression = condition;
+		compiledExpression = null;
 	}
 
 	/**
@@ -86,6 +120,8 @@ public class PostCheck extends AbstractCheck
 	public void setLanguage(final String language)
 	{
 		this.language = language;
+		compiledExpression = null;
+		compiledOld = null;
 	}
 
 	/**
@@ -94,5 +130,6 @@ public class PostCheck extends AbstractCheck
 	public void setOld(final String old)
 	{
 		this.old = old;
+		compiledOld = null;
 	}
 }
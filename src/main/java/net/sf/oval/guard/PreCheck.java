@@ -16,6 +16,8 @@ import net.sf.oval.AbstractCheck;
 import net.sf.oval.Validator;
 import net.sf.oval.context.OValContext;
 import net.sf.oval.exception.OValException;
+import net.sf.oval.expression.CompiledExpression;
+import net.sf.oval.expression.ExpressionLanguage;
 
 /**
  * @author Sebastian Thomschke
@@ -26,6 +28,7 @@ public class PreCheck extends AbstractCheck
 
 	private String expression;
 	private String language;
+	private transient volatile CompiledExpression compiledExpression;
 
 	public void configure(final Pre constraintAnnotation)
 	{
@@ -37,6 +40,21 @@ public class PreCheck extends AbstractCheck
 		setProfiles(constraintAnnotation.profiles());
 	}
 
+	/**
+	 * @return the expression compiled by the given language for the given variables, compiled on first use since the
+	 *         language depends on the guard's registry and the variables on the guarded method
+	 */
+	CompiledExpression getCompiledExpression(final ExpressionLanguage el, final String[] variableNames)
+	{
+		CompiledExpression compiledExpression = this.compiledExpression;
+		if (compiledExpression == null || !compiledExpression.isCompiledFrom(el, expression, variableNames))
+		{
+			compiledExpression = CompiledExpression.compile(el, expression, variableNames);
+			this.compiledExpression = compiledExpression;
+		}
+		return compiledExpression;
+	}
+
 	/**
 	 * @return the condition
 	 */
@@ -68,6 +86,7 @@ public class PreCheck extends AbstractCheck
 	public void setExpression(final String condition)
 	{
 		expression = condition;
+		compiledExpression = null;
 	}
 
 	/**
@@ -76,5 +95,6 @@ public class PreCheck extends AbstractCheck
 	public void setLanguage(final String language)
 	{
 		this.language = language;
+		compiledExpression = null;
 	}
 }
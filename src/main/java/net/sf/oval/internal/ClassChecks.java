@@ -33,6 +33,9 @@ import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This class holds the instantiated checks for a single class.
@@ -111,8 +114,24 @@ public final class ClassChecks
 
 	public final Set<Method> methodsWithCheckInvariantsPre = new LinkedHashSet<>();
 
+	/**
+	 * incremented on each modification of the field, getter and object level checks
+	 */
+	private final AtomicInteger modCount = new AtomicInteger();
+
+	/**
+	 * incremented on each modification of the constructor and method level checks
+	 */
+	private final AtomicInteger methodModCount = new AtomicInteger();
+
+	private final ConcurrentMap<AccessibleObject, GuardPlan> guardPlans = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<Method, MethodBindings> methodBindings = new ConcurrentHashMap<>();
+
 	private final ParameterNameResolver parameterNameResolver;
 
+	private volatile ValidationPlan validationPlan;
+
 	/**
 	 * package constructor used by the Validator class
 	 *
@@ -188,6 +207,34 @@ public final class ClassChecks
 		}
 	}
 
+	/**
+	 * marks the invariants to be checked after the given constructor or method has been executed
+	 *
+	 * @param ctorOrMethod
+	 */
+	public void addCheckInvariantsPost(final AccessibleObject ctorOrMethod)
+	{
+		synchronized (methodsWithCheckInvariantsPost)
+		{
+			methodsWithCheckInvariantsPost.add(ctorOrMethod);
+		}
+		methodModCount.incrementAndGet();
+	}
+
+	/**
+	 * marks the invariants to be checked before the given method is executed
+	 *
+	 * @param method
+	 */
+	public void addCheckInvariantsPre(final Method method)
+	{
+		synchronized (methodsWithCheckInvariantsPre)
+		{
+			methodsWithCheckInvariantsPre.add(method);
+		}
+		methodModCount.incrementAndGet();
+	}
+
 	/**
 	 * adds constraint check exclusions to a constructor parameter
 	 *
@@ -215,6 +262,7 @@ public final class ClassChecks
 	{
         final ParameterChecks checksOfConstructorParameter = _getChecksOfConstructorParameter(constructor, parameterIndex);
         checksOfConstructorParameter.checkExclusions.addAll(exclusions);
+		methodModCount.incrementAndGet();
 	}
 
 	/**
@@ -252,6 +300,7 @@ public final class ClassChecks
             checksOfConstructorParameter.checks.add(check);
             if (check.getContext() == null) check.setContext(checksOfConstructorParameter.context);
         }
+		methodModCount.incrementAndGet();
 	}
 
 	/**
@@ -291,6 +340,7 @@ public final class ClassChecks
                     checksOfField.add(check);
                     if (check.getContext() == null) check.setContext(ContextCache.getFieldContext(field));
                 }
+                modCount.incrementAndGet();
         }
 	}
 
@@ -321,6 +371,7 @@ public final class ClassChecks
 	{
         final ParameterChecks checksOfMethodParameter = _getChecksOfMethodParameter(method, parameterIndex);
             checksOfMethodParameter.checkExclusions.addAll(exclusions);
+		methodModCount.incrementAndGet();
 	}
 
 	/**
@@ -358,6 +409,7 @@ public final class ClassChecks
                 if (check.getContext() == null) check.setContext(checksOfMethodParameter.context);
                 checksOfMethodParameter.checks.add(check);
             }
+		methodModCount.incrementAndGet();
 	}
 
 	/**
@@ -386,6 +438,7 @@ public final class ClassChecks
                     if (check.getContext() == null) check.setContext(ContextCache.getMethodExitContext(method));
                 }
         }
+		methodModCount.incrementAndGet();
 	}
 
 	/**
@@ -424,6 +477,7 @@ public final class ClassChecks
                     if (check.getContext() == null) check.setContext(ContextCache.getMethodEntryContext(method));
                 }
         }
+		methodModCount.incrementAndGet();
 	}
 
 	/**
@@ -501,7 +555,9 @@ public final class ClassChecks
 					methodChecks.add(check);
 					if (check.getContext() == null) check.setContext(ContextCache.getMethodReturnValueContext(method));
 				}
+			modCount.incrementAndGet();
 		}
+		methodModCount.incrementAndGet();
 	}
 
 	/**
@@ -536,6 +592,7 @@ public final class ClassChecks
 				if (check.getContext() == null) check.setContext(ContextCache.getClassContext(clazz));
 				checksForObject.add(check);
 			}
+			modCount.incrementAndGet();
 		}
 	}
 
@@ -554,6 +611,8 @@ public final class ClassChecks
 		constrainedStaticFields.clear();
 		constrainedMethods.clear();
 		constrainedStaticMethods.clear();
+		modCount.incrementAndGet();
+		methodModCount.incrementAndGet();
 	}
 
 	public void clearConstructorChecks(final Constructor< ? > constructor)
@@ -567,6 +626,7 @@ public final class ClassChecks
 		{
 			checksForConstructorParameters.remove(constructor);
 		}
+		methodModCount.incrementAndGet();
 	}
 
 	public void clearConstructorParameterChecks(final Constructor< ? > constructor, final int parameterIndex)
@@ -583,6 +643,7 @@ public final class ClassChecks
 
 			checksOfConstructorByParameter.remove(parameterIndex);
 		}
+		methodModCount.incrementAndGet();
 	}
 
 	public void clearFieldChecks(final Field field)
@@ -592,6 +653,7 @@ public final class ClassChecks
 			checksForFields.remove(field);
 			constrainedFields.remove(field);
 			constrainedStaticFields.remove(field);
+			modCount.incrementAndGet();
 		}
 	}
 
@@ -609,6 +671,7 @@ public final class ClassChecks
 		{
 			checksForMethodParameters.remove(method);
 		}
+		methodModCount.incrementAndGet();
 	}
 
 	public void clearMethodParameterChecks(final Method method, final int parameterIndex)
@@ -625,6 +688,7 @@ public final class ClassChecks
 
 			checksOfMethodByParameter.remove(parameterIndex);
 		}
+		methodModCount.incrementAndGet();
 	}
 
 	public void clearMethodPostChecks(final Method method)
@@ -633,6 +697,7 @@ public final class ClassChecks
 		{
 			checksForMethodsPostExcecution.remove(method);
 		}
+		methodModCount.incrementAndGet();
 	}
 
 	public void clearMethodPreChecks(final Method method)
@@ -641,6 +706,7 @@ public final class ClassChecks
 		{
 			checksForMethodsPreExecution.remove(method);
 		}
+		methodModCount.incrementAndGet();
 	}
 
 	public void clearMethodReturnValueChecks(final Method method)
@@ -650,7 +716,9 @@ public final class ClassChecks
 			checksForMethodReturnValues.remove(method);
 			constrainedMethods.remove(method);
 			constrainedStaticMethods.remove(method);
+			modCount.incrementAndGet();
 		}
+		methodModCount.incrementAndGet();
 	}
 
 	public void clearObjectChecks()
@@ -658,7 +726,66 @@ public final class ClassChecks
 		synchronized (checksForObject)
 		{
 			checksForObject.clear();
+			modCount.incrementAndGet();
+		}
+	}
+
+	/**
+	 * @return the guard plan of the given constructor or method or <code>null</code> if none was built yet or the
+	 *         constructor and method level checks of this class have been modified since then
+	 */
+	public GuardPlan getGuardPlan(final AccessibleObject ctorOrMethod)
+	{
+		final GuardPlan plan = guardPlans.get(ctorOrMethod);
+		return plan != null && plan.modCount == methodModCount.get() ? plan : null;
+	}
+
+	/**
+	 * @param method a method of this class
+	 * @param parameterNameResolver the resolver to obtain the parameter names from, bindings obtained from another
+	 *            resolver are replaced
+	 * @return the variables of the pre and post condition expressions of the given method
+	 */
+	public MethodBindings getMethodBindings(final Method method, final ParameterNameResolver parameterNameResolver)
+	{
+		final MethodBindings bindings = methodBindings.get(method);
+		if (bindings != null && bindings.parameterNameResolver == parameterNameResolver) return bindings;
+
+		final MethodBindings newBindings = new MethodBindings(parameterNameResolver, parameterNameResolver.getParameterNames(method));
+		if (bindings == null)
+		{
+			final MethodBindings existing = methodBindings.putIfAbsent(method, newBindings);
+			if (existing != null && existing.parameterNameResolver == parameterNameResolver) return existing;
 		}
+		else
+			methodBindings.replace(method, bindings, newBindings);
+		return newBindings;
+	}
+
+	/**
+	 * @return the number of modifications of the constructor and method level checks
+	 */
+	public int getMethodModCount()
+	{
+		return methodModCount.get();
+	}
+
+	/**
+	 * @return the number of modifications of the field, getter and object level checks
+	 */
+	public int getModCount()
+	{
+		return modCount.get();
+	}
+
+	/**
+	 * @return the validation plan for instances of this class or <code>null</code> if none was built yet or the
+	 *         checks of the class hierarchy have been modified since then
+	 */
+	public ValidationPlan getValidationPlan()
+	{
+		final ValidationPlan plan = validationPlan;
+		return plan != null && plan.isUpToDate() ? plan : null;
 	}
 
 	public void removeConstructorParameterCheckExclusions(final Constructor< ? > constructor, final int parameterIndex,
@@ -679,6 +806,7 @@ public final class ClassChecks
 
 			if (checksOfConstructorParameter.isEmpty()) checksOfConstructorByParameter.remove(parameterIndex);
 		}
+		methodModCount.incrementAndGet();
 	}
 
 	public void removeConstructorParameterChecks(final Constructor< ? > constructor, final int parameterIndex, final Check... checks)
@@ -698,6 +826,7 @@ public final class ClassChecks
 
 			if (checksOfConstructorParameter.isEmpty()) checksOfConstructorByParameter.remove(parameterIndex);
 		}
+		methodModCount.incrementAndGet();
 	}
 
 	public void removeFieldChecks(final Field field, final Check... checks)
@@ -717,6 +846,7 @@ public final class ClassChecks
 				constrainedFields.remove(field);
 				constrainedStaticFields.remove(field);
 			}
+			modCount.incrementAndGet();
 		}
 	}
 
@@ -740,6 +870,7 @@ public final class ClassChecks
 
 			if (checksOfMethodParameter.isEmpty()) checksOfMethodByParameter.remove(parameterIndex);
 		}
+		methodModCount.incrementAndGet();
 	}
 
 	public void removeMethodParameterChecks(final Method method, final int parameterIndex, final Check... checks)
@@ -763,6 +894,7 @@ public final class ClassChecks
 
 			if (checksOfMethodParameter.isEmpty()) checksOfMethodByParameter.remove(parameterIndex);
 		}
+		methodModCount.incrementAndGet();
 	}
 
 	public void removeMethodPostChecks(final Method method, final PostCheck... checks)
@@ -778,6 +910,7 @@ public final class ClassChecks
 
 			if (checksforMethod.size() == 0) checksForMethodsPostExcecution.remove(method);
 		}
+		methodModCount.incrementAndGet();
 	}
 
 	public void removeMethodPreChecks(final Method method, final PreCheck... checks)
@@ -793,6 +926,7 @@ public final class ClassChecks
 
 			if (checksforMethod.size() == 0) checksForMethodsPreExecution.remove(method);
 		}
+		methodModCount.incrementAndGet();
 	}
 
 	public void removeMethodReturnValueChecks(final Method method, final Check... checks)
@@ -812,7 +946,9 @@ public final class ClassChecks
 				constrainedMethods.remove(method);
 				constrainedStaticMethods.remove(method);
 			}
+			modCount.incrementAndGet();
 		}
+		methodModCount.incrementAndGet();
 	}
 
 	public void removeObjectChecks(final Check... checks)
@@ -821,6 +957,17 @@ public final class ClassChecks
 		{
 			for (final Check check : checks)
 				checksForObject.remove(check);
+			modCount.incrementAndGet();
 		}
 	}
+
+	public void setGuardPlan(final GuardPlan guardPlan)
+	{
+		guardPlans.put(guardPlan.ctorOrMethod, guardPlan);
+	}
+
+	public void setValidationPlan(final ValidationPlan validationPlan)
+	{
+		this.validationPlan = validationPlan;
+	}
 }
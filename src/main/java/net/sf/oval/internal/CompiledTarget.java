@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Portions created by Sebastian Thomschke are copyright (c) 2005-2013 Sebastian
+ * Thomschke.
+ *
+ * All Rights Reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Sebastian Thomschke - initial implementation.
+ *******************************************************************************/
+package net.sf.oval.internal;
+
+import net.sf.oval.accessor.ValueAccessor;
+import net.sf.oval.accessor.ValueAccessorFactory;
+import net.sf.oval.context.OValContext;
+import net.sf.oval.exception.InvalidConfigurationException;
+import net.sf.oval.internal.util.ReflectionUtils;
+import net.sf.oval.ogn.ObjectGraphNavigationResult;
+import net.sf.oval.ogn.ObjectGraphNavigator;
+import net.sf.oval.ogn.ObjectGraphNavigatorDefaultImpl;
+import net.sf.oval.ogn.ObjectGraphNavigatorRegistry;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+/**
+ * A constraint target, e.g. <code>owner.address.street</code> or <code>jxpath:owner/address/street</code>, parsed once
+ * for repeated navigation.
+ *
+ * Paths of the default object graph navigator are split into hops. Each hop resolves the field or getter, its value
+ * accessor and its context once per runtime class of the object it is applied to, so a navigation only costs the
+ * direct reads. Paths of other navigators are passed to the navigator.
+ *
+ * The navigator is looked up in the registry on each navigation, so navigators registered after the target was parsed
+ * are used. The hops are only used while the default navigator is registered for the target's navigator id.
+ *
+ * @author Sebastian Thomschke
+ */
+public final class CompiledTarget
+{
+	/**
+	 * A single step of a path of the default object graph navigator.
+	 */
+	private final class Hop extends ClassValue<Member>
+	{
+		private final String name;
+
+		Hop(final String name)
+		{
+			this.name = name;
+		}
+
+		/**
+		 * @return <code>null</code> if the class has neither a field nor a getter with the name of this hop
+		 */
+		@Override
+		protected Member computeValue(final Class< ? > clazz)
+		{
+			final Field field = ReflectionUtils.getFieldRecursive(clazz, name);
+			if (field != null)
+				return new Member(valueAccessorFactory.createFieldAccessor(field), ContextCache.getFieldContext(field));
+
+			final Method getter = ReflectionUtils.getGetterRecursive(clazz, name);
+			if (getter != null)
+				return new Member(valueAccessorFactory.createGetterAccessor(getter), ContextCache.getMethodReturnValueContext(getter));
+			return null;
+		}
+	}
+
+	private static final class Member
+	{
+		final ValueAccessor accessor;
+		final OValContext context;
+
+		Member(final ValueAccessor accessor, final OValContext context)
+		{
+			this.accessor = accessor;
+			this.context = context;
+		}
+	}
+
+	public static final class Result
+	{
+		/**
+		 * the object holding the target value
+		 */
+		public final Object parent;
+
+		public final Object value;
+
+		/**
+		 * the context of the field or getter providing the target value
+		 */
+		public final OValContext context;
+
+		Result(final Object parent, final Object value, final OValContext context)
+		{
+			this.parent = parent;
+			this.value = value;
+			this.context = context;
+		}
+	}
+
+	/**
+	 * the hops of a path of the default object graph navigator, <code>null</code> for other navigators
+	 */
+	private final Hop[] hops;
+
+	private final String ognId;
+
+	private final String path;
+
+	private final ObjectGraphNavigatorRegistry registry;
+
+	/**
+	 * the factory that created the value accessors of the hops
+	 */
+	public final ValueAccessorFactory valueAccessorFactory;
+
+	/**
+	 * @param target the trimmed target, optionally prefixed by the id of the object graph navigator, e.g.
+	 *            <code>jxpath:</code>
+	 */
+	public CompiledTarget(final String target, final ObjectGraphNavigatorRegistry registry,
+			final ValueAccessorFactory valueAccessorFactory)
+	{
+		this.registry = registry;
+		this.valueAccessorFactory = valueAccessorFactory;
+
+		final String[] chunks = target.split(":", 2);
+		if (chunks.length == 1)
+		{
+			ognId = "";
+			path = chunks[0];
+		}
+		else
+		{
+			ognId = chunks[0];
+			path = chunks[1];
+		}
+
+		if (isDefaultNavigator(registry.getObjectGraphNavigator(ognId)))
+		{
+			final String[] names = path.split("\\.");
+			hops = new Hop[names.length];
+			for (int i = 0; i < names.length; i++)
+				hops[i] = new Hop(names[i]);
+		}
+		else
+			hops = null;
+	}
+
+	private static boolean isDefaultNavigator(final ObjectGraphNavigator navigator)
+	{
+		return navigator.getClass() == ObjectGraphNavigatorDefaultImpl.class;
+	}
+
+	/**
+	 * Navigates from the given object to the target.
+	 *
+	 * @return <code>null</code> if the target could not be determined, e.g. because of null values in the path
+	 * @throws InvalidConfigurationException if the path is invalid for the given object
+	 */
+	public Result navigateTo(final Object root) throws InvalidConfigurationException
+	{
+		final ObjectGraphNavigator navigator = registry.getObjectGraphNavigator(ognId);
+		if (hops == null || !isDefaultNavigator(navigator))
+		{
+			final ObjectGraphNavigationResult result = navigator.navigateTo(root, path);
+			if (result == null) return null;
+			return new Result(result.targetParent, result.target, result.targetAccessor instanceof Field //
+					? ContextCache.getFieldContext((Field) result.targetAccessor) //
+					: ContextCache.getMethodReturnValueContext((Method) result.targetAccessor));
+		}
+
+		Object parent = null;
+		Object target = root;
+		Member member = null;
+		for (final Hop hop : hops)
+		{
+			parent = target;
+			if (parent == null) return null;
+			member = hop.get(parent.getClass());
+			if (member == null)
+				throw new InvalidConfigurationException("Invalid object navigation path from root object class ["
+						+ root.getClass().getName() + "] path: " + path);
+			target = member.accessor.getValue(parent);
+		}
+		return new Result(parent, target, member.context);
+	}
+}
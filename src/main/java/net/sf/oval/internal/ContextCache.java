@@ -20,88 +20,96 @@ import net.sf.oval.context.MethodReturnValueContext;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
-import java.util.Map;
-import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
+ * Caches the context objects of classes, fields and methods.
+ *
+ * The contexts are bound to the declaring class via {@link ClassValue}s, i.e. they do not prevent class unloading, and
+ * are resolved without locking.
+ *
  * @author Sebastian Thomschke
  */
 public final class ContextCache
 {
-	private static final Map<Class< ? >, ClassContext> CLASS_CONTEXTS = new WeakHashMap<>();
-	private static final Map<Field, FieldContext> FIELD_CONTEXTS = new WeakHashMap<>();
-	private static final Map<Method, MethodEntryContext> METHOD_ENTRY_CONTEXTS = new WeakHashMap<>();
-	private static final Map<Method, MethodExitContext> METHOD_EXIT_CONTEXTS = new WeakHashMap<>();
-	private static final Map<Method, MethodReturnValueContext> METHOD_RETURN_VALUE_CONTEXTS = new WeakHashMap<>();
+	private static final class MemberContexts<K, V> extends ClassValue<ConcurrentMap<K, V>>
+	{
+		@Override
+		protected ConcurrentMap<K, V> computeValue(final Class< ? > declaringClass)
+		{
+			return new ConcurrentHashMap<K, V>(4);
+		}
+	}
 
-	public static ClassContext getClassContext(final Class< ? > clazz)
+	private static final ClassValue<ClassContext> CLASS_CONTEXTS = new ClassValue<ClassContext>()
 	{
-		synchronized (CLASS_CONTEXTS)
+		@Override
+		protected ClassContext computeValue(final Class< ? > clazz)
 		{
-			ClassContext ctx = CLASS_CONTEXTS.get(clazz);
-			if (ctx == null)
-			{
-				ctx = new ClassContext(clazz);
-				CLASS_CONTEXTS.put(clazz, ctx);
-			}
-			return ctx;
+			return new ClassContext(clazz);
 		}
+	};
+	private static final MemberContexts<Field, FieldContext> FIELD_CONTEXTS = new MemberContexts<>();
+	private static final MemberContexts<Method, MethodEntryContext> METHOD_ENTRY_CONTEXTS = new MemberContexts<>();
+	private static final MemberContexts<Method, MethodExitContext> METHOD_EXIT_CONTEXTS = new MemberContexts<>();
+	private static final MemberContexts<Method, MethodReturnValueContext> METHOD_RETURN_VALUE_CONTEXTS = new MemberContexts<>();
+
+	public static ClassContext getClassContext(final Class< ? > clazz)
+	{
+		return CLASS_CONTEXTS.get(clazz);
 	}
 
 	public static FieldContext getFieldContext(final Field field)
 	{
-		synchronized (FIELD_CONTEXTS)
+		final ConcurrentMap<Field, FieldContext> contexts = FIELD_CONTEXTS.get(field.getDeclaringClass());
+		FieldContext ctx = contexts.get(field);
+		if (ctx == null)
 		{
-			FieldContext ctx = FIELD_CONTEXTS.get(field);
-			if (ctx == null)
-			{
-				ctx = new FieldContext(field);
-				FIELD_CONTEXTS.put(field, ctx);
-			}
-			return ctx;
+			ctx = new FieldContext(field);
+			final FieldContext existing = contexts.putIfAbsent(field, ctx);
+			if (existing != null) ctx = existing;
 		}
+		return ctx;
 	}
 
 	public static MethodEntryContext getMethodEntryContext(final Method method)
 	{
-		synchronized (METHOD_ENTRY_CONTEXTS)
+		final ConcurrentMap<Method, MethodEntryContext> contexts = METHOD_ENTRY_CONTEXTS.get(method.getDeclaringClass());
+		MethodEntryContext ctx = contexts.get(method);
+		if (ctx == null)
 		{
-			MethodEntryContext ctx = METHOD_ENTRY_CONTEXTS.get(method);
-			if (ctx == null)
-			{
-				ctx = new MethodEntryContext(method);
-				METHOD_ENTRY_CONTEXTS.put(method, ctx);
-			}
-			return ctx;
+			ctx = new MethodEntryContext(method);
+			final MethodEntryContext existing = contexts.putIfAbsent(method, ctx);
+			if (existing != null) ctx = existing;
 		}
+		return ctx;
 	}
 
 	public static MethodExitContext getMethodExitContext(final Method method)
 	{
-		synchronized (METHOD_EXIT_CONTEXTS)
+		final ConcurrentMap<Method, MethodExitContext> contexts = METHOD_EXIT_CONTEXTS.get(method.getDeclaringClass());
+		MethodExitContext ctx = contexts.get(method);
+		if (ctx == null)
 		{
-			MethodExitContext ctx = METHOD_EXIT_CONTEXTS.get(method);
-			if (ctx == null)
-			{
-				ctx = new MethodExitContext(method);
-				METHOD_EXIT_CONTEXTS.put(method, ctx);
-			}
-			return ctx;
+			ctx = new MethodExitContext(method);
+			final MethodExitContext existing = contexts.putIfAbsent(method, ctx);
+			if (existing != null) ctx = existing;
 		}
+		return ctx;
 	}
 
 	public static MethodReturnValueContext getMethodReturnValueContext(final Method method)
 	{
-		synchronized (METHOD_RETURN_VALUE_CONTEXTS)
+		final ConcurrentMap<Method, MethodReturnValueContext> contexts = METHOD_RETURN_VALUE_CONTEXTS.get(method.getDeclaringClass());
+		MethodReturnValueContext ctx = contexts.get(method);
+		if (ctx == null)
 		{
-			MethodReturnValueContext ctx = METHOD_RETURN_VALUE_CONTEXTS.get(method);
-			if (ctx == null)
-			{
-				ctx = new MethodReturnValueContext(method);
-				METHOD_RETURN_VALUE_CONTEXTS.put(method, ctx);
-			}
-			return ctx;
+			ctx = new MethodReturnValueContext(method);
+			final MethodReturnValueContext existing = contexts.putIfAbsent(method, ctx);
+			if (existing != null) ctx = existing;
 		}
+		return ctx;
 	}
 
 	private ContextCache()
@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Portions created by Sebastian Thomschke are copyright (c) 2005-2013 Sebastian
+ * Thomschke.
+ *
+ * All Rights Reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Sebastian Thomschke - initial implementation.
+ *******************************************************************************/
+package net.sf.oval.internal;
+
+import net.sf.oval.internal.util.ReflectionUtils;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Immutable summary of the guarding phases that apply to a single constructor or method, so the Guard does not need
+ * to probe the check collections of the declaring class on each invocation.
+ *
+ * A plan is built once per constructor or method and becomes stale as soon as the constructor or method level checks
+ * of the declaring class are modified.
+ *
+ * @author Sebastian Thomschke
+ */
+public final class GuardPlan
+{
+	private static boolean hasParameterChecks(final Map<Integer, ParameterChecks> checksByParameter)
+	{
+		if (checksByParameter != null) for (final ParameterChecks checks : checksByParameter.values())
+			if (checks.hasChecks()) return true;
+		return false;
+	}
+
+	private static boolean isNotEmpty(final Collection< ? > checks)
+	{
+		return checks != null && checks.size() > 0;
+	}
+
+	public final AccessibleObject ctorOrMethod;
+
+	/**
+	 * the class level invariant setting applies, i.e. the member is a constructor or a method that is neither
+	 * private nor protected
+	 */
+	public final boolean isInvariantsApplicable;
+
+	public final boolean isCheckInvariantsPre;
+
+	public final boolean isCheckInvariantsPost;
+
+	public final boolean hasParameterChecks;
+
+	public final boolean hasPreChecks;
+
+	public final boolean hasPostChecks;
+
+	public final boolean hasReturnValueChecks;
+
+	/**
+	 * no constraints apply to the member, unless invariants are enabled for the declaring class
+	 */
+	public final boolean isEmpty;
+
+	final int modCount;
+
+	public GuardPlan(final ClassChecks cc, final AccessibleObject ctorOrMethod)
+	{
+		this.ctorOrMethod = ctorOrMethod;
+
+		// record the modification count before reading the checks, so concurrent modifications render the plan stale
+		modCount = cc.getMethodModCount();
+
+		synchronized (cc.methodsWithCheckInvariantsPost)
+		{
+			isCheckInvariantsPost = cc.methodsWithCheckInvariantsPost.contains(ctorOrMethod);
+		}
+
+		if (ctorOrMethod instanceof Constructor)
+		{
+			isInvariantsApplicable = true;
+			isCheckInvariantsPre = false;
+			synchronized (cc.checksForConstructorParameters)
+			{
+				hasParameterChecks = hasParameterChecks(cc.checksForConstructorParameters.get(ctorOrMethod));
+			}
+			hasPreChecks = false;
+			hasPostChecks = false;
+			hasReturnValueChecks = false;
+		}
+		else
+		{
+			final Method method = (Method) ctorOrMethod;
+			isInvariantsApplicable = !ReflectionUtils.isPrivate(method) && !ReflectionUtils.isProtected(method);
+			synchronized (cc.methodsWithCheckInvariantsPre)
+			{
+				isCheckInvariantsPre = cc.methodsWithCheckInvariantsPre.contains(method);
+			}
+			synchronized (cc.checksForMethodParameters)
+			{
+				hasParameterChecks = hasParameterChecks(cc.checksForMethodParameters.get(method));
+			}
+			synchronized (cc.checksForMethodsPreExecution)
+			{
+				hasPreChecks = isNotEmpty(cc.checksForMethodsPreExecution.get(method));
+			}
+			synchronized (cc.checksForMethodsPostExcecution)
+			{
+				hasPostChecks = isNotEmpty(cc.checksForMethodsPostExcecution.get(method));
+			}
+			synchronized (cc.checksForMethodReturnValues)
+			{
+				hasReturnValueChecks = isNotEmpty(cc.checksForMethodReturnValues.get(method));
+			}
+		}
+
+		isEmpty = !isCheckInvariantsPre && !isCheckInvariantsPost && !hasParameterChecks && !hasPreChecks && !hasPostChecks
+				&& !hasReturnValueChecks;
+	}
+}
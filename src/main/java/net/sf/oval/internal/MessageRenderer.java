@@ -13,46 +13,235 @@
 package net.sf.oval.internal;
 
 import net.sf.oval.Validator;
-import net.sf.oval.internal.util.StringUtils;
+import net.sf.oval.context.OValContext;
 import net.sf.oval.localization.value.MessageValueFormatter;
 
+import java.util.Collections;
+import java.util.Locale;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
+ * Renders messages based on templates that are resolved via {@link Validator#getMessageResolver()} and parsed only
+ * once per message key and locale.
+ *
+ * The parsed templates are cached. The cache is bounded and dropped if it grows too large, if the message resolver is
+ * replaced or if message bundles are added or removed. Custom message resolvers returning different messages for the
+ * same key and locale over time must call {@link #clearTemplateCache()} when their messages change.
+ *
  * @author Sebastian Thomschke
  *
  */
 public final class MessageRenderer
 {
+	/**
+	 * Per-thread rendering state, holding the reused buffer and the values of the message currently rendered.
+	 */
+	private static final class RenderingState implements MessageTemplate.ValueResolver
+	{
+		final StringBuilder buffer = new StringBuilder(128);
+		OValContext context;
+		Object invalidValue;
+		Map<String, ? > messageValues;
+		MessageValueFormatter messageValueFormatter;
+		boolean resolveContext;
+
+		void reset()
+		{
+			buffer.setLength(0);
+			context = null;
+			invalidValue = null;
+			messageValues = null;
+			messageValueFormatter = null;
+		}
+
+		public String resolve(final String placeHolder)
+		{
+			if (messageValues != null)
+			{
+				final Object value = messageValues.get(placeHolder);
+				if (value != null || messageValues.containsKey(placeHolder))
+					return messageValueFormatter == null ? (String) value : messageValueFormatter.format(value);
+			}
+			if (resolveContext)
+			{
+				if ("context".equals(placeHolder)) return Validator.getContextRenderer().render(context);
+				if ("invalidValue".equals(placeHolder)) return Validator.getMessageValueFormatter().format(invalidValue);
+			}
+			return null;
+		}
+	}
+
+	private static final class TemplateKey
+	{
+		private final String messageKey;
+		private final Locale locale;
+		private final int hashCode;
+
+		TemplateKey(final String messageKey, final Locale locale)
+		{
+			this.messageKey = messageKey;
+			this.locale = locale;
+			hashCode = 31 * messageKey.hashCode() + (locale == null ? 0 : locale.hashCode());
+		}
+
+		@Override
+		public boolean equals(final Object obj)
+		{
+			if (this == obj) return true;
+			if (!(obj instanceof TemplateKey)) return false;
+			final TemplateKey other = (TemplateKey) obj;
+			return messageKey.equals(other.messageKey) && (locale == null ? other.locale == null : locale.equals(other.locale));
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return hashCode;
+		}
+	}
+
+	/**
+	 * buffers larger than this are not reused to not retain memory after rendering an exceptionally long message
+	 */
+	private static final int MAX_REUSED_BUFFER_CAPACITY = 4096;
+
+	private static final int MAX_CACHED_TEMPLATES = 2048;
+
+	private static final ThreadLocal<RenderingState> RENDERING_STATE = new ThreadLocal<RenderingState>();
+
+	private static final ConcurrentMap<TemplateKey, MessageTemplate> TEMPLATES = new ConcurrentHashMap<TemplateKey, MessageTemplate>();
+
+	private static final AtomicInteger TEMPLATES_COUNT = new AtomicInteger();
+
+	/**
+	 * the locale overriding the locale of {@link Validator#getLocaleProvider()} while rendering on the current thread
+	 */
+	private static final ThreadLocal<Locale> RENDERING_LOCALE = new ThreadLocal<Locale>();
+
+	/**
+	 * Drops all parsed message templates, e.g. after message bundles have been added or removed.
+	 */
+	public static void clearTemplateCache()
+	{
+		TEMPLATES.clear();
+		TEMPLATES_COUNT.set(0);
+	}
+
+	/**
+	 * @return the locale messages are rendered with on the current thread, i.e. the locale set via
+	 *         {@link #setLocale(Locale)} or else the locale of {@link Validator#getLocaleProvider()}
+	 */
+	public static Locale getLocale()
+	{
+		final Locale locale = RENDERING_LOCALE.get();
+		return locale == null ? Validator.getLocaleProvider().getLocale() : locale;
+	}
+
+	private static MessageTemplate getTemplate(final String messageKey)
+	{
+		final TemplateKey key = new TemplateKey(messageKey, getLocale());
+		MessageTemplate template = TEMPLATES.get(key);
+		if (template == null)
+		{
+			String message = Validator.getMessageResolver().getMessage(messageKey);
+			if (message == null) message = messageKey;
+			template = MessageTemplate.parse(message);
+
+			if (TEMPLATES_COUNT.incrementAndGet() > MAX_CACHED_TEMPLATES) clearTemplateCache();
+			final MessageTemplate existing = TEMPLATES.putIfAbsent(key, template);
+			if (existing != null) template = existing;
+		}
+		return template;
+	}
+
+	private static String render(final MessageTemplate template, final Map<String, ? > messageValues,
+			final MessageValueFormatter messageValueFormatter, final boolean resolveContext, final OValContext context,
+			final Object invalidValue)
+	{
+		// take the state from the thread to stay safe if a formatter or renderer renders messages itself
+		RenderingState state = RENDERING_STATE.get();
+		if (state == null)
+			state = new RenderingState();
+		else
+			RENDERING_STATE.set(null);
+
+		try
+		{
+			state.messageValues = messageValues;
+			state.messageValueFormatter = messageValueFormatter;
+			state.resolveContext = resolveContext;
+			state.context = context;
+			state.invalidValue = invalidValue;
+			template.render(state.buffer, state);
+			return state.buffer.toString();
+		}
+		finally
+		{
+			if (state.buffer.capacity() <= MAX_REUSED_BUFFER_CAPACITY)
+			{
+				state.reset();
+				RENDERING_STATE.set(state);
+			}
+		}
+	}
+
+	/**
+	 * Renders the message with the given key, place holders not contained in the message values are kept.
+	 */
 	public static String renderMessage(final String messageKey, final Map<String, ? > messageValues)
 	{
-		String message = Validator.getMessageResolver().getMessage(messageKey);
-		if (message == null) message = messageKey;
+		final MessageTemplate template = getTemplate(messageKey);
+
+		// if there are no place holders in the message simply return it
+		if (template.isLiteral()) return template.toLiteral();
 
-		final MessageValueFormatter formatter = Validator.getMessageValueFormatter();
+		return render(template, messageValues, Validator.getMessageValueFormatter(), false, null, null);
+	}
+
+	/**
+	 * Renders the message with the given key additionally resolving the <code>{context}</code> and
+	 * <code>{invalidValue}</code> place holders using {@link Validator#getContextRenderer()} and
+	 * {@link Validator#getMessageValueFormatter()}.
+	 */
+	public static String renderMessage(final String messageKey, final Map<String, ? > messageValues, final OValContext context,
+			final Object invalidValue)
+	{
+		final MessageTemplate template = getTemplate(messageKey);
 
 		// if there are no place holders in the message simply return it
-		if (message.indexOf('{') == -1) return message;
+		if (template.isLiteral()) return template.toLiteral();
 
-		if (messageValues != null && messageValues.size() > 0)
-			for (final Entry<String, ? > entry : messageValues.entrySet())
-				message = StringUtils.replaceAll(message, "{" + entry.getKey() + "}",
-						formatter.format(entry.getValue()));
-		return message;
+		return render(template, messageValues, Validator.getMessageValueFormatter(), true, context, invalidValue);
 	}
 
 	public static String renderMessage(final String messageKey, final String messageValueName, final String messageValue)
 	{
-		String message = Validator.getMessageResolver().getMessage(messageKey);
-		if (message == null) message = messageKey;
+		final MessageTemplate template = getTemplate(messageKey);
 
 		// if there are no place holders in the message simply return it
-		if (message.indexOf('{') == -1) return message;
+		if (template.isLiteral()) return template.toLiteral();
 
-		message = StringUtils.replaceAll(message, "{" + messageValueName + "}", messageValue);
+		return render(template, Collections.singletonMap(messageValueName, messageValue), null, false, null, null);
+	}
 
-		return message;
+	/**
+	 * Overrides the locale messages are rendered with on the current thread, e.g. to render a message in the locale
+	 * that was current when the message was created.
+	 *
+	 * @param locale the locale to use or <code>null</code> to use the locale of {@link Validator#getLocaleProvider()}
+	 * @return the previous override that must be restored once rendering is done
+	 */
+	public static Locale setLocale(final Locale locale)
+	{
+		final Locale previous = RENDERING_LOCALE.get();
+		if (locale == null)
+			RENDERING_LOCALE.remove();
+		else
+			RENDERING_LOCALE.set(locale);
+		return previous;
 	}
 
 	private MessageRenderer()
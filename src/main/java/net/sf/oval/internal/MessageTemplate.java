@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Portions created by Sebastian Thomschke are copyright (c) 2005-2013 Sebastian
+ * Thomschke.
+ *
+ * All Rights Reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Sebastian Thomschke - initial implementation.
+ *******************************************************************************/
+package net.sf.oval.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A message split into literal text and <code>{name}</code> place holders. The literals and place holder names
+ * alternate, i.e. <code>literals[i]</code> precedes <code>placeHolders[i]</code> and the last literal follows the
+ * last place holder.
+ *
+ * @author Sebastian Thomschke
+ */
+final class MessageTemplate
+{
+	/**
+	 * Resolves the value of a place holder while rendering a template.
+	 */
+	interface ValueResolver
+	{
+		/**
+		 * @return the rendered value or <code>null</code> if the place holder shall be rendered unchanged
+		 */
+		String resolve(String placeHolder);
+	}
+
+	private static final String[] EMPTY = new String[0];
+
+	static MessageTemplate parse(final String message)
+	{
+		int placeHolderStart = message.indexOf('{');
+
+		// if there are no place holders in the message simply keep it
+		if (placeHolderStart == -1) return new MessageTemplate(new String[]{message}, EMPTY);
+
+		final List<String> literals = new ArrayList<String>(4);
+		final List<String> placeHolders = new ArrayList<String>(4);
+		int literalStart = 0;
+		while (placeHolderStart > -1)
+		{
+			final int placeHolderEnd = message.indexOf('}', placeHolderStart + 1);
+			if (placeHolderEnd == -1) break;
+
+			// an opening brace within the place holder, e.g. "{{max}}", means the first brace is a literal
+			final int nestedStart = message.lastIndexOf('{', placeHolderEnd);
+			literals.add(message.substring(literalStart, nestedStart));
+			placeHolders.add(message.substring(nestedStart + 1, placeHolderEnd));
+			literalStart = placeHolderEnd + 1;
+			placeHolderStart = message.indexOf('{', literalStart);
+		}
+		literals.add(message.substring(literalStart));
+		return new MessageTemplate(literals.toArray(new String[literals.size()]),
+				placeHolders.toArray(new String[placeHolders.size()]));
+	}
+
+	private final String[] literals;
+	private final String[] placeHolders;
+
+	private MessageTemplate(final String[] literals, final String[] placeHolders)
+	{
+		this.literals = literals;
+		this.placeHolders = placeHolders;
+	}
+
+	/**
+	 * @return <code>true</code> if the message does not contain any place holders
+	 */
+	boolean isLiteral()
+	{
+		return placeHolders.length == 0;
+	}
+
+	/**
+	 * Appends the message to the given buffer replacing all place holders the resolver provides values for.
+	 */
+	void render(final StringBuilder out, final ValueResolver resolver)
+	{
+		for (int i = 0, l = placeHolders.length; i < l; i++)
+		{
+			out.append(literals[i]);
+			final String value = resolver.resolve(placeHolders[i]);
+			if (value == null)
+				out.append('{').append(placeHolders[i]).append('}');
+			else
+				out.append(value);
+		}
+		out.append(literals[placeHolders.length]);
+	}
+
+	/**
+	 * @return the literal message, only valid if {@link #isLiteral()} is <code>true</code>
+	 */
+	String toLiteral()
+	{
+		return literals[0];
+	}
+}
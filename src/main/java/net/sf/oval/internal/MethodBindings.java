@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Portions created by Sebastian Thomschke are copyright (c) 2005-2013 Sebastian
+ * Thomschke.
+ *
+ * All Rights Reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Sebastian Thomschke - initial implementation.
+ *******************************************************************************/
+package net.sf.oval.internal;
+
+import net.sf.oval.guard.ParameterNameResolver;
+import net.sf.oval.internal.util.ArrayUtils;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/**
+ * The variables available to the pre and post condition expressions of a method, in the order of the values passed to
+ * the compiled expressions:
+ * <ul>
+ * <li>pre conditions and old value expressions: <code>_this, _args, &lt;parameter names&gt;</code>
+ * <li>post conditions: <code>_this, _args, &lt;parameter names&gt;, _returns, _old</code>
+ * </ul>
+ *
+ * The values are passed in frames that are recycled via a small per-thread pool holding one free frame per length,
+ * see {@link #acquirePreFrame(Object, Object[])}, {@link #acquirePostFrame(Object, Object[], Object)} and
+ * {@link #releaseFrame(Object[])}.
+ *
+ * @author Sebastian Thomschke
+ */
+public final class MethodBindings
+{
+	private static final int MAX_POOLED_FRAME_LENGTH = 16;
+
+	private static final ThreadLocal<Object[][]> FREE_FRAMES = new ThreadLocal<Object[][]>()
+	{
+		@Override
+		protected Object[][] initialValue()
+		{
+			return new Object[MAX_POOLED_FRAME_LENGTH][];
+		}
+	};
+
+	private static Object[] acquireFrame(final int length)
+	{
+		if (length < MAX_POOLED_FRAME_LENGTH)
+		{
+			final Object[][] frames = FREE_FRAMES.get();
+			final Object[] frame = frames[length];
+			if (frame != null)
+			{
+				frames[length] = null;
+				return frame;
+			}
+		}
+		return new Object[length];
+	}
+
+	/**
+	 * Clears the given frame and returns it to the pool of the current thread.
+	 */
+	public static void releaseFrame(final Object[] frame)
+	{
+		Arrays.fill(frame, null);
+		if (frame.length < MAX_POOLED_FRAME_LENGTH) FREE_FRAMES.get()[frame.length] = frame;
+	}
+
+	private final int parameterCount;
+
+	/**
+	 * the resolver the parameter names were obtained from, see {@link ClassChecks#getMethodBindings(Method, ParameterNameResolver)}
+	 */
+	final ParameterNameResolver parameterNameResolver;
+
+	public final String[] preVariableNames;
+
+	public final String[] postVariableNames;
+
+	/**
+	 * @param parameterNames the names of the method's parameters
+	 */
+	public MethodBindings(final String[] parameterNames)
+	{
+		this(null, parameterNames);
+	}
+
+	/**
+	 * @param parameterNameResolver the resolver the parameter names were obtained from
+	 * @param parameterNames the names of the method's parameters
+	 */
+	MethodBindings(final ParameterNameResolver parameterNameResolver, final String[] parameterNames)
+	{
+		this.parameterNameResolver = parameterNameResolver;
+		parameterCount = parameterNames.length;
+
+		preVariableNames = new String[parameterCount + 2];
+		preVariableNames[0] = "_this";
+		preVariableNames[1] = "_args";
+		System.arraycopy(parameterNames, 0, preVariableNames, 2, parameterCount);
+
+		postVariableNames = Arrays.copyOf(preVariableNames, parameterCount + 4);
+		postVariableNames[parameterCount + 2] = "_returns";
+		postVariableNames[parameterCount + 3] = "_old";
+	}
+
+	/**
+	 * @return a frame holding the values of the pre condition variables
+	 */
+	public Object[] acquirePreFrame(final Object validatedObject, final Object[] args)
+	{
+		final Object[] frame = acquireFrame(preVariableNames.length);
+		fill(frame, validatedObject, args);
+		return frame;
+	}
+
+	/**
+	 * @return a frame holding the values of the post condition variables, the value of <code>_old</code> is set per
+	 *         check via {@link #setOld(Object[], Object)}
+	 */
+	public Object[] acquirePostFrame(final Object validatedObject, final Object[] args, final Object returnValue)
+	{
+		final Object[] frame = acquireFrame(postVariableNames.length);
+		fill(frame, validatedObject, args);
+		frame[parameterCount + 2] = returnValue;
+		return frame;
+	}
+
+	private void fill(final Object[] frame, final Object validatedObject, final Object[] args)
+	{
+		frame[0] = validatedObject;
+		if (parameterCount > 0)
+		{
+			frame[1] = args;
+			System.arraycopy(args, 0, frame, 2, parameterCount);
+		}
+		else
+			frame[1] = ArrayUtils.EMPTY_OBJECT_ARRAY;
+	}
+
+	public void setOld(final Object[] postFrame, final Object old)
+	{
+		postFrame[parameterCount + 3] = old;
+	}
+}
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Portions created by Sebastian Thomschke are copyright (c) 2005-2013 Sebastian
+ * Thomschke.
+ *
+ * All Rights Reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Sebastian Thomschke - initial implementation.
+ *******************************************************************************/
+package net.sf.oval.internal;
+
+import net.sf.oval.Check;
+import net.sf.oval.accessor.ValueAccessor;
+import net.sf.oval.accessor.ValueAccessorFactory;
+import net.sf.oval.context.OValContext;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable, flattened representation of all object level constraints (field, invariant getter and object checks)
+ * declared by a class and its super classes. The entries are ordered the same way the Validator traverses the class
+ * hierarchy: starting with the given class, for each class first the fields, then the getters, then the object checks.
+ *
+ * A plan is built once per class and becomes stale as soon as the checks of any class of the hierarchy are modified.
+ *
+ * @author Sebastian Thomschke
+ */
+public final class ValidationPlan
+{
+	public static final class Entry
+	{
+		/**
+		 * reads the value to validate from the field or getter, <code>null</code> for object level checks
+		 */
+		public final ValueAccessor accessor;
+
+		public final OValContext context;
+
+		public final Check[] checks;
+
+		Entry(final ValueAccessor accessor, final OValContext context, final Check[] checks)
+		{
+			this.accessor = accessor;
+			this.context = context;
+			this.checks = checks;
+		}
+	}
+
+	private static Check[] toArray(final Collection<Check> checks)
+	{
+		return checks.toArray(new Check[checks.size()]);
+	}
+
+	public final Entry[] entries;
+
+	/**
+	 * the factory that created the value accessors of the entries
+	 */
+	public final ValueAccessorFactory valueAccessorFactory;
+
+	private final ClassChecks[] hierarchy;
+	private final int[] modCounts;
+
+	/**
+	 * @param hierarchy the checks of the validated class followed by the checks of its super classes
+	 * @param valueAccessorFactory the factory to create the field and getter accessors with
+	 */
+	public ValidationPlan(final List<ClassChecks> hierarchy, final ValueAccessorFactory valueAccessorFactory)
+	{
+		this.valueAccessorFactory = valueAccessorFactory;
+		this.hierarchy = hierarchy.toArray(new ClassChecks[hierarchy.size()]);
+		modCounts = new int[this.hierarchy.length];
+
+		final List<Entry> entries = new ArrayList<>();
+		for (int i = 0; i < this.hierarchy.length; i++)
+		{
+			final ClassChecks cc = this.hierarchy[i];
+
+			// record the modification count before reading the checks, so concurrent modifications render the plan stale
+			modCounts[i] = cc.getModCount();
+
+			synchronized (cc.checksForFields)
+			{
+				for (final Field field : cc.constrainedFields)
+				{
+					final Set<Check> checks = cc.checksForFields.get(field);
+					if (checks != null && checks.size() > 0)
+					{
+						final ValueAccessor accessor = valueAccessorFactory.createFieldAccessor(field);
+						entries.add(new Entry(accessor, ContextCache.getFieldContext(field), toArray(checks)));
+					}
+				}
+			}
+
+			synchronized (cc.checksForMethodReturnValues)
+			{
+				for (final Method getter : cc.constrainedMethods)
+				{
+					final Set<Check> checks = cc.checksForMethodReturnValues.get(getter);
+					if (checks != null && checks.size() > 0)
+					{
+						final ValueAccessor accessor = valueAccessorFactory.createGetterAccessor(getter);
+						entries.add(new Entry(accessor, ContextCache.getMethodReturnValueContext(getter), toArray(checks)));
+					}
+				}
+			}
+
+			synchronized (cc.checksForObject)
+			{
+				if (cc.checksForObject.size() > 0)
+					entries.add(new Entry(null, ContextCache.getClassContext(cc.clazz), toArray(cc.checksForObject)));
+			}
+		}
+		this.entries = entries.toArray(new Entry[entries.size()]);
+	}
+
+	/**
+	 * @return <code>false</code> if the checks of any class of the hierarchy have been modified since this plan was built
+	 */
+	public boolean isUpToDate()
+	{
+		for (int i = 0; i < hierarchy.length; i++)
+			if (hierarchy[i].getModCount() != modCounts[i]) return false;
+		return true;
+	}
+}
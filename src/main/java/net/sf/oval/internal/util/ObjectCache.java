@@ -1,86 +1,373 @@
 /*******************************************************************************
  * Portions created by Sebastian Thomschke are copyright (c) 2005-2011 Sebastian
  * Thomschke.
- * 
+ *
  * All Rights Reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
  * http://www.eclipse.org/legal/epl-v10.html
- * 
+ *
  * Contributors:
  *     Sebastian Thomschke - initial implementation.
  *******************************************************************************/
 package net.sf.oval.internal.util;
 
 import java.lang.ref.SoftReference;
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
+ * Thread-safe cache that is bounded by the number of entries and evicts the least recently used entries.
+ *
+ * Lookups do not block: the recency of an entry is only updated if the lock guarding the LRU list is available,
+ * otherwise the update is skipped, i.e. under high contention the eviction order is an approximation of LRU.
+ * Insertions, removals and evictions take the lock and run in constant time.
+ *
+ * Optionally the values are held by {@link SoftReference}s, entries whose values were garbage collected are treated as
+ * missing and count as evictions.
+ *
  * @author Sebastian Thomschke
  */
 public final class ObjectCache<K, V>
 {
-	private final Map<K, SoftReference<V>> map = new HashMap<K, SoftReference<V>>();
+	private static final class Entry<K, V>
+	{
+		final K key;
+		final V value;
+		final SoftReference<V> softValue;
+
+		/*
+		 * guarded by the lock of the cache
+		 */
+		Entry<K, V> prev;
+		Entry<K, V> next;
+
+		Entry(final K key, final V value, final boolean softValue)
+		{
+			this.key = key;
+			if (softValue)
+			{
+				this.value = null;
+				this.softValue = new SoftReference<V>(value);
+			}
+			else
+			{
+				this.value = value;
+				this.softValue = null;
+			}
+		}
+
+		V getValue()
+		{
+			return softValue == null ? value : softValue.get();
+		}
+
+		boolean isLinked()
+		{
+			return next != null;
+		}
+	}
+
+	public static final int DEFAULT_MAX_SIZE = 1000;
 
-	private final LinkedList<V> objectsLastAccessed = new LinkedList<V>();
-	private final int objectsToKeepCount;
+	private final ConcurrentMap<K, Entry<K, V>> map = new ConcurrentHashMap<K, Entry<K, V>>();
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	/**
+	 * sentinel of the LRU list, <code>head.next</code> is the most and <code>head.prev</code> the least recently used
+	 * entry
+	 */
+	private final Entry<K, V> head = new Entry<K, V>(null, null, false);
+
+	/**
+	 * the number of linked entries, guarded by the lock
+	 */
+	private int size;
+
+	private final int maxSize;
+	private final boolean softValues;
+
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+	private final AtomicLong evictionCount = new AtomicLong();
 
 	/**
-	 * Creates a new cache keeping all objects.
+	 * Creates a new cache keeping up to {@link #DEFAULT_MAX_SIZE} objects.
 	 */
 	public ObjectCache()
 	{
-		objectsToKeepCount = -1;
+		this(DEFAULT_MAX_SIZE, false);
 	}
 
 	/**
-	 * @param maxObjectsToKeep the number of cached objects that should stay in memory when GC 
-	 * starts removing SoftReferences to free memory 
+	 * @param maxSize the maximum number of objects to keep
 	 */
-	public ObjectCache(final int maxObjectsToKeep)
+	public ObjectCache(final int maxSize)
 	{
-		this.objectsToKeepCount = maxObjectsToKeep;
+		this(maxSize, false);
 	}
 
-	public void compact()
+	/**
+	 * @param maxSize the maximum number of objects to keep
+	 * @param softValues if the objects shall be held by soft references and may be garbage collected under memory
+	 *            pressure
+	 */
+	public ObjectCache(final int maxSize, final boolean softValues)
+	{
+		if (maxSize < 1) throw new IllegalArgumentException("[maxSize] must be greater than 0");
+		this.maxSize = maxSize;
+		this.softValues = softValues;
+		head.prev = head;
+		head.next = head;
+	}
+
+	/**
+	 * Removes all entries.
+	 */
+	public void clear()
 	{
-		for (final Map.Entry<K, SoftReference<V>> entry : map.entrySet())
+		lock.lock();
+		try
+		{
+			map.clear();
+			for (Entry<K, V> entry = head.next; entry != head;)
+			{
+				final Entry<K, V> next = entry.next;
+				entry.prev = null;
+				entry.next = null;
+				entry = next;
+			}
+			head.prev = head;
+			head.next = head;
+			size = 0;
+		}
+		finally
 		{
-			final SoftReference<V> ref = entry.getValue();
-			if (ref.get() == null) map.remove(entry.getKey());
+			lock.unlock();
 		}
 	}
 
+	/**
+	 * Removes all entries whose values were garbage collected.
+	 */
+	public void compact()
+	{
+		if (!softValues) return;
+
+		for (final Entry<K, V> entry : map.values())
+			if (entry.getValue() == null) removeEntry(entry, true);
+	}
+
 	public boolean contains(final K key)
 	{
-		return map.containsKey(key);
+		final Entry<K, V> entry = map.get(key);
+		return entry != null && entry.getValue() != null;
 	}
 
 	public V get(final K key)
 	{
-		final SoftReference<V> softReference = map.get(key);
-		if (softReference != null)
+		final Entry<K, V> entry = map.get(key);
+		if (entry == null)
+		{
+			missCount.incrementAndGet();
+			return null;
+		}
+
+		final V value = entry.getValue();
+		if (value == null)
+		{
+			missCount.incrementAndGet();
+			removeEntry(entry, true);
+			return null;
+		}
+
+		hitCount.incrementAndGet();
+
+		// skip the recency update if another thread is modifying the LRU list
+		if (head.next != entry && lock.tryLock())
+		{
+			try
+			{
+				if (entry.isLinked())
+				{
+					unlink(entry);
+					linkFirst(entry);
+				}
+			}
+			finally
+			{
+				lock.unlock();
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * @return the number of entries evicted because the cache was full or their values were garbage collected
+	 */
+	public long getEvictionCount()
+	{
+		return evictionCount.get();
+	}
+
+	/**
+	 * @return the number of lookups that returned a cached object
+	 */
+	public long getHitCount()
+	{
+		return hitCount.get();
+	}
+
+	public int getMaxSize()
+	{
+		return maxSize;
+	}
+
+	/**
+	 * @return the number of lookups that did not find a cached object
+	 */
+	public long getMissCount()
+	{
+		return missCount.get();
+	}
+
+	public boolean isSoftValues()
+	{
+		return softValues;
+	}
+
+	/**
+	 * links the entry as most recently used entry if it is still mapped and evicts the least recently used entries if
+	 * the cache is full
+	 */
+	private void link(final Entry<K, V> entry, final Entry<K, V> replaced)
+	{
+		lock.lock();
+		try
 		{
-			final V value = softReference.get();
+			if (replaced != null && replaced.isLinked())
+			{
+				unlink(replaced);
+				size--;
+			}
+
+			// the entry may have been replaced or removed concurrently
+			if (map.get(entry.key) != entry || entry.isLinked()) return;
 
-			if (value == null)
-				map.remove(key);
-			else if (objectsToKeepCount > 0 && value != objectsLastAccessed.getFirst())
+			linkFirst(entry);
+			size++;
+
+			while (size > maxSize)
 			{
-				objectsLastAccessed.remove(value);
-				objectsLastAccessed.addFirst(value);
-				if (objectsLastAccessed.size() > objectsToKeepCount) objectsLastAccessed.removeLast();
+				final Entry<K, V> eldest = head.prev;
+				unlink(eldest);
+				size--;
+				if (map.remove(eldest.key, eldest)) evictionCount.incrementAndGet();
 			}
-			return softReference.get();
 		}
-		return null;
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	private void linkFirst(final Entry<K, V> entry)
+	{
+		entry.prev = head;
+		entry.next = head.next;
+		head.next.prev = entry;
+		head.next = entry;
 	}
 
 	public void put(final K key, final V value)
 	{
-		map.remove(key);
-		map.put(key, new SoftReference<V>(value));
+		Assert.argumentNotNull("value", value);
+
+		final Entry<K, V> entry = new Entry<K, V>(key, value, softValues);
+		link(entry, map.put(key, entry));
+	}
+
+	/**
+	 * Caches the given value unless an object is already cached for the given key.
+	 *
+	 * @return the already cached object or <code>null</code> if the given value was cached
+	 */
+	public V putIfAbsent(final K key, final V value)
+	{
+		Assert.argumentNotNull("value", value);
+
+		final Entry<K, V> entry = new Entry<K, V>(key, value, softValues);
+		while (true)
+		{
+			final Entry<K, V> existing = map.putIfAbsent(key, entry);
+			if (existing == null)
+			{
+				link(entry, null);
+				return null;
+			}
+
+			final V existingValue = existing.getValue();
+			if (existingValue != null) return existingValue;
+
+			// the value of the existing entry was garbage collected
+			if (map.replace(key, existing, entry))
+			{
+				evictionCount.incrementAndGet();
+				link(entry, existing);
+				return null;
+			}
+		}
+	}
+
+	public void remove(final K key)
+	{
+		final Entry<K, V> entry = map.get(key);
+		if (entry != null) removeEntry(entry, false);
+	}
+
+	private void removeEntry(final Entry<K, V> entry, final boolean isEviction)
+	{
+		if (!map.remove(entry.key, entry)) return;
+		if (isEviction) evictionCount.incrementAndGet();
+
+		lock.lock();
+		try
+		{
+			if (entry.isLinked())
+			{
+				unlink(entry);
+				size--;
+			}
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return the number of cached entries
+	 */
+	public int size()
+	{
+		return map.size();
+	}
+
+	@Override
+	public String toString()
+	{
+		return getClass().getSimpleName() + "[size=" + size() + ", maxSize=" + maxSize + ", softValues=" + softValues
+				+ ", hits=" + hitCount + ", misses=" + missCount + ", evictions=" + evictionCount + "]";
+	}
+
+	private void unlink(final Entry<K, V> entry)
+	{
+		entry.prev.next = entry.next;
+		entry.next.prev = entry.prev;
+		entry.prev = null;
+		entry.next = null;
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Portions created by Sebastian Thomschke are copyright (c) 2005-2013 Sebastian
+ * Thomschke.
+ *
+ * All Rights Reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Sebastian Thomschke - initial implementation.
+ *******************************************************************************/
+package net.sf.oval.internal.util;
+
+/**
+ * Tracks per thread which (object, member) pairs are currently being processed, e.g. to avoid endless recursion
+ * when a constraint expression invokes the guarded method it belongs to.
+ *
+ * The pairs of a thread are kept on a small stack that is scanned from the top, objects are compared by identity.
+ * Entering and exiting does not allocate unless the nesting depth exceeds all previous depths of the thread.
+ *
+ * @author Sebastian Thomschke
+ */
+public final class ReentrancyTracker
+{
+	private static final class Frames
+	{
+		Object[] objects = new Object[8];
+		Object[] members = new Object[8];
+		int size;
+	}
+
+	private static boolean contains(final Frames f, final Object object, final Object member)
+	{
+		for (int i = f.size - 1; i >= 0; i--)
+			if (f.objects[i] == object && (f.members[i] == member || f.members[i].equals(member))) return true;
+		return false;
+	}
+
+	private final ThreadLocal<Frames> frames = new ThreadLocal<Frames>()
+	{
+		@Override
+		protected Frames initialValue()
+		{
+			return new Frames();
+		}
+	};
+
+	/**
+	 * Registers the given pair for the current thread. Each successful call must be followed by a call to
+	 * {@link #exit()}, usually in a <code>finally</code> block.
+	 *
+	 * @return <code>false</code> if the current thread is already processing the given pair, in which case nothing
+	 *         is registered
+	 */
+	public boolean enter(final Object object, final Object member)
+	{
+		final Frames f = frames.get();
+		if (contains(f, object, member)) return false;
+
+		if (f.size == f.objects.length)
+		{
+			final Object[] objects = new Object[f.size * 2];
+			final Object[] members = new Object[f.size * 2];
+			System.arraycopy(f.objects, 0, objects, 0, f.size);
+			System.arraycopy(f.members, 0, members, 0, f.size);
+			f.objects = objects;
+			f.members = members;
+		}
+		f.objects[f.size] = object;
+		f.members[f.size] = member;
+		f.size++;
+		return true;
+	}
+
+	/**
+	 * Unregisters the pair most recently registered by the current thread.
+	 */
+	public void exit()
+	{
+		final Frames f = frames.get();
+		f.size--;
+		f.objects[f.size] = null;
+		f.members[f.size] = null;
+	}
+
+	/**
+	 * @return <code>true</code> if the current thread is processing the given pair
+	 */
+	public boolean isEntered(final Object object, final Object member)
+	{
+		return contains(frames.get(), object, member);
+	}
+}
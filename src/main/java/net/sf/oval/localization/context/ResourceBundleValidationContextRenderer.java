@@ -12,7 +12,6 @@
  *******************************************************************************/
 package net.sf.oval.localization.context;
 
-import net.sf.oval.Validator;
 import net.sf.oval.context.ClassContext;
 import net.sf.oval.context.ConstructorParameterContext;
 import net.sf.oval.context.FieldContext;
@@ -21,6 +20,7 @@ import net.sf.oval.context.MethodExitContext;
 import net.sf.oval.context.MethodParameterContext;
 import net.sf.oval.context.MethodReturnValueContext;
 import net.sf.oval.context.OValContext;
+import net.sf.oval.internal.MessageRenderer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -63,7 +63,7 @@ public class ResourceBundleValidationContextRenderer implements OValContextRende
 
 	protected Locale getLocale()
 	{
-		return Validator.getLocaleProvider().getLocale();
+		return MessageRenderer.getLocale();
 	}
 
 	public String render(final OValContext ovalContext)
@@ -13,6 +13,7 @@
 package net.sf.oval.localization.message;
 
 import net.sf.oval.Validator;
+import net.sf.oval.internal.MessageRenderer;
 import net.sf.oval.internal.util.Assert;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -67,12 +68,13 @@ public class ResourceBundleMessageResolver implements MessageResolver
 			messageBundleKeys.put(messageBundle, keys);
 		}
 
+		MessageRenderer.clearTemplateCache();
 		return true;
 	}
 
 	public String getMessage(final String key)
 	{
-		final Locale l = Validator.getLocaleProvider().getLocale();
+		final Locale l = MessageRenderer.getLocale();
 		String msg = getMessage(key, l);
 		if (msg == null && !l.equals((Locale.getDefault()))) msg = getMessage(key, Locale.getDefault());
 		return msg;
@@ -126,6 +128,7 @@ public class ResourceBundleMessageResolver implements MessageResolver
 
 		messageBundles.remove(messageBundle);
 		messageBundleKeys.remove(messageBundle);
+		MessageRenderer.clearTemplateCache();
 		return true;
 	}
 }
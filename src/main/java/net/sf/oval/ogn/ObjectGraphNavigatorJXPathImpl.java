@@ -14,7 +14,9 @@ package net.sf.oval.ogn;
 
 import net.sf.oval.exception.InvalidConfigurationException;
 import net.sf.oval.internal.util.Assert;
+import net.sf.oval.internal.util.ObjectCache;
 import net.sf.oval.internal.util.ReflectionUtils;
+import org.apache.commons.jxpath.CompiledExpression;
 import org.apache.commons.jxpath.JXPathBeanInfo;
 import org.apache.commons.jxpath.JXPathContext;
 import org.apache.commons.jxpath.JXPathIntrospector;
@@ -29,11 +31,19 @@ import org.apache.commons.jxpath.ri.model.beans.NullPointer;
 import org.apache.commons.jxpath.ri.model.beans.NullPropertyPointer;
 import org.apache.commons.jxpath.ri.model.beans.PropertyPointer;
 
+import java.lang.ref.WeakReference;
 import java.lang.reflect.AccessibleObject;
 import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * JXPath {@link "http://commons.apache.org/jxpath/"} based object graph navigator implementation.
+ *
+ * XPaths are compiled once and cached. Each thread reuses the JXPath context of the root object it navigated last,
+ * so multiple targets on the same object share one context. The field or getter backing a bean property is resolved
+ * once per bean class.
+ *
  * @author Sebastian Thomschke
  */
 public class ObjectGraphNavigatorJXPathImpl implements ObjectGraphNavigator
@@ -109,6 +119,22 @@ public class ObjectGraphNavigatorJXPathImpl implements ObjectGraphNavigator
 		}
 	}
 
+	/**
+	 * field or getter by property name, {@link #NO_ACCESSOR} if the bean class has neither
+	 */
+	private static final class PropertyAccessors extends ClassValue<ConcurrentMap<String, Object>>
+	{
+		@Override
+		protected ConcurrentMap<String, Object> computeValue(final Class< ? > beanClass)
+		{
+			return new ConcurrentHashMap<String, Object>(4);
+		}
+	}
+
+	private static final Object NO_ACCESSOR = new Object();
+
+	private static final PropertyAccessors PROPERTY_ACCESSORS = new PropertyAccessors();
+
 	static
 	{
 		/*
@@ -123,6 +149,41 @@ public class ObjectGraphNavigatorJXPathImpl implements ObjectGraphNavigator
 		JXPathContextReferenceImpl.addNodePointerFactory(new BeanPointerFactoryEx());
 	}
 
+	private static AccessibleObject getAccessor(final Class< ? > beanClass, final String propertyName)
+	{
+		final ConcurrentMap<String, Object> accessors = PROPERTY_ACCESSORS.get(beanClass);
+		Object accessor = accessors.get(propertyName);
+		if (accessor == null)
+		{
+			accessor = ReflectionUtils.getField(beanClass, propertyName);
+			if (accessor == null) accessor = ReflectionUtils.getGetter(beanClass, propertyName);
+			if (accessor == null) accessor = NO_ACCESSOR;
+			accessors.put(propertyName, accessor);
+		}
+		return accessor == NO_ACCESSOR ? null : (AccessibleObject) accessor;
+	}
+
+	private final ObjectCache<String, CompiledExpression> compiledXPaths = new ObjectCache<String, CompiledExpression>();
+
+	/**
+	 * the context of the root object the current thread navigated last, weakly referenced to not keep the root
+	 * object reachable
+	 */
+	private final ThreadLocal<WeakReference<JXPathContext>> lastContext = new ThreadLocal<WeakReference<JXPathContext>>();
+
+	private JXPathContext getContext(final Object root)
+	{
+		final WeakReference<JXPathContext> ref = lastContext.get();
+		JXPathContext ctx = ref == null ? null : ref.get();
+		if (ctx == null || ctx.getContextBean() != root)
+		{
+			ctx = JXPathContext.newContext(root);
+			ctx.setLenient(true); // do not throw an exception if object graph is incomplete, e.g. contains null-values
+			lastContext.set(new WeakReference<JXPathContext>(ctx));
+		}
+		return ctx;
+	}
+
 	public ObjectGraphNavigationResult navigateTo(final Object root, final String xpath) throws InvalidConfigurationException
 	{
 		Assert.argumentNotNull("root", root);
@@ -130,18 +191,21 @@ public class ObjectGraphNavigatorJXPathImpl implements ObjectGraphNavigator
 
 		try
 		{
-			final JXPathContext ctx = JXPathContext.newContext(root);
-			ctx.setLenient(true); // do not throw an exception if object graph is incomplete, e.g. contains null-values
-			final Pointer pointer = ctx.getPointer(xpath);
+			CompiledExpression compiledXPath = compiledXPaths.get(xpath);
+			if (compiledXPath == null)
+			{
+				compiledXPath = JXPathContext.compile(xpath);
+				compiledXPaths.put(xpath, compiledXPath);
+			}
+
+			final Pointer pointer = compiledXPath.getPointer(getContext(root), xpath);
 
 			if (pointer instanceof NullPropertyPointer) return null;
 
 			if (pointer instanceof PropertyPointer)
 			{
 				final PropertyPointer pp = (PropertyPointer) pointer;
-				final Class< ? > beanClass = pp.getBean().getClass();
-				AccessibleObject accessor = ReflectionUtils.getField(beanClass, pp.getPropertyName());
-				if (accessor == null) accessor = ReflectionUtils.getGetter(beanClass, pp.getPropertyName());
+				final AccessibleObject accessor = getAccessor(pp.getBean().getClass(), pp.getPropertyName());
 				return new ObjectGraphNavigationResult(root, xpath, pp.getBean(), accessor, pointer.getValue());
 			}
 
@@ -18,8 +18,8 @@ import net.sf.oval.internal.util.ReflectionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Sebastian Thomschke
@@ -29,7 +29,7 @@ public class ObjectGraphNavigatorRegistry
 {
 	private static final Logger LOG = LoggerFactory.getLogger(ObjectGraphNavigatorRegistry.class);
 
-	private final Map<String, ObjectGraphNavigator> cache = new LinkedHashMap<>(2);
+	private final Map<String, ObjectGraphNavigator> cache = new ConcurrentHashMap<>(2);
 
 	private ObjectGraphNavigator _initializeDefaultOGN(final String id)
 	{
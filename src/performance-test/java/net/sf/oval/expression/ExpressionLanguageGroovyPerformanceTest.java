@@ -0,0 +1,55 @@
+package net.sf.oval.expression;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.databene.contiperf.PerfTest;
+import org.databene.contiperf.Required;
+import org.databene.contiperf.junit.ContiPerfRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+/**
+ * Performance test for {@code ExpressionLanguageGroovyImpl}.
+ *
+ * The compiled script class is shared, the script instances are confined to the evaluating threads.
+ *
+ * @author mase
+ * @since 1.85
+ */
+public class ExpressionLanguageGroovyPerformanceTest {
+
+    private static final ExpressionLanguageGroovyImpl GROOVY = new ExpressionLanguageGroovyImpl();
+
+    private final Map<String, Object> values = new LinkedHashMap<String, Object>();
+
+    {
+        values.put("_this", this);
+        values.put("_value", "value");
+    }
+
+    @Rule
+    public ContiPerfRule performanceRule = new ContiPerfRule();
+
+    /**
+     * Measures evaluation of an expression by a single thread reusing its script instance.
+     */
+    @Test
+    @PerfTest(invocations = 10000)
+    @Required(average = 1)
+    public void performanceTestEvaluate() {
+        assertTrue(GROOVY.evaluateAsBoolean("_value != null && _value.length() > 2", values));
+    }
+
+    /**
+     * Measures evaluation of an expression by multiple threads each using its own script instance.
+     */
+    @Test
+    @PerfTest(invocations = 10000, threads = 4)
+    @Required(average = 2)
+    public void performanceTestEvaluateMultiThreaded() {
+        assertTrue(GROOVY.evaluateAsBoolean("_value != null && _value.length() > 2", values));
+    }
+}
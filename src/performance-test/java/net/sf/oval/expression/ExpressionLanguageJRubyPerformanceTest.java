@@ -0,0 +1,55 @@
+package net.sf.oval.expression;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.databene.contiperf.PerfTest;
+import org.databene.contiperf.Required;
+import org.databene.contiperf.junit.ContiPerfRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+/**
+ * Performance test for {@code ExpressionLanguageJRubyImpl}.
+ *
+ * Before the runtimes were reused every evaluation booted a new JRuby runtime, taking several hundred milliseconds.
+ *
+ * @author mase
+ * @since 1.85
+ */
+public class ExpressionLanguageJRubyPerformanceTest {
+
+    private static final ExpressionLanguageJRubyImpl RUBY = new ExpressionLanguageJRubyImpl();
+
+    private final Map<String, Object> values = new LinkedHashMap<String, Object>();
+
+    {
+        values.put("_this", this);
+        values.put("_value", "value");
+    }
+
+    @Rule
+    public ContiPerfRule performanceRule = new ContiPerfRule();
+
+    /**
+     * Measures evaluation of an expression by a single thread reusing its runtime.
+     */
+    @Test
+    @PerfTest(invocations = 10000)
+    @Required(average = 1)
+    public void performanceTestEvaluate() {
+        assertTrue(RUBY.evaluateAsBoolean("_value != nil && _value.length > 2", values));
+    }
+
+    /**
+     * Measures evaluation of an expression by multiple threads each using its own runtime.
+     */
+    @Test
+    @PerfTest(invocations = 10000, threads = 4)
+    @Required(average = 2)
+    public void performanceTestEvaluateMultiThreaded() {
+        assertTrue(RUBY.evaluateAsBoolean("_value != nil && _value.length > 2", values));
+    }
+}
@@ -0,0 +1,70 @@
+package net.sf.oval.expression;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.databene.contiperf.PerfTest;
+import org.databene.contiperf.Required;
+import org.databene.contiperf.junit.ContiPerfRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+/**
+ * Performance test for {@code ExpressionLanguageOValImpl} compared with the equivalent hand-written Java code.
+ *
+ * @author mase
+ * @since 1.85
+ */
+public class ExpressionLanguageOValPerformanceTest {
+
+    public static class Order {
+        private final boolean active;
+        private final List<String> items;
+
+        public Order(boolean active, List<String> items) {
+            this.active = active;
+            this.items = items;
+        }
+
+        public List<String> getItems() {
+            return items;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+    }
+
+    private static final CompiledExpression EXPRESSION = new ExpressionLanguageOValImpl().compile(
+            "_value != null && _value.items.size() > 0 && _value.active", "_value", "_this");
+
+    private final Order order = new Order(true, Arrays.asList("a", "b"));
+
+    private final Object[] values = {order, null};
+
+    @Rule
+    public ContiPerfRule performanceRule = new ContiPerfRule();
+
+    /**
+     * Measures evaluation of the compiled expression.
+     */
+    @Test
+    @PerfTest(invocations = 1000000)
+    @Required(totalTime = 1000)
+    public void performanceTestCompiledExpression() {
+        assertTrue(EXPRESSION.evaluateAsBoolean(values));
+    }
+
+    /**
+     * Measures the hand-written equivalent of the expression as a baseline.
+     */
+    @Test
+    @PerfTest(invocations = 1000000)
+    @Required(totalTime = 1000)
+    public void performanceTestHandWritten() {
+        final Order value = (Order) values[0];
+        assertTrue(value != null && value.getItems().size() > 0 && value.isActive());
+    }
+}
@@ -0,0 +1,121 @@
+package net.sf.oval.expression;
+
+import static org.junit.Assert.assertTrue;
+
+import net.sf.oval.Validator;
+import net.sf.oval.constraint.AssertCheck;
+import org.databene.contiperf.PerfTest;
+import org.databene.contiperf.Required;
+import org.databene.contiperf.junit.ContiPerfRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+/**
+ * Performance test for {@code AssertCheck} evaluated with each supported expression language.
+ *
+ * @author mase
+ * @since 1.85
+ */
+public class ExpressionLanguagePerformanceTest {
+
+    private static final Validator VALIDATOR = new Validator();
+
+    private static AssertCheck createCheck(final String lang, final String expr) {
+        final AssertCheck check = new AssertCheck();
+        check.setLang(lang);
+        check.setExpr(expr);
+        return check;
+    }
+
+    private final AssertCheck beanShellCheck = createCheck("bsh", "_value != null");
+    private final AssertCheck groovyCheck = createCheck("groovy", "_value != null");
+    private final AssertCheck javaScriptCheck = createCheck("js", "_value != null");
+    private final AssertCheck jexlCheck = createCheck("jexl", "_value != null");
+    private final AssertCheck mvelCheck = createCheck("mvel", "_value != null");
+    private final AssertCheck ognlCheck = createCheck("ognl", "_value != null");
+    private final AssertCheck ovalCheck = createCheck("oval", "_value != null");
+    private final AssertCheck rubyCheck = createCheck("ruby", "_value != nil");
+
+    @Rule
+    public ContiPerfRule performanceRule = new ContiPerfRule();
+
+    /**
+     * Measures evaluation of a BeanShell expression.
+     */
+    @Test
+    @PerfTest(invocations = 10000)
+    @Required(average = 1)
+    public void performanceTestBeanShell() {
+        assertTrue(beanShellCheck.isSatisfied(null, "value", null, VALIDATOR));
+    }
+
+    /**
+     * Measures evaluation of a Groovy expression.
+     */
+    @Test
+    @PerfTest(invocations = 10000)
+    @Required(average = 1)
+    public void performanceTestGroovy() {
+        assertTrue(groovyCheck.isSatisfied(null, "value", null, VALIDATOR));
+    }
+
+    /**
+     * Measures evaluation of a JavaScript expression.
+     */
+    @Test
+    @PerfTest(invocations = 10000)
+    @Required(average = 1)
+    public void performanceTestJavaScript() {
+        assertTrue(javaScriptCheck.isSatisfied(null, "value", null, VALIDATOR));
+    }
+
+    /**
+     * Measures evaluation of a JEXL expression.
+     */
+    @Test
+    @PerfTest(invocations = 10000)
+    @Required(average = 1)
+    public void performanceTestJEXL() {
+        assertTrue(jexlCheck.isSatisfied(null, "value", null, VALIDATOR));
+    }
+
+    /**
+     * Measures evaluation of a MVEL expression.
+     */
+    @Test
+    @PerfTest(invocations = 1000)
+    @Required(average = 5)
+    public void performanceTestMVEL() {
+        assertTrue(mvelCheck.isSatisfied(null, "value", null, VALIDATOR));
+    }
+
+    /**
+     * Measures evaluation of an OGNL expression.
+     */
+    @Test
+    @PerfTest(invocations = 10000)
+    @Required(average = 1)
+    public void performanceTestOGNL() {
+        assertTrue(ognlCheck.isSatisfied(null, "value", null, VALIDATOR));
+    }
+
+    /**
+     * Measures evaluation of an expression of the built-in expression language.
+     */
+    @Test
+    @PerfTest(invocations = 10000)
+    @Required(average = 1)
+    public void performanceTestOVal() {
+        assertTrue(ovalCheck.isSatisfied(null, "value", null, VALIDATOR));
+    }
+
+    /**
+     * Measures evaluation of a JRuby expression.
+     */
+    @Test
+    @PerfTest(invocations = 10000)
+    @Required(average = 20)
+    public void performanceTestRuby() {
+        assertTrue(rubyCheck.isSatisfied(null, "value", null, VALIDATOR));
+    }
+}
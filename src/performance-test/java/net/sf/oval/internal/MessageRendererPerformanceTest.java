@@ -0,0 +1,64 @@
+package net.sf.oval.internal;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.databene.contiperf.PerfTest;
+import org.databene.contiperf.Required;
+import org.databene.contiperf.junit.ContiPerfRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+/**
+ * Performance test for {@code MessageRenderer}.
+ *
+ * @author mase
+ * @since 1.85
+ */
+public class MessageRendererPerformanceTest {
+
+    private static final String MESSAGE_KEY = "net.sf.oval.constraint.Length.violated";
+
+    private final Map<String, String> messageValues = new LinkedHashMap<String, String>();
+
+    {
+        messageValues.put("min", "1");
+        messageValues.put("max", "10");
+    }
+
+    @Rule
+    public ContiPerfRule performanceRule = new ContiPerfRule();
+
+    /**
+     * Measures rendering a message of the default resource bundle with multiple message values.
+     */
+    @Test
+    @PerfTest(invocations = 100000)
+    @Required(average = 1)
+    public void performanceTestRenderMessage() {
+        assertEquals("{context} is not between 1 and 10 characters long", MessageRenderer.renderMessage(MESSAGE_KEY, messageValues));
+    }
+
+    /**
+     * Measures rendering a message of the default resource bundle with a single message value.
+     */
+    @Test
+    @PerfTest(invocations = 100000)
+    @Required(average = 1)
+    public void performanceTestRenderMessageSingleValue() {
+        assertEquals("{context} cannot be longer than 10 characters",
+                MessageRenderer.renderMessage("net.sf.oval.constraint.MaxLength.violated", "max", "10"));
+    }
+
+    /**
+     * Measures rendering a literal message that is not a resource bundle key.
+     */
+    @Test
+    @PerfTest(invocations = 100000)
+    @Required(average = 1)
+    public void performanceTestRenderLiteralMessage() {
+        assertEquals("name must be between 1 and 10", MessageRenderer.renderMessage("name must be between {min} and {max}", messageValues));
+    }
+}
@@ -0,0 +1,382 @@
+package net.sf.oval.test.constraint;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import net.sf.oval.Validator;
+import net.sf.oval.constraint.AssertFalseCheck;
+import net.sf.oval.constraint.AssertNullCheck;
+import net.sf.oval.constraint.AssertTrueCheck;
+import net.sf.oval.constraint.DigitsCheck;
+import net.sf.oval.constraint.EmailCheck;
+import net.sf.oval.constraint.FutureCheck;
+import net.sf.oval.constraint.HasSubstringCheck;
+import net.sf.oval.constraint.InstanceOfCheck;
+import net.sf.oval.constraint.LengthCheck;
+import net.sf.oval.constraint.MatchPatternCheck;
+import net.sf.oval.constraint.MaxCheck;
+import net.sf.oval.constraint.MaxLengthCheck;
+import net.sf.oval.constraint.MaxSizeCheck;
+import net.sf.oval.constraint.MemberOfCheck;
+import net.sf.oval.constraint.MinCheck;
+import net.sf.oval.constraint.MinLengthCheck;
+import net.sf.oval.constraint.MinSizeCheck;
+import net.sf.oval.constraint.NotBlankCheck;
+import net.sf.oval.constraint.NotEmptyCheck;
+import net.sf.oval.constraint.NotEqualCheck;
+import net.sf.oval.constraint.NotMatchPatternCheck;
+import net.sf.oval.constraint.NotMemberOfCheck;
+import net.sf.oval.constraint.NotNegativeCheck;
+import net.sf.oval.constraint.NotNullCheck;
+import net.sf.oval.constraint.PastCheck;
+import net.sf.oval.constraint.RangeCheck;
+import net.sf.oval.constraint.SizeCheck;
+import org.databene.contiperf.PerfTest;
+import org.databene.contiperf.Required;
+import org.databene.contiperf.junit.ContiPerfRule;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+/**
+ * Performance test for {@code isSatisfied} of the built-in value constraint checks.
+ *
+ * @author mase
+ * @since 1.85
+ */
+public class CheckPerformanceTest {
+
+    private static final Validator VALIDATOR = new Validator();
+    private static final List<String> LIST = Arrays.asList("a", "b", "c");
+    private static final Date PAST = new Date(0);
+    private static final Date FUTURE = new Date(Long.MAX_VALUE);
+
+    private final NotNullCheck notNullCheck = new NotNullCheck();
+    private final NotEmptyCheck notEmptyCheck = new NotEmptyCheck();
+    private final NotBlankCheck notBlankCheck = new NotBlankCheck();
+    private final NotNegativeCheck notNegativeCheck = new NotNegativeCheck();
+    private final AssertTrueCheck assertTrueCheck = new AssertTrueCheck();
+    private final AssertFalseCheck assertFalseCheck = new AssertFalseCheck();
+    private final AssertNullCheck assertNullCheck = new AssertNullCheck();
+    private final LengthCheck lengthCheck = new LengthCheck();
+    private final MaxLengthCheck maxLengthCheck = new MaxLengthCheck();
+    private final MinLengthCheck minLengthCheck = new MinLengthCheck();
+    private final MinCheck minCheck = new MinCheck();
+    private final MaxCheck maxCheck = new MaxCheck();
+    private final RangeCheck rangeCheck = new RangeCheck();
+    private final SizeCheck sizeCheck = new SizeCheck();
+    private final MinSizeCheck minSizeCheck = new MinSizeCheck();
+    private final MaxSizeCheck maxSizeCheck = new MaxSizeCheck();
+    private final DigitsCheck digitsCheck = new DigitsCheck();
+    private final EmailCheck emailCheck = new EmailCheck();
+    private final MatchPatternCheck matchPatternCheck = new MatchPatternCheck();
+    private final NotMatchPatternCheck notMatchPatternCheck = new NotMatchPatternCheck();
+    private final MemberOfCheck memberOfCheck = new MemberOfCheck();
+    private final NotMemberOfCheck notMemberOfCheck = new NotMemberOfCheck();
+    private final HasSubstringCheck hasSubstringCheck = new HasSubstringCheck();
+    private final NotEqualCheck notEqualCheck = new NotEqualCheck();
+    private final InstanceOfCheck instanceOfCheck = new InstanceOfCheck();
+    private final PastCheck pastCheck = new PastCheck();
+    private final FutureCheck futureCheck = new FutureCheck();
+
+    @Rule
+    public ContiPerfRule performanceRule = new ContiPerfRule();
+
+    @Before
+    public void setup() {
+        lengthCheck.setMin(1);
+        lengthCheck.setMax(10);
+        maxLengthCheck.setMax(10);
+        minLengthCheck.setMin(1);
+        minCheck.setMin(0);
+        maxCheck.setMax(100);
+        rangeCheck.setMin(0);
+        rangeCheck.setMax(100);
+        sizeCheck.setMin(1);
+        sizeCheck.setMax(10);
+        minSizeCheck.setMin(1);
+        maxSizeCheck.setMax(10);
+        digitsCheck.setMaxInteger(5);
+        digitsCheck.setMaxFraction(2);
+        matchPatternCheck.setPattern("[a-z]+", 0);
+        notMatchPatternCheck.setPattern("[0-9]+", 0);
+        memberOfCheck.setMembers("foo", "value", "bar");
+        notMemberOfCheck.setMembers("foo", "bar");
+        hasSubstringCheck.setSubstring("al");
+        notEqualCheck.setTestString("other");
+        instanceOfCheck.setTypes(String.class);
+    }
+
+    /**
+     * Measures {@code NotNullCheck.isSatisfied}.
+     */
+    @Test
+    @PerfTest(invocations = 100000)
+    @Required(average = 1)
+    public void performanceTestNotNull() {
+        assertTrue(notNullCheck.isSatisfied(null, "value", null, VALIDATOR));
+    }
+
+    /**
+     * Measures {@code NotEmptyCheck.isSatisfied}.
+     */
+    @Test
+    @PerfTest(invocations = 100000)
+    @Required(average = 1)
+    public void performanceTestNotEmpty() {
+        assertTrue(notEmptyCheck.isSatisfied(null, "value", null, VALIDATOR));
+    }
+
+    /**
+     * Measures {@code NotBlankCheck.isSatisfied}.
+     */
+    @Test
+    @PerfTest(invocations = 100000)
+    @Required(average = 1)
+    public void performanceTestNotBlank() {
+        assertTrue(notBlankCheck.isSatisfied(null, "value", null, VALIDATOR));
+    }
+
+    /**
+     * Measures {@code NotNegativeCheck.isSatisfied}.
+     */
+    @Test
+    @PerfTest(invocations = 100000)
+    @Required(average = 1)
+    public void performanceTestNotNegative() {
+        assertTrue(notNegativeCheck.isSatisfied(null, 42, null, VALIDATOR));
+    }
+
+    /**
+     * Measures {@code AssertTrueCheck.isSatisfied}.
+     */
+    @Test
+    @PerfTest(invocations = 100000)
+    @Required(average = 1)
+    public void performanceTestAssertTrue() {
+        assertTrue(assertTrueCheck.isSatisfied(null, Boolean.TRUE, null, VALIDATOR));
+    }
+
+    /**
+     * Measures {@code AssertFalseCheck.isSatisfied}.
+     */
+    @Test
+    @PerfTest(invocations = 100000)
+    @Required(average = 1)
+    public void performanceTestAssertFalse() {
+        assertTrue(assertFalseCheck.isSatisfied(null, Boolean.FALSE, null, VALIDATOR));
+    }
+
+    /**
+     * Measures {@code AssertNullCheck.isSatisfied}.
+     */
+    @Test
+    @PerfTest(invocations = 100000)
+    @Required(average = 1)
+    public void performanceTestAssertNull() {
+        assertTrue(assertNullCheck.isSatisfied(null, null, null, VALIDATOR));
+    }
+
+    /**
+     * Measures {@code LengthCheck.isSatisfied}.
+     */
+    @Test
+    @PerfTest(invocations = 100000)
+    @Required(average = 1)
+    public void performanceTestLength() {
+        assertTrue(lengthCheck.isSatisfied(null, "value", null, VALIDATOR));
+    }
+
+    /**
+     * Measures {@code MaxLengthCheck.isSatisfied}.
+     */
+    @Test
+    @PerfTest(invocations = 100000)
+    @Required(average = 1)
+    public void performanceTestMaxLength() {
+        assertTrue(maxLengthCheck.isSatisfied(null, "value", null, VALIDATOR));
+    }
+
+    /**
+     * Measures {@code MinLengthCheck.isSatisfied}.
+     */
+    @Test
+    @PerfTest(invocations = 100000)
+    @Required(average = 1)
+    public void performanceTestMinLength() {
+        assertTrue(minLengthCheck.isSatisfied(null, "value", null, VALIDATOR));
+    }
+
+    /**
+     * Measures {@code MinCheck.isSatisfied}.
+     */
+    @Test
+    @PerfTest(invocations = 100000)
+    @Required(average = 1)
+    public void performanceTestMin() {
+        assertTrue(minCheck.isSatisfied(null, 42, null, VALIDATOR));
+    }
+
+    /**
+     * Measures {@code MaxCheck.isSatisfied}.
+     */
+    @Test
+    @PerfTest(invocations = 100000)
+    @Required(average = 1)
+    public void performanceTestMax() {
+        assertTrue(maxCheck.isSatisfied(null, 42, null, VALIDATOR));
+    }
+
+    /**
+     * Measures {@code RangeCheck.isSatisfied}.
+     */
+    @Test
+    @PerfTest(invocations = 100000)
+    @Required(average = 1)
+    public void performanceTestRange() {
+        assertTrue(rangeCheck.isSatisfied(null, 42, null, VALIDATOR));
+    }
+
+    /**
+     * Measures {@code SizeCheck.isSatisfied}.
+     */
+    @Test
+    @PerfTest(invocations = 100000)
+    @Required(average = 1)
+    public void performanceTestSize() {
+        assertTrue(sizeCheck.isSatisfied(null, LIST, null, VALIDATOR));
+    }
+
+    /**
+     * Measures {@code MinSizeCheck.isSatisfied}.
+     */
+    @Test
+    @PerfTest(invocations = 100000)
+    @Required(average = 1)
+    public void performanceTestMinSize() {
+        assertTrue(minSizeCheck.isSatisfied(null, LIST, null, VALIDATOR));
+    }
+
+    /**
+     * Measures {@code MaxSizeCheck.isSatisfied}.
+     */
+    @Test
+    @PerfTest(invocations = 100000)
+    @Required(average = 1)
+    public void performanceTestMaxSize() {
+        assertTrue(maxSizeCheck.isSatisfied(null, LIST, null, VALIDATOR));
+    }
+
+    /**
+     * Measures {@code DigitsCheck.isSatisfied}.
+     */
+    @Test
+    @PerfTest(invocations = 100000)
+    @Required(average = 1)
+    public void performanceTestDigits() {
+        assertTrue(digitsCheck.isSatisfied(null, "123.45", null, VALIDATOR));
+    }
+
+    /**
+     * Measures {@code EmailCheck.isSatisfied}.
+     */
+    @Test
+    @PerfTest(invocations = 100000)
+    @Required(average = 1)
+    public void performanceTestEmail() {
+        assertTrue(emailCheck.isSatisfied(null, "john.doe@example.com", null, VALIDATOR));
+    }
+
+    /**
+     * Measures {@code MatchPatternCheck.isSatisfied}.
+     */
+    @Test
+    @PerfTest(invocations = 100000)
+    @Required(average = 1)
+    public void performanceTestMatchPattern() {
+        assertTrue(matchPatternCheck.isSatisfied(null, "value", null, VALIDATOR));
+    }
+
+    /**
+     * Measures {@code NotMatchPatternCheck.isSatisfied}.
+     */
+    @Test
+    @PerfTest(invocations = 100000)
+    @Required(average = 1)
+    public void performanceTestNotMatchPattern() {
+        assertTrue(notMatchPatternCheck.isSatisfied(null, "value", null, VALIDATOR));
+    }
+
+    /**
+     * Measures {@code MemberOfCheck.isSatisfied}.
+     */
+    @Test
+    @PerfTest(invocations = 100000)
+    @Required(average = 1)
+    public void performanceTestMemberOf() {
+        assertTrue(memberOfCheck.isSatisfied(null, "value", null, VALIDATOR));
+    }
+
+    /**
+     * Measures {@code NotMemberOfCheck.isSatisfied}.
+     */
+    @Test
+    @PerfTest(invocations = 100000)
+    @Required(average = 1)
+    public void performanceTestNotMemberOf() {
+        assertTrue(notMemberOfCheck.isSatisfied(null, "value", null, VALIDATOR));
+    }
+
+    /**
+     * Measures {@code HasSubstringCheck.isSatisfied}.
+     */
+    @Test
+    @PerfTest(invocations = 100000)
+    @Required(average = 1)
+    public void performanceTestHasSubstring() {
+        assertTrue(hasSubstringCheck.isSatisfied(null, "value", null, VALIDATOR));
+    }
+
+    /**
+     * Measures {@code NotEqualCheck.isSatisfied}.
+     */
+    @Test
+    @PerfTest(invocations = 100000)
+    @Required(average = 1)
+    public void performanceTestNotEqual() {
+        assertTrue(notEqualCheck.isSatisfied(null, "value", null, VALIDATOR));
+    }
+
+    /**
+     * Measures {@code InstanceOfCheck.isSatisfied}.
+     */
+    @Test
+    @PerfTest(invocations = 100000)
+    @Required(average = 1)
+    public void performanceTestInstanceOf() {
+        assertTrue(instanceOfCheck.isSatisfied(null, "value", null, VALIDATOR));
+    }
+
+    /**
+     * Measures {@code PastCheck.isSatisfied}.
+     */
+    @Test
+    @PerfTest(invocations = 100000)
+    @Required(average = 1)
+    public void performanceTestPast() {
+        assertTrue(pastCheck.isSatisfied(null, PAST, null, VALIDATOR));
+    }
+
+    /**
+     * Measures {@code FutureCheck.isSatisfied}.
+     */
+    @Test
+    @PerfTest(invocations = 100000)
+    @Required(average = 1)
+    public void performanceTestFuture() {
+        assertTrue(futureCheck.isSatisfied(null, FUTURE, null, VALIDATOR));
+    }
+}
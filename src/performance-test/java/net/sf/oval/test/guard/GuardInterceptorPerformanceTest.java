@@ -0,0 +1,179 @@
+package net.sf.oval.test.guard;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Method;
+
+import net.sf.oval.constraint.NotNull;
+import net.sf.oval.exception.ConstraintsViolatedException;
+import net.sf.oval.guard.GuardInterceptor;
+import net.sf.oval.guard.Post;
+import net.sf.oval.guard.Pre;
+import org.aopalliance.intercept.MethodInvocation;
+import org.databene.contiperf.PerfTest;
+import org.databene.contiperf.Required;
+import org.databene.contiperf.junit.ContiPerfRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+/**
+ * Performance test for {@code Guard.guardMethod} invoked through the {@code GuardInterceptor}.
+ *
+ * @author mase
+ * @since 1.85
+ */
+public class GuardInterceptorPerformanceTest {
+
+    public static class TestService
+    {
+        public String echo(@NotNull final String value)
+        {
+            return value;
+        }
+
+        public String unconstrained(final String value)
+        {
+            return value;
+        }
+
+        @NotNull
+        public String trim(@NotNull final String value)
+        {
+            return value.trim();
+        }
+
+        @Pre(expr = "_args[0] != null", lang = "oval")
+        @Post(expr = "_returns != null", lang = "oval")
+        public String upperCase(final String value)
+        {
+            return value.toUpperCase();
+        }
+    }
+
+    private static final class TestInvocation implements MethodInvocation
+    {
+        private final Object target;
+        private final Method method;
+        private final Object[] arguments;
+
+        TestInvocation(final Object target, final Method method, final Object... arguments)
+        {
+            this.target = target;
+            this.method = method;
+            this.arguments = arguments;
+        }
+
+        public Object[] getArguments()
+        {
+            return arguments;
+        }
+
+        public Method getMethod()
+        {
+            return method;
+        }
+
+        public AccessibleObject getStaticPart()
+        {
+            return method;
+        }
+
+        public Object getThis()
+        {
+            return target;
+        }
+
+        public Object proceed() throws Throwable
+        {
+            return method.invoke(target, arguments);
+        }
+    }
+
+    private static final GuardInterceptor INTERCEPTOR = new GuardInterceptor();
+
+    private static final Method ECHO;
+
+    private static final Method UNCONSTRAINED;
+
+    private static final Method TRIM;
+
+    private static final Method UPPER_CASE;
+
+    static {
+        try {
+            ECHO = TestService.class.getMethod("echo", String.class);
+            UNCONSTRAINED = TestService.class.getMethod("unconstrained", String.class);
+            TRIM = TestService.class.getMethod("trim", String.class);
+            UPPER_CASE = TestService.class.getMethod("upperCase", String.class);
+        } catch (final NoSuchMethodException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private final TestService service = new TestService();
+
+    @Rule
+    public ContiPerfRule performanceRule = new ContiPerfRule();
+
+    /**
+     * Measures a guarded method call satisfying the parameter constraint.
+     */
+    @Test
+    @PerfTest(invocations = 100000)
+    @Required(average = 1)
+    public void performanceTestValidParameter() throws Throwable {
+        assertEquals("value", INTERCEPTOR.invoke(new TestInvocation(service, ECHO, "value")));
+    }
+
+    /**
+     * Measures a call of a method without constraints, which is passed straight to the target.
+     */
+    @Test
+    @PerfTest(invocations = 100000)
+    @Required(average = 1)
+    public void performanceTestUnconstrainedMethod() throws Throwable {
+        assertEquals("value", INTERCEPTOR.invoke(new TestInvocation(service, UNCONSTRAINED, "value")));
+    }
+
+    /**
+     * Measures a guarded method call satisfying its pre and post conditions.
+     */
+    @Test
+    @PerfTest(invocations = 100000)
+    @Required(average = 1)
+    public void performanceTestPrePost() throws Throwable {
+        assertEquals("VALUE", INTERCEPTOR.invoke(new TestInvocation(service, UPPER_CASE, "value")));
+    }
+
+    /**
+     * Measures a guarded method call violating the parameter constraint.
+     */
+    @Test(expected = ConstraintsViolatedException.class)
+    @PerfTest(invocations = 100000)
+    @Required(average = 1)
+    public void performanceTestInvalidParameter() throws Throwable {
+        INTERCEPTOR.invoke(new TestInvocation(service, ECHO, (Object) null));
+    }
+
+    /**
+     * Measures guarded method calls from multiple threads sharing the same guard.
+     */
+    @Test
+    @PerfTest(invocations = 100000, threads = 8)
+    @Required(average = 1)
+    public void performanceTestValidParameterMultipleThreads() throws Throwable {
+        assertEquals("value", INTERCEPTOR.invoke(new TestInvocation(service, ECHO, "value")));
+    }
+
+    /**
+     * Measures guarded method calls with parameter and return value constraints from 64 threads sharing the same
+     * guard.
+     */
+    @Test
+    @PerfTest(invocations = 200000, threads = 64)
+    @Required(average = 1)
+    public void performanceTestReturnValue64Threads() throws Throwable {
+        assertEquals("value", INTERCEPTOR.invoke(new TestInvocation(service, TRIM, " value ")));
+    }
+}
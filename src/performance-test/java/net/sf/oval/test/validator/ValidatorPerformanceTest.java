@@ -0,0 +1,201 @@
+package net.sf.oval.test.validator;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sf.oval.ConstraintTarget;
+import net.sf.oval.Validator;
+import net.sf.oval.constraint.AssertValid;
+import net.sf.oval.constraint.Email;
+import net.sf.oval.constraint.Length;
+import net.sf.oval.constraint.MaxLength;
+import net.sf.oval.constraint.Min;
+import net.sf.oval.constraint.NotEmpty;
+import net.sf.oval.constraint.NotNull;
+import net.sf.oval.constraint.Range;
+import net.sf.oval.constraint.Size;
+import org.databene.contiperf.PerfTest;
+import org.databene.contiperf.Required;
+import org.databene.contiperf.junit.ContiPerfRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+/**
+ * Performance test for {@link Validator#validate(Object)} on flat, deep and collection heavy object graphs
+ * using a single shared validator instance.
+ *
+ * @author mase
+ * @since 1.85
+ */
+public class ValidatorPerformanceTest {
+
+    protected static class TestEntity
+    {
+        @NotNull
+        @MaxLength(5)
+        public String name;
+
+        @AssertValid
+        public TestEntity parent;
+    }
+
+    protected static class FlatEntity
+    {
+        @NotNull
+        @Length(min = 1, max = 20)
+        public String firstName = "John";
+
+        @NotNull
+        @Length(min = 1, max = 20)
+        public String lastName = "Doe";
+
+        @Email
+        public String email = "john.doe@example.com";
+
+        @Range(min = 0, max = 150)
+        public int age = 42;
+
+        @Min(0)
+        public long id = 1;
+
+        @NotEmpty
+        public String city = "Berlin";
+    }
+
+    protected static class Level1Entity
+    {
+        @NotNull
+        public String level1 = "level1";
+    }
+
+    protected static class Level2Entity extends Level1Entity
+    {
+        @NotNull
+        @MaxLength(10)
+        public String level2 = "level2";
+    }
+
+    protected static class Level3Entity extends Level2Entity
+    {
+        @Min(0)
+        public int level3 = 3;
+    }
+
+    protected static class DeepEntity extends Level3Entity
+    {
+        @NotNull
+        public String level4 = "level4";
+
+        @AssertValid
+        public FlatEntity flat = new FlatEntity();
+    }
+
+    protected static class CollectionEntity
+    {
+        @NotNull
+        @Size(min = 1, max = 100)
+        @AssertValid
+        public List<FlatEntity> items = new ArrayList<FlatEntity>();
+
+        @NotNull(appliesTo = ConstraintTarget.VALUES)
+        @MaxLength(value = 10, appliesTo = ConstraintTarget.VALUES)
+        public List<String> tags = new ArrayList<String>();
+    }
+
+    protected static class TargetEntity
+    {
+        @NotNull(target = "flat.firstName")
+        @MaxLength(value = 20, target = "flat.lastName")
+        public DeepEntity deep = new DeepEntity();
+    }
+
+    private static final Validator VALIDATOR = new Validator();
+
+    private static final FlatEntity FLAT_ENTITY = new FlatEntity();
+
+    private static final DeepEntity DEEP_ENTITY = new DeepEntity();
+
+    private static final CollectionEntity COLLECTION_ENTITY = new CollectionEntity();
+
+    private static final TargetEntity TARGET_ENTITY = new TargetEntity();
+
+    private static final TestEntity ENTITY;
+
+    static {
+        ENTITY = new TestEntity();
+        ENTITY.name = "child";
+        ENTITY.parent = new TestEntity();
+        ENTITY.parent.name = "parent";
+        ENTITY.parent.parent = ENTITY;
+
+        for (int i = 0; i < 50; i++) {
+            COLLECTION_ENTITY.items.add(new FlatEntity());
+            COLLECTION_ENTITY.tags.add("tag" + i);
+        }
+    }
+
+    @Rule
+    public ContiPerfRule performanceRule = new ContiPerfRule();
+
+    /**
+     * Measures throughput of a single thread validating the shared object graph.
+     */
+    @Test
+    @PerfTest(invocations = 100000, threads = 1)
+    @Required(throughput = 20000)
+    public void performanceTestValidateSingleThread() {
+        assertEquals(1, VALIDATOR.validate(ENTITY).size());
+    }
+
+    /**
+     * Measures throughput of multiple threads validating the shared object graph with the same validator.
+     */
+    @Test
+    @PerfTest(invocations = 100000, threads = 8)
+    @Required(throughput = 40000)
+    public void performanceTestValidateMultipleThreads() {
+        assertEquals(1, VALIDATOR.validate(ENTITY).size());
+    }
+
+    /**
+     * Measures validation of a bean with constrained fields only.
+     */
+    @Test
+    @PerfTest(invocations = 100000)
+    @Required(throughput = 20000)
+    public void performanceTestValidateFlat() {
+        assertEquals(0, VALIDATOR.validate(FLAT_ENTITY).size());
+    }
+
+    /**
+     * Measures validation of a bean with a four level class hierarchy and a nested bean.
+     */
+    @Test
+    @PerfTest(invocations = 100000)
+    @Required(throughput = 10000)
+    public void performanceTestValidateDeep() {
+        assertEquals(0, VALIDATOR.validate(DEEP_ENTITY).size());
+    }
+
+    /**
+     * Measures validation of a bean holding collections of 50 nested beans and 50 strings.
+     */
+    @Test
+    @PerfTest(invocations = 10000)
+    @Required(throughput = 500)
+    public void performanceTestValidateCollection() {
+        assertEquals(0, VALIDATOR.validate(COLLECTION_ENTITY).size());
+    }
+
+    /**
+     * Measures validation of constraints with a target path into a nested bean.
+     */
+    @Test
+    @PerfTest(invocations = 100000)
+    @Required(throughput = 20000)
+    public void performanceTestValidateTarget() {
+        assertEquals(0, VALIDATOR.validate(TARGET_ENTITY).size());
+    }
+}
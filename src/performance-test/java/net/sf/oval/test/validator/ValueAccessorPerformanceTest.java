@@ -0,0 +1,211 @@
+package net.sf.oval.test.validator;
+
+import static org.junit.Assert.assertEquals;
+
+import net.sf.oval.Validator;
+import net.sf.oval.accessor.ValueAccessorFactoryMethodHandleImpl;
+import net.sf.oval.accessor.ValueAccessorFactoryReflectionImpl;
+import net.sf.oval.constraint.Min;
+import net.sf.oval.constraint.NotNull;
+import org.databene.contiperf.PerfTest;
+import org.databene.contiperf.Required;
+import org.databene.contiperf.junit.ContiPerfRule;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+
+/**
+ * Compares the reflection based and the method handle based value accessors
+ * by validating a bean with 50 constrained fields.
+ *
+ * @author mase
+ * @since 1.85
+ */
+public class ValueAccessorPerformanceTest {
+
+    protected static class TestEntity
+    {
+        @NotNull
+        public String name00 = "name";
+
+        @NotNull
+        public String name01 = "name";
+
+        @NotNull
+        public String name02 = "name";
+
+        @NotNull
+        public String name03 = "name";
+
+        @NotNull
+        public String name04 = "name";
+
+        @NotNull
+        public String name05 = "name";
+
+        @NotNull
+        public String name06 = "name";
+
+        @NotNull
+        public String name07 = "name";
+
+        @NotNull
+        public String name08 = "name";
+
+        @NotNull
+        public String name09 = "name";
+
+        @NotNull
+        public String name10 = "name";
+
+        @NotNull
+        public String name11 = "name";
+
+        @NotNull
+        public String name12 = "name";
+
+        @NotNull
+        public String name13 = "name";
+
+        @NotNull
+        public String name14 = "name";
+
+        @NotNull
+        public String name15 = "name";
+
+        @NotNull
+        public String name16 = "name";
+
+        @NotNull
+        public String name17 = "name";
+
+        @NotNull
+        public String name18 = "name";
+
+        @NotNull
+        public String name19 = "name";
+
+        @NotNull
+        public String name20 = "name";
+
+        @NotNull
+        public String name21 = "name";
+
+        @NotNull
+        public String name22 = "name";
+
+        @NotNull
+        public String name23 = "name";
+
+        @NotNull
+        public String name24 = "name";
+
+        @Min(0)
+        public int count00 = 0;
+
+        @Min(0)
+        public int count01 = 1;
+
+        @Min(0)
+        public int count02 = 2;
+
+        @Min(0)
+        public int count03 = 3;
+
+        @Min(0)
+        public int count04 = 4;
+
+        @Min(0)
+        public int count05 = 5;
+
+        @Min(0)
+        public int count06 = 6;
+
+        @Min(0)
+        public int count07 = 7;
+
+        @Min(0)
+        public int count08 = 8;
+
+        @Min(0)
+        public int count09 = 9;
+
+        @Min(0)
+        public int count10 = 10;
+
+        @Min(0)
+        public int count11 = 11;
+
+        @Min(0)
+        public int count12 = 12;
+
+        @Min(0)
+        public int count13 = 13;
+
+        @Min(0)
+        public int count14 = 14;
+
+        @Min(0)
+        public int count15 = 15;
+
+        @Min(0)
+        public int count16 = 16;
+
+        @Min(0)
+        public int count17 = 17;
+
+        @Min(0)
+        public int count18 = 18;
+
+        @Min(0)
+        public int count19 = 19;
+
+        @Min(0)
+        public int count20 = 20;
+
+        @Min(0)
+        public int count21 = 21;
+
+        @Min(0)
+        public int count22 = 22;
+
+        @Min(0)
+        public int count23 = 23;
+
+        @Min(0)
+        public int count24 = 24;
+    }
+
+    private static final Validator REFLECTION_VALIDATOR = new Validator();
+    private static final Validator METHOD_HANDLE_VALIDATOR = new Validator();
+    private static final TestEntity ENTITY = new TestEntity();
+
+    @Rule
+    public ContiPerfRule performanceRule = new ContiPerfRule();
+
+    @BeforeClass
+    public static void setup() {
+        REFLECTION_VALIDATOR.setValueAccessorFactory(new ValueAccessorFactoryReflectionImpl());
+        METHOD_HANDLE_VALIDATOR.setValueAccessorFactory(new ValueAccessorFactoryMethodHandleImpl());
+    }
+
+    /**
+     * Measures validation of the 50 field bean using reflective field access.
+     */
+    @Test
+    @PerfTest(invocations = 50000)
+    @Required(throughput = 5000)
+    public void performanceTestReflectionAccessors() {
+        assertEquals(0, REFLECTION_VALIDATOR.validate(ENTITY).size());
+    }
+
+    /**
+     * Measures validation of the 50 field bean using method handle based field access.
+     */
+    @Test
+    @PerfTest(invocations = 50000)
+    @Required(throughput = 5000)
+    public void performanceTestMethodHandleAccessors() {
+        assertEquals(0, METHOD_HANDLE_VALIDATOR.validate(ENTITY).size());
+    }
+}
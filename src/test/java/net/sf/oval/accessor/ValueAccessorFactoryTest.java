@@ -0,0 +1,142 @@
+package net.sf.oval.accessor;
+
+import net.sf.oval.Validator;
+import net.sf.oval.context.FieldContext;
+import net.sf.oval.exception.InvokingMethodFailedException;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Verifies functionality of the {@code ValueAccessorFactory} implementations.
+ *
+ * @author mase
+ * @since 1.85
+ */
+public class ValueAccessorFactoryTest {
+
+    private static class TestEntity {
+        private static String staticName = "static";
+
+        private String name = "name";
+        private int count = 42;
+
+        private static String getStaticName() {
+            return staticName;
+        }
+
+        private String getName() {
+            return name;
+        }
+
+        private int getCount() {
+            return count;
+        }
+
+        public String getFailing() {
+            throw new IllegalStateException();
+        }
+    }
+
+    private final ValueAccessorFactory[] factories = {new ValueAccessorFactoryReflectionImpl(),
+            new ValueAccessorFactoryMethodHandleImpl()};
+
+    /**
+     * Verifies private instance fields including primitive ones are read
+     */
+    @Test
+    public void testFieldAccessor() throws Exception {
+        final TestEntity entity = new TestEntity();
+        for (final ValueAccessorFactory factory : factories) {
+            assertEquals("name", factory.createFieldAccessor(TestEntity.class.getDeclaredField("name")).getValue(entity));
+            assertEquals(42, factory.createFieldAccessor(TestEntity.class.getDeclaredField("count")).getValue(entity));
+        }
+    }
+
+    /**
+     * Verifies static fields are read ignoring the passed target
+     */
+    @Test
+    public void testStaticFieldAccessor() throws Exception {
+        for (final ValueAccessorFactory factory : factories) {
+            final ValueAccessor accessor = factory.createFieldAccessor(TestEntity.class.getDeclaredField("staticName"));
+            assertEquals("static", accessor.getValue(null));
+            assertEquals("static", accessor.getValue(new TestEntity()));
+        }
+    }
+
+    /**
+     * Verifies private getters including ones returning primitives are invoked
+     */
+    @Test
+    public void testGetterAccessor() throws Exception {
+        final TestEntity entity = new TestEntity();
+        entity.name = null;
+        for (final ValueAccessorFactory factory : factories) {
+            assertNull(factory.createGetterAccessor(TestEntity.class.getDeclaredMethod("getName")).getValue(entity));
+            assertEquals(42, factory.createGetterAccessor(TestEntity.class.getDeclaredMethod("getCount")).getValue(entity));
+            assertEquals("static", factory.createGetterAccessor(TestEntity.class.getDeclaredMethod("getStaticName")).getValue(null));
+        }
+    }
+
+    /**
+     * Verifies exceptions thrown by the getter are wrapped in an {@code InvokingMethodFailedException}
+     */
+    @Test
+    public void testGetterAccessorFailing() throws Exception {
+        for (final ValueAccessorFactory factory : factories) {
+            try {
+                factory.createGetterAccessor(TestEntity.class.getDeclaredMethod("getFailing")).getValue(new TestEntity());
+                throw new AssertionError("InvokingMethodFailedException expected");
+            } catch (final InvokingMethodFailedException ex) {
+                // expected
+            }
+        }
+    }
+
+    private static class CountingFactory implements ValueAccessorFactory {
+        private final AtomicInteger created = new AtomicInteger();
+
+        public ValueAccessor createFieldAccessor(Field field) {
+            created.incrementAndGet();
+            return new ValueAccessorFactoryReflectionImpl().createFieldAccessor(field);
+        }
+
+        public ValueAccessor createGetterAccessor(Method getter) {
+            created.incrementAndGet();
+            return new ValueAccessorFactoryReflectionImpl().createGetterAccessor(getter);
+        }
+    }
+
+    private static class TestValidator extends Validator {
+        Object resolve(Field field, Object validatedObject) {
+            return resolveValue(new FieldContext(field), validatedObject);
+        }
+    }
+
+    /**
+     * Verifies the validator creates an accessor once per field and factory
+     */
+    @Test
+    public void testValidatorAccessorCache() throws Exception {
+        TestValidator validator = new TestValidator();
+        Field name = TestEntity.class.getDeclaredField("name");
+
+        CountingFactory first = new CountingFactory();
+        validator.setValueAccessorFactory(first);
+        assertEquals("name", validator.resolve(name, new TestEntity()));
+        assertEquals("name", validator.resolve(name, new TestEntity()));
+        assertEquals(1, first.created.get());
+
+        CountingFactory second = new CountingFactory();
+        validator.setValueAccessorFactory(second);
+        assertEquals("name", validator.resolve(name, new TestEntity()));
+        assertEquals(1, first.created.get());
+        assertEquals(1, second.created.get());
+    }
+}
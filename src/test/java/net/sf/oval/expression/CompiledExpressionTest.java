@@ -0,0 +1,261 @@
+package net.sf.oval.expression;
+
+import net.sf.oval.Validator;
+import net.sf.oval.constraint.Assert;
+import net.sf.oval.exception.ExpressionEvaluationException;
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Verifies functionality of {@code CompilingExpressionLanguage.compile(String, String...)}.
+ *
+ * @author mase
+ * @since 1.85
+ */
+public class CompiledExpressionTest {
+
+    private static final String[] NAMES = {"_value", "_this"};
+
+    public static class Person {
+        private final String name;
+
+        public Person(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    private void assertCompiledExpression(CompilingExpressionLanguage el, String nullCheck, String propertyCheck) {
+        CompiledExpression compiled = el.compile(nullCheck, NAMES);
+        assertTrue(compiled.evaluateAsBoolean(new Object[]{"value", null}));
+        assertFalse(compiled.evaluateAsBoolean(new Object[]{null, null}));
+        assertEquals(nullCheck, compiled.getExpression());
+        assertEquals(2, compiled.getVariableCount());
+        assertTrue(compiled.isCompiledFrom(el, nullCheck, NAMES));
+        assertFalse(compiled.isCompiledFrom(el, propertyCheck, NAMES));
+        assertFalse(compiled.isCompiledFrom(el, nullCheck, new String[]{"_this", "_value"}));
+
+        compiled = el.compile(propertyCheck, NAMES);
+        assertTrue(compiled.evaluateAsBoolean(new Object[]{"value", new Person("Mike")}));
+        assertFalse(compiled.evaluateAsBoolean(new Object[]{"value", new Person("Al")}));
+    }
+
+    @Test
+    public void testBeanShell() {
+        assertCompiledExpression(new ExpressionLanguageBeanShellImpl(), "_value != null", "_this.getName().length() > 3");
+    }
+
+    /**
+     * Verifies an expression evaluated with alternating variable names is prepared once per set of names
+     */
+    @Test
+    public void testBeanShellAlternatingVariables() {
+        ExpressionLanguageBeanShellImpl el = new ExpressionLanguageBeanShellImpl();
+        String expression = "global.namespace.getMethodNames().length";
+        Map<String, Object> x = Collections.<String, Object>singletonMap("x", 1);
+        Map<String, Object> y = Collections.<String, Object>singletonMap("y", 1);
+
+        el.evaluate(expression, x);
+        int methods = ((Number) el.evaluate(expression, y)).intValue();
+        for (int i = 0; i < 3; i++) {
+            assertEquals(methods, ((Number) el.evaluate(expression, x)).intValue());
+            assertEquals(methods, ((Number) el.evaluate(expression, y)).intValue());
+        }
+    }
+
+    @Test
+    public void testJavaScript() {
+        assertCompiledExpression(new ExpressionLanguageJavaScriptImpl(), "_value != null", "_this.name.length() > 3");
+    }
+
+    @Test
+    public void testJEXL() {
+        assertCompiledExpression(new ExpressionLanguageJEXLImpl(), "_value != null", "_this.name.length() > 3");
+    }
+
+    @Test
+    public void testMVEL() {
+        assertCompiledExpression(new ExpressionLanguageMVELImpl(), "_value != null", "_this.name.length() > 3");
+    }
+
+    @Test
+    public void testOGNL() {
+        assertCompiledExpression(new ExpressionLanguageOGNLImpl(), "_value != null", "_this.name.length() > 3");
+    }
+
+    /**
+     * Verifies variables declared by an expression do not leak into the slots or into later evaluations
+     */
+    @Test
+    public void testLocalVariables() {
+        CompiledExpression compiled = new ExpressionLanguageMVELImpl().compile("x = _value * 2; x + 1", NAMES);
+        assertEquals(7, compiled.evaluate(new Object[]{3, null}));
+        assertEquals(9, compiled.evaluate(new Object[]{4, null}));
+
+        compiled = new ExpressionLanguageJEXLImpl().compile("x = _value * 2", NAMES);
+        assertEquals(6, compiled.evaluate(new Object[]{3, null}));
+    }
+
+    /**
+     * Verifies an expression can be evaluated while an evaluation of the same expression is in progress
+     */
+    @Test
+    public void testReentrantEvaluation() {
+        final CompiledExpression compiled = new ExpressionLanguageOGNLImpl().compile("_this.run(_value)", NAMES);
+        final AtomicInteger depth = new AtomicInteger();
+        class Recursion {
+            public int run(int value) {
+                depth.incrementAndGet();
+                if (value == 0) {
+                    return 0;
+                }
+                return (Integer) compiled.evaluate(new Object[]{value - 1, this}) + value;
+            }
+        }
+        assertEquals(6, compiled.evaluate(new Object[]{3, new Recursion()}));
+        assertEquals(4, depth.get());
+    }
+
+    /**
+     * Verifies variables declared by a JavaScript expression are not visible to later evaluations and the shared
+     * standard objects cannot be modified
+     */
+    @Test
+    public void testJavaScriptScopeIsolation() {
+        CompilingExpressionLanguage el = new ExpressionLanguageJavaScriptImpl();
+        CompiledExpression declaring = el.compile("var leaked = typeof leaked; leaked", NAMES);
+        assertEquals("undefined", declaring.evaluate(new Object[]{null, null}));
+        assertEquals("undefined", declaring.evaluate(new Object[]{null, null}));
+
+        try {
+            el.compile("Math.max = null", NAMES).evaluate(new Object[]{null, null});
+            fail();
+        } catch (ExpressionEvaluationException ex) {
+            // expected, the standard objects are sealed
+        }
+        assertEquals(2.0, ((Number) el.compile("Math.max(1, 2)", NAMES).evaluate(new Object[]{null, null})).doubleValue(), 0);
+    }
+
+    /**
+     * Verifies a JavaScript expression evaluated by multiple threads sees the values of its own thread
+     */
+    @Test
+    public void testJavaScriptConcurrentEvaluation() throws InterruptedException {
+        final CompiledExpression compiled = new ExpressionLanguageJavaScriptImpl().compile("_value + _this", NAMES);
+        final AtomicInteger failures = new AtomicInteger();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            final String prefix = "thread" + t;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 2000; i++) {
+                        if (!(prefix + i).equals(String.valueOf(compiled.evaluate(new Object[]{prefix, i})))) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, failures.get());
+    }
+
+    public static class JavaScriptRecursion {
+        private final CompiledExpression compiled;
+
+        JavaScriptRecursion(CompiledExpression compiled) {
+            this.compiled = compiled;
+        }
+
+        public int run(int value) {
+            assertNotNull(Context.getCurrentContext());
+            return value == 0 ? 0 : ((Number) compiled.evaluate(new Object[]{value - 1, this})).intValue() + value;
+        }
+    }
+
+    /**
+     * Verifies the Rhino context is exited after each evaluation, also after nested evaluations, and a context
+     * entered by other code is used as is
+     */
+    @Test
+    public void testJavaScriptContext() {
+        CompiledExpression compiled = new ExpressionLanguageJavaScriptImpl().compile("_this.run(_value)", NAMES);
+        JavaScriptRecursion recursion = new JavaScriptRecursion(compiled);
+        assertEquals(6, ((Number) compiled.evaluate(new Object[]{3, recursion})).intValue());
+        assertNull(Context.getCurrentContext());
+
+        Context foreign = Context.enter();
+        try {
+            assertEquals(6, ((Number) compiled.evaluate(new Object[]{3, recursion})).intValue());
+            assertSame(foreign, Context.getCurrentContext());
+        } finally {
+            Context.exit();
+        }
+        assertNull(Context.getCurrentContext());
+        assertEquals(0, ((Number) compiled.evaluate(new Object[]{0, recursion})).intValue());
+    }
+
+    @Test
+    public void testInvalidExpression() {
+        try {
+            new ExpressionLanguageMVELImpl().compile("_value != ", NAMES);
+            fail();
+        } catch (ExpressionEvaluationException ex) {
+            // expected
+        }
+    }
+
+    /**
+     * An expression language implementing only the methods of {@code ExpressionLanguage}
+     */
+    public static class PlainExpressionLanguage implements ExpressionLanguage {
+        public Object evaluate(String expression, Map<String, ?> values) {
+            return values.get(expression) != null;
+        }
+
+        public boolean evaluateAsBoolean(String expression, Map<String, ?> values) {
+            return (Boolean) evaluate(expression, values);
+        }
+    }
+
+    public static class PlainEntity {
+        @Assert(expr = "_value", lang = "plain")
+        public String name;
+    }
+
+    /**
+     * Verifies expression languages without compilation support are evaluated with a map of the values
+     */
+    @Test
+    public void testPlainExpressionLanguage() {
+        Validator validator = new Validator();
+        validator.getExpressionLanguageRegistry().registerExpressionLanguage("plain", new PlainExpressionLanguage());
+
+        PlainEntity entity = new PlainEntity();
+        assertEquals(1, validator.validate(entity).size());
+        entity.name = "Mike";
+        assertEquals(0, validator.validate(entity).size());
+
+        CompiledExpression compiled = CompiledExpression.compile(new PlainExpressionLanguage(), "_this", NAMES);
+        assertTrue(compiled.evaluateAsBoolean(new Object[]{null, "value"}));
+    }
+}
@@ -0,0 +1,258 @@
+package net.sf.oval.expression;
+
+import net.sf.oval.exception.ExpressionEvaluationException;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Verifies functionality of {@code ExpressionLanguageOValImpl}.
+ *
+ * @author mase
+ * @since 1.85
+ */
+public class ExpressionLanguageOValImplTest {
+
+    private static final String[] NAMES = {"_value", "_this"};
+
+    private final ExpressionLanguageOValImpl el = new ExpressionLanguageOValImpl();
+
+    public static class Person {
+        private final String name;
+        public boolean active;
+        private Person manager;
+
+        public Person(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Person getManager() {
+            return manager;
+        }
+
+        public String greet(String greeting, int times) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < times; i++) {
+                sb.append(greeting);
+            }
+            return sb.append(' ').append(name).toString();
+        }
+    }
+
+    public static class Overloads {
+        public String describe(int value) {
+            return "int";
+        }
+
+        public String describe(long value) {
+            return "long";
+        }
+
+        public String describe(double value) {
+            return "double";
+        }
+
+        public String describe(Object value) {
+            return "Object";
+        }
+
+        public String describe(String value) {
+            return "String";
+        }
+
+        public long widen(long value) {
+            return value;
+        }
+
+        public double widenToDouble(double value) {
+            return value;
+        }
+
+        public BigDecimal widenToBigDecimal(BigDecimal value) {
+            return value;
+        }
+
+        public int narrow(int value) {
+            return value;
+        }
+
+        public String ambiguous(Serializable value) {
+            return "Serializable";
+        }
+
+        public String ambiguous(Comparable<?> value) {
+            return "Comparable";
+        }
+    }
+
+    private Object eval(String expression, Object value, Object _this) {
+        return el.compile(expression, NAMES).evaluate(new Object[]{value, _this});
+    }
+
+    private boolean test(String expression, Object value, Object _this) {
+        return el.compile(expression, NAMES).evaluateAsBoolean(new Object[]{value, _this});
+    }
+
+    @Test
+    public void testLiterals() {
+        assertNull(eval("null", null, null));
+        assertEquals(Boolean.TRUE, eval("true", null, null));
+        assertEquals(42, eval("42", null, null));
+        assertEquals(42L, eval("42L", null, null));
+        assertEquals(1.5, eval("1.5", null, null));
+        assertEquals(-3, eval("-3", null, null));
+        assertEquals("it's", eval("'it\\'s'", null, null));
+        assertEquals("abc", eval("\"abc\"", null, null));
+    }
+
+    @Test
+    public void testOperators() {
+        assertEquals(7, eval("1 + 2 * 3", null, null));
+        assertEquals(9, eval("(1 + 2) * 3", null, null));
+        assertEquals(1, eval("7 % 3", null, null));
+        assertEquals(2.5, eval("5 / 2.0", null, null));
+        assertEquals("a1", eval("'a' + _value", 1, null));
+        assertEquals(new BigDecimal("3"), eval("_value + 1", new BigDecimal("2"), null));
+        assertEquals("yes", eval("_value > 1 ? 'yes' : 'no'", 2, null));
+
+        assertTrue(test("_value >= 2 && _value < 3", 2, null));
+        assertTrue(test("_value == 2", 2L, null));
+        assertTrue(test("_value == 2.0", new BigDecimal("2.00"), null));
+        assertTrue(test("_value != 'a'", "b", null));
+        assertTrue(test("_value < 'b'", "a", null));
+        assertTrue(test("!(_value <= 1) || false", 2, null));
+        assertFalse(test("_value == null", 2, null));
+        assertTrue(test("null == _value", null, null));
+    }
+
+    @Test
+    public void testPropertiesAndMethods() {
+        Person person = new Person("Mike");
+        person.active = true;
+
+        assertTrue(test("_this.active && _this.name.length() > 3", null, person));
+        assertEquals("Mike", eval("_this.name", null, person));
+        assertEquals("MIKE", eval("_this.name.toUpperCase()", null, person));
+        assertEquals("hihi Mike", eval("_this.greet('hi', 2)", null, person));
+        assertEquals("ik", eval("_value.substring(1, 3)", "Mike", null));
+        assertTrue(test("_this.manager == null || _this.manager.active", null, person));
+
+        List<String> list = Collections.unmodifiableList(Arrays.asList("a", "b"));
+        assertTrue(test("_value.size() == 2 && !_value.isEmpty() && _value[1] == 'b'", list, null));
+        assertEquals(3, eval("_value.length", new int[3], null));
+
+        Map<String, Object> map = new HashMap<String, Object>();
+        map.put("key", "value");
+        assertEquals("value", eval("_value.key", map, null));
+        assertEquals("value", eval("_value['key']", map, null));
+    }
+
+    /**
+     * Verifies members are resolved again if the class of the receiver changes
+     */
+    @Test
+    public void testPolymorphicReceiver() {
+        CompiledExpression compiled = el.compile("_value.size()", NAMES);
+        assertEquals(2, compiled.evaluate(new Object[]{Arrays.asList("a", "b"), null}));
+        assertEquals(1, compiled.evaluate(new Object[]{Collections.singleton("a"), null}));
+        assertEquals(0, compiled.evaluate(new Object[]{new HashMap<String, String>(), null}));
+    }
+
+    /**
+     * Verifies the most specific overload is chosen for the classes of the arguments
+     */
+    @Test
+    public void testOverloadResolution() {
+        Overloads overloads = new Overloads();
+        assertEquals("int", eval("_this.describe(1)", null, overloads));
+        assertEquals("long", eval("_this.describe(1L)", null, overloads));
+        assertEquals("double", eval("_this.describe(1.5)", null, overloads));
+        assertEquals("String", eval("_this.describe('a')", null, overloads));
+        assertEquals("String", eval("_this.describe(null)", null, overloads));
+        assertEquals("Object", eval("_this.describe(_value)", true, overloads));
+
+        List<String> list = new ArrayList<String>(Arrays.asList("a", "b", "c", "d"));
+        assertEquals("b", eval("_value.remove(1)", list, null));
+        assertEquals(Boolean.TRUE, eval("_value.remove('c')", list, null));
+        assertEquals(Arrays.asList("a", "d"), list);
+
+        // the overload is resolved again if the class of an argument changes
+        CompiledExpression compiled = el.compile("_this.describe(_value)", NAMES);
+        assertEquals("int", compiled.evaluate(new Object[]{1, overloads}));
+        assertEquals("String", compiled.evaluate(new Object[]{"a", overloads}));
+        assertEquals("int", compiled.evaluate(new Object[]{1, overloads}));
+
+        assertEvalFails("_this.ambiguous('a')", overloads, "ambiguous");
+    }
+
+    /**
+     * Verifies numbers are only converted to parameter types that can hold their value
+     */
+    @Test
+    public void testNumberConversions() {
+        Overloads overloads = new Overloads();
+        assertEquals(2L, eval("_this.widen(2)", null, overloads));
+        assertEquals(2.0, eval("_this.widenToDouble(2)", null, overloads));
+        assertEquals(BigDecimal.valueOf(2), eval("_this.widenToBigDecimal(2)", null, overloads));
+        assertEquals(2, eval("_this.narrow(_value)", (short) 2, overloads));
+
+        assertEvalFails("_this.narrow(2L)", overloads, "applicable parameter(s) not found");
+        assertEvalFails("_this.narrow(2.5)", overloads, "applicable parameter(s) not found");
+        assertEvalFails("_this.widen(2.0)", overloads, "applicable parameter(s) not found");
+    }
+
+    @Test
+    public void testEvaluateWithMap() {
+        Map<String, Object> values = new HashMap<String, Object>();
+        values.put("a", 1);
+        values.put("b", 2);
+        assertTrue(el.evaluateAsBoolean("a < b", values));
+        values.put("c", 3);
+        assertTrue(el.evaluateAsBoolean("a < b && b < c", values));
+    }
+
+    @Test
+    public void testErrors() {
+        assertFails("_value +", null, "Unexpected end of expression");
+        assertFails("_unknown != null", null, "Unknown variable '_unknown'");
+        assertFails("(_value", null, "Expected ')'");
+        assertFails("_value.missing", "x", "Property missing not found");
+        assertFails("_value.name", null, "Cannot read property name of null");
+        assertFails("_value", "x", "Expected a boolean value");
+    }
+
+    private void assertFails(String expression, Object value, String message) {
+        try {
+            test(expression, value, null);
+            fail();
+        } catch (ExpressionEvaluationException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().contains(message));
+        }
+    }
+
+    private void assertEvalFails(String expression, Object _this, String message) {
+        try {
+            eval(expression, null, _this);
+            fail();
+        } catch (ExpressionEvaluationException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().contains(message));
+        }
+    }
+}
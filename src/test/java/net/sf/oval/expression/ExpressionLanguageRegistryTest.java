@@ -0,0 +1,89 @@
+package net.sf.oval.expression;
+
+import net.sf.oval.exception.ExpressionLanguageNotAvailableException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Verifies functionality of {@code ExpressionLanguageRegistry}.
+ *
+ * @author mase
+ * @since 1.85
+ */
+public class ExpressionLanguageRegistryTest {
+
+    /**
+     * Verifies concurrent first requests for a language and its aliases share a single instance
+     */
+    @Test
+    public void testConcurrentInitialization() throws Exception {
+        final ExpressionLanguageRegistry registry = new ExpressionLanguageRegistry();
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<ExpressionLanguage>> results = new ArrayList<Future<ExpressionLanguage>>();
+            for (int i = 0; i < 16; i++) {
+                final String languageId = i % 2 == 0 ? "js" : "javascript";
+                results.add(executor.submit(new Callable<ExpressionLanguage>() {
+                    public ExpressionLanguage call() throws Exception {
+                        start.await();
+                        return registry.getExpressionLanguage(languageId);
+                    }
+                }));
+            }
+            start.countDown();
+
+            ExpressionLanguage el = results.get(0).get();
+            assertTrue(el instanceof ExpressionLanguageJavaScriptImpl);
+            for (Future<ExpressionLanguage> result : results) {
+                assertSame(el, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testUnavailableLanguage() {
+        ExpressionLanguageRegistry registry = new ExpressionLanguageRegistry();
+        for (int i = 0; i < 2; i++) {
+            try {
+                registry.getExpressionLanguage("no-such-language");
+                fail();
+            } catch (ExpressionLanguageNotAvailableException ex) {
+                // expected
+            }
+        }
+
+        // a language registered later is found nevertheless
+        ExpressionLanguage el = new ExpressionLanguageOValImpl();
+        registry.registerExpressionLanguage("no-such-language", el);
+        assertSame(el, registry.getExpressionLanguage("no-such-language"));
+    }
+
+    @Test
+    public void testEagerInitialization() {
+        ExpressionLanguageRegistry registry = new ExpressionLanguageRegistry();
+        registry.initializeExpressionLanguages("oval", "bsh");
+        assertTrue(registry.getExpressionLanguage("oval") instanceof ExpressionLanguageOValImpl);
+        assertSame(registry.getExpressionLanguage("bsh"), registry.getExpressionLanguage("beanshell"));
+
+        try {
+            registry.initializeExpressionLanguages("oval", "no-such-language");
+            fail();
+        } catch (ExpressionLanguageNotAvailableException ex) {
+            // expected
+        }
+    }
+}
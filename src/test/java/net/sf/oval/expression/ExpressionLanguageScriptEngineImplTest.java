@@ -0,0 +1,105 @@
+package net.sf.oval.expression;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies functionality of {@code ExpressionLanguageScriptEngineImpl}.
+ *
+ * @author mase
+ * @since 1.85
+ */
+public class ExpressionLanguageScriptEngineImplTest {
+
+    private static final String[] NAMES = {"_value", "_this"};
+
+    private static final int THREADS = 8;
+
+    private static final int EVALUATIONS = 2000;
+
+    /**
+     * Evaluates the expression concurrently and verifies each thread sees its own variable values
+     */
+    private void assertConcurrentEvaluation(final CompilingExpressionLanguage el, final String expression) throws Exception {
+        final CompiledExpression compiled = el.compile(expression, NAMES);
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            Future<?>[] results = new Future<?>[THREADS];
+            for (int t = 0; t < THREADS; t++) {
+                final String prefix = "thread" + t + "-";
+                results[t] = executor.submit(new Callable<Void>() {
+                    public Void call() throws Exception {
+                        start.await();
+                        for (int i = 0; i < EVALUATIONS; i++) {
+                            assertEquals(prefix + i, String.valueOf(compiled.evaluate(new Object[]{prefix, i})));
+                        }
+                        return null;
+                    }
+                });
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Verifies the JavaScript engine bundled with the JDK, if any, can be used concurrently
+     */
+    @Test
+    public void testBundledJavaScriptEngine() throws Exception {
+        ExpressionLanguageScriptEngineImpl el = ExpressionLanguageScriptEngineImpl.get("javascript");
+        Assume.assumeNotNull(el);
+        assertConcurrentEvaluation(el, "_value + _this");
+    }
+
+    /**
+     * Verifies an engine that is not thread-safe is used by one thread at a time
+     */
+    @Test
+    public void testThreadConfinedEngine() throws Exception {
+        ExpressionLanguageScriptEngineImpl el = ExpressionLanguageScriptEngineImpl.get("jexl2");
+        assertNotNull(el);
+        assertFalse(el.isEngineShared());
+        assertConcurrentEvaluation(el, "_value + _this");
+    }
+
+    /**
+     * Verifies a multi-threaded engine, whose script state is visible to other threads, is not shared
+     */
+    @Test
+    public void testMultiThreadedEngine() throws Exception {
+        ExpressionLanguageScriptEngineImpl el = ExpressionLanguageScriptEngineImpl.get("beanshell");
+        assertNotNull(el);
+        assertFalse(el.isEngineShared());
+        assertConcurrentEvaluation(el, "_value + _this");
+    }
+
+    /**
+     * Verifies variables declared by a script are not visible to later evaluations
+     */
+    @Test
+    public void testBindingsReuse() {
+        CompiledExpression compiled = ExpressionLanguageScriptEngineImpl.get("jexl2").compile("x = _value; _this", NAMES);
+        assertEquals(1, compiled.evaluate(new Object[]{"a", 1}));
+        assertEquals(2, compiled.evaluate(new Object[]{"b", 2}));
+
+        CompiledExpression other = ExpressionLanguageScriptEngineImpl.get("jexl2").compile("x == null", NAMES);
+        assertTrue(other.evaluateAsBoolean(new Object[]{null, null}));
+    }
+}
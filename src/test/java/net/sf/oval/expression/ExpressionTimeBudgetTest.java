@@ -0,0 +1,145 @@
+package net.sf.oval.expression;
+
+import net.sf.oval.ValidationOptions;
+import net.sf.oval.Validator;
+import net.sf.oval.constraint.Assert;
+import net.sf.oval.exception.ExpressionEvaluationTimeoutException;
+import net.sf.oval.exception.ValidationFailedException;
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Verifies functionality of {@code ExpressionTimeBudget}.
+ *
+ * @author mase
+ * @since 1.85
+ */
+public class ExpressionTimeBudgetTest {
+
+    public static class EndlessScript {
+        @Assert(expr = "while (true) {}; true", lang = "js")
+        public String name = "value";
+    }
+
+    public static class SlowMethods {
+        @Assert(expr = "_this.sleep(30)", lang = "oval")
+        public String first = "value";
+
+        @Assert(expr = "_this.sleep(30)", lang = "oval")
+        public String second = "value";
+
+        public boolean sleep(int millis) throws InterruptedException {
+            Thread.sleep(millis);
+            return true;
+        }
+    }
+
+    public static class SlowScript {
+        @Assert(expr = "_this.sleep(30)", lang = "js")
+        public String name = "value";
+
+        public boolean sleep(int millis) throws InterruptedException {
+            Thread.sleep(millis);
+            return true;
+        }
+    }
+
+    private static void assertTimeout(Validator validator, Object validatedObject, ValidationOptions options) {
+        try {
+            validator.validate(validatedObject, options);
+            fail();
+        } catch (ValidationFailedException ex) {
+            assertTrue(ex.getCause() instanceof ExpressionEvaluationTimeoutException);
+        }
+        assertFalse(ExpressionTimeBudget.isExceeded());
+    }
+
+    /**
+     * Verifies a JavaScript evaluation is aborted once it exceeds its budget
+     */
+    @Test
+    public void testEndlessJavaScript() {
+        Validator validator = new Validator();
+        validator.setExpressionTimeBudget(100, TimeUnit.MILLISECONDS);
+        long start = System.nanoTime();
+        assertTimeout(validator, new EndlessScript(), ValidationOptions.DEFAULT);
+        assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 5);
+    }
+
+    /**
+     * Verifies an evaluation that cannot be interrupted is reported once it returns
+     */
+    @Test
+    public void testExpressionOverrun() {
+        Validator validator = new Validator();
+        assertTimeout(validator, new SlowMethods(),
+                new ValidationOptions.Builder().expressionTimeBudget(10, TimeUnit.MILLISECONDS).build());
+
+        // the budget does not apply to later validations
+        assertEquals(0, validator.validate(new SlowMethods()).size());
+    }
+
+    /**
+     * Verifies a JavaScript expression is evaluated in a Rhino context entered by other code and an overrun is
+     * reported once the evaluation returns
+     */
+    @Test
+    public void testJavaScriptInForeignContext() {
+        Validator validator = new Validator();
+        Context.enter();
+        try {
+            assertEquals(0, validator.validate(new SlowScript()).size());
+            assertTimeout(validator, new SlowScript(),
+                    new ValidationOptions.Builder().expressionTimeBudget(10, TimeUnit.MILLISECONDS).build());
+        } finally {
+            Context.exit();
+        }
+    }
+
+    /**
+     * Verifies the budget of a validation cycle covers all its expression evaluations
+     */
+    @Test
+    public void testCycleBudget() {
+        Validator validator = new Validator();
+        validator.setTimeBudget(40, TimeUnit.MILLISECONDS);
+        assertEquals(0, validator.validate(new SlowMethods(),
+                new ValidationOptions.Builder().timeBudget(1, TimeUnit.SECONDS).build()).size());
+
+        try {
+            validator.validate(new SlowMethods());
+            fail();
+        } catch (ValidationFailedException ex) {
+            assertTrue(ex.getCause() instanceof ExpressionEvaluationTimeoutException);
+        }
+    }
+
+    /**
+     * Verifies a nested budget cannot extend the enclosing budget
+     */
+    @Test
+    public void testNestedBudget() {
+        ExpressionTimeBudget outer = ExpressionTimeBudget.apply(10, 0, TimeUnit.MILLISECONDS);
+        try {
+            ExpressionTimeBudget inner = ExpressionTimeBudget.apply(1, 0, TimeUnit.SECONDS);
+            try {
+                ExpressionTimeBudget.evaluateAsBoolean(new ExpressionLanguageOValImpl().compile("_this.sleep(30)", "_this"),
+                        new Object[]{new SlowMethods()});
+                fail();
+            } catch (ExpressionEvaluationTimeoutException ex) {
+                // expected
+            } finally {
+                ExpressionTimeBudget.restore(inner);
+            }
+        } finally {
+            ExpressionTimeBudget.restore(outer);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package net.sf.oval.internal;
+
+import net.sf.oval.accessor.ValueAccessorFactoryMethodHandleImpl;
+import net.sf.oval.context.FieldContext;
+import net.sf.oval.context.MethodReturnValueContext;
+import net.sf.oval.exception.InvalidConfigurationException;
+import net.sf.oval.ogn.ObjectGraphNavigationResult;
+import net.sf.oval.ogn.ObjectGraphNavigator;
+import net.sf.oval.ogn.ObjectGraphNavigatorDefaultImpl;
+import net.sf.oval.ogn.ObjectGraphNavigatorRegistry;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Verifies functionality of {@code CompiledTarget}.
+ *
+ * @author mase
+ * @since 1.85
+ */
+public class CompiledTargetTest {
+
+    public static class Holder {
+        private Object owner;
+
+        public Holder(Object owner) {
+            this.owner = owner;
+        }
+
+        public Object getOwner() {
+            return owner;
+        }
+    }
+
+    public static class Person {
+        private String name;
+
+        public Person(String name) {
+            this.name = name;
+        }
+    }
+
+    public static class Company {
+        private final String companyName;
+
+        public Company(String companyName) {
+            this.companyName = companyName;
+        }
+
+        public String getName() {
+            return companyName;
+        }
+    }
+
+    private static CompiledTarget compile(String target) {
+        return new CompiledTarget(target, new ObjectGraphNavigatorRegistry(), new ValueAccessorFactoryMethodHandleImpl());
+    }
+
+    /**
+     * Verifies a hop resolves the member per runtime class of the navigated object
+     */
+    @Test
+    public void testPolymorphicPath() {
+        CompiledTarget target = compile("owner.name");
+
+        Person person = new Person("Mike");
+        CompiledTarget.Result result = target.navigateTo(new Holder(person));
+        assertSame(person, result.parent);
+        assertEquals("Mike", result.value);
+        assertTrue(result.context instanceof FieldContext);
+
+        result = target.navigateTo(new Holder(new Company("ACME")));
+        assertEquals("ACME", result.value);
+        assertTrue(result.context instanceof MethodReturnValueContext);
+
+        // the cached member of the first class is still used
+        assertEquals("Al", target.navigateTo(new Holder(new Person("Al"))).value);
+    }
+
+    @Test
+    public void testIncompletePath() {
+        assertNull(compile("owner.name").navigateTo(new Holder(null)));
+    }
+
+    @Test
+    public void testInvalidPath() {
+        CompiledTarget target = compile("owner.foobar");
+        for (int i = 0; i < 2; i++) {
+            try {
+                target.navigateTo(new Holder(new Person("Mike")));
+                fail();
+            } catch (InvalidConfigurationException ex) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testJXPath() {
+        CompiledTarget.Result result = compile("jxpath:owner/name").navigateTo(new Holder(new Company("ACME")));
+        assertEquals("ACME", result.value);
+        assertTrue(result.context instanceof MethodReturnValueContext);
+    }
+
+    /**
+     * Verifies navigators registered after the target was compiled are used
+     */
+    @Test
+    public void testNavigatorRegisteredLater() throws Exception {
+        ObjectGraphNavigatorRegistry registry = new ObjectGraphNavigatorRegistry();
+        CompiledTarget target = new CompiledTarget("owner.name", registry, new ValueAccessorFactoryMethodHandleImpl());
+        Holder holder = new Holder(new Person("Mike"));
+        assertEquals("Mike", target.navigateTo(holder).value);
+
+        final Person substitute = new Person("Al");
+        registry.registerObjectGraphNavigator("", new ObjectGraphNavigator() {
+            public ObjectGraphNavigationResult navigateTo(Object root, String path) {
+                try {
+                    return new ObjectGraphNavigationResult(root, path, substitute, Person.class.getDeclaredField("name"), "Al");
+                } catch (NoSuchFieldException ex) {
+                    throw new AssertionError(ex);
+                }
+            }
+        });
+        CompiledTarget.Result result = target.navigateTo(holder);
+        assertSame(substitute, result.parent);
+        assertEquals("Al", result.value);
+
+        registry.registerObjectGraphNavigator("", new ObjectGraphNavigatorDefaultImpl());
+        assertEquals("Mike", target.navigateTo(holder).value);
+    }
+}
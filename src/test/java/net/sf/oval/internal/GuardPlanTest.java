@@ -0,0 +1,113 @@
+package net.sf.oval.internal;
+
+import net.sf.oval.constraint.NotNullCheck;
+import net.sf.oval.guard.ParameterNameResolverEnumerationImpl;
+import org.junit.Test;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies functionality of {@code GuardPlan}.
+ *
+ * @author mase
+ * @since 1.85
+ */
+public class GuardPlanTest {
+
+    public static class Service {
+        public Service(String name) {
+        }
+
+        public String getName() {
+            return null;
+        }
+
+        public void setName(String name) {
+        }
+
+        protected void reset() {
+        }
+    }
+
+    private static ClassChecks newClassChecks() {
+        return new ClassChecks(Service.class, new ParameterNameResolverEnumerationImpl());
+    }
+
+    @Test
+    public void testUnconstrainedMethod() throws Exception {
+        ClassChecks cc = newClassChecks();
+        GuardPlan plan = new GuardPlan(cc, Service.class.getMethod("setName", String.class));
+        assertTrue(plan.isEmpty);
+        assertTrue(plan.isInvariantsApplicable);
+
+        assertFalse(new GuardPlan(cc, Service.class.getDeclaredMethod("reset")).isInvariantsApplicable);
+    }
+
+    @Test
+    public void testConstrainedMethod() throws Exception {
+        ClassChecks cc = newClassChecks();
+        Method setter = Service.class.getMethod("setName", String.class);
+        Method getter = Service.class.getMethod("getName");
+        cc.addMethodParameterChecks(setter, 0, new NotNullCheck());
+        cc.addMethodReturnValueChecks(getter, false, new NotNullCheck());
+        cc.addCheckInvariantsPre(setter);
+
+        GuardPlan plan = new GuardPlan(cc, setter);
+        assertFalse(plan.isEmpty);
+        assertTrue(plan.hasParameterChecks);
+        assertTrue(plan.isCheckInvariantsPre);
+        assertFalse(plan.hasReturnValueChecks);
+
+        plan = new GuardPlan(cc, getter);
+        assertTrue(plan.hasReturnValueChecks);
+        assertFalse(plan.hasParameterChecks);
+    }
+
+    @Test
+    public void testConstructor() throws Exception {
+        ClassChecks cc = newClassChecks();
+        Constructor<Service> ctor = Service.class.getConstructor(String.class);
+        assertTrue(new GuardPlan(cc, ctor).isEmpty);
+
+        cc.addConstructorParameterChecks(ctor, 0, new NotNullCheck());
+        cc.addCheckInvariantsPost(ctor);
+        GuardPlan plan = new GuardPlan(cc, ctor);
+        assertTrue(plan.hasParameterChecks);
+        assertTrue(plan.isCheckInvariantsPost);
+    }
+
+    /**
+     * Verifies a cached plan becomes stale once the method level checks are modified
+     */
+    @Test
+    public void testStalePlan() throws Exception {
+        ClassChecks cc = newClassChecks();
+        Method setter = Service.class.getMethod("setName", String.class);
+        assertNull(cc.getGuardPlan(setter));
+
+        GuardPlan plan = new GuardPlan(cc, setter);
+        cc.setGuardPlan(plan);
+        assertSame(plan, cc.getGuardPlan(setter));
+
+        // field and object level checks do not affect the plan
+        cc.addObjectChecks(new NotNullCheck());
+        assertSame(plan, cc.getGuardPlan(setter));
+
+        NotNullCheck check = new NotNullCheck();
+        cc.addMethodParameterChecks(setter, 0, check);
+        assertNull(cc.getGuardPlan(setter));
+
+        cc.setGuardPlan(new GuardPlan(cc, setter));
+        assertNotNull(cc.getGuardPlan(setter));
+        cc.removeMethodParameterChecks(setter, 0, check);
+        assertNull(cc.getGuardPlan(setter));
+        assertTrue(new GuardPlan(cc, setter).isEmpty);
+    }
+}
@@ -0,0 +1,84 @@
+package net.sf.oval.internal;
+
+import net.sf.oval.context.FieldContext;
+import net.sf.oval.localization.message.ResourceBundleMessageResolver;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.ListResourceBundle;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Verifies functionality of {@code MessageRenderer}.
+ *
+ * @author mase
+ * @since 1.85
+ */
+public class MessageRendererTest {
+
+    public static class TestMessages extends ListResourceBundle {
+        @Override
+        protected Object[][] getContents() {
+            return new Object[][]{{"MessageRendererTest.message", "{name} must be at most {max}"}};
+        }
+
+        @Override
+        public Locale getLocale() {
+            return Locale.getDefault();
+        }
+    }
+
+    private String name;
+
+    private Map<String, Object> values(Object... keyValues) {
+        Map<String, Object> values = new LinkedHashMap<String, Object>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            values.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return values;
+    }
+
+    /**
+     * Verifies place holders are replaced and unknown place holders are kept
+     */
+    @Test
+    public void testRenderMessage() {
+        assertEquals("between 1 and 10", MessageRenderer.renderMessage("between {min} and {max}", values("min", 1, "max", 10)));
+        assertEquals("{context} is 1", MessageRenderer.renderMessage("{context} is {min}", values("min", 1)));
+        assertEquals("{1}", MessageRenderer.renderMessage("{{min}}", values("min", 1)));
+        assertEquals("null { open", MessageRenderer.renderMessage("{min} { open", values("min", null)));
+        assertEquals("no place holders", MessageRenderer.renderMessage("no place holders", null));
+    }
+
+    /**
+     * Verifies the context and the invalid value are rendered in the same pass as the message values
+     */
+    @Test
+    public void testRenderMessageWithContext() throws NoSuchFieldException {
+        FieldContext context = new FieldContext(MessageRendererTest.class.getDeclaredField("name"));
+        assertEquals(MessageRendererTest.class.getName() + ".name is abc but must be 10",
+                MessageRenderer.renderMessage("{context} is {invalidValue} but must be {max}", values("max", 10), context, "abc"));
+    }
+
+    /**
+     * Verifies templates are re-resolved after message bundles have been added or removed
+     */
+    @Test
+    public void testTemplateCacheInvalidation() {
+        String key = "MessageRendererTest.message";
+        assertEquals(key, MessageRenderer.renderMessage(key, values("name", "x", "max", 5)));
+
+        ResourceBundle bundle = new TestMessages();
+        ResourceBundleMessageResolver.INSTANCE.addMessageBundle(bundle);
+        try {
+            assertEquals("x must be at most 5", MessageRenderer.renderMessage(key, values("name", "x", "max", 5)));
+        } finally {
+            ResourceBundleMessageResolver.INSTANCE.removeMessageBundle(bundle);
+        }
+        assertEquals(key, MessageRenderer.renderMessage(key, values("name", "x", "max", 5)));
+    }
+}
@@ -0,0 +1,59 @@
+package net.sf.oval.internal;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Verifies functionality of {@code MethodBindings}.
+ *
+ * @author mase
+ * @since 1.85
+ */
+public class MethodBindingsTest {
+
+    @Test
+    public void testVariableNames() {
+        MethodBindings bindings = new MethodBindings(new String[]{"name", "age"});
+        assertArrayEquals(new String[]{"_this", "_args", "name", "age"}, bindings.preVariableNames);
+        assertArrayEquals(new String[]{"_this", "_args", "name", "age", "_returns", "_old"}, bindings.postVariableNames);
+    }
+
+    @Test
+    public void testFrames() {
+        MethodBindings bindings = new MethodBindings(new String[]{"name"});
+        Object validatedObject = new Object();
+        Object[] args = {"Mike"};
+
+        Object[] frame = bindings.acquirePostFrame(validatedObject, args, "result");
+        bindings.setOld(frame, "old");
+        assertArrayEquals(new Object[]{validatedObject, args, "Mike", "result", "old"}, frame);
+        MethodBindings.releaseFrame(frame);
+        assertNull(frame[0]);
+
+        // a released frame is reused by the next method call of the thread
+        assertSame(frame, bindings.acquirePostFrame(validatedObject, args, null));
+        MethodBindings.releaseFrame(frame);
+    }
+
+    /**
+     * Verifies nested method calls, e.g. of a method invoked by a condition, get their own frames
+     */
+    @Test
+    public void testNestedFrames() {
+        MethodBindings bindings = new MethodBindings(new String[0]);
+        Object outer = new Object();
+        Object[] outerFrame = bindings.acquirePreFrame(outer, new Object[0]);
+        Object[] innerFrame = bindings.acquirePreFrame(new Object(), new Object[0]);
+        assertNotSame(outerFrame, innerFrame);
+        MethodBindings.releaseFrame(innerFrame);
+
+        assertSame(outer, outerFrame[0]);
+        assertEquals(0, ((Object[]) outerFrame[1]).length);
+        MethodBindings.releaseFrame(outerFrame);
+    }
+}
@@ -0,0 +1,133 @@
+package net.sf.oval.internal.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies functionality of {@code ObjectCache}.
+ *
+ * @author mase
+ * @since 1.85
+ */
+public class ObjectCacheTest {
+
+    /**
+     * Verifies the least recently used entry is evicted once the cache is full
+     */
+    @Test
+    public void testLeastRecentlyUsedEviction() {
+        ObjectCache<String, String> cache = new ObjectCache<String, String>(2);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        assertEquals("A", cache.get("a"));
+
+        cache.put("c", "C");
+        assertEquals(2, cache.size());
+        assertTrue(cache.contains("a"));
+        assertFalse(cache.contains("b"));
+        assertTrue(cache.contains("c"));
+        assertEquals(1, cache.getEvictionCount());
+
+        // replacing an entry does not evict another one
+        cache.put("c", "C2");
+        assertEquals("C2", cache.get("c"));
+        assertEquals("A", cache.get("a"));
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    public void testStatistics() {
+        ObjectCache<String, String> cache = new ObjectCache<String, String>();
+        assertNull(cache.get("a"));
+        cache.put("a", "A");
+        assertEquals("A", cache.get("a"));
+        assertEquals("A", cache.get("a"));
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0, cache.getEvictionCount());
+    }
+
+    @Test
+    public void testPutIfAbsentAndRemove() {
+        ObjectCache<String, String> cache = new ObjectCache<String, String>(10, true);
+        assertNull(cache.putIfAbsent("a", "A"));
+        assertEquals("A", cache.putIfAbsent("a", "B"));
+        assertEquals("A", cache.get("a"));
+
+        cache.remove("a");
+        assertFalse(cache.contains("a"));
+        assertEquals(0, cache.size());
+
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.clear();
+        assertEquals(0, cache.size());
+        cache.put("c", "C");
+        assertEquals("C", cache.get("c"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxSize() {
+        new ObjectCache<String, String>(0);
+    }
+
+    /**
+     * Verifies the cache stays bounded and consistent when used by multiple threads
+     */
+    @Test
+    public void testConcurrentAccess() throws InterruptedException {
+        final ObjectCache<Integer, Integer> cache = new ObjectCache<Integer, Integer>(50);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 8; t++) {
+            final int seed = t;
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = 0; i < 20000; i++) {
+                            Integer key = (i * 31 + seed) % 200;
+                            Integer value = cache.get(key);
+                            if (value == null) {
+                                cache.put(key, key);
+                            } else if (!value.equals(key)) {
+                                throw new AssertionError("wrong value " + value + " for key " + key);
+                            }
+                            if (i % 1000 == 0) {
+                                cache.remove(key);
+                            }
+                        }
+                    } catch (Throwable ex) {
+                        failure.set(ex);
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(failure.get());
+        assertTrue(cache.size() <= 50);
+        assertEquals(8 * 20000, cache.getHitCount() + cache.getMissCount());
+
+        // the LRU list is still intact
+        for (int i = 0; i < 200; i++) {
+            cache.put(i, i);
+        }
+        assertEquals(50, cache.size());
+        for (int i = 150; i < 200; i++) {
+            assertTrue(cache.contains(i));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package net.sf.oval.internal.util;
+
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies functionality of {@code ReentrancyTracker}.
+ *
+ * @author mase
+ * @since 1.85
+ */
+public class ReentrancyTrackerTest {
+
+    @Test
+    public void testEnterExit() throws Exception {
+        ReentrancyTracker tracker = new ReentrancyTracker();
+        Object object = new Object();
+        Method method = Object.class.getMethod("toString");
+
+        assertTrue(tracker.enter(object, method));
+        assertFalse(tracker.enter(object, method));
+        // reflection returns a new but equal method instance
+        assertFalse(tracker.enter(object, Object.class.getMethod("toString")));
+        assertTrue(tracker.enter(object, Object.class.getMethod("hashCode")));
+        assertTrue(tracker.enter(new Object(), method));
+
+        tracker.exit();
+        tracker.exit();
+        assertTrue(tracker.isEntered(object, method));
+        tracker.exit();
+        assertFalse(tracker.isEntered(object, method));
+        assertTrue(tracker.enter(object, method));
+        tracker.exit();
+    }
+
+    /**
+     * Verifies objects are compared by identity, not by equality
+     */
+    @Test
+    public void testIdentity() {
+        ReentrancyTracker tracker = new ReentrancyTracker();
+        assertTrue(tracker.enter(new String("a"), "member"));
+        assertTrue(tracker.enter(new String("a"), "member"));
+        tracker.exit();
+        tracker.exit();
+    }
+
+    @Test
+    public void testDeepNesting() {
+        ReentrancyTracker tracker = new ReentrancyTracker();
+        Object[] objects = new Object[100];
+        for (int i = 0; i < objects.length; i++) {
+            objects[i] = new Object();
+            assertTrue(tracker.enter(objects[i], "member"));
+        }
+        for (Object object : objects) {
+            assertTrue(tracker.isEntered(object, "member"));
+        }
+        for (int i = 0; i < objects.length; i++) {
+            tracker.exit();
+        }
+        assertFalse(tracker.isEntered(objects[0], "member"));
+    }
+
+    /**
+     * Verifies the pairs entered by one thread are not visible to other threads
+     */
+    @Test
+    public void testThreadConfinement() throws Exception {
+        final ReentrancyTracker tracker = new ReentrancyTracker();
+        final Object object = new Object();
+        assertTrue(tracker.enter(object, "member"));
+
+        final AtomicBoolean entered = new AtomicBoolean();
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                entered.set(tracker.enter(object, "member"));
+                tracker.exit();
+            }
+        };
+        thread.start();
+        thread.join();
+        assertTrue(entered.get());
+        assertTrue(tracker.isEntered(object, "member"));
+        tracker.exit();
+    }
+}
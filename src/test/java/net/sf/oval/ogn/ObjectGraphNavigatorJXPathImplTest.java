@@ -0,0 +1,88 @@
+package net.sf.oval.ogn;
+
+import net.sf.oval.exception.InvalidConfigurationException;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Verifies functionality of {@code ObjectGraphNavigatorJXPathImpl}.
+ *
+ * @author mase
+ * @since 1.85
+ */
+public class ObjectGraphNavigatorJXPathImplTest {
+
+    public static class Address {
+        private String street;
+
+        public String getStreet() {
+            return street;
+        }
+
+        public void setStreet(String street) {
+            this.street = street;
+        }
+    }
+
+    public static class Person {
+        private String name;
+        private Address address;
+
+        public Address getAddress() {
+            return address;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * Verifies navigations reusing the context of the same root object see its current state
+     */
+    @Test
+    public void testSameRoot() {
+        ObjectGraphNavigator ogn = new ObjectGraphNavigatorJXPathImpl();
+        Person person = new Person();
+        person.name = "Mike";
+        assertNull(ogn.navigateTo(person, "address/street"));
+
+        person.address = new Address();
+        person.address.street = "Main Street";
+        ObjectGraphNavigationResult result = ogn.navigateTo(person, "address/street");
+        assertSame(person.address, result.targetParent);
+        assertEquals("Main Street", result.target);
+        assertEquals("street", ((Field) result.targetAccessor).getName());
+
+        assertEquals("Mike", ogn.navigateTo(person, "name").target);
+    }
+
+    @Test
+    public void testDifferentRoots() {
+        ObjectGraphNavigator ogn = new ObjectGraphNavigatorJXPathImpl();
+        for (int i = 0; i < 3; i++) {
+            Person person = new Person();
+            person.name = "Person" + i;
+            assertEquals("Person" + i, ogn.navigateTo(person, "name").target);
+        }
+    }
+
+    @Test
+    public void testInvalidPath() {
+        ObjectGraphNavigator ogn = new ObjectGraphNavigatorJXPathImpl();
+        for (int i = 0; i < 2; i++) {
+            try {
+                ogn.navigateTo(new Person(), "foobar");
+                fail();
+            } catch (InvalidConfigurationException ex) {
+                // expected
+            }
+        }
+    }
+}
@@ -83,8 +83,10 @@ public final class AllTests
 		suite.addTestSuite(net.sf.oval.test.guard.PrePostJEXLTest.class);
 		suite.addTestSuite(net.sf.oval.test.guard.PrePostMVELTest.class);
 		suite.addTestSuite(net.sf.oval.test.guard.PrePostOGNLTest.class);
+		suite.addTestSuite(net.sf.oval.test.guard.PrePostOValTest.class);
 		suite.addTestSuite(net.sf.oval.test.guard.PrePostRubyTest.class);
 		suite.addTestSuite(net.sf.oval.test.guard.PrePostValidateThisTest.class);
+		suite.addTestSuite(net.sf.oval.test.guard.PrePostVariableAssignmentTest.class);
 		suite.addTestSuite(net.sf.oval.test.guard.ProbeModeTest.class);
 		suite.addTestSuite(net.sf.oval.test.guard.StaticMethodsTest.class);
 		suite.addTestSuite(net.sf.oval.test.guard.XMLConfigurationTest.class);
@@ -133,6 +135,7 @@ public final class AllTests
 		suite.addTestSuite(net.sf.oval.test.validator.AssertJEXLTest.class);
 		suite.addTestSuite(net.sf.oval.test.validator.AssertMVELTest.class);
 		suite.addTestSuite(net.sf.oval.test.validator.AssertOGNLTest.class);
+		suite.addTestSuite(net.sf.oval.test.validator.AssertOValTest.class);
 		suite.addTestSuite(net.sf.oval.test.validator.AssertRubyTest.class);
 		suite.addTestSuite(net.sf.oval.test.validator.AssertValidTest.class);
 		suite.addTestSuite(net.sf.oval.test.validator.BeanValidationAnnotationsConfigurerTest.class);
@@ -152,6 +155,7 @@ public final class AllTests
 		suite.addTestSuite(net.sf.oval.test.validator.ObjectGraphTest.class);
 		suite.addTestSuite(net.sf.oval.test.validator.PrimitiveArrayTest.class);
 		suite.addTestSuite(net.sf.oval.test.validator.ProfilesTest.class);
+		suite.addTestSuite(net.sf.oval.test.validator.ResolveValueTest.class);
 		suite.addTestSuite(net.sf.oval.test.validator.SerializationTest.class);
 		suite.addTestSuite(net.sf.oval.test.validator.StaticFieldsAndGettersTest.class);
 		suite.addTestSuite(net.sf.oval.test.validator.TargetDefaultTest.class);
@@ -159,6 +163,7 @@ public final class AllTests
 		suite.addTestSuite(net.sf.oval.test.validator.ValidateClassWithoutConstraintsTest.class);
 		suite.addTestSuite(net.sf.oval.test.validator.ValidateWithMethodConstraintTest.class);
 		suite.addTestSuite(net.sf.oval.test.validator.ValidatorAssertValidTest.class);
+		suite.addTestSuite(net.sf.oval.test.validator.ValidationOptionsTest.class);
 		suite.addTestSuite(net.sf.oval.test.validator.XMLConfigurationTest.class);
 	}
 
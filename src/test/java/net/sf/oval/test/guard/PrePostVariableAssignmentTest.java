@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Portions created by Sebastian Thomschke are copyright (c) 2005-2013 Sebastian
+ * Thomschke.
+ *
+ * All Rights Reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Sebastian Thomschke - initial implementation.
+ *******************************************************************************/
+package net.sf.oval.test.guard;
+
+import junit.framework.TestCase;
+import net.sf.oval.guard.Guard;
+import net.sf.oval.guard.Guarded;
+import net.sf.oval.guard.PreCheck;
+
+/**
+ * Verifies an assignment to a variable within a condition is not visible to the other conditions of the method.
+ *
+ * @author Sebastian Thomschke
+ */
+public class PrePostVariableAssignmentTest extends TestCase
+{
+	@Guarded
+	public static class TestEntity
+	{
+		protected String name;
+
+		public void setName(final String name)
+		{
+			this.name = name;
+		}
+	}
+
+	private static PreCheck newPreCheck(final String language, final String expression)
+	{
+		final PreCheck check = new PreCheck();
+		check.setLanguage(language);
+		check.setExpression(expression);
+		return check;
+	}
+
+	private void assertAssignmentIsolated(final String language, final String assigningExpression) throws Exception
+	{
+		final Guard guard = new Guard();
+		TestGuardAspect.aspectOf().setGuard(guard);
+
+		guard.addChecks(TestEntity.class.getDeclaredMethod("setName", String.class), newPreCheck(language, assigningExpression),
+				newPreCheck(language, "name != null"));
+
+		// the second condition must see the argument, not the value assigned by the first condition
+		final TestEntity entity = new TestEntity();
+		entity.setName("Mike");
+		assertEquals("Mike", entity.name);
+	}
+
+	public void testJEXL() throws Exception
+	{
+		assertAssignmentIsolated("jexl", "(name = null) == null");
+	}
+
+	public void testMVEL() throws Exception
+	{
+		assertAssignmentIsolated("mvel", "name = null; true");
+	}
+}
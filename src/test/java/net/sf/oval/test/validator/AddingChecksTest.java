@@ -45,6 +45,14 @@ public class AddingChecksTest extends TestCase
 		}
 	}
 
+	protected static class TestEntitySubclass extends TestEntity
+	{
+		protected TestEntitySubclass(final String name)
+		{
+			super(name);
+		}
+	}
+
 	/**
 	 * programmatically add a NotNull constraint to the name field
 	 */
@@ -87,4 +95,25 @@ public class AddingChecksTest extends TestCase
 			// expected
 		}
 	}
+
+	/**
+	 * programmatically add and remove a NotNull constraint to the name field of the super class
+	 * after instances of the sub class have already been validated
+	 */
+	public void testAddRemoveConstraintToSuperClassField() throws Exception
+	{
+		final Validator validator = new Validator();
+
+		final TestEntitySubclass entity = new TestEntitySubclass(null);
+		assertEquals(0, validator.validate(entity).size());
+
+		final Field field = TestEntity.class.getDeclaredField("name");
+		final NotNullCheck notNullCheck = new NotNullCheck();
+
+		validator.addChecks(field, notNullCheck);
+		assertEquals(1, validator.validate(entity).size());
+
+		validator.removeChecks(field, notNullCheck);
+		assertEquals(0, validator.validate(entity).size());
+	}
 }
@@ -15,8 +15,12 @@ package net.sf.oval.test.validator;
 import junit.framework.TestCase;
 import net.sf.oval.ConstraintViolation;
 import net.sf.oval.Validator;
+import net.sf.oval.expression.ExpressionLanguageGroovyImpl;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 
 /**
  * @author Sebastian Thomschke
@@ -36,6 +40,48 @@ public class AssertGroovyTest extends TestCase
 		public String zipCode;
 	}
 
+	/**
+	 * evaluates the same expression with different values from many threads at the same time
+	 */
+	public void testConcurrentGroovyExpression() throws InterruptedException
+	{
+		final ExpressionLanguageGroovyImpl groovy = new ExpressionLanguageGroovyImpl();
+
+		final CountDownLatch startSignal = new CountDownLatch(1);
+		final boolean[] failed = {false};
+
+		final Thread[] threads = new Thread[16];
+		for (int i = 0; i < threads.length; i++)
+		{
+			final Map<String, Object> values = new HashMap<String, Object>();
+			values.put("_this", "thread" + i);
+			values.put("_value", "thread" + i);
+			threads[i] = new Thread()
+			{
+				@Override
+				public void run()
+				{
+					try
+					{
+						startSignal.await();
+						for (int j = 0; j < 10000; j++)
+							if (!groovy.evaluateAsBoolean("_this.startsWith('thread') && _value == _this && _this == _value", values))
+								failed[0] = true;
+					}
+					catch (final Exception ex)
+					{
+						failed[0] = true;
+					}
+				}
+			};
+			threads[i].start();
+		}
+		startSignal.countDown();
+		for (final Thread thread : threads)
+			thread.join();
+		assertFalse(failed[0]);
+	}
+
 	public void testGroovyExpression()
 	{
 		final Validator validator = new Validator();
@@ -12,9 +12,16 @@
  *******************************************************************************/
 package net.sf.oval.test.validator;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import junit.framework.TestCase;
 import net.sf.oval.Validator;
+import net.sf.oval.configuration.Configurer;
+import net.sf.oval.configuration.annotation.AnnotationsConfigurer;
+import net.sf.oval.configuration.pojo.elements.ClassConfiguration;
 import net.sf.oval.configuration.annotation.IsInvariant;
+import net.sf.oval.constraint.AssertValid;
 import net.sf.oval.constraint.MaxLength;
 import net.sf.oval.constraint.NotNull;
 
@@ -48,6 +55,69 @@ public class ConcurrencyTest extends TestCase
 		}
 	}
 
+	public static final class TestEntity3
+	{
+		@NotNull
+		public String name;
+
+		@AssertValid
+		public TestEntity3 parent;
+	}
+
+	private static final class ReentrantTestRunner implements Runnable
+	{
+		private final boolean[] failed;
+		private final Validator validator;
+		private final TestEntity3 sharedEntity;
+
+		public ReentrantTestRunner(final Validator validator, final TestEntity3 sharedEntity, final boolean[] failed)
+		{
+			this.validator = validator;
+			this.sharedEntity = sharedEntity;
+			this.failed = failed;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public void run()
+		{
+			try
+			{
+				// a private object graph with a cycle: child -> parent -> child
+				final TestEntity3 child = new TestEntity3();
+				final TestEntity3 parent = new TestEntity3();
+				child.parent = parent;
+				parent.parent = child;
+
+				for (int i = 0; i < 500; i++)
+				{
+					// the shared graph is invalid at two levels
+					assertEquals(1, validator.validate(sharedEntity).size());
+					assertEquals(1, validator.validate(sharedEntity.parent).size());
+
+					child.name = "child";
+					parent.name = null;
+					assertEquals(1, validator.validate(child).size());
+
+					parent.name = "parent";
+					assertEquals(0, validator.validate(child).size());
+					assertEquals(0, validator.validate(parent).size());
+				}
+			}
+			catch (final RuntimeException ex)
+			{
+				ex.printStackTrace();
+				failed[0] = true;
+			}
+			catch (final AssertionError ex)
+			{
+				ex.printStackTrace();
+				failed[0] = true;
+			}
+		}
+	}
+
 	private static final class TestRunner implements Runnable
 	{
 		private final boolean[] failed;
@@ -118,4 +188,94 @@ public class ConcurrencyTest extends TestCase
 		thread2.join();
 		assertFalse(failed[0]);
 	}
+
+	/**
+	 * validates cyclic object graphs with a shared validator from many threads at the same time
+	 */
+	public void testConcurrentReentrantValidation() throws InterruptedException
+	{
+		final Validator validator = new Validator();
+
+		final TestEntity3 sharedEntity = new TestEntity3();
+		sharedEntity.name = "shared";
+		sharedEntity.parent = new TestEntity3();
+		sharedEntity.parent.parent = sharedEntity;
+
+		final boolean[] failed = {false};
+
+		final Thread[] threads = new Thread[16];
+		for (int i = 0; i < threads.length; i++)
+		{
+			threads[i] = new Thread(new ReentrantTestRunner(validator, sharedEntity, failed));
+		}
+		for (final Thread thread : threads)
+		{
+			thread.start();
+		}
+		for (final Thread thread : threads)
+		{
+			thread.join();
+		}
+		assertFalse(failed[0]);
+	}
+
+	/**
+	 * multiple threads meeting the same class for the first time must not configure it more than once
+	 */
+	public void testConcurrentClassChecksInitialization() throws InterruptedException
+	{
+		final AtomicInteger configuredCount = new AtomicInteger();
+		final Configurer configurer = new AnnotationsConfigurer()
+		{
+			@Override
+			public ClassConfiguration getClassConfiguration(final Class< ? > clazz)
+			{
+				if (clazz == TestEntity1.class) configuredCount.incrementAndGet();
+				try
+				{
+					Thread.sleep(50);
+				}
+				catch (final InterruptedException ex)
+				{
+					Thread.currentThread().interrupt();
+				}
+				return super.getClassConfiguration(clazz);
+			}
+		};
+		final Validator validator = new Validator(configurer);
+
+		final CountDownLatch startSignal = new CountDownLatch(1);
+		final boolean[] failed = {false};
+
+		final Thread[] threads = new Thread[16];
+		for (int i = 0; i < threads.length; i++)
+		{
+			threads[i] = new Thread()
+			{
+				@Override
+				public void run()
+				{
+					try
+					{
+						startSignal.await();
+						if (validator.validate(new TestEntity1()).size() != 1) failed[0] = true;
+					}
+					catch (final InterruptedException ex)
+					{
+						failed[0] = true;
+					}
+				}
+			};
+			threads[i].start();
+		}
+		startSignal.countDown();
+		for (final Thread thread : threads)
+		{
+			thread.join();
+		}
+		assertFalse(failed[0]);
+		assertEquals(1, configuredCount.get());
+		assertEquals(1, validator.getClassChecksCacheMisses());
+		assertEquals(threads.length - 1, validator.getClassChecksCacheHits());
+	}
 }
@@ -14,10 +14,17 @@ package net.sf.oval.test.validator;
 
 import junit.framework.TestCase;
 import net.sf.oval.Check;
+import net.sf.oval.ConstraintViolation;
+import net.sf.oval.Validator;
+import net.sf.oval.constraint.AssertValid;
+import net.sf.oval.constraint.NotNull;
 import net.sf.oval.internal.util.ReflectionUtils;
+import net.sf.oval.localization.locale.ThreadLocalLocaleProvider;
 
 import java.lang.annotation.Annotation;
 import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
 import java.util.ResourceBundle;
 
 /**
@@ -25,6 +32,89 @@ import java.util.ResourceBundle;
  */
 public class ConstraintViolationMessagesTest extends TestCase
 {
+	protected static class Address
+	{
+		@NotNull(message = "STREET")
+		public String street;
+	}
+
+	protected static class Person
+	{
+		@NotNull(message = "{context} is null")
+		public String name;
+
+		@AssertValid(message = "ADDRESS")
+		public Address address = new Address();
+	}
+
+	public void testLazyMessageRendering()
+	{
+		final MessageCountingValidator validator = new MessageCountingValidator();
+
+		final List<ConstraintViolation> violations = validator.validate(new Person());
+		assertEquals(2, violations.size());
+		assertEquals(0, validator.renderedMessages);
+
+		assertEquals(Person.class.getName() + ".name is null", violations.get(0).getMessage());
+		assertEquals(1, validator.renderedMessages);
+
+		// the rendered message is memoized
+		assertEquals(Person.class.getName() + ".name is null", violations.get(0).getMessage());
+		assertEquals(1, validator.renderedMessages);
+
+		assertEquals("ADDRESS", violations.get(1).getMessage());
+		assertEquals("STREET", violations.get(1).getCauses()[0].getMessage());
+		assertEquals(3, validator.renderedMessages);
+	}
+
+	protected static class Customer
+	{
+		@NotNull
+		public String name;
+	}
+
+	/**
+	 * the lazily rendered message must use the locale of the validation, not the one current when it is read
+	 */
+	public void testLazyMessageLocale() throws InterruptedException
+	{
+		final ThreadLocalLocaleProvider localeProvider = (ThreadLocalLocaleProvider) Validator.getLocaleProvider();
+		final Validator validator = new Validator();
+		try
+		{
+			localeProvider.setLocale(Locale.GERMAN);
+			final List<ConstraintViolation> violations = validator.validate(new Customer());
+			assertEquals(1, violations.size());
+
+			localeProvider.setLocale(Locale.ENGLISH);
+			assertEquals(Customer.class.getName() + ".name darf nicht Null sein", violations.get(0).getMessage());
+
+			// read the message of a violation on another thread
+			localeProvider.setLocale(Locale.GERMAN);
+			final ConstraintViolation violation = validator.validate(new Customer()).get(0);
+			final String[] message = new String[1];
+			final Thread thread = new Thread()
+			{
+				@Override
+				public void run()
+				{
+					message[0] = violation.getMessage();
+				}
+			};
+			thread.start();
+			thread.join();
+			assertEquals(Customer.class.getName() + ".name darf nicht Null sein", message[0]);
+
+			// the locale of the violation does not leak into messages rendered afterwards
+			localeProvider.setLocale(Locale.ENGLISH);
+			assertEquals(Customer.class.getName() + ".name cannot be null", validator.validate(new Customer()).get(0)
+					.getMessage());
+		}
+		finally
+		{
+			localeProvider.setLocale(null);
+		}
+	}
 
 	public void testMessages() throws ClassNotFoundException, InstantiationException, IllegalAccessException
 	{
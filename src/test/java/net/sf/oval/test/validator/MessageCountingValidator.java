@@ -0,0 +1,36 @@
+/*******************************************************************************
+ * Portions created by Sebastian Thomschke are copyright (c) 2005-2013 Sebastian
+ * Thomschke.
+ *
+ * All Rights Reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Sebastian Thomschke - initial implementation.
+ *******************************************************************************/
+package net.sf.oval.test.validator;
+
+import java.util.Map;
+
+import net.sf.oval.Validator;
+import net.sf.oval.context.OValContext;
+
+/**
+ * Validator counting the constraint violation messages it rendered.
+ *
+ * @author Sebastian Thomschke
+ */
+class MessageCountingValidator extends Validator
+{
+	int renderedMessages;
+
+	@Override
+	protected String renderMessage(final OValContext context, final Object value, final String messageKey,
+			final Map<String, ? > messageValues)
+	{
+		renderedMessages++;
+		return super.renderMessage(context, value, messageKey, messageValues);
+	}
+}
@@ -17,6 +17,7 @@ import net.sf.oval.ConstraintViolation;
 import net.sf.oval.Validator;
 import net.sf.oval.constraint.AssertValid;
 import net.sf.oval.constraint.NotNull;
+import net.sf.oval.guard.Guard;
 
 import java.util.List;
 
@@ -62,4 +63,16 @@ public class ObjectGraphTest extends TestCase
 		assertEquals(1, violations.size());
 	}
 
+	public void testObjectGraphWithGuard()
+	{
+		final ClassA classA = new ClassA();
+		classA.classB = new ClassB();
+		classA.classC = new ClassC();
+		classA.classC.classA = classA;
+		classA.classB.classC = classA.classC;
+
+		final Validator validator = new Guard();
+		final List<ConstraintViolation> violations = validator.validate(classA);
+		assertEquals(1, violations.size());
+	}
 }
@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Portions created by Sebastian Thomschke are copyright (c) 2005-2013 Sebastian
+ * Thomschke.
+ *
+ * All Rights Reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Sebastian Thomschke - initial implementation.
+ *******************************************************************************/
+package net.sf.oval.test.validator;
+
+import junit.framework.TestCase;
+import net.sf.oval.Validator;
+import net.sf.oval.configuration.annotation.IsInvariant;
+import net.sf.oval.constraint.NotNull;
+import net.sf.oval.context.FieldContext;
+import net.sf.oval.context.MethodReturnValueContext;
+
+/**
+ * Verifies values are read via overridden resolveValue methods.
+ *
+ * @author Sebastian Thomschke
+ */
+public class ResolveValueTest extends TestCase
+{
+	protected static class Entity
+	{
+		@NotNull
+		public String name;
+
+		@NotNull
+		@IsInvariant
+		public String getCity()
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * resolves <code>null</code> values to a default value, e.g. like a validator unwrapping lazily loaded values
+	 */
+	protected static class DefaultingValidator extends Validator
+	{
+		int resolvedValues;
+
+		@Override
+		protected Object resolveValue(final FieldContext ctx, final Object validatedObject)
+		{
+			resolvedValues++;
+			final Object value = super.resolveValue(ctx, validatedObject);
+			return value == null ? "default" : value;
+		}
+
+		@Override
+		protected Object resolveValue(final MethodReturnValueContext ctx, final Object validatedObject)
+		{
+			resolvedValues++;
+			final Object value = super.resolveValue(ctx, validatedObject);
+			return value == null ? "default" : value;
+		}
+	}
+
+	protected static class SubclassedDefaultingValidator extends DefaultingValidator
+	{
+		// inherits the overridden methods
+	}
+
+	public void testResolveValue()
+	{
+		assertEquals(2, new Validator().validate(new Entity()).size());
+
+		final DefaultingValidator validator = new DefaultingValidator();
+		assertEquals(0, validator.validate(new Entity()).size());
+		assertEquals(2, validator.resolvedValues);
+
+		assertEquals(0, new SubclassedDefaultingValidator().validate(new Entity()).size());
+	}
+}
@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Portions created by Sebastian Thomschke are copyright (c) 2005-2013 Sebastian
+ * Thomschke.
+ *
+ * All Rights Reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Sebastian Thomschke - initial implementation.
+ *******************************************************************************/
+package net.sf.oval.test.validator;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+import net.sf.oval.ConstraintViolation;
+import net.sf.oval.ValidationOptions;
+import net.sf.oval.Validator;
+import net.sf.oval.constraint.AssertValid;
+import net.sf.oval.constraint.NotNull;
+
+/**
+ * @author Sebastian Thomschke
+ */
+public class ValidationOptionsTest extends TestCase
+{
+	protected static class Address
+	{
+		@NotNull
+		public String street;
+
+		@NotNull
+		public String city;
+	}
+
+	protected static class Person
+	{
+		@NotNull
+		public String firstName;
+
+		@NotNull
+		public String lastName;
+
+		@NotNull(profiles = "profile1")
+		public String zipCode;
+
+		@AssertValid
+		public Address address;
+	}
+
+	protected static class Node
+	{
+		@NotNull
+		public String name;
+
+		@AssertValid
+		public Node next;
+	}
+
+	public void testFailFast()
+	{
+		final Validator validator = new Validator();
+		final Person p = new Person();
+
+		assertEquals(3, validator.validate(p).size());
+
+		final List<ConstraintViolation> violations = validator.validate(p, new ValidationOptions.Builder().failFast(true).build());
+		assertEquals(1, violations.size());
+	}
+
+	public void testIsValid()
+	{
+		final MessageCountingValidator validator = new MessageCountingValidator();
+		final Person p = new Person();
+
+		assertFalse(validator.isValid(p));
+		assertEquals(0, validator.renderedMessages);
+
+		p.firstName = "Mike";
+		p.lastName = "Mahoney";
+		p.zipCode = "12345";
+		assertTrue(validator.isValid(p));
+
+		// violations of referenced objects are detected too
+		p.address = new Address();
+		assertFalse(validator.isValid(p));
+		assertEquals(0, validator.renderedMessages);
+
+		p.address.street = "Main Street";
+		p.address.city = "Springfield";
+		assertTrue(validator.isValid(p));
+
+		// the validator is still usable for regular validations afterwards
+		p.lastName = null;
+		final List<ConstraintViolation> violations = validator.validate(p);
+		assertEquals(1, violations.size());
+		assertEquals(Person.class.getName() + ".lastName cannot be null", violations.get(0).getMessage());
+		assertEquals(1, validator.renderedMessages);
+	}
+
+	public void testMaxViolations()
+	{
+		final Validator validator = new Validator();
+		final Person p = new Person();
+		p.address = new Address();
+
+		assertEquals(2, validator.validate(p, new ValidationOptions.Builder().maxViolations(2).build()).size());
+		assertEquals(4, validator.validate(p, new ValidationOptions.Builder().maxViolations(0).build()).size());
+		assertEquals(4, validator.validate(p, ValidationOptions.DEFAULT).size());
+	}
+
+	private static int countViolations(final ConstraintViolation[] violations)
+	{
+		if (violations == null) return 0;
+		int count = 0;
+		for (final ConstraintViolation violation : violations)
+		{
+			final int causes = countViolations(violation.getCauses());
+			count += causes == 0 ? 1 : causes;
+		}
+		return count;
+	}
+
+	/**
+	 * the maximum number of violations applies to the whole object graph, not to each nesting level
+	 */
+	public void testMaxViolationsNested()
+	{
+		final Validator validator = new Validator();
+		final Node node = new Node();
+		node.next = new Node();
+		node.next.next = new Node();
+		node.next.next.next = new Node();
+
+		List<ConstraintViolation> violations = validator.validate(node);
+		assertEquals(4, countViolations(violations.toArray(new ConstraintViolation[violations.size()])));
+
+		violations = validator.validate(node, new ValidationOptions.Builder().maxViolations(2).build());
+		assertEquals(2, countViolations(violations.toArray(new ConstraintViolation[violations.size()])));
+
+		violations = validator.validate(node, new ValidationOptions.Builder().failFast(true).build());
+		assertEquals(1, violations.size());
+		assertEquals(1, countViolations(violations.toArray(new ConstraintViolation[violations.size()])));
+	}
+
+	public void testProfiles()
+	{
+		final Validator validator = new Validator();
+		final Person p = new Person();
+
+		final ValidationOptions options = new ValidationOptions.Builder().profiles("profile1").build();
+		final List<ConstraintViolation> violations = validator.validate(p, options);
+		assertEquals(1, violations.size());
+		assertEquals(Person.class.getName() + ".zipCode cannot be null", violations.get(0).getMessage());
+	}
+
+	public void testProfilesAreCopied()
+	{
+		final Validator validator = new Validator();
+		final Person p = new Person();
+
+		final String[] profiles = {"profile1"};
+		final ValidationOptions options = new ValidationOptions.Builder().profiles(profiles).build();
+		profiles[0] = "profile2";
+		options.getProfiles()[0] = "profile2";
+
+		assertEquals("profile1", options.getProfiles()[0]);
+		assertEquals(Person.class.getName() + ".zipCode cannot be null", validator.validate(p, options).get(0).getMessage());
+	}
+}